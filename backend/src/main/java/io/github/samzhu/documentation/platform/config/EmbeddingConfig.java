@@ -0,0 +1,49 @@
+package io.github.samzhu.documentation.platform.config;
+
+import io.github.samzhu.documentation.platform.infrastructure.embedding.EmbeddingProperties;
+import io.github.samzhu.documentation.platform.infrastructure.embedding.EmbeddingScheduler;
+import io.github.samzhu.documentation.platform.infrastructure.embedding.QueryEmbeddingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 嵌入請求相關配置
+ * <p>
+ * 啟用嵌入排程器的配置屬性，並建立查詢向量快取。
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(EmbeddingProperties.class)
+public class EmbeddingConfig {
+
+    /**
+     * 建立查詢向量快取
+     * <p>
+     * 未命中時經由 EmbeddingScheduler 以查詢優先權嵌入；模型名稱與維度納入快取鍵。
+     * </p>
+     *
+     * @param embeddingScheduler 嵌入請求排程器
+     * @param properties         嵌入配置（platform.embedding.query-cache.*）
+     * @param meterRegistry      指標註冊表
+     * @param model              嵌入模型名稱
+     * @param dimensions         嵌入維度
+     * @return 查詢向量快取
+     */
+    @Bean
+    public QueryEmbeddingCache queryEmbeddingCache(
+            EmbeddingScheduler embeddingScheduler,
+            EmbeddingProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${spring.ai.google.genai.embedding.text.options.model:default}") String model,
+            @Value("${spring.ai.google.genai.embedding.text.options.dimensions:0}") int dimensions) {
+        EmbeddingProperties.QueryCache config = properties.getQueryCache();
+        return new QueryEmbeddingCache(embeddingScheduler::embed, model + "/" + dimensions,
+                config.isEnabled(), config.getMaxSize(), Duration.ofMillis(config.getTtlMs()),
+                Duration.ofMillis(config.getWaitTimeoutMs()), meterRegistry);
+    }
+}
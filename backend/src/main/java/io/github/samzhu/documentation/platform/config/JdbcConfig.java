@@ -3,6 +3,7 @@ package io.github.samzhu.documentation.platform.config;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.PgVectorCodec;
 import org.postgresql.util.PGobject;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -36,6 +37,7 @@ public class JdbcConfig extends AbstractJdbcConfiguration {
                 new JsonbToMapConverter(),
                 new TimestampToOffsetDateTimeConverter(),
                 new VectorToFloatArrayConverter(),
+                new VectorBinaryToFloatArrayConverter(),
                 new FloatArrayToVectorConverter()
         ));
     }
@@ -96,6 +98,7 @@ public class JdbcConfig extends AbstractJdbcConfiguration {
      * <p>
      * 將 PostgreSQL pgvector 的 vector 類型轉換為 Java float[]。
      * vector 格式: "[0.1,0.2,0.3,...]"
+     * 僅用於直接選取 embedding 欄位的查詢（如 findById）；大量讀取應改以 vector_send 取得二進位格式。
      * </p>
      */
     @ReadingConverter
@@ -122,6 +125,21 @@ public class JdbcConfig extends AbstractJdbcConfiguration {
         }
     }
 
+    /**
+     * bytea (vector_send) -> float[] 讀取轉換器
+     * <p>
+     * 查詢以 {@code vector_send(embedding) AS embedding} 選取向量時，
+     * 直接解碼 pgvector 二進位格式，不經過文字解析。
+     * </p>
+     */
+    @ReadingConverter
+    public static class VectorBinaryToFloatArrayConverter implements Converter<byte[], float[]> {
+        @Override
+        public float[] convert(byte[] source) {
+            return PgVectorCodec.decode(source);
+        }
+    }
+
     /**
      * float[] -> PGobject (vector) 寫入轉換器
      * <p>
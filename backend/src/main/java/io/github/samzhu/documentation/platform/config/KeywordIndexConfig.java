@@ -0,0 +1,48 @@
+package io.github.samzhu.documentation.platform.config;
+
+import io.github.samzhu.documentation.platform.infrastructure.keyword.KeywordIndexProperties;
+import io.github.samzhu.documentation.platform.infrastructure.keyword.LuceneChunkIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 關鍵字搜尋引擎配置類別
+ * <p>
+ * 註冊 {@link KeywordIndexProperties}（platform.search.keyword.*）；
+ * engine=lucene 時建立 {@link LuceneChunkIndex}，未建立時關鍵字搜尋使用 PostgreSQL 全文檢索。
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(KeywordIndexProperties.class)
+public class KeywordIndexConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(KeywordIndexConfig.class);
+
+    /**
+     * 建立 Lucene 區塊關鍵字索引（應用程式關閉時關閉所有已開啟的索引）
+     *
+     * @param jdbcTemplate          JDBC 操作模板
+     * @param properties            關鍵字搜尋引擎配置
+     * @param virtualThreadExecutor 載入與重建索引的執行器
+     * @return 區塊關鍵字索引
+     */
+    @Bean
+    @ConditionalOnProperty(name = "platform.search.keyword.engine", havingValue = "lucene")
+    public LuceneChunkIndex luceneChunkIndex(JdbcTemplate jdbcTemplate,
+                                             KeywordIndexProperties properties,
+                                             ExecutorService virtualThreadExecutor) {
+        Path indexDir = Path.of(properties.getIndexDir()).toAbsolutePath().normalize();
+        log.info("初始化 Lucene 關鍵字索引，目錄: {}", indexDir);
+        return new LuceneChunkIndex(jdbcTemplate, indexDir, virtualThreadExecutor,
+                Duration.ofMillis(properties.getLoadTimeoutMs()));
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.samzhu.documentation.platform.config;
+
+import io.github.samzhu.documentation.platform.infrastructure.parser.AsciiDocProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文件解析器相關配置
+ * <p>
+ * 啟用 AsciiDoc 解析器的執行個體池配置屬性。
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties(AsciiDocProperties.class)
+public class ParserConfig {
+}
@@ -1,16 +1,23 @@
 package io.github.samzhu.documentation.platform.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.samzhu.documentation.platform.infrastructure.embedding.EmbeddingProperties;
+import io.github.samzhu.documentation.platform.infrastructure.embedding.EmbeddingScheduler;
+import io.github.samzhu.documentation.platform.infrastructure.embedding.QueryEmbeddingCache;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.ChunkPartitionManager;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.ChunkStorageProperties;
 import io.github.samzhu.documentation.platform.infrastructure.vectorstore.DocumentChunkVectorStore;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.VectorIndexProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
 import org.springframework.ai.vectorstore.pgvector.autoconfigure.PgVectorStoreProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 /**
  * VectorStore 配置類別
@@ -22,8 +29,13 @@ import org.springframework.jdbc.core.JdbcTemplate;
  * 使用 @Primary 註解確保在有多個 VectorStore 實作時，
  * 系統預設使用 DocumentChunkVectorStore。
  * </p>
+ * <p>
+ * 同時註冊 {@link VectorIndexProperties}（platform.vector-index.*），
+ * 供 VectorIndexManager 管理 HNSW 索引；以及 {@link ChunkStorageProperties}（platform.chunk-storage.*）。
+ * </p>
  */
 @Configuration
+@EnableConfigurationProperties({VectorIndexProperties.class, ChunkStorageProperties.class})
 public class VectorStoreConfig {
 
     private static final Logger log = LoggerFactory.getLogger(VectorStoreConfig.class);
@@ -33,31 +45,47 @@ public class VectorStoreConfig {
      * <p>
      * 這是系統主要的 VectorStore 實作，支援：
      * <ul>
-     *   <li>批次 embedding 生成（使用 EmbeddingModel）</li>
+     *   <li>批次 embedding 生成（經由 EmbeddingScheduler 呼叫 EmbeddingModel）</li>
      *   <li>向量相似度搜尋（使用 pgvector）</li>
-     *   <li>透過 JSONPath 進行 metadata 過濾</li>
-     *   <li>使用 JdbcTemplate + PGvector 物件（參考 Spring AI 官方實作）</li>
+     *   <li>依 version_id / library_id 欄位過濾（其餘 metadata 以 JSONPath 過濾）</li>
+     *   <li>使用 JdbcTemplate 綁定參數，向量以 float[] 二進位傳送（參考 Spring AI 官方實作）</li>
      *   <li>與 Spring AI RAG Advisor 等功能相容</li>
      * </ul>
      * </p>
      *
      * @param jdbcTemplate            JDBC 操作模板
-     * @param embeddingModel          嵌入模型（Google GenAI 或 Mock）
+     * @param embeddingScheduler      嵌入請求排程器（包裝 Google GenAI 或 Mock 嵌入模型）
      * @param objectMapper            JSON 序列化工具
      * @param pgVectorStoreProperties PgVector 配置屬性（從 spring.ai.vectorstore.pgvector.* 讀取）
-     * @return VectorStore 實例
+     * @param embeddingProperties     嵌入配置（寫入管線深度、延遲嵌入模式）
+     * @param vectorIndexProperties   向量索引配置（HNSW 查詢參數）
+     * @param chunkPartitionManager   document_chunks 分區管理器
+     * @param chunkStorageProperties  區塊文字儲存配置
+     * @param queryEmbeddingCache     查詢向量快取
+     * @param transactionManager      交易管理器（HNSW 查詢參數的短交易）
+     * @return VectorStore 實例（以實作型別宣告，SearchService 可直接使用搜尋結果投影）
      */
     @Bean
     @Primary
-    public VectorStore documentChunkVectorStore(
+    public DocumentChunkVectorStore documentChunkVectorStore(
             JdbcTemplate jdbcTemplate,
-            EmbeddingModel embeddingModel,
+            EmbeddingScheduler embeddingScheduler,
             ObjectMapper objectMapper,
-            PgVectorStoreProperties pgVectorStoreProperties) {
+            PgVectorStoreProperties pgVectorStoreProperties,
+            EmbeddingProperties embeddingProperties,
+            VectorIndexProperties vectorIndexProperties,
+            ChunkPartitionManager chunkPartitionManager,
+            ChunkStorageProperties chunkStorageProperties,
+            QueryEmbeddingCache queryEmbeddingCache,
+            PlatformTransactionManager transactionManager) {
 
         int dimensions = pgVectorStoreProperties.getDimensions();
-        log.info("初始化 DocumentChunkVectorStore，向量維度: {}", dimensions);
+        boolean hnswEnabled = vectorIndexProperties.isEnabled()
+                && pgVectorStoreProperties.getIndexType() == PgVectorStore.PgIndexType.HNSW;
+        log.info("初始化 DocumentChunkVectorStore，向量維度: {}，HNSW: {}", dimensions, hnswEnabled);
 
-        return new DocumentChunkVectorStore(jdbcTemplate, embeddingModel, objectMapper, dimensions);
+        return new DocumentChunkVectorStore(jdbcTemplate, embeddingScheduler, objectMapper, dimensions,
+                embeddingProperties, vectorIndexProperties, hnswEnabled, chunkPartitionManager,
+                chunkStorageProperties, queryEmbeddingCache, transactionManager);
     }
 }
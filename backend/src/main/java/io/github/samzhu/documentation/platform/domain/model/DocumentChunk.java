@@ -20,6 +20,10 @@ import java.util.Map;
  * 用於語意搜尋。區塊大小通常為 500-1000 tokens。
  * </p>
  * <p>
+ * 區塊文字可能只以 startOffset / endOffset 參照 documents.content（content 為 null），
+ * 需由所屬文件內容還原，見 {@link #withContentFrom(int[])}。
+ * </p>
+ * <p>
  * 使用 @Value 實現 Immutable Entity，@Version 進行樂觀鎖定。
  * version = null 表示新實體（執行 INSERT），version 有值表示既有實體（執行 UPDATE）。
  * </p>
@@ -42,10 +46,19 @@ public class DocumentChunk {
     @Column("chunk_index")
     Integer chunkIndex;
 
-    /** 區塊內容 */
+    /** 區塊內容（以位置參照文件內容時為 null） */
     @Size(max = 10000)
+    @With
     String content;
 
+    /** 在 documents.content 的起始位置（code point，含） */
+    @Column("start_offset")
+    Integer startOffset;
+
+    /** 在 documents.content 的結束位置（code point，不含） */
+    @Column("end_offset")
+    Integer endOffset;
+
     /** 向量嵌入（768 維度，使用 gemini-embedding-001） */
     float[] embedding;
 
@@ -87,7 +100,23 @@ public class DocumentChunk {
      */
     public static DocumentChunk create(String id, String documentId, int chunkIndex,
                                         String content, float[] embedding, int tokenCount) {
-        return new DocumentChunk(id, documentId, chunkIndex, content,
+        return new DocumentChunk(id, documentId, chunkIndex, content, null, null,
                 embedding, tokenCount, Map.of(), null, null, null);
     }
+
+    /**
+     * 由所屬文件內容還原區塊文字
+     * <p>
+     * content 已有值或缺少位置時原樣回傳。
+     * </p>
+     *
+     * @param documentCodePoints 所屬文件內容的 code point 陣列（{@code content.codePoints().toArray()}）
+     * @return 含區塊文字的實例
+     */
+    public DocumentChunk withContentFrom(int[] documentCodePoints) {
+        if (content != null || startOffset == null || endOffset == null) {
+            return this;
+        }
+        return withContent(new String(documentCodePoints, startOffset, endOffset - startOffset));
+    }
 }
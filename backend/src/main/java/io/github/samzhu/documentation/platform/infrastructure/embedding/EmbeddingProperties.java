@@ -0,0 +1,361 @@
+package io.github.samzhu.documentation.platform.infrastructure.embedding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 嵌入請求配置
+ * <p>
+ * 控制嵌入排程器的批次大小、並行度自動調整（AIMD）與重試退避參數。
+ * </p>
+ *
+ * <pre>
+ * platform:
+ *   embedding:
+ *     pipeline-depth: 1
+ *     deferred: false
+ *     query-cache:
+ *       enabled: true
+ *       max-size: 5000
+ *       ttl-ms: 3600000
+ *       wait-timeout-ms: 30000
+ *     backfill:
+ *       enabled: true
+ *       batch-size: 200
+ *       interval-ms: 10000
+ *       max-attempts: 5
+ *       claim-timeout-ms: 600000
+ *     scheduler:
+ *       max-tokens-per-batch: 20000
+ *       max-items-per-batch: 100
+ *       initial-concurrency: 2
+ *       min-concurrency: 1
+ *       max-concurrency: 8
+ *       latency-target-ms: 10000
+ *       max-retries: 6
+ *       initial-backoff-ms: 500
+ *       max-backoff-ms: 60000
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "platform.embedding")
+public class EmbeddingProperties {
+
+    /**
+     * 排程器配置
+     */
+    private Scheduler scheduler = new Scheduler();
+
+    /**
+     * 寫入向量時預先送出的 embedding 批次數下限（1 = 至少雙緩衝，0 = 不設下限）
+     * <p>
+     * 實際預先送出的批次數取此值與排程器目前並行上限的較大者，不會限制 AIMD 調升並行度。
+     * </p>
+     */
+    private int pipelineDepth = 1;
+
+    /**
+     * 延遲嵌入模式：區塊先以 NULL 向量寫入，由背景補齊作業產生 embedding
+     */
+    private boolean deferred = false;
+
+    /**
+     * 背景補齊作業配置
+     */
+    private Backfill backfill = new Backfill();
+
+    /**
+     * 查詢向量快取配置
+     */
+    private QueryCache queryCache = new QueryCache();
+
+    // Getters and Setters
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    public void setPipelineDepth(int pipelineDepth) {
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    public void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    public Backfill getBackfill() {
+        return backfill;
+    }
+
+    public void setBackfill(Backfill backfill) {
+        this.backfill = backfill;
+    }
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    public void setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * 查詢向量快取配置
+     */
+    public static class QueryCache {
+        /**
+         * 是否啟用查詢向量快取
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多快取的查詢數（768 維向量每筆約 3 KB）
+         */
+        private long maxSize = 5000;
+
+        /**
+         * 快取存活時間（毫秒）
+         */
+        private long ttlMs = 3600000;
+
+        /**
+         * 等待其他呼叫端進行中的相同查詢嵌入的時間上限（毫秒）
+         */
+        private long waitTimeoutMs = 30000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getTtlMs() {
+            return ttlMs;
+        }
+
+        public void setTtlMs(long ttlMs) {
+            this.ttlMs = ttlMs;
+        }
+
+        public long getWaitTimeoutMs() {
+            return waitTimeoutMs;
+        }
+
+        public void setWaitTimeoutMs(long waitTimeoutMs) {
+            this.waitTimeoutMs = waitTimeoutMs;
+        }
+    }
+
+    /**
+     * 背景補齊作業配置
+     */
+    public static class Backfill {
+        /**
+         * 是否啟用背景補齊作業
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每次認領的區塊數
+         */
+        private int batchSize = 200;
+
+        /**
+         * 輪詢間隔（毫秒）
+         */
+        private long intervalMs = 10000;
+
+        /**
+         * 單一區塊嵌入失敗（無法重試的錯誤）的次數上限，達上限後不再認領
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * 認領租約（毫秒）：認領後未寫回的區塊於租約到期後可再被認領，
+         * 也作為失敗區塊下次重試前的等待時間
+         */
+        private long claimTimeoutMs = 600000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getClaimTimeoutMs() {
+            return claimTimeoutMs;
+        }
+
+        public void setClaimTimeoutMs(long claimTimeoutMs) {
+            this.claimTimeoutMs = claimTimeoutMs;
+        }
+    }
+
+    /**
+     * 排程器配置
+     */
+    public static class Scheduler {
+        /**
+         * 單一請求的估算 token 上限
+         */
+        private int maxTokensPerBatch = 20000;
+
+        /**
+         * 單一請求的文字數上限（Google GenAI 限制 100）
+         */
+        private int maxItemsPerBatch = 100;
+
+        /**
+         * 初始並行請求數
+         */
+        private int initialConcurrency = 2;
+
+        /**
+         * 並行請求數下限
+         */
+        private int minConcurrency = 1;
+
+        /**
+         * 並行請求數上限
+         */
+        private int maxConcurrency = 8;
+
+        /**
+         * 延遲目標（毫秒），超過時降低並行度
+         */
+        private long latencyTargetMs = 10000;
+
+        /**
+         * 最大重試次數
+         */
+        private int maxRetries = 6;
+
+        /**
+         * 初始退避時間（毫秒）
+         */
+        private long initialBackoffMs = 500;
+
+        /**
+         * 最大退避時間（毫秒）
+         */
+        private long maxBackoffMs = 60000;
+
+        public int getMaxTokensPerBatch() {
+            return maxTokensPerBatch;
+        }
+
+        public void setMaxTokensPerBatch(int maxTokensPerBatch) {
+            this.maxTokensPerBatch = maxTokensPerBatch;
+        }
+
+        public int getMaxItemsPerBatch() {
+            return maxItemsPerBatch;
+        }
+
+        public void setMaxItemsPerBatch(int maxItemsPerBatch) {
+            this.maxItemsPerBatch = maxItemsPerBatch;
+        }
+
+        public int getInitialConcurrency() {
+            return initialConcurrency;
+        }
+
+        public void setInitialConcurrency(int initialConcurrency) {
+            this.initialConcurrency = initialConcurrency;
+        }
+
+        public int getMinConcurrency() {
+            return minConcurrency;
+        }
+
+        public void setMinConcurrency(int minConcurrency) {
+            this.minConcurrency = minConcurrency;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public long getLatencyTargetMs() {
+            return latencyTargetMs;
+        }
+
+        public void setLatencyTargetMs(long latencyTargetMs) {
+            this.latencyTargetMs = latencyTargetMs;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public long getInitialBackoffMs() {
+            return initialBackoffMs;
+        }
+
+        public void setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+        }
+
+        public long getMaxBackoffMs() {
+            return maxBackoffMs;
+        }
+
+        public void setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+        }
+    }
+}
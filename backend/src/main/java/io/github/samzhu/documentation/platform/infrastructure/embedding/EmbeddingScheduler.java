@@ -0,0 +1,405 @@
+package io.github.samzhu.documentation.platform.infrastructure.embedding;
+
+import com.google.genai.errors.ApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 嵌入請求排程器
+ * <p>
+ * 所有對 EmbeddingModel 的呼叫（同步時的批次嵌入與查詢時的單筆嵌入）皆經由此排程器：
+ * </p>
+ * <ul>
+ *   <li>依估算 token 數（而非固定筆數）切分批次</li>
+ *   <li>多個批次以 Virtual Threads 並行送出，並行度由 {@link AimdConcurrencyLimiter} 依延遲與限流回應調整</li>
+ *   <li>限流（429）與暫時性錯誤（5xx、逾時）以抖動指數退避重試，並遵守 Retry-After；
+ *       錯誤依例外型別與 HTTP 狀態碼分類，不比對錯誤訊息文字</li>
+ * </ul>
+ */
+@Component
+public class EmbeddingScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingScheduler.class);
+
+    // Gemini 錯誤內容中的 RetryInfo，例如 "retryDelay": "30s"
+    private static final Pattern RETRY_DELAY_PATTERN =
+            Pattern.compile("retryDelay\"?\\s*[:=]\\s*\"?(\\d+(?:\\.\\d+)?)s");
+
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddingProperties.Scheduler config;
+    private final ExecutorService executor;
+    private final AimdConcurrencyLimiter limiter;
+    private final Timer requestTimer;
+    private final Counter throttledCounter;
+    private final Counter retryCounter;
+
+    public EmbeddingScheduler(EmbeddingModel embeddingModel,
+                              EmbeddingProperties properties,
+                              ExecutorService virtualThreadExecutor,
+                              MeterRegistry meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.config = properties.getScheduler();
+        this.executor = virtualThreadExecutor;
+        this.limiter = new AimdConcurrencyLimiter(config.getInitialConcurrency(),
+                config.getMinConcurrency(), config.getMaxConcurrency(), config.getLatencyTargetMs());
+
+        Gauge.builder("embedding.scheduler.concurrency.limit", limiter, AimdConcurrencyLimiter::getLimit)
+                .description("AIMD 調整後的嵌入請求並行上限")
+                .register(meterRegistry);
+        Gauge.builder("embedding.scheduler.in.flight", limiter, AimdConcurrencyLimiter::getInFlight)
+                .description("進行中的嵌入請求數")
+                .register(meterRegistry);
+        this.requestTimer = Timer.builder("embedding.scheduler.request")
+                .description("嵌入請求延遲")
+                .register(meterRegistry);
+        this.throttledCounter = Counter.builder("embedding.scheduler.throttled")
+                .description("遭到限流的嵌入請求數")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("embedding.scheduler.retries")
+                .description("嵌入請求重試次數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 批次範圍（左閉右開）
+     *
+     * @param from 起始索引
+     * @param to   結束索引（不含）
+     */
+    public record BatchRange(int from, int to) {
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * 查詢時的單筆嵌入（優先取得並行名額）
+     *
+     * @param text 查詢文字
+     * @return 向量
+     */
+    public float[] embed(String text) {
+        return execute(() -> embeddingModel.embed(text), true);
+    }
+
+    /**
+     * 批次嵌入所有文字
+     * <p>
+     * 依 token 數切分後並行送出，結果依輸入順序回傳。任一批次最終失敗時取消其餘批次並拋出例外。
+     * </p>
+     *
+     * @param texts 文字列表
+     * @return 與輸入順序一致的向量列表
+     */
+    public List<float[]> embedAll(List<String> texts) {
+        if (texts == null || texts.isEmpty()) {
+            return List.of();
+        }
+
+        List<CompletableFuture<List<float[]>>> futures = partition(texts).stream()
+                .map(range -> submit(texts.subList(range.from(), range.to())))
+                .toList();
+
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        try {
+            for (CompletableFuture<List<float[]>> future : futures) {
+                embeddings.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw unwrap(e);
+        }
+        return embeddings;
+    }
+
+    /**
+     * 非同步送出單一批次
+     * <p>
+     * 以 {@code cancel(true)} 取消回傳的 Future 時會中斷執行中的工作（等待名額、退避等待或進行中的請求）。
+     * </p>
+     *
+     * @param texts 批次文字（應為 {@link #partition(List)} 切分的結果）
+     * @return 批次向量的 Future
+     */
+    public CompletableFuture<List<float[]>> submit(List<String> texts) {
+        List<String> batch = List.copyOf(texts);
+        CompletableFuture<List<float[]>> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                List<float[]> embeddings = execute(() -> embeddingModel.embed(batch), false);
+                if (embeddings.size() != batch.size()) {
+                    throw new IllegalStateException("Embedding count mismatch: expected "
+                            + batch.size() + " but got " + embeddings.size());
+                }
+                result.complete(embeddings);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        // CompletableFuture.cancel 不會中斷執行緒，改為取消底層工作
+        result.whenComplete((embeddings, e) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 目前 AIMD 調整後的並行上限（至少為 1）
+     * <p>
+     * 呼叫端可據此決定預先送出的批次數，讓進行中的請求數跟上限制器的調整。
+     * </p>
+     *
+     * @return 並行上限
+     */
+    public int concurrencyLimit() {
+        return Math.max(1, (int) limiter.getLimit());
+    }
+
+    /**
+     * 依估算 token 數與筆數上限切分批次
+     *
+     * @param texts 文字列表
+     * @return 連續的批次範圍
+     */
+    public List<BatchRange> partition(List<String> texts) {
+        List<BatchRange> ranges = new ArrayList<>();
+        int maxItems = Math.max(1, config.getMaxItemsPerBatch());
+        int maxTokens = Math.max(1, config.getMaxTokensPerBatch());
+
+        int from = 0;
+        int tokens = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            int estimated = estimateTokens(texts.get(i));
+            boolean full = i - from >= maxItems || (i > from && tokens + estimated > maxTokens);
+            if (full) {
+                ranges.add(new BatchRange(from, i));
+                from = i;
+                tokens = 0;
+            }
+            tokens += estimated;
+        }
+        if (from < texts.size()) {
+            ranges.add(new BatchRange(from, texts.size()));
+        }
+        return ranges;
+    }
+
+    /**
+     * 估算 token 數（偏保守）
+     * <p>
+     * ASCII 約 4 字元 1 token，其他字元（CJK 等）以 1 字元 1 token 計算。
+     * </p>
+     */
+    static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 1;
+        }
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < 128) {
+                ascii++;
+            } else {
+                other++;
+            }
+        }
+        return Math.max(1, (ascii + 3) / 4 + other);
+    }
+
+    /**
+     * 在並行限制下執行請求，失敗時依錯誤類型退避重試
+     * <p>
+     * 名額於 finally 中釋放，請求拋出 Error 時也不會遺失。
+     * </p>
+     */
+    private <T> T execute(Supplier<T> request, boolean priority) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                limiter.acquire(priority);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for embedding capacity", e);
+            }
+
+            long start = System.nanoTime();
+            boolean released = false;
+            Duration delay;
+            try {
+                T result = request.get();
+                long latency = System.nanoTime() - start;
+                limiter.onSuccess(latency);
+                released = true;
+                requestTimer.record(latency, TimeUnit.NANOSECONDS);
+                return result;
+            } catch (RuntimeException e) {
+                Failure failure = classify(e);
+                if (failure.throttled()) {
+                    throttledCounter.increment();
+                    limiter.onThrottled();
+                } else {
+                    limiter.onFailure();
+                }
+                released = true;
+
+                if (!failure.retryable() || attempt >= config.getMaxRetries()) {
+                    throw e;
+                }
+
+                delay = backoff(attempt, failure.retryAfter());
+                retryCounter.increment();
+                log.warn("Embedding request failed (attempt {}/{}, throttled={}), retrying in {} ms: {}",
+                        attempt + 1, config.getMaxRetries() + 1, failure.throttled(), delay.toMillis(),
+                        e.getMessage());
+            } finally {
+                if (!released) {
+                    limiter.onFailure();
+                }
+            }
+            sleep(delay);
+        }
+    }
+
+    /**
+     * 抖動指數退避（full jitter），並以 Retry-After 作為下限
+     */
+    private Duration backoff(int attempt, Duration retryAfter) {
+        long cap = Math.min(config.getMaxBackoffMs(),
+                config.getInitialBackoffMs() * (1L << Math.min(attempt, 20)));
+        long jittered = ThreadLocalRandom.current().nextLong(config.getInitialBackoffMs(), Math.max(cap, config.getInitialBackoffMs()) + 1);
+        if (retryAfter != null) {
+            jittered = Math.max(jittered, retryAfter.toMillis());
+        }
+        return Duration.ofMillis(jittered);
+    }
+
+    private void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during embedding retry backoff", e);
+        }
+    }
+
+    /**
+     * 判斷錯誤是否為暫時性（限流、5xx、逾時）
+     * <p>
+     * 供呼叫端在排程器重試用盡後區分「稍後再試即可」與「此輸入無法嵌入」。
+     * </p>
+     *
+     * @param error 嵌入請求拋出的例外
+     * @return 可重試時為 true
+     */
+    public static boolean isRetryable(Throwable error) {
+        return classify(error).retryable();
+    }
+
+    /**
+     * 判斷錯誤是否可重試、是否為限流，以及伺服器建議的等待時間
+     * <p>
+     * 沿 cause 鏈尋找帶有 HTTP 狀態碼的例外（Spring RestClient 或 Google GenAI SDK）或 I/O 逾時；
+     * 其他例外一律不重試。錯誤訊息只用於讀取 Gemini RetryInfo 的建議等待時間。
+     * </p>
+     */
+    static Failure classify(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof RestClientResponseException http) {
+                Duration retryAfter = http.getResponseHeaders() != null
+                        ? parseRetryAfter(http.getResponseHeaders().getFirst("Retry-After"))
+                        : null;
+                return byStatus(http.getStatusCode().value(), retryAfter);
+            }
+            if (t instanceof ApiException api) {
+                return byStatus(api.code(), parseRetryDelay(collectMessages(api)));
+            }
+            if (t instanceof IOException || t instanceof TimeoutException) {
+                return new Failure(true, false, null);
+            }
+        }
+        return new Failure(false, false, null);
+    }
+
+    private static Failure byStatus(int status, Duration retryAfter) {
+        boolean throttled = status == 429;
+        boolean retryable = throttled || status == 408 || status >= 500;
+        return new Failure(retryable, throttled, retryable ? retryAfter : null);
+    }
+
+    /**
+     * 解析 Retry-After 標頭（秒數或 HTTP 日期）
+     */
+    static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static Duration parseRetryDelay(String message) {
+        Matcher matcher = RETRY_DELAY_PATTERN.matcher(message);
+        if (matcher.find()) {
+            return Duration.ofMillis((long) (Double.parseDouble(matcher.group(1)) * 1000));
+        }
+        return null;
+    }
+
+    private static String collectMessages(Throwable error) {
+        StringBuilder sb = new StringBuilder();
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t.getMessage() != null) {
+                sb.append(t.getMessage()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        return e.getCause() instanceof RuntimeException re ? re : e;
+    }
+
+    /**
+     * 錯誤分類結果
+     *
+     * @param retryable  是否可重試
+     * @param throttled  是否為限流
+     * @param retryAfter 伺服器建議的等待時間（可能為 null）
+     */
+    record Failure(boolean retryable, boolean throttled, Duration retryAfter) {}
+}
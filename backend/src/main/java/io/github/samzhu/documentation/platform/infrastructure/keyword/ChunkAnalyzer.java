@@ -0,0 +1,46 @@
+package io.github.samzhu.documentation.platform.infrastructure.keyword;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.cjk.CJKBigramFilter;
+import org.apache.lucene.analysis.cjk.CJKWidthFilter;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.en.EnglishPossessiveFilter;
+import org.apache.lucene.analysis.en.PorterStemFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+/**
+ * 區塊關鍵字索引的分析器（英文與 CJK 混合文件）
+ * <p>
+ * 以 Unicode 斷詞（UAX#29）切分後：
+ * </p>
+ * <ul>
+ *   <li>中日韓文字：全形 / 半形正規化後組成二元詞（bigram），不需字典即可比對詞彙</li>
+ *   <li>英文：轉小寫、移除所有格與停用詞後以 Porter 演算法取詞幹（與 PostgreSQL 'english' 設定相近）</li>
+ * </ul>
+ * <p>
+ * 索引與查詢使用相同的分析器。
+ * </p>
+ */
+public final class ChunkAnalyzer extends Analyzer {
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer source = new StandardTokenizer();
+        TokenStream result = new CJKWidthFilter(source);
+        result = new LowerCaseFilter(result);
+        result = new CJKBigramFilter(result);
+        result = new EnglishPossessiveFilter(result);
+        result = new StopFilter(result, EnglishAnalyzer.ENGLISH_STOP_WORDS_SET);
+        result = new PorterStemFilter(result);
+        return new TokenStreamComponents(source, result);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new LowerCaseFilter(new CJKWidthFilter(in));
+    }
+}
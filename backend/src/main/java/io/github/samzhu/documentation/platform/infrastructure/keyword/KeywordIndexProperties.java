@@ -0,0 +1,82 @@
+package io.github.samzhu.documentation.platform.infrastructure.keyword;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 關鍵字搜尋引擎配置屬性
+ * <p>
+ * 控制全文檢索與混合搜尋中關鍵字排名的實作：
+ * </p>
+ * <ul>
+ *   <li>{@code postgres}：document_chunks.search_vector（tsvector / ts_rank，'english' 設定）</li>
+ *   <li>{@code lucene}：每個版本一份本機 Lucene 索引（BM25，支援 CJK），同步完成後重建，
+ *       不存在或過期時由 PostgreSQL 重新建立</li>
+ * </ul>
+ * <p>
+ * 配置範例：
+ * <pre>
+ * platform:
+ *   search:
+ *     keyword:
+ *       engine: lucene
+ *       index-dir: data/backend/keyword-index
+ *       load-timeout-ms: 30000
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties(prefix = "platform.search.keyword")
+public class KeywordIndexProperties {
+
+    /**
+     * 關鍵字搜尋引擎
+     */
+    public enum Engine {
+        /**
+         * PostgreSQL 全文檢索
+         */
+        POSTGRES,
+        /**
+         * 本機 Lucene BM25 索引
+         */
+        LUCENE
+    }
+
+    /**
+     * 關鍵字搜尋引擎（預設 postgres）
+     */
+    private Engine engine = Engine.POSTGRES;
+
+    /**
+     * Lucene 索引根目錄（每個版本一個子目錄，僅 engine=lucene 時使用；與 MCP Server 的索引目錄分開）
+     */
+    private String indexDir = "data/backend/keyword-index";
+
+    /**
+     * 搜尋等待版本索引載入或建立的時間上限（毫秒，逾時後仍於背景完成）
+     */
+    private long loadTimeoutMs = 30_000;
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    public String getIndexDir() {
+        return indexDir;
+    }
+
+    public void setIndexDir(String indexDir) {
+        this.indexDir = indexDir;
+    }
+
+    public long getLoadTimeoutMs() {
+        return loadTimeoutMs;
+    }
+
+    public void setLoadTimeoutMs(long loadTimeoutMs) {
+        this.loadTimeoutMs = loadTimeoutMs;
+    }
+}
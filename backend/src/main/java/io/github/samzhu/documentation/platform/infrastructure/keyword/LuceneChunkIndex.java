@@ -0,0 +1,458 @@
+package io.github.samzhu.documentation.platform.infrastructure.keyword;
+
+import io.github.samzhu.documentation.platform.repository.ChunkSearchHit;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * 區塊關鍵字索引（Lucene BM25）
+ * <p>
+ * 每個版本一份本機索引，以 {@link MMapDirectory} 開啟：索引檔映射至記憶體，由作業系統分頁快取管理，
+ * 不佔 JVM 堆積；讀取不經 NIO channel，搜尋執行緒被中斷（混合搜尋逾時）也不會關閉索引。
+ * 相較 PostgreSQL 的 ts_rank 與 'english' 設定，以 BM25 排名並支援 CJK 二元詞比對（見 {@link ChunkAnalyzer}），
+ * 關鍵字搜尋的延遲不受資料庫負載影響。
+ * </p>
+ * <ul>
+ *   <li>索引目錄以版本區塊的指紋（區塊數與最大區塊 ID）命名；載入時指紋不同即由 PostgreSQL 重建，
+ *       冷啟動或漏接同步後不會使用過期的索引</li>
+ *   <li>重建寫入暫存目錄後再改名，完成後才替換搜尋使用的 reader，重建期間繼續以舊索引回應</li>
+ *   <li>reader 以參考計數管理，被替換的 reader 於最後一個進行中的搜尋結束後關閉</li>
+ *   <li>載入於背景執行緒進行，同一版本同時只有一個載入；等待中的搜尋被中斷或逾時不會中止載入</li>
+ * </ul>
+ */
+public class LuceneChunkIndex implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LuceneChunkIndex.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_DOCUMENT_ID = "document_id";
+    private static final String FIELD_CHUNK_INDEX = "chunk_index";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_PATH = "path";
+    private static final String FIELD_CONTENT = "content";
+
+    /**
+     * 標題命中的權重（相對於內文）
+     */
+    private static final float TITLE_BOOST = 2.0f;
+
+    /**
+     * 摘要最多片段數（與 ts_headline 的 MaxFragments 一致）
+     */
+    private static final int MAX_PASSAGES = 2;
+
+    /**
+     * 重建時每頁讀取的區塊數（以區塊 ID 分頁，不需長時間持有交易）
+     */
+    private static final int BUILD_PAGE_SIZE = 500;
+
+    private static final double WRITER_RAM_BUFFER_MB = 64;
+
+    private static final String EMPTY_FINGERPRINT = "empty";
+
+    /**
+     * 內文欄位：儲存原文並索引位移，摘要直接由 postings 取得命中位置而不需重新分析
+     */
+    private static final FieldType CONTENT_TYPE = new FieldType(TextField.TYPE_STORED);
+
+    static {
+        CONTENT_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        CONTENT_TYPE.freeze();
+    }
+
+    private static final String SQL_FINGERPRINT = """
+        SELECT count(*) AS chunk_count, max(id) AS max_id
+        FROM document_chunks
+        WHERE version_id = ?
+        """;
+
+    // offsets 模式的區塊由 documents.content 還原文字
+    private static final String SQL_CHUNK_PAGE = """
+        SELECT dc.id, dc.document_id, dc.chunk_index, d.title, d.path,
+               COALESCE(dc.content,
+                   substring(d.content FROM dc.start_offset + 1 FOR dc.end_offset - dc.start_offset), '') AS content
+        FROM document_chunks dc
+        JOIN documents d ON d.id = dc.document_id
+        WHERE dc.version_id = ? AND dc.id > ?
+        ORDER BY dc.id
+        LIMIT ?
+        """;
+
+    private static final RowMapper<Document> DOCUMENT_MAPPER = (rs, rowNum) -> {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, rs.getString("id"), Field.Store.YES));
+        document.add(new StoredField(FIELD_DOCUMENT_ID, rs.getString("document_id")));
+        document.add(new StoredField(FIELD_CHUNK_INDEX, rs.getInt("chunk_index")));
+        String title = rs.getString("title");
+        if (title != null) {
+            document.add(new TextField(FIELD_TITLE, title, Field.Store.YES));
+        }
+        String path = rs.getString("path");
+        if (path != null) {
+            document.add(new StoredField(FIELD_PATH, path));
+        }
+        document.add(new Field(FIELD_CONTENT, rs.getString("content"), CONTENT_TYPE));
+        return document;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path rootDir;
+    private final ExecutorService executor;
+    private final Duration loadTimeout;
+    private final Analyzer analyzer = new ChunkAnalyzer();
+    private final Map<String, Handle> handles = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Handle>> loading = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    /**
+     * 已開啟的版本索引
+     *
+     * @param fingerprint 建立索引時的區塊指紋
+     * @param reader      索引 reader（參考計數，關閉時一併關閉目錄）
+     */
+    private record Handle(String fingerprint, DirectoryReader reader) {
+    }
+
+    /**
+     * @param jdbcTemplate JDBC 操作模板（讀取區塊重建索引）
+     * @param rootDir      索引根目錄（絕對路徑）
+     * @param executor     載入與重建索引的執行器
+     * @param loadTimeout  搜尋等待版本索引載入的時間上限（逾時後載入仍於背景繼續）
+     */
+    public LuceneChunkIndex(JdbcTemplate jdbcTemplate, Path rootDir, ExecutorService executor, Duration loadTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rootDir = rootDir;
+        this.executor = executor;
+        this.loadTimeout = loadTimeout;
+    }
+
+    /**
+     * 區塊全文檢索（BM25）
+     * <p>
+     * 版本索引尚未載入時等待載入（必要時由 PostgreSQL 建立），等待超過 loadTimeout 時拋出 IllegalStateException。
+     * </p>
+     *
+     * @param versionId 版本 ID（TSID 格式）
+     * @param query     搜尋關鍵字
+     * @param limit     最大回傳筆數
+     * @return 符合條件的區塊（依 BM25 分數由高至低排序，content 為命中詞摘要）
+     */
+    public List<ChunkSearchHit> search(String versionId, String query, int limit) {
+        Query luceneQuery = buildQuery(query);
+        if (luceneQuery == null) {
+            return List.of();
+        }
+
+        Handle handle = acquire(versionId, System.nanoTime() + loadTimeout.toNanos());
+        try {
+            return search(new IndexSearcher(handle.reader()), luceneQuery, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Keyword index search failed for version " + versionId, e);
+        } finally {
+            release(handle);
+        }
+    }
+
+    /**
+     * 於背景重新檢查版本索引，區塊有變更時重建（同步完成後呼叫）
+     * <p>
+     * 同一版本已有載入進行中時，於其完成後再檢查一次（進行中的載入可能讀到變更前的資料）。
+     * </p>
+     *
+     * @param versionId 版本 ID（TSID 格式）
+     * @return 載入完成的 Future（失敗時已記錄日誌）
+     */
+    public CompletableFuture<?> refresh(String versionId) {
+        CompletableFuture<Handle> future = loading.compute(versionId, (id, running) -> running == null
+                ? CompletableFuture.supplyAsync(() -> load(id), executor)
+                : running.handle((handle, e) -> null).thenApplyAsync(ignored -> load(id), executor));
+        future.whenComplete((handle, e) -> {
+            loading.remove(versionId, future);
+            if (e != null) {
+                log.warn("Failed to refresh keyword index for version {}: {}", versionId, e.getMessage());
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (String versionId : handles.keySet()) {
+            Handle handle = handles.remove(versionId);
+            if (handle != null) {
+                release(handle);
+            }
+        }
+        analyzer.close();
+    }
+
+    /**
+     * 取得版本索引並增加參考計數（使用完畢需呼叫 {@link #release}）
+     *
+     * @param deadline 等待載入的期限（{@link System#nanoTime()}）
+     */
+    private Handle acquire(String versionId, long deadline) {
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Keyword index is closed");
+            }
+            Handle handle = handles.get(versionId);
+            if (handle != null) {
+                if (handle.reader().tryIncRef()) {
+                    return handle;
+                }
+                // 剛被新索引替換，重新讀取
+                continue;
+            }
+            CompletableFuture<Handle> future = loading.computeIfAbsent(versionId,
+                    id -> CompletableFuture.supplyAsync(() -> load(id), executor));
+            future.whenComplete((loaded, e) -> loading.remove(versionId, future));
+            await(future, versionId, deadline);
+        }
+    }
+
+    private void await(CompletableFuture<Handle> future, String versionId, long deadline) {
+        try {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out after " + loadTimeout.toMillis()
+                    + " ms waiting for keyword index of version " + versionId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading keyword index for version " + versionId, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException("Failed to load keyword index for version " + versionId, e.getCause());
+        }
+    }
+
+    private static void release(Handle handle) {
+        try {
+            handle.reader().decRef();
+        } catch (IOException e) {
+            log.warn("Failed to close keyword index reader: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 載入版本索引：指紋與已開啟的索引相同時沿用，否則開啟（必要時建立）對應指紋的索引並替換
+     */
+    private Handle load(String versionId) {
+        try {
+            String fingerprint = fingerprint(versionId);
+            Handle current = handles.get(versionId);
+            if (current != null && current.fingerprint().equals(fingerprint)) {
+                return current;
+            }
+
+            Path versionDir = versionDir(versionId);
+            Path indexDir = versionDir.resolve(fingerprint);
+            if (!Files.isDirectory(indexDir)) {
+                build(versionId, versionDir, indexDir);
+            }
+
+            Handle handle = new Handle(fingerprint, open(indexDir));
+            Handle previous = handles.put(versionId, handle);
+            if (previous != null) {
+                release(previous);
+            }
+            deleteStaleBuilds(versionDir, indexDir);
+            return handle;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load keyword index for version " + versionId, e);
+        }
+    }
+
+    /**
+     * 版本區塊的指紋（重新同步會以新的 TSID 重建區塊，區塊數或最大 ID 必然改變）
+     */
+    private String fingerprint(String versionId) {
+        return jdbcTemplate.queryForObject(SQL_FINGERPRINT, (rs, rowNum) -> {
+            long count = rs.getLong("chunk_count");
+            return count == 0 ? EMPTY_FINGERPRINT : count + "-" + rs.getString("max_id");
+        }, versionId);
+    }
+
+    /**
+     * 由 PostgreSQL 建立版本索引（寫入暫存目錄，完成後改名為指紋目錄）
+     */
+    private void build(String versionId, Path versionDir, Path indexDir) throws IOException {
+        long startNanos = System.nanoTime();
+        Files.createDirectories(versionDir);
+        Path tempDir = Files.createTempDirectory(versionDir, indexDir.getFileName() + ".tmp");
+        int chunks = 0;
+        try {
+            IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE)
+                    .setRAMBufferSizeMB(WRITER_RAM_BUFFER_MB);
+            try (Directory directory = new MMapDirectory(tempDir);
+                 IndexWriter writer = new IndexWriter(directory, config)) {
+                String lastId = "";
+                while (true) {
+                    List<Document> page = jdbcTemplate.query(SQL_CHUNK_PAGE, DOCUMENT_MAPPER,
+                            versionId, lastId, BUILD_PAGE_SIZE);
+                    writer.addDocuments(page);
+                    chunks += page.size();
+                    if (page.size() < BUILD_PAGE_SIZE) {
+                        break;
+                    }
+                    lastId = page.getLast().get(FIELD_ID);
+                }
+                // 索引建立後唯讀，合併為單一區段使每次搜尋只走訪一個區段
+                writer.forceMerge(1);
+                writer.commit();
+            }
+            Files.move(tempDir, indexDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deleteRecursively(tempDir);
+            throw e;
+        }
+        log.info("Built keyword index for version {}: {} chunks in {} ms",
+                versionId, chunks, Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+    }
+
+    private static DirectoryReader open(Path indexDir) throws IOException {
+        Directory directory = new MMapDirectory(indexDir);
+        try {
+            DirectoryReader reader = DirectoryReader.open(directory);
+            reader.getReaderCacheHelper().addClosedListener(key -> IOUtils.closeWhileHandlingException(directory));
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeWhileHandlingException(directory);
+            throw e;
+        }
+    }
+
+    private List<ChunkSearchHit> search(IndexSearcher searcher, Query query, int limit) throws IOException {
+        TopDocs topDocs = searcher.search(query, limit);
+        if (topDocs.scoreDocs.length == 0) {
+            return List.of();
+        }
+
+        // 以 Markdown 粗體標示命中詞，與 ts_headline 的摘要格式一致
+        String[] snippets = UnifiedHighlighter.builder(searcher, analyzer)
+                .withFormatter(new DefaultPassageFormatter("**", "**", " ... ", false))
+                .build()
+                .highlight(FIELD_CONTENT, query, topDocs, MAX_PASSAGES);
+
+        StoredFields storedFields = searcher.storedFields();
+        List<ChunkSearchHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+        for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+            ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+            Document document = storedFields.document(scoreDoc.doc);
+            hits.add(new ChunkSearchHit(
+                    document.get(FIELD_ID),
+                    document.get(FIELD_DOCUMENT_ID),
+                    document.getField(FIELD_CHUNK_INDEX).numericValue().intValue(),
+                    document.get(FIELD_TITLE),
+                    document.get(FIELD_PATH),
+                    Objects.requireNonNullElse(snippets[i], ""),
+                    scoreDoc.score));
+        }
+        return hits;
+    }
+
+    /**
+     * 建立查詢：內文與標題（加權）任一詞命中即可，由 BM25 排名
+     *
+     * @return 查詢，分析後沒有任何詞（空白或只有停用詞）時回傳 null
+     */
+    private Query buildQuery(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        QueryBuilder builder = new QueryBuilder(analyzer);
+        Query content = builder.createBooleanQuery(FIELD_CONTENT, text);
+        if (content == null) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(content, BooleanClause.Occur.SHOULD);
+        Query title = builder.createBooleanQuery(FIELD_TITLE, text);
+        if (title != null) {
+            query.add(new BoostQuery(title, TITLE_BOOST), BooleanClause.Occur.SHOULD);
+        }
+        return query.build();
+    }
+
+    private Path versionDir(String versionId) {
+        Path versionDir = rootDir.resolve(versionId).normalize();
+        if (!rootDir.equals(versionDir.getParent())) {
+            throw new IllegalArgumentException("Invalid version ID: " + versionId);
+        }
+        return versionDir;
+    }
+
+    /**
+     * 刪除版本目錄下其他指紋的索引與殘留的暫存目錄（已被替換的 reader 在 Unix 上仍可讀取已刪除的映射檔）
+     */
+    private static void deleteStaleBuilds(Path versionDir, Path keep) {
+        try (Stream<Path> children = Files.list(versionDir)) {
+            children.filter(child -> !child.equals(keep)).forEach(LuceneChunkIndex::deleteRecursively);
+        } catch (IOException e) {
+            log.debug("Failed to list keyword index directory {}: {}", versionDir, e.getMessage());
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.debug("Failed to delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Failed to delete keyword index directory {}: {}", dir, e.getMessage());
+        }
+    }
+}
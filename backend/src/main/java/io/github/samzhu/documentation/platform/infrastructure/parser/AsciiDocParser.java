@@ -1,6 +1,5 @@
 package io.github.samzhu.documentation.platform.infrastructure.parser;
 
-import org.asciidoctor.Asciidoctor;
 import org.asciidoctor.Options;
 import org.asciidoctor.ast.Block;
 import org.asciidoctor.ast.Document;
@@ -15,15 +14,17 @@ import java.util.Map;
  * AsciiDoc 文件解析器
  * <p>
  * 使用 asciidoctorj 解析 AsciiDoc 文件。
+ * Asciidoctor 執行個體由 {@link AsciidoctorPool} 管理，於平台執行緒上延遲建立，
+ * 支援多份文件同時解析。
  * </p>
  */
 @Service
 public class AsciiDocParser implements DocumentParser {
 
-    private final Asciidoctor asciidoctor;
+    private final AsciidoctorPool asciidoctorPool;
 
-    public AsciiDocParser() {
-        this.asciidoctor = Asciidoctor.Factory.create();
+    public AsciiDocParser(AsciidoctorPool asciidoctorPool) {
+        this.asciidoctorPool = asciidoctorPool;
     }
 
     @Override
@@ -33,16 +34,21 @@ public class AsciiDocParser implements DocumentParser {
         }
 
         try {
-            Document document = asciidoctor.load(content, Options.builder().build());
+            // 在池中執行緒上完成載入與走訪，AST 節點不離開 JRuby 所在執行緒
+            ParsedDocument parsed = asciidoctorPool.execute(asciidoctor -> {
+                Document document = asciidoctor.load(content, Options.builder().build());
+                return new ParsedDocument(document.getDoctitle(), content,
+                        extractCodeBlocks(document), Map.of());
+            });
 
             // 擷取標題
-            String title = document.getDoctitle();
+            String title = parsed.title();
             if (title == null || title.isBlank()) {
                 title = extractFileNameWithoutExtension(path);
             }
 
             // 擷取程式碼區塊
-            List<ParsedDocument.CodeBlock> codeBlocks = extractCodeBlocks(document);
+            List<ParsedDocument.CodeBlock> codeBlocks = parsed.codeBlocks();
 
             // 元資料
             Map<String, Object> metadata = Map.of(
@@ -0,0 +1,63 @@
+package io.github.samzhu.documentation.platform.infrastructure.parser;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * AsciiDoc 解析配置
+ * <p>
+ * 控制 Asciidoctor 執行個體池的大小、預熱與借用逾時。
+ * </p>
+ *
+ * <pre>
+ * platform:
+ *   parser:
+ *     asciidoc:
+ *       pool-size: 2
+ *       warm-up: true
+ *       borrow-timeout-ms: 120000
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "platform.parser.asciidoc")
+public class AsciiDocProperties {
+
+    /**
+     * 執行個體池大小（每個平台執行緒各持有一個 Asciidoctor）
+     */
+    private int poolSize = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * 是否於應用程式就緒後在背景預熱執行個體
+     */
+    private boolean warmUp = true;
+
+    /**
+     * 等待解析完成的最長時間（毫秒），含排隊時間
+     */
+    private long borrowTimeoutMs = 120000;
+
+    // Getters and Setters
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public long getBorrowTimeoutMs() {
+        return borrowTimeoutMs;
+    }
+
+    public void setBorrowTimeoutMs(long borrowTimeoutMs) {
+        this.borrowTimeoutMs = borrowTimeoutMs;
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.samzhu.documentation.platform.infrastructure.parser;
+
+import jakarta.annotation.PreDestroy;
+import org.asciidoctor.Asciidoctor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Asciidoctor 執行個體池
+ * <p>
+ * Asciidoctor 以 JRuby 實作，建立成本高（數秒）且不適合多執行緒共用。
+ * 本池以固定數量的平台執行緒（platform thread）執行解析工作，
+ * 每個執行緒延遲建立並獨占一個 Asciidoctor 執行個體，達到以下效果：
+ * </p>
+ * <ul>
+ *   <li>應用程式啟動時不建立 JRuby 執行環境，未執行同步時不付出成本</li>
+ *   <li>最多 {@code pool-size} 份文件可同時解析</li>
+ *   <li>呼叫端（通常為 Virtual Thread）僅等待 Future，不會被 JRuby 內部鎖釘住（pinning）</li>
+ * </ul>
+ */
+@Component
+public class AsciidoctorPool {
+
+    private static final Logger log = LoggerFactory.getLogger(AsciidoctorPool.class);
+
+    private final AsciiDocProperties properties;
+    private final ExecutorService executor;
+    private final ThreadLocal<Asciidoctor> instance = new ThreadLocal<>();
+    private final List<Asciidoctor> created = new CopyOnWriteArrayList<>();
+
+    public AsciidoctorPool(AsciiDocProperties properties) {
+        this.properties = properties;
+        int poolSize = Math.max(1, properties.getPoolSize());
+        this.executor = Executors.newFixedThreadPool(poolSize,
+                Thread.ofPlatform().name("asciidoctor-", 0).daemon(true).factory());
+    }
+
+    /**
+     * 應用程式就緒後於背景預熱執行個體
+     * <p>
+     * 固定大小執行緒池在執行緒數未達上限時，每次提交都會建立新執行緒，
+     * 因此提交 pool-size 個任務即可讓每個執行緒各自建立一個執行個體。
+     * </p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isWarmUp()) {
+            return;
+        }
+        int poolSize = Math.max(1, properties.getPoolSize());
+        log.info("Warming up {} Asciidoctor instance(s) in background", poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            executor.execute(this::currentInstance);
+        }
+    }
+
+    /**
+     * 借用執行個體執行解析工作
+     *
+     * @param task 使用 Asciidoctor 的工作
+     * @param <T>  回傳型別
+     * @return 工作結果
+     */
+    public <T> T execute(Function<Asciidoctor, T> task) {
+        Future<T> future = executor.submit(() -> task.apply(currentInstance()));
+        try {
+            return future.get(properties.getBorrowTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Asciidoctor", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IllegalStateException("Timed out waiting for Asciidoctor after "
+                    + properties.getBorrowTimeoutMs() + " ms", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Asciidoctor task failed", e.getCause());
+        }
+    }
+
+    /**
+     * 取得目前執行緒專屬的執行個體，不存在時建立
+     */
+    private Asciidoctor currentInstance() {
+        Asciidoctor asciidoctor = instance.get();
+        if (asciidoctor == null) {
+            long start = System.currentTimeMillis();
+            asciidoctor = Asciidoctor.Factory.create();
+            instance.set(asciidoctor);
+            created.add(asciidoctor);
+            log.info("Created Asciidoctor instance on {} in {} ms",
+                    Thread.currentThread().getName(), System.currentTimeMillis() - start);
+        }
+        return asciidoctor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        for (Asciidoctor asciidoctor : created) {
+            try {
+                asciidoctor.shutdown();
+            } catch (Exception e) {
+                log.debug("Failed to shut down Asciidoctor instance", e);
+            }
+        }
+        created.clear();
+    }
+}
@@ -1,30 +1,49 @@
 package io.github.samzhu.documentation.platform.infrastructure.parser;
 
-import com.vladsch.flexmark.html2md.converter.FlexmarkHtmlConverter;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * HTML 文件解析器
  * <p>
- * 使用 jsoup 解析 HTML 文件，並可轉換為 Markdown。
+ * 使用 jsoup 解析 HTML 文件，並轉換為 Markdown。
+ * 標題、程式碼區塊與 Markdown 輸出於同一次 DOM 走訪中完成，
+ * 不重新序列化 HTML，也不需要第二個 HTML 轉 Markdown 解析器。
  * </p>
  */
 @Service
 public class HtmlParser implements DocumentParser {
 
-    private final FlexmarkHtmlConverter htmlToMarkdownConverter;
+    /**
+     * 整個子樹略過的元素（不含文件內容）
+     */
+    private static final Set<String> SKIPPED_TAGS = Set.of("script", "style", "noscript", "template");
 
-    public HtmlParser() {
-        this.htmlToMarkdownConverter = FlexmarkHtmlConverter.builder().build();
-    }
+    /**
+     * 頁面框架元素：不輸出為 Markdown，但仍擷取其中的標題與程式碼區塊
+     * （{@code article}、{@code main}、{@code section} 內的 {@code header} 屬於內容，不在此列）
+     */
+    private static final Set<String> CHROME_TAGS = Set.of("nav", "footer", "header");
+
+    /**
+     * 區塊層級元素（前後需空行）
+     */
+    private static final Set<String> BLOCK_TAGS = Set.of(
+            "p", "div", "section", "article", "main", "aside", "figure", "figcaption",
+            "dl", "dt", "dd", "form", "fieldset", "details", "summary", "body");
 
     @Override
     public ParsedDocument parse(String content, String path) {
@@ -35,14 +54,21 @@ public class HtmlParser implements DocumentParser {
         try {
             Document document = Jsoup.parse(content);
 
+            // 單次走訪：標題、程式碼區塊、Markdown
+            MarkdownCollector collector = new MarkdownCollector();
+            NodeTraversor.filter(collector, document);
+
             // 擷取標題
-            String title = extractTitle(document, path);
+            String title = collector.title();
+            if (title == null || title.isBlank()) {
+                title = extractFileNameWithoutExtension(path);
+            }
 
             // 擷取程式碼區塊
-            List<ParsedDocument.CodeBlock> codeBlocks = extractCodeBlocks(document);
+            List<ParsedDocument.CodeBlock> codeBlocks = collector.codeBlocks();
 
             // 轉換為 Markdown（方便後續處理）
-            String markdownContent = convertToMarkdown(document);
+            String markdownContent = collector.markdown();
 
             // 元資料
             Map<String, Object> metadata = Map.of(
@@ -58,7 +84,7 @@ public class HtmlParser implements DocumentParser {
                     extractFileNameWithoutExtension(path),
                     content,
                     List.of(),
-                    Map.of("path", path, "format", "html", "parseError", e.getMessage())
+                    Map.of("path", path, "format", "html", "parseError", String.valueOf(e.getMessage()))
             );
         }
     }
@@ -75,56 +101,7 @@ public class HtmlParser implements DocumentParser {
         return "html";
     }
 
-    private String extractTitle(Document document, String path) {
-        // 嘗試從 <title> 標籤取得
-        String title = document.title();
-        if (title != null && !title.isBlank()) {
-            return title;
-        }
-
-        // 嘗試從第一個 <h1> 取得
-        Element h1 = document.selectFirst("h1");
-        if (h1 != null) {
-            return h1.text();
-        }
-
-        // 使用檔案名稱
-        return extractFileNameWithoutExtension(path);
-    }
-
-    private List<ParsedDocument.CodeBlock> extractCodeBlocks(Document document) {
-        List<ParsedDocument.CodeBlock> codeBlocks = new ArrayList<>();
-
-        // 尋找 <pre><code> 區塊
-        Elements codeElements = document.select("pre code, pre.highlight, code.highlight");
-
-        for (Element element : codeElements) {
-            String language = detectLanguage(element);
-            String code = element.text();
-
-            // 取得前一個文字元素作為描述
-            String description = "";
-            Element prev = element.parent().previousElementSibling();
-            if (prev != null && (prev.tagName().equals("p") || prev.tagName().matches("h[1-6]"))) {
-                description = prev.text();
-                if (description.length() > 200) {
-                    description = description.substring(0, 200) + "...";
-                }
-            }
-
-            codeBlocks.add(new ParsedDocument.CodeBlock(
-                    language,
-                    code,
-                    description,
-                    0,
-                    0
-            ));
-        }
-
-        return codeBlocks;
-    }
-
-    private String detectLanguage(Element element) {
+    private static String detectLanguage(Element element) {
         // 從 class 屬性檢測語言
         String className = element.className();
         if (className != null && !className.isEmpty()) {
@@ -157,7 +134,7 @@ public class HtmlParser implements DocumentParser {
         return "text";
     }
 
-    private boolean isLikelyLanguage(String className) {
+    private static boolean isLikelyLanguage(String className) {
         String[] commonLanguages = {
                 "java", "javascript", "js", "python", "py", "ruby", "go", "rust",
                 "c", "cpp", "csharp", "cs", "typescript", "ts", "kotlin", "swift",
@@ -173,30 +150,455 @@ public class HtmlParser implements DocumentParser {
         return false;
     }
 
-    private String convertToMarkdown(Document document) {
-        // 移除 script 和 style 標籤
-        document.select("script, style, nav, footer, header").remove();
+    private String extractFileNameWithoutExtension(String path) {
+        if (path == null) return "";
+
+        int lastSlash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        String fileName = lastSlash >= 0 ? path.substring(lastSlash + 1) : path;
+
+        int lastDot = fileName.lastIndexOf('.');
+        return lastDot > 0 ? fileName.substring(0, lastDot) : fileName;
+    }
 
-        // 取得主要內容（嘗試常見的內容選擇器）
-        Element content = document.selectFirst("article, main, .content, #content, .documentation");
-        if (content == null) {
-            content = document.body();
+    /**
+     * 單次走訪 DOM 的收集器
+     * <p>
+     * 以 {@link NodeFilter} 實作，可直接略過不需要的子樹（script、nav 等）。
+     * 巢狀結構（清單項目、引言、表格儲存格、連結等）先寫入獨立緩衝區，
+     * 於元素結束時再依 Markdown 語法合併回上層緩衝區。
+     * </p>
+     */
+    private static class MarkdownCollector implements NodeFilter {
+
+        private final Deque<StringBuilder> buffers = new ArrayDeque<>();
+        private final Deque<ListContext> lists = new ArrayDeque<>();
+        private final Deque<List<String>> tableRows = new ArrayDeque<>();
+        private final Deque<PendingCodeBlock> openCodeBlocks = new ArrayDeque<>();
+        private final List<PendingCodeBlock> codeBlocks = new ArrayList<>();
+
+        private String title;
+        private String firstHeading;
+        private boolean inHead;
+        private int preDepth;
+        private int chromeDepth;
+        private Element contentRoot;
+        private String contentRootMarkdown;
+        private int tableRowCount;
+
+        MarkdownCollector() {
+            buffers.push(new StringBuilder());
         }
 
-        if (content == null) {
-            return "";
+        @Override
+        public FilterResult head(Node node, int depth) {
+            if (node instanceof TextNode textNode) {
+                if (!inHead) {
+                    appendText(textNode.getWholeText());
+                }
+                return FilterResult.CONTINUE;
+            }
+            if (!(node instanceof Element element)) {
+                return FilterResult.CONTINUE;
+            }
+
+            String tag = element.normalName();
+
+            // <head> 中只取 <title>
+            if (tag.equals("head")) {
+                inHead = true;
+                return FilterResult.CONTINUE;
+            }
+            if (inHead) {
+                if (tag.equals("title") && title == null) {
+                    title = element.text();
+                }
+                return FilterResult.SKIP_ENTIRELY;
+            }
+
+            if (SKIPPED_TAGS.contains(tag)) {
+                return FilterResult.SKIP_ENTIRELY;
+            }
+
+            // 頁面框架內只擷取標題與程式碼區塊，不輸出 Markdown
+            if (isChrome(element, tag)) {
+                chromeDepth++;
+            }
+            if (chromeDepth > 0) {
+                openCodeBlock(element, tag);
+                captureHeading(element, tag);
+                if (tag.equals("pre")) {
+                    preDepth++;
+                }
+                return FilterResult.CONTINUE;
+            }
+
+            // 主要內容區塊：第一個符合者另外保存其 Markdown
+            if (contentRoot == null && isContentRoot(element, tag)) {
+                contentRoot = element;
+                ensureBlankLine();
+                buffers.push(new StringBuilder());
+            }
+
+            openCodeBlock(element, tag);
+
+            switch (tag) {
+                case "h1", "h2", "h3", "h4", "h5", "h6" -> {
+                    captureHeading(element, tag);
+                    ensureBlankLine();
+                    current().append("#".repeat(tag.charAt(1) - '0')).append(' ');
+                }
+                case "pre" -> {
+                    ensureBlankLine();
+                    preDepth++;
+                    buffers.push(new StringBuilder());
+                }
+                case "code", "a", "strong", "b", "em", "i", "li", "blockquote", "th", "td" -> {
+                    // <pre> 內保留原始文字，不套用行內格式
+                    if (preDepth == 0) {
+                        buffers.push(new StringBuilder());
+                    }
+                }
+                case "ul", "ol" -> {
+                    if (lists.isEmpty()) {
+                        ensureBlankLine();
+                    } else {
+                        ensureNewline();
+                    }
+                    lists.push(new ListContext(tag.equals("ol")));
+                }
+                case "table" -> {
+                    ensureBlankLine();
+                    tableRowCount = 0;
+                }
+                case "tr" -> tableRows.push(new ArrayList<>());
+                case "br" -> current().append(preDepth > 0 ? "\n" : "  \n");
+                case "hr" -> {
+                    ensureBlankLine();
+                    current().append("---");
+                    ensureBlankLine();
+                }
+                case "img" -> {
+                    String src = element.attr("src");
+                    if (!src.isEmpty()) {
+                        current().append("![").append(element.attr("alt")).append("](").append(src).append(')');
+                    }
+                }
+                default -> {
+                    if (BLOCK_TAGS.contains(tag)) {
+                        ensureBlankLine();
+                    }
+                }
+            }
+            return FilterResult.CONTINUE;
         }
 
-        return htmlToMarkdownConverter.convert(content.html());
+        @Override
+        public FilterResult tail(Node node, int depth) {
+            if (!(node instanceof Element element)) {
+                return FilterResult.CONTINUE;
+            }
+
+            String tag = element.normalName();
+            if (tag.equals("head")) {
+                inHead = false;
+                return FilterResult.CONTINUE;
+            }
+
+            if (chromeDepth > 0) {
+                if (tag.equals("pre")) {
+                    preDepth--;
+                }
+                if (isChrome(element, tag)) {
+                    chromeDepth--;
+                }
+                return finishElement(element);
+            }
+
+            if (preDepth > 0 && !tag.equals("pre")) {
+                // <pre> 內的元素僅累積文字
+                return finishElement(element);
+            }
+
+            switch (tag) {
+                case "h1", "h2", "h3", "h4", "h5", "h6" -> ensureBlankLine();
+                case "pre" -> {
+                    preDepth--;
+                    String code = stripTrailingNewlines(buffers.pop().toString());
+                    Element codeChild = element.firstElementChild();
+                    String language = detectLanguage(codeChild != null && codeChild.normalName().equals("code")
+                            ? codeChild : element);
+                    String fence = code.contains("```") ? "````" : "```";
+                    StringBuilder out = current();
+                    out.append(fence).append(language.equals("text") ? "" : language).append('\n')
+                            .append(code).append('\n').append(fence);
+                    ensureBlankLine();
+                }
+                case "code" -> {
+                    String text = buffers.pop().toString();
+                    if (!text.isBlank()) {
+                        String tick = text.contains("`") ? "``" : "`";
+                        current().append(tick).append(text).append(tick);
+                    }
+                }
+                case "a" -> {
+                    String text = buffers.pop().toString().trim();
+                    String href = element.attr("href");
+                    if (href.isEmpty() || text.isEmpty()) {
+                        current().append(text);
+                    } else {
+                        current().append('[').append(text).append("](").append(href).append(')');
+                    }
+                }
+                case "strong", "b" -> wrapInline("**");
+                case "em", "i" -> wrapInline("_");
+                case "li" -> {
+                    String item = buffers.pop().toString().strip();
+                    ListContext list = lists.peek();
+                    String marker = list != null && list.ordered ? (++list.counter) + ". " : "- ";
+                    ensureNewline();
+                    current().append(marker)
+                            .append(item.replace("\n", "\n" + " ".repeat(marker.length())))
+                            .append('\n');
+                }
+                case "ul", "ol" -> {
+                    lists.pop();
+                    if (lists.isEmpty()) {
+                        ensureBlankLine();
+                    }
+                }
+                case "blockquote" -> {
+                    String quote = buffers.pop().toString().strip();
+                    ensureBlankLine();
+                    current().append("> ").append(quote.replace("\n", "\n> "));
+                    ensureBlankLine();
+                }
+                case "th", "td" -> {
+                    String cell = buffers.pop().toString().strip()
+                            .replace("\n", " ").replace("|", "\\|");
+                    if (!tableRows.isEmpty()) {
+                        tableRows.peek().add(cell);
+                    }
+                }
+                case "tr" -> appendTableRow(tableRows.pop());
+                case "table" -> ensureBlankLine();
+                default -> {
+                    if (BLOCK_TAGS.contains(tag)) {
+                        ensureBlankLine();
+                    }
+                }
+            }
+            return finishElement(element);
+        }
+
+        /**
+         * 元素結束時的共用處理：關閉程式碼區塊收集、保存主要內容區塊
+         */
+        private FilterResult finishElement(Element element) {
+            if (!openCodeBlocks.isEmpty() && openCodeBlocks.peek().element == element) {
+                openCodeBlocks.pop();
+            }
+
+            if (element == contentRoot) {
+                String rootMarkdown = buffers.pop().toString();
+                contentRootMarkdown = rootMarkdown;
+                current().append(rootMarkdown);
+                ensureBlankLine();
+            }
+            return FilterResult.CONTINUE;
+        }
+
+        /**
+         * 程式碼區塊（pre code, pre.highlight, code.highlight）開始收集文字
+         */
+        private void openCodeBlock(Element element, String tag) {
+            if ((tag.equals("code") && (preDepth > 0 || element.hasClass("highlight")))
+                    || (tag.equals("pre") && element.hasClass("highlight"))) {
+                PendingCodeBlock block = new PendingCodeBlock(element, detectLanguage(element),
+                        describe(element));
+                codeBlocks.add(block);
+                openCodeBlocks.push(block);
+            }
+        }
+
+        /**
+         * 記錄文件中第一個 h1（缺少 title 時作為標題）
+         */
+        private void captureHeading(Element element, String tag) {
+            if (firstHeading == null && tag.equals("h1")) {
+                firstHeading = element.text();
+            }
+        }
+
+        String title() {
+            return title != null && !title.isBlank() ? title : firstHeading;
+        }
+
+        String markdown() {
+            String markdown = contentRootMarkdown != null ? contentRootMarkdown : buffers.getLast().toString();
+            return markdown.strip();
+        }
+
+        List<ParsedDocument.CodeBlock> codeBlocks() {
+            return codeBlocks.stream()
+                    .map(block -> new ParsedDocument.CodeBlock(
+                            block.language, block.code.toString(), block.description, 0, 0))
+                    .toList();
+        }
+
+        private StringBuilder current() {
+            return buffers.peek();
+        }
+
+        private void appendText(String text) {
+            // 程式碼區塊保留原始空白
+            for (PendingCodeBlock block : openCodeBlocks) {
+                block.code.append(text);
+            }
+            if (chromeDepth > 0) {
+                return;
+            }
+
+            StringBuilder out = current();
+            if (preDepth > 0) {
+                out.append(text);
+                return;
+            }
+
+            // 一般文字：折疊連續空白
+            boolean pendingSpace = out.isEmpty() || endsWithWhitespace(out);
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c) || c == '\u00a0') {
+                    if (!pendingSpace) {
+                        out.append(' ');
+                        pendingSpace = true;
+                    }
+                } else {
+                    out.append(c);
+                    pendingSpace = false;
+                }
+            }
+        }
+
+        private void wrapInline(String marker) {
+            String text = buffers.pop().toString();
+            if (text.isBlank()) {
+                current().append(text);
+            } else {
+                current().append(marker).append(text.strip()).append(marker);
+            }
+        }
+
+        private void appendTableRow(List<String> cells) {
+            if (cells.isEmpty()) {
+                return;
+            }
+            StringBuilder out = current();
+            ensureNewline();
+            out.append("| ").append(String.join(" | ", cells)).append(" |\n");
+            if (tableRowCount++ == 0) {
+                out.append("|").append(" --- |".repeat(cells.size())).append('\n');
+            }
+        }
+
+        private void ensureNewline() {
+            StringBuilder out = current();
+            trimTrailingSpaces(out);
+            if (!out.isEmpty() && out.charAt(out.length() - 1) != '\n') {
+                out.append('\n');
+            }
+        }
+
+        private void ensureBlankLine() {
+            StringBuilder out = current();
+            trimTrailingSpaces(out);
+            if (out.isEmpty()) {
+                return;
+            }
+            int newlines = 0;
+            for (int i = out.length() - 1; i >= 0 && out.charAt(i) == '\n' && newlines < 2; i--) {
+                newlines++;
+            }
+            out.append("\n".repeat(2 - newlines));
+        }
+
+        private static void trimTrailingSpaces(StringBuilder out) {
+            int length = out.length();
+            while (length > 0 && (out.charAt(length - 1) == ' ' || out.charAt(length - 1) == '\t')) {
+                length--;
+            }
+            out.setLength(length);
+        }
+
+        private static boolean endsWithWhitespace(StringBuilder out) {
+            char last = out.charAt(out.length() - 1);
+            return last == ' ' || last == '\n';
+        }
+
+        private static String stripTrailingNewlines(String text) {
+            int end = text.length();
+            while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+                end--;
+            }
+            return text.substring(0, end);
+        }
+
+        /**
+         * 頁面框架元素（文章、主要內容或章節內的 header 為內容標頭，不視為框架）
+         */
+        private static boolean isChrome(Element element, String tag) {
+            if (!CHROME_TAGS.contains(tag)) {
+                return false;
+            }
+            Element parent = element.parent();
+            return !tag.equals("header") || parent == null || parent.closest("article, main, section") == null;
+        }
+
+        private static boolean isContentRoot(Element element, String tag) {
+            return tag.equals("article") || tag.equals("main")
+                    || element.hasClass("content") || element.id().equals("content")
+                    || element.hasClass("documentation");
+        }
+
+        /**
+         * 取得程式碼區塊前一個文字元素作為描述
+         */
+        private static String describe(Element element) {
+            Element parent = element.parent();
+            Element prev = parent != null ? parent.previousElementSibling() : null;
+            if (prev == null || !(prev.normalName().equals("p") || prev.normalName().matches("h[1-6]"))) {
+                return "";
+            }
+            String description = prev.text();
+            return description.length() > 200 ? description.substring(0, 200) + "..." : description;
+        }
     }
 
-    private String extractFileNameWithoutExtension(String path) {
-        if (path == null) return "";
+    /**
+     * 清單層級狀態
+     */
+    private static class ListContext {
+        private final boolean ordered;
+        private int counter;
 
-        int lastSlash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
-        String fileName = lastSlash >= 0 ? path.substring(lastSlash + 1) : path;
+        ListContext(boolean ordered) {
+            this.ordered = ordered;
+        }
+    }
 
-        int lastDot = fileName.lastIndexOf('.');
-        return lastDot > 0 ? fileName.substring(0, lastDot) : fileName;
+    /**
+     * 走訪中的程式碼區塊（文字於子節點走訪時累積）
+     */
+    private static class PendingCodeBlock {
+        private final Element element;
+        private final String language;
+        private final String description;
+        private final StringBuilder code = new StringBuilder();
+
+        PendingCodeBlock(Element element, String language, String description) {
+            this.element = element;
+            this.language = language;
+            this.description = description;
+        }
     }
 }
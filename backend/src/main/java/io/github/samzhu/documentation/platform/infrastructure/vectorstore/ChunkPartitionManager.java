@@ -0,0 +1,175 @@
+package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * document_chunks 分區管理器
+ * <p>
+ * 啟用分區（spring.liquibase.parameters.chunk-partitioning=true）後，document_chunks 以
+ * {@code LIST (version_id)} 分區，每個版本一個分區，另有 DEFAULT 分區承接未建立分區的版本：
+ * </p>
+ * <ul>
+ *   <li>建立版本時建立對應分區；父表已有 HNSW 索引時，PostgreSQL 會自動於新分區建立索引</li>
+ *   <li>刪除版本時以 DETACH + DROP 移除整個分區，取代逐列串聯刪除</li>
+ *   <li>以 version_id 過濾的查詢只會掃描單一分區</li>
+ * </ul>
+ * <p>
+ * 未啟用分區時所有方法皆為 no-op。是否分區由資料庫目錄判斷，不另設應用程式配置。
+ * </p>
+ */
+@Component
+public class ChunkPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkPartitionManager.class);
+
+    public static final String PARENT_TABLE = "document_chunks";
+    private static final String PARTITION_PREFIX = PARENT_TABLE + "_v_";
+
+    // TSID 為 Crockford Base32，僅允許英數字，避免 DDL 注入
+    private static final Pattern VERSION_ID_PATTERN = Pattern.compile("^[0-9A-Za-z]{1,32}$");
+
+    private static final String SQL_RELKIND = """
+        SELECT c.relkind FROM pg_class c
+        WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace
+        """;
+
+    private static final String SQL_LEAF_PARTITIONS = """
+        SELECT c.relname FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = ?::regclass
+        ORDER BY c.relname
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<String> knownPartitions = ConcurrentHashMap.newKeySet();
+    private volatile Boolean partitioned;
+
+    public ChunkPartitionManager(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * document_chunks 是否為分區表
+     * <p>
+     * 首次呼叫時查詢 pg_class 並快取結果（分區轉換由 Liquibase 於啟動時完成）。
+     * </p>
+     */
+    public boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            List<String> kinds = jdbcTemplate.queryForList(SQL_RELKIND, String.class, PARENT_TABLE);
+            result = !kinds.isEmpty() && "p".equals(kinds.getFirst());
+            partitioned = result;
+            log.info("document_chunks partitioning: {}", result ? "LIST (version_id)" : "disabled");
+        }
+        return result;
+    }
+
+    /**
+     * 取得版本對應的分區名稱
+     */
+    public static String partitionName(String versionId) {
+        if (versionId == null || !VERSION_ID_PATTERN.matcher(versionId).matches()) {
+            throw new IllegalArgumentException("Invalid version id for partition name: " + versionId);
+        }
+        return PARTITION_PREFIX + versionId.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 確保版本分區存在
+     *
+     * @param versionId 版本 ID（TSID 格式）
+     */
+    public void ensureVersionPartition(String versionId) {
+        if (!isPartitioned()) {
+            return;
+        }
+        String name = partitionName(versionId);
+        if (knownPartitions.contains(name)) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + PARENT_TABLE
+                + " FOR VALUES IN ('" + versionId + "')");
+        registerPartition(name);
+        log.debug("Ensured chunk partition {}", name);
+    }
+
+    /**
+     * 記錄已存在的分區
+     * <p>
+     * 在交易內建立時於提交後才記錄：交易回滾會一併移除分區，提前記錄會使之後的寫入略過建立而落入 DEFAULT 分區。
+     * </p>
+     */
+    private void registerPartition(String name) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    knownPartitions.add(name);
+                }
+            });
+        } else {
+            knownPartitions.add(name);
+        }
+    }
+
+    /**
+     * 確保多個版本分區存在
+     *
+     * @param versionIds 版本 ID 集合（忽略 null）
+     */
+    public void ensureVersionPartitions(Collection<String> versionIds) {
+        if (!isPartitioned()) {
+            return;
+        }
+        versionIds.stream()
+                .filter(id -> id != null)
+                .distinct()
+                .forEach(this::ensureVersionPartition);
+    }
+
+    /**
+     * 移除版本分區（DETACH 後 DROP）
+     * <p>
+     * 應在刪除版本前呼叫，使後續 documents 串聯刪除不再需要逐列刪除區塊。
+     * 在呼叫端交易內執行，交易回滾時分區一併還原。
+     * </p>
+     *
+     * @param versionId 版本 ID（TSID 格式）
+     */
+    public void dropVersionPartition(String versionId) {
+        if (!isPartitioned()) {
+            return;
+        }
+        String name = partitionName(versionId);
+        if (!leafPartitions().contains(name)) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+        knownPartitions.remove(name);
+        log.info("Dropped chunk partition {}", name);
+    }
+
+    /**
+     * 列出所有分區（含 DEFAULT 分區）
+     */
+    public List<String> leafPartitions() {
+        if (!isPartitioned()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(SQL_LEAF_PARTITIONS, String.class, PARENT_TABLE);
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 區塊文字儲存配置屬性
+ * <p>
+ * 控制 document_chunks 寫入時是否保留區塊文字的副本：
+ * </p>
+ * <ul>
+ *   <li>{@code offsets}：區塊為 documents.content 的子字串時只記錄起訖位置，
+ *       讀取時以 {@code substring} 還原；未提供位置的區塊仍寫入文字</li>
+ *   <li>{@code inline}：每個區塊都寫入文字副本（舊行為）</li>
+ * </ul>
+ * <p>
+ * 讀取端同時支援兩種格式，切換模式不需遷移既有資料。
+ * </p>
+ * <p>
+ * 配置範例：
+ * <pre>
+ * platform:
+ *   chunk-storage:
+ *     mode: offsets
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties(prefix = "platform.chunk-storage")
+public class ChunkStorageProperties {
+
+    /**
+     * 區塊文字儲存模式
+     */
+    public enum Mode {
+        /**
+         * 每個區塊保存文字副本
+         */
+        INLINE,
+        /**
+         * 僅保存於 documents.content 中的起訖位置
+         */
+        OFFSETS
+    }
+
+    /**
+     * 儲存模式（預設 offsets）
+     */
+    private Mode mode = Mode.OFFSETS;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * 是否以位置取代文字副本
+     */
+    public boolean isOffsets() {
+        return mode == Mode.OFFSETS;
+    }
+}
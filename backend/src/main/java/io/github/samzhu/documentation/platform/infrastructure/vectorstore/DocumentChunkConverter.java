@@ -68,6 +68,10 @@ public class DocumentChunkConverter {
         if (chunk.getTokenCount() != null) {
             metadata.put(METADATA_TOKEN_COUNT, chunk.getTokenCount());
         }
+        if (chunk.getStartOffset() != null && chunk.getEndOffset() != null) {
+            metadata.put(METADATA_START_OFFSET, chunk.getStartOffset());
+            metadata.put(METADATA_END_OFFSET, chunk.getEndOffset());
+        }
 
         // 從文件取得標題和路徑（如果有的話）
         if (doc != null) {
@@ -144,6 +148,8 @@ public class DocumentChunkConverter {
                     !METADATA_TOKEN_COUNT.equals(key) &&
                     !METADATA_DOCUMENT_TITLE.equals(key) &&
                     !METADATA_DOCUMENT_PATH.equals(key) &&
+                    !METADATA_START_OFFSET.equals(key) &&
+                    !METADATA_END_OFFSET.equals(key) &&
                     !"score".equals(key)) {
                     chunkMetadata.put(key, entry.getValue());
                 }
@@ -157,6 +163,8 @@ public class DocumentChunkConverter {
                 documentId,
                 chunkIndex,
                 doc.getText(),
+                getMetadataInteger(metadata, METADATA_START_OFFSET),
+                getMetadataInteger(metadata, METADATA_END_OFFSET),
                 null,  // embedding 由 VectorStore 管理
                 tokenCount,
                 chunkMetadata,
@@ -201,6 +209,32 @@ public class DocumentChunkConverter {
             String versionId, String documentId, int chunkIndex, String content, int tokenCount,
             String documentTitle, String documentPath) {
 
+        return createNewChunkDocument(versionId, documentId, chunkIndex, content, tokenCount,
+                documentTitle, documentPath, null, null);
+    }
+
+    /**
+     * 建立新文件區塊的 Spring AI Document（含區塊在文件中的位置）
+     * <p>
+     * 提供位置時，區塊文字在 offsets 儲存模式下不另存副本，讀取時由 documents.content 還原；
+     * 因此位置必須對應同一交易中寫入的文件內容。
+     * </p>
+     *
+     * @param versionId     版本 ID（TSID 格式字串）
+     * @param documentId    文件 ID（TSID 格式字串）
+     * @param chunkIndex    區塊索引
+     * @param content       區塊內容（用於產生 embedding）
+     * @param tokenCount    token 數量
+     * @param documentTitle 文件標題（可選）
+     * @param documentPath  文件路徑（可選）
+     * @param startOffset   在文件內容中的起始位置（code point，可選）
+     * @param endOffset     在文件內容中的結束位置（code point，可選）
+     * @return Spring AI Document 物件
+     */
+    public Document createNewChunkDocument(
+            String versionId, String documentId, int chunkIndex, String content, int tokenCount,
+            String documentTitle, String documentPath, Integer startOffset, Integer endOffset) {
+
         Map<String, Object> metadata = new HashMap<>();
         metadata.put(METADATA_VERSION_ID, versionId);
         metadata.put(METADATA_DOCUMENT_ID, documentId);
@@ -213,6 +247,10 @@ public class DocumentChunkConverter {
         if (documentPath != null) {
             metadata.put(METADATA_DOCUMENT_PATH, documentPath);
         }
+        if (startOffset != null && endOffset != null) {
+            metadata.put(METADATA_START_OFFSET, startOffset);
+            metadata.put(METADATA_END_OFFSET, endOffset);
+        }
 
         // Spring AI 2.0 使用 3 參數建構子，使用 IdService 生成 TSID
         return new Document(idService.generateId(), content, metadata);
@@ -249,4 +287,14 @@ public class DocumentChunkConverter {
         }
     }
 
+    /**
+     * 從 metadata 取得可為 null 的整數值
+     */
+    private Integer getMetadataInteger(Map<String, Object> metadata, String key) {
+        if (metadata == null || metadata.get(key) == null) {
+            return null;
+        }
+        return getMetadataInt(metadata, key, 0);
+    }
+
 }
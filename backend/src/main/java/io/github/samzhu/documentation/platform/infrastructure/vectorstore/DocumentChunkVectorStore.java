@@ -3,30 +3,43 @@ package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.f4b6a3.tsid.TsidCreator;
-import com.pgvector.PGvector;
+import io.github.samzhu.documentation.platform.infrastructure.embedding.EmbeddingProperties;
+import io.github.samzhu.documentation.platform.infrastructure.embedding.EmbeddingScheduler;
+import io.github.samzhu.documentation.platform.infrastructure.embedding.QueryEmbeddingCache;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.DocumentChunkFilterExpressionConverter.SqlFilter;
+import io.github.samzhu.documentation.platform.repository.ChunkSearchHit;
 import org.postgresql.util.PGobject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.document.DocumentMetadata;
-import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.Filter;
-import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SqlTypeValue;
 import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * DocumentChunk VectorStore 實作
@@ -38,9 +51,9 @@ import java.util.Map;
  * 此實作的特點：
  * <ul>
  *   <li>使用 PostgreSQL pgvector 擴展進行向量相似度計算</li>
- *   <li>使用 JdbcTemplate + PGvector 物件進行參數綁定</li>
- *   <li>透過 JSONPath 格式進行 metadata 過濾</li>
- *   <li>支援批次 embedding 生成</li>
+ *   <li>使用 JdbcTemplate 綁定參數，向量以 float[] 二進位傳送後轉型為 vector</li>
+ *   <li>versionId / libraryId 等過濾條件轉為欄位條件，其餘 metadata 以 JSONPath 過濾</li>
+ *   <li>透過 EmbeddingScheduler 依 token 數分批、並行生成 embedding</li>
  *   <li>與 Spring AI 生態系統（如 RAG Advisor）相容</li>
  * </ul>
  * </p>
@@ -53,68 +66,217 @@ public class DocumentChunkVectorStore implements VectorStore {
 
     // Metadata 鍵名常數 - 用於 document_chunks.metadata JSONB 欄位
     public static final String METADATA_VERSION_ID = "versionId";
+    public static final String METADATA_LIBRARY_ID = "libraryId";
     public static final String METADATA_DOCUMENT_ID = "documentId";
     public static final String METADATA_CHUNK_INDEX = "chunkIndex";
     public static final String METADATA_TOKEN_COUNT = "tokenCount";
     public static final String METADATA_DOCUMENT_TITLE = "documentTitle";
     public static final String METADATA_DOCUMENT_PATH = "documentPath";
+    public static final String METADATA_START_OFFSET = "startOffset";
+    public static final String METADATA_END_OFFSET = "endOffset";
 
-    // Google GenAI embedding API 限制每批最多 100 個請求
-    private static final int EMBEDDING_BATCH_SIZE = 100;
+    // 由欄位（或 documents 表）提供的 metadata 鍵，寫入時不存入 metadata JSONB，讀取時由欄位還原
+    private static final Set<String> COLUMN_METADATA_KEYS = Set.of(
+            METADATA_VERSION_ID, METADATA_LIBRARY_ID, METADATA_DOCUMENT_ID, METADATA_CHUNK_INDEX,
+            METADATA_TOKEN_COUNT, METADATA_DOCUMENT_TITLE, METADATA_DOCUMENT_PATH,
+            METADATA_START_OFFSET, METADATA_END_OFFSET);
 
     // SQL 語句常數 - 參考 Spring AI PgVectorStore，使用參數佔位符而非 EXCLUDED
     // ID 欄位現為 CHAR(13) TSID 格式，不需要 ::uuid 轉換
-    private static final String SQL_INSERT = """
-        INSERT INTO document_chunks (id, document_id, chunk_index, content, embedding, token_count, metadata, created_at)
-        VALUES (?, ?, ?, ?, ?, ?, ?::jsonb, CURRENT_TIMESTAMP)
-        ON CONFLICT (id) DO UPDATE SET
+    // library_id 由 version_id 查詢 library_versions 取得，呼叫端只需提供 versionId
+    // 向量以 float[] 綁定（pgjdbc 以二進位 float4[] 傳送），再轉型為 vector，避免文字格式化與解析
+    // offsets 儲存模式下 content 為 NULL，僅寫入 start_offset / end_offset
+    // search_vector 由文件標題（權重 A）與區塊文字參數產生（不使用 GENERATED 欄位：offsets 模式下 content 為 NULL）
+    // 分區表的唯一鍵必須包含分區鍵，因此 ON CONFLICT 目標依是否分區而不同
+    private static final String SQL_SEARCH_VECTOR = """
+        setweight(to_tsvector('english', COALESCE((SELECT d.title FROM documents d WHERE d.id = ?), '')), 'A')
+            || to_tsvector('english', ?)""";
+    private static final String SQL_INSERT_TEMPLATE = """
+        INSERT INTO document_chunks (id, document_id, version_id, library_id, chunk_index, content,
+                                     start_offset, end_offset, embedding, token_count, metadata,
+                                     search_vector, created_at)
+        VALUES (?, ?, ?, (SELECT lv.library_id FROM library_versions lv WHERE lv.id = ?), ?, ?,
+                ?, ?, ?::vector, ?, ?::jsonb, %2$s, CURRENT_TIMESTAMP)
+        ON CONFLICT (%1$s) DO UPDATE SET
             content = ?,
-            embedding = ?,
+            start_offset = ?,
+            end_offset = ?,
+            embedding = ?::vector,
             token_count = ?,
-            metadata = ?::jsonb
+            metadata = ?::jsonb,
+            search_vector = %2$s
         """;
+    private static final String SQL_INSERT = SQL_INSERT_TEMPLATE.formatted("id", SQL_SEARCH_VECTOR);
+    private static final String SQL_INSERT_PARTITIONED = SQL_INSERT_TEMPLATE.formatted("id, version_id", SQL_SEARCH_VECTOR);
 
     private static final String SQL_DELETE_BY_ID = "DELETE FROM document_chunks WHERE id = ?";
 
     // 相似度搜尋 SQL - 使用餘弦距離 (<=>)，參考 Spring AI 的格式
+    // 內層以 ORDER BY distance LIMIT 走 HNSW 索引；距離閾值放在外層過濾，避免迭代掃描為湊滿 topK 而掃過整個索引
+    // relaxed_order 迭代掃描的結果可能略為亂序，因此外層再排序一次
+    // 文件標題與路徑僅對最終 topK 筆結果關聯 documents 取得
+    // 結果不需要向量本身，不選取 embedding 欄位，省去每列 768 維向量的序列化與傳輸
+    // 以位置參照文件內容的區塊，僅對最終結果以 substring 還原文字（PostgreSQL substring 以字元計，從 1 開始）
     // 注意：distance = 1 - similarity，所以 distance < threshold 等同於 similarity > (1 - threshold)
     private static final String SQL_SIMILARITY_SEARCH = """
-        SELECT dc.id, dc.document_id, dc.chunk_index, dc.content,
-               dc.embedding, dc.token_count, dc.metadata,
-               dc.embedding <=> ? AS distance
-        FROM document_chunks dc
-        WHERE dc.embedding IS NOT NULL
-        %s
-        AND dc.embedding <=> ? < ?
-        ORDER BY distance
-        LIMIT ?
+        WITH nearest AS MATERIALIZED (
+            SELECT dc.id, dc.document_id, dc.version_id, dc.library_id, dc.chunk_index, dc.content,
+                   dc.start_offset, dc.end_offset, dc.token_count, dc.metadata,
+                   dc.embedding <=> ?::vector AS distance
+            FROM document_chunks dc
+            WHERE dc.embedding IS NOT NULL%s
+            ORDER BY distance
+            LIMIT ?
+        )
+        SELECT n.id, n.document_id, n.version_id, n.library_id, n.chunk_index,
+               COALESCE(n.content, substring(d.content FROM n.start_offset + 1 FOR n.end_offset - n.start_offset))
+                   AS content,
+               n.token_count, n.metadata, n.distance, d.title AS document_title, d.path AS document_path
+        FROM nearest n
+        JOIN documents d ON d.id = n.document_id
+        WHERE n.distance < ?
+        ORDER BY n.distance
+        """;
+
+    // 搜尋結果投影 - 與 SQL_SIMILARITY_SEARCH 相同的 ANN 掃描，但只回傳組成搜尋結果所需的欄位
+    // 不選取 version_id / library_id / token_count / metadata，省去每列 JSONB 解析與 Map 建立
+    private static final String SQL_SIMILARITY_HITS = """
+        WITH nearest AS MATERIALIZED (
+            SELECT dc.id, dc.document_id, dc.chunk_index, dc.content, dc.start_offset, dc.end_offset,
+                   dc.embedding <=> ?::vector AS distance
+            FROM document_chunks dc
+            WHERE dc.embedding IS NOT NULL%s
+            ORDER BY distance
+            LIMIT ?
+        )
+        SELECT n.id, n.document_id, n.chunk_index, d.title, d.path,
+               COALESCE(n.content, substring(d.content FROM n.start_offset + 1 FOR n.end_offset - n.start_offset))
+                   AS content,
+               1 - n.distance AS score
+        FROM nearest n
+        JOIN documents d ON d.id = n.document_id
+        WHERE n.distance < ?
+        ORDER BY n.distance
+        """;
+
+    // 單一語句混合搜尋 - 關鍵字排名、ANN 排名、加權 RRF 融合與結果投影在同一次往返完成
+    // nearest 與 SQL_SIMILARITY_SEARCH 相同（內層 ORDER BY distance LIMIT 走 HNSW），距離閾值於排名前過濾
+    // keyword 以 search_vector（GIN 索引）篩選後依 ts_rank 排名
+    // fused 以 FULL OUTER JOIN 合併兩個排名：score = alpha / (K + keyword_rank) + (1 - alpha) / (K + semantic_rank)
+    // 最終結果才關聯 documents 與還原 offsets 模式的區塊文字；帶入 version_id 使分區表只掃描單一分區
+    private static final String SQL_HYBRID_SEARCH = """
+        WITH q AS (
+            SELECT plainto_tsquery('english', ?) AS query
+        ),
+        nearest AS MATERIALIZED (
+            SELECT dc.id, dc.embedding <=> ?::vector AS distance
+            FROM document_chunks dc
+            WHERE dc.embedding IS NOT NULL AND dc.version_id = ?
+            ORDER BY distance
+            LIMIT ?
+        ),
+        semantic AS (
+            SELECT n.id, row_number() OVER (ORDER BY n.distance) AS rank
+            FROM nearest n
+            WHERE n.distance < ?
+        ),
+        keyword AS (
+            SELECT dc.id, row_number() OVER (ORDER BY ts_rank(dc.search_vector, q.query) DESC) AS rank
+            FROM document_chunks dc, q
+            WHERE dc.version_id = ? AND dc.search_vector @@ q.query
+            ORDER BY rank
+            LIMIT ?
+        ),
+        fused AS (
+            SELECT COALESCE(s.id, k.id) AS id,
+                   COALESCE(? / (? + k.rank), 0) + COALESCE((1 - ?) / (? + s.rank), 0) AS score
+            FROM semantic s
+            FULL OUTER JOIN keyword k ON k.id = s.id
+            ORDER BY score DESC
+            LIMIT ?
+        )
+        SELECT dc.id, dc.document_id, dc.chunk_index, d.title, d.path,
+               COALESCE(dc.content, substring(d.content FROM dc.start_offset + 1 FOR dc.end_offset - dc.start_offset))
+                   AS content,
+               f.score
+        FROM fused f
+        JOIN document_chunks dc ON dc.id = f.id AND dc.version_id = ?
+        JOIN documents d ON d.id = dc.document_id
+        ORDER BY f.score DESC
+        """;
+
+    private static final RowMapper<ChunkSearchHit> CHUNK_HIT_MAPPER = (rs, rowNum) -> new ChunkSearchHit(
+            rs.getString("id"),
+            rs.getString("document_id"),
+            rs.getInt("chunk_index"),
+            rs.getString("title"),
+            rs.getString("path"),
+            rs.getString("content"),
+            rs.getDouble("score"));
+
+    // HNSW 查詢參數，僅在目前交易內生效（set_config 第三個參數 is_local = true）
+    private static final String SQL_SET_SEARCH_PARAMS = """
+        SELECT set_config('hnsw.ef_search', ?, true),
+               set_config('hnsw.iterative_scan', ?, true),
+               set_config('hnsw.max_scan_tuples', ?, true)
         """;
 
     private final JdbcTemplate jdbcTemplate;
-    private final EmbeddingModel embeddingModel;
+    private final EmbeddingScheduler embeddingScheduler;
+    private final QueryEmbeddingCache queryEmbeddingCache;
     private final ObjectMapper objectMapper;
     private final int dimensions;
-    private final FilterExpressionConverter filterExpressionConverter;
+    private final int pipelineDepth;
+    private final boolean deferred;
+    private final VectorIndexProperties indexProperties;
+    private final boolean hnswEnabled;
+    private final ChunkPartitionManager partitionManager;
+    private final boolean storeOffsets;
+    private final DocumentChunkFilterExpressionConverter filterExpressionConverter;
     private final DocumentRowMapper documentRowMapper;
+    private final TransactionTemplate searchTransaction;
 
     /**
      * 建構子
      *
      * @param jdbcTemplate   JDBC 操作模板
-     * @param embeddingModel 嵌入模型（用於生成向量）
+     * @param embeddingScheduler 嵌入請求排程器（用於生成向量）
      * @param objectMapper   JSON 序列化工具
      * @param dimensions     向量維度（預設 768）
+     * @param embeddingProperties 嵌入配置（寫入管線深度、延遲嵌入模式）
+     * @param indexProperties 向量索引配置（HNSW 查詢參數）
+     * @param hnswEnabled    是否使用 HNSW 索引（決定是否設定 hnsw.* 查詢參數）
+     * @param partitionManager 分區管理器（分區表時確保版本分區存在）
+     * @param chunkStorageProperties 區塊文字儲存配置（是否以位置取代文字副本）
+     * @param queryEmbeddingCache 查詢向量快取（搜尋時取得查詢向量）
+     * @param transactionManager 交易管理器（HNSW 查詢參數與查詢的短交易）
      */
     public DocumentChunkVectorStore(JdbcTemplate jdbcTemplate,
-                                     EmbeddingModel embeddingModel,
+                                     EmbeddingScheduler embeddingScheduler,
                                      ObjectMapper objectMapper,
-                                     int dimensions) {
+                                     int dimensions,
+                                     EmbeddingProperties embeddingProperties,
+                                     VectorIndexProperties indexProperties,
+                                     boolean hnswEnabled,
+                                     ChunkPartitionManager partitionManager,
+                                     ChunkStorageProperties chunkStorageProperties,
+                                     QueryEmbeddingCache queryEmbeddingCache,
+                                     PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
-        this.embeddingModel = embeddingModel;
+        this.embeddingScheduler = embeddingScheduler;
+        this.queryEmbeddingCache = queryEmbeddingCache;
         this.objectMapper = objectMapper;
         this.dimensions = dimensions;
+        this.pipelineDepth = Math.max(0, embeddingProperties.getPipelineDepth());
+        this.deferred = embeddingProperties.isDeferred();
+        this.indexProperties = indexProperties;
+        this.hnswEnabled = hnswEnabled;
+        this.partitionManager = partitionManager;
+        this.storeOffsets = chunkStorageProperties.isOffsets();
         this.filterExpressionConverter = new DocumentChunkFilterExpressionConverter();
         this.documentRowMapper = new DocumentRowMapper(objectMapper);
+        this.searchTransaction = new TransactionTemplate(transactionManager);
+        this.searchTransaction.setReadOnly(true);
 
         log.info("初始化 DocumentChunkVectorStore，向量維度: {}", dimensions);
     }
@@ -124,7 +286,13 @@ public class DocumentChunkVectorStore implements VectorStore {
      * <p>
      * 自動生成 embedding。使用 UPSERT 語法（ON CONFLICT DO UPDATE）處理重複 ID。
      * 使用 JdbcTemplate.batchUpdate 進行批次插入。
-     * 為避免 Google GenAI 的批次限制（最多 100 個），會自動分批處理。
+     * embedding 由 EmbeddingScheduler 依 token 數分批並行生成，限流時自動退避重試。
+     * 寫入與 embedding 管線化：寫入目前批次時，下一批次的 embedding 請求已送出；
+     * 批次依原順序寫入，任一批次失敗即中止並取消其餘請求。
+     * </p>
+     * <p>
+     * 延遲嵌入模式（platform.embedding.deferred=true）下不呼叫嵌入模型，
+     * 區塊以 NULL 向量立即寫入，由 EmbeddingBackfillService 於背景補齊。
      * </p>
      *
      * @param documents 要新增的 Spring AI Document 列表
@@ -138,63 +306,132 @@ public class DocumentChunkVectorStore implements VectorStore {
 
         log.info("新增 {} 個文件到 VectorStore", documents.size());
 
-        // 分批處理以避免 embedding API 的批次限制
-        for (int batchStart = 0; batchStart < documents.size(); batchStart += EMBEDDING_BATCH_SIZE) {
-            int batchEnd = Math.min(batchStart + EMBEDDING_BATCH_SIZE, documents.size());
-            List<Document> batch = documents.subList(batchStart, batchEnd);
-
-            log.debug("處理批次 {}-{} / {}", batchStart + 1, batchEnd, documents.size());
-
-            // 批次生成 embedding
-            List<String> texts = batch.stream()
-                    .map(Document::getText)
-                    .toList();
-            List<float[]> embeddings = embeddingModel.embed(texts);
-
-            // 使用 JdbcTemplate.batchUpdate 進行批次插入
-            // 參考 Spring AI PgVectorStore，使用 StatementCreatorUtils 設定參數
-            jdbcTemplate.batchUpdate(SQL_INSERT, new BatchPreparedStatementSetter() {
-                @Override
-                public void setValues(PreparedStatement ps, int i) throws SQLException {
-                    Document doc = batch.get(i);
-                    Map<String, Object> metadata = doc.getMetadata();
-                    float[] embedding = embeddings.get(i);
-                    PGvector pGvector = new PGvector(embedding);
-
-                    // 準備參數值（使用 TSID 作為 ID）
-                    String id = doc.getId() != null ? doc.getId() : TsidCreator.getTsid().toString();
-                    String documentId = getStringFromMetadata(metadata, METADATA_DOCUMENT_ID, TsidCreator.getTsid().toString());
-                    int chunkIndex = getIntFromMetadata(metadata, METADATA_CHUNK_INDEX, 0);
-                    String content = doc.getText();
-                    int tokenCount = getIntFromMetadata(metadata, METADATA_TOKEN_COUNT, 0);
-                    String metadataJson = toJson(metadata);
-
-                    // INSERT 部分的參數（1-7）
-                    StatementCreatorUtils.setParameterValue(ps, 1, SqlTypeValue.TYPE_UNKNOWN, id);
-                    StatementCreatorUtils.setParameterValue(ps, 2, SqlTypeValue.TYPE_UNKNOWN, documentId);
-                    StatementCreatorUtils.setParameterValue(ps, 3, SqlTypeValue.TYPE_UNKNOWN, chunkIndex);
-                    StatementCreatorUtils.setParameterValue(ps, 4, SqlTypeValue.TYPE_UNKNOWN, content);
-                    StatementCreatorUtils.setParameterValue(ps, 5, SqlTypeValue.TYPE_UNKNOWN, pGvector);
-                    StatementCreatorUtils.setParameterValue(ps, 6, SqlTypeValue.TYPE_UNKNOWN, tokenCount);
-                    StatementCreatorUtils.setParameterValue(ps, 7, SqlTypeValue.TYPE_UNKNOWN, metadataJson);
-
-                    // UPDATE 部分的參數（8-11）- 參考官方風格，重複傳值
-                    StatementCreatorUtils.setParameterValue(ps, 8, SqlTypeValue.TYPE_UNKNOWN, content);
-                    StatementCreatorUtils.setParameterValue(ps, 9, SqlTypeValue.TYPE_UNKNOWN, pGvector);
-                    StatementCreatorUtils.setParameterValue(ps, 10, SqlTypeValue.TYPE_UNKNOWN, tokenCount);
-                    StatementCreatorUtils.setParameterValue(ps, 11, SqlTypeValue.TYPE_UNKNOWN, metadataJson);
-                }
+        // 分區表：確保各版本分區存在（建立版本時通常已建立，此處為保險）
+        partitionManager.ensureVersionPartitions(documents.stream()
+                .map(doc -> getStringFromMetadata(doc.getMetadata(), METADATA_VERSION_ID, null))
+                .toList());
+
+        if (deferred) {
+            // 延遲嵌入：僅寫入內容，embedding 由背景作業補齊
+            insertBatch(documents, null);
+            return;
+        }
 
-                @Override
-                public int getBatchSize() {
-                    return batch.size();
+        // 依 token 數切分批次
+        List<String> texts = documents.stream()
+                .map(Document::getText)
+                .toList();
+        List<EmbeddingScheduler.BatchRange> ranges = embeddingScheduler.partition(texts);
+
+        // 管線化：寫入第 i 批時，後續批次的 embedding 已在進行中；
+        // 預先送出的批次數跟隨排程器目前的並行上限，pipelineDepth 只作為下限
+        Deque<CompletableFuture<List<float[]>>> pending = new ArrayDeque<>();
+        int submitted = 0;
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                int depth = Math.max(pipelineDepth, embeddingScheduler.concurrencyLimit());
+                while (submitted < ranges.size() && submitted <= i + depth) {
+                    EmbeddingScheduler.BatchRange next = ranges.get(submitted++);
+                    pending.addLast(embeddingScheduler.submit(texts.subList(next.from(), next.to())));
                 }
-            });
+
+                EmbeddingScheduler.BatchRange range = ranges.get(i);
+                log.debug("處理批次 {}-{} / {}", range.from() + 1, range.to(), documents.size());
+
+                List<float[]> embeddings = awaitEmbeddings(pending.removeFirst());
+                insertBatch(documents.subList(range.from(), range.to()), embeddings);
+            }
+        } catch (RuntimeException e) {
+            // 任一批次失敗：取消尚未完成的 embedding 請求，交由交易回滾已寫入的批次
+            pending.forEach(future -> future.cancel(true));
+            throw e;
         }
 
         log.debug("成功新增 {} 個文件", documents.size());
     }
 
+    /**
+     * 等待單一批次的 embedding 結果
+     */
+    private List<float[]> awaitEmbeddings(CompletableFuture<List<float[]>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    /**
+     * 寫入單一批次
+     * <p>
+     * embeddings 為 null 時以 NULL 向量寫入（延遲嵌入模式）。
+     * </p>
+     * <p>
+     * 使用 JdbcTemplate.batchUpdate 進行批次插入。
+     * 參考 Spring AI PgVectorStore，使用 StatementCreatorUtils 設定參數。
+     * </p>
+     */
+    private void insertBatch(List<Document> batch, List<float[]> embeddings) {
+        String sql = partitionManager.isPartitioned() ? SQL_INSERT_PARTITIONED : SQL_INSERT;
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Document doc = batch.get(i);
+                Map<String, Object> metadata = doc.getMetadata();
+                float[] embedding = embeddings != null ? embeddings.get(i) : null;
+
+                // 準備參數值（使用 TSID 作為 ID）
+                String id = doc.getId() != null ? doc.getId() : TsidCreator.getTsid().toString();
+                String documentId = getStringFromMetadata(metadata, METADATA_DOCUMENT_ID, TsidCreator.getTsid().toString());
+                String versionId = getStringFromMetadata(metadata, METADATA_VERSION_ID, null);
+                int chunkIndex = getIntFromMetadata(metadata, METADATA_CHUNK_INDEX, 0);
+                String content = doc.getText();
+                int tokenCount = getIntFromMetadata(metadata, METADATA_TOKEN_COUNT, 0);
+                String metadataJson = toJson(extraMetadata(metadata));
+
+                // 區塊位置：兩端皆提供時記錄；offsets 模式下不再寫入文字副本
+                Integer startOffset = getIntegerFromMetadata(metadata, METADATA_START_OFFSET);
+                Integer endOffset = getIntegerFromMetadata(metadata, METADATA_END_OFFSET);
+                if (startOffset == null || endOffset == null) {
+                    startOffset = null;
+                    endOffset = null;
+                }
+                String storedContent = storeOffsets && startOffset != null ? null : content;
+                String searchText = content != null ? content : "";
+
+                // INSERT 部分的參數（1-13）
+                StatementCreatorUtils.setParameterValue(ps, 1, SqlTypeValue.TYPE_UNKNOWN, id);
+                StatementCreatorUtils.setParameterValue(ps, 2, SqlTypeValue.TYPE_UNKNOWN, documentId);
+                StatementCreatorUtils.setParameterValue(ps, 3, Types.VARCHAR, versionId);
+                StatementCreatorUtils.setParameterValue(ps, 4, Types.VARCHAR, versionId);
+                StatementCreatorUtils.setParameterValue(ps, 5, SqlTypeValue.TYPE_UNKNOWN, chunkIndex);
+                StatementCreatorUtils.setParameterValue(ps, 6, Types.VARCHAR, storedContent);
+                StatementCreatorUtils.setParameterValue(ps, 7, Types.INTEGER, startOffset);
+                StatementCreatorUtils.setParameterValue(ps, 8, Types.INTEGER, endOffset);
+                StatementCreatorUtils.setParameterValue(ps, 9, SqlTypeValue.TYPE_UNKNOWN, embedding);
+                StatementCreatorUtils.setParameterValue(ps, 10, SqlTypeValue.TYPE_UNKNOWN, tokenCount);
+                StatementCreatorUtils.setParameterValue(ps, 11, SqlTypeValue.TYPE_UNKNOWN, metadataJson);
+                StatementCreatorUtils.setParameterValue(ps, 12, SqlTypeValue.TYPE_UNKNOWN, documentId);
+                StatementCreatorUtils.setParameterValue(ps, 13, Types.VARCHAR, searchText);
+
+                // UPDATE 部分的參數（14-21）- 參考官方風格，重複傳值
+                StatementCreatorUtils.setParameterValue(ps, 14, Types.VARCHAR, storedContent);
+                StatementCreatorUtils.setParameterValue(ps, 15, Types.INTEGER, startOffset);
+                StatementCreatorUtils.setParameterValue(ps, 16, Types.INTEGER, endOffset);
+                StatementCreatorUtils.setParameterValue(ps, 17, SqlTypeValue.TYPE_UNKNOWN, embedding);
+                StatementCreatorUtils.setParameterValue(ps, 18, SqlTypeValue.TYPE_UNKNOWN, tokenCount);
+                StatementCreatorUtils.setParameterValue(ps, 19, SqlTypeValue.TYPE_UNKNOWN, metadataJson);
+                StatementCreatorUtils.setParameterValue(ps, 20, SqlTypeValue.TYPE_UNKNOWN, documentId);
+                StatementCreatorUtils.setParameterValue(ps, 21, Types.VARCHAR, searchText);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
     /**
      * 依 ID 列表刪除文件
      * <p>
@@ -230,7 +467,7 @@ public class DocumentChunkVectorStore implements VectorStore {
     /**
      * 依 Filter Expression 刪除文件
      * <p>
-     * 將 Spring AI 的 Filter Expression 轉換為 JSONPath 查詢條件進行刪除。
+     * 將 Spring AI 的 Filter Expression 轉換為 SQL 條件（欄位或 JSONPath）進行刪除。
      * 參考 Spring AI PgVectorStore，使用 try-catch 處理例外。
      * </p>
      *
@@ -243,18 +480,18 @@ public class DocumentChunkVectorStore implements VectorStore {
             return;
         }
 
-        String nativeFilterExpression = filterExpressionConverter.convertExpression(filterExpression);
-        if (!StringUtils.hasText(nativeFilterExpression)) {
+        SqlFilter filter = filterExpressionConverter.convertToSqlFilter(filterExpression);
+        if (filter.isEmpty()) {
             return;
         }
 
-        log.info("依條件刪除文件區塊，條件: {}", nativeFilterExpression);
+        log.info("依條件刪除文件區塊，條件: {}", filterExpressionConverter.convertExpression(filterExpression));
 
-        String sql = "DELETE FROM document_chunks WHERE metadata::jsonb @@ '" + nativeFilterExpression + "'::jsonpath";
+        String sql = "DELETE FROM document_chunks dc WHERE " + filter.sql();
 
         // 參考官方風格，使用 try-catch 處理例外
         try {
-            int deleted = jdbcTemplate.update(sql);
+            int deleted = jdbcTemplate.update(sql, filter.params().toArray());
             log.debug("已刪除 {} 個文件區塊", deleted);
         } catch (Exception e) {
             throw new IllegalStateException("依條件刪除文件失敗", e);
@@ -265,9 +502,13 @@ public class DocumentChunkVectorStore implements VectorStore {
      * 向量相似度搜尋
      * <p>
      * 使用 pgvector 的餘弦距離進行相似度搜尋。
-     * 參考 Spring AI PgVectorStore 實作，使用 JdbcTemplate + PGvector 物件。
+     * 參考 Spring AI PgVectorStore 實作，使用 JdbcTemplate 執行查詢。
      * 支援透過 filterExpression 過濾特定 versionId 的文件。
      * </p>
+     * <p>
+     * 使用 HNSW 索引時，於同一交易內設定 hnsw.ef_search 與迭代掃描參數，
+     * 搭配 metadata 過濾時仍能取滿 topK 筆結果。
+     * </p>
      *
      * @param request 搜尋請求（包含查詢文字、topK、similarityThreshold、filterExpression）
      * @return 相似度最高的 Document 列表
@@ -281,38 +522,118 @@ public class DocumentChunkVectorStore implements VectorStore {
         log.debug("執行語意搜尋，查詢: {}, topK: {}, threshold: {}",
                 request.getQuery(), request.getTopK(), request.getSimilarityThreshold());
 
-        // 將查詢文字轉換為向量
-        float[] queryEmbedding = embeddingModel.embed(request.getQuery());
-        PGvector queryVector = new PGvector(queryEmbedding);
+        List<Document> results = query(request, DocumentChunkVectorStore::similaritySql,
+                documentRowMapper);
 
-        // 處理過濾條件 - 使用 JSONPath 格式
-        String jsonPathFilter = "";
-        if (request.getFilterExpression() != null) {
-            String nativeFilterExpression = filterExpressionConverter.convertExpression(request.getFilterExpression());
-            if (StringUtils.hasText(nativeFilterExpression)) {
-                jsonPathFilter = " AND metadata::jsonb @@ '" + nativeFilterExpression + "'::jsonpath ";
-            }
+        log.debug("語意搜尋完成，找到 {} 個結果", results.size());
+        return results;
+    }
+
+    /**
+     * 向量相似度搜尋（搜尋結果投影）
+     * <p>
+     * 與 {@link #similaritySearch(SearchRequest)} 相同的查詢與過濾條件，
+     * 但以單一 JOIN 取得文件標題與路徑，直接回傳 {@link ChunkSearchHit}，
+     * 呼叫端不需再載入 documents 實體，也不建立 Spring AI Document 與 metadata Map。
+     * </p>
+     *
+     * @param request 搜尋請求（包含查詢文字、topK、similarityThreshold、filterExpression）
+     * @return 相似度最高的區塊（score 為相似度）
+     */
+    public List<ChunkSearchHit> similaritySearchHits(SearchRequest request) {
+        if (request.getQuery() == null || request.getQuery().isBlank()) {
+            return List.of();
         }
 
+        log.debug("執行語意搜尋（結果投影），查詢: {}, topK: {}, threshold: {}",
+                request.getQuery(), request.getTopK(), request.getSimilarityThreshold());
+
+        return query(request, DocumentChunkVectorStore::similarityHitsSql, CHUNK_HIT_MAPPER);
+    }
+
+    /**
+     * 混合搜尋（單一 SQL 語句）
+     * <p>
+     * 查詢向量以參數傳入，關鍵字與語意兩個排名在資料庫內以加權 RRF 融合並直接回傳結果投影，
+     * 取代「全文檢索 → 語意搜尋 → 應用程式內融合」的多次往返。
+     * </p>
+     *
+     * @param versionId     版本 ID（TSID 格式）
+     * @param query         搜尋查詢（同時用於關鍵字與語意搜尋）
+     * @param fetchLimit    每個排名取得的候選數
+     * @param limit         融合後回傳筆數
+     * @param alpha         關鍵字搜尋權重（0-1）
+     * @param rrfK          RRF 常數 K
+     * @param minSimilarity 語意搜尋最低相似度閾值
+     * @return 依 RRF 分數排序的區塊（score 為未正規化的 RRF 分數）
+     */
+    public List<ChunkSearchHit> hybridSearchHits(String versionId, String query, int fetchLimit, int limit,
+                                                 double alpha, int rrfK, double minSimilarity) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+
+        // 於交易外取得查詢向量，等待嵌入供應商時不佔用連線
+        float[] queryVector = queryEmbeddingCache.embed(query);
+
+        // 參數順序依 SQL 中出現的位置
+        return search(() -> jdbcTemplate.query(SQL_HYBRID_SEARCH, CHUNK_HIT_MAPPER,
+                query,
+                queryVector, versionId, fetchLimit,
+                1 - minSimilarity,
+                versionId, fetchLimit,
+                alpha, rrfK, alpha, rrfK,
+                limit,
+                versionId));
+    }
+
+    /**
+     * 執行向量相似度查詢
+     *
+     * @param request    搜尋請求
+     * @param sqlBuilder 由參數化過濾條件組合完整語句
+     * @param rowMapper  結果對應
+     */
+    private <T> List<T> query(SearchRequest request, UnaryOperator<String> sqlBuilder, RowMapper<T> rowMapper) {
+        // 將查詢文字轉換為向量（經由查詢向量快取；於交易外取得，等待嵌入供應商時不佔用連線）
+        float[] queryVector = queryEmbeddingCache.embed(request.getQuery());
+
+        // 處理過濾條件 - versionId / libraryId 等轉為欄位條件，其餘為 JSONPath，值皆為綁定參數
+        SqlFilter filter = filterExpressionConverter.convertToSqlFilter(request.getFilterExpression());
+
         // 計算距離閾值：distance = 1 - similarity
         double distanceThreshold = 1 - request.getSimilarityThreshold();
         int topK = request.getTopK() > 0 ? request.getTopK() : 10;
 
-        // 建構 SQL
-        String sql = String.format(SQL_SIMILARITY_SEARCH, jsonPathFilter);
+        // 建構 SQL - 相同結構的過濾條件得到相同語句，pgjdbc 可重用伺服器端預備語句
+        String sql = sqlBuilder.apply(filter.sql());
 
-        // 執行查詢 - 參考 Spring AI，直接傳遞 PGvector 物件
-        List<Document> results = jdbcTemplate.query(
-                sql,
-                documentRowMapper,
-                queryVector,      // 用於計算 distance
-                queryVector,      // 用於 WHERE 條件
-                distanceThreshold,
-                topK
-        );
+        // 參數順序：查詢向量、過濾條件參數、內層 LIMIT、外層距離閾值
+        List<Object> args = new ArrayList<>(filter.params().size() + 3);
+        args.add(queryVector);
+        args.addAll(filter.params());
+        args.add(topK);
+        args.add(distanceThreshold);
 
-        log.debug("語意搜尋完成，找到 {} 個結果", results.size());
-        return results;
+        // 執行查詢 - 查詢向量以 float[] 二進位傳送
+        return search(() -> jdbcTemplate.query(sql, rowMapper, args.toArray()));
+    }
+
+    /**
+     * 執行搜尋語句
+     * <p>
+     * 使用 HNSW 索引時於短暫的唯讀交易內先設定查詢參數（set_config 的 is_local 只在交易內有效），
+     * 交易只涵蓋參數設定與查詢本身；查詢向量須於呼叫前取得。
+     * </p>
+     */
+    private <T> List<T> search(Supplier<List<T>> statement) {
+        if (!hnswEnabled) {
+            return statement.get();
+        }
+        return searchTransaction.execute(status -> {
+            applySearchParams();
+            return statement.get();
+        });
     }
 
     /**
@@ -325,6 +646,45 @@ public class DocumentChunkVectorStore implements VectorStore {
 
     // ========== 私有輔助方法 ==========
 
+    /**
+     * 由參數化過濾條件組合相似度搜尋語句
+     */
+    private static String similaritySql(String filterSql) {
+        return SQL_SIMILARITY_SEARCH.formatted(filterSql.isEmpty() ? "" : " AND " + filterSql);
+    }
+
+    /**
+     * 由參數化過濾條件組合搜尋結果投影語句
+     */
+    private static String similarityHitsSql(String filterSql) {
+        return SQL_SIMILARITY_HITS.formatted(filterSql.isEmpty() ? "" : " AND " + filterSql);
+    }
+
+    /**
+     * 設定本次交易的 HNSW 查詢參數（須於 {@link #searchTransaction} 內呼叫）
+     */
+    private void applySearchParams() {
+        jdbcTemplate.queryForList(SQL_SET_SEARCH_PARAMS,
+                String.valueOf(indexProperties.getEfSearch()),
+                indexProperties.getIterativeScan(),
+                String.valueOf(indexProperties.getMaxScanTuples()));
+    }
+
+    /**
+     * 取得需存入 metadata JSONB 的額外鍵值（排除由欄位提供者）
+     */
+    private static Map<String, Object> extraMetadata(Map<String, Object> metadata) {
+        Map<String, Object> extra = new HashMap<>();
+        if (metadata != null) {
+            metadata.forEach((key, value) -> {
+                if (!COLUMN_METADATA_KEYS.contains(key)) {
+                    extra.put(key, value);
+                }
+            });
+        }
+        return extra;
+    }
+
     /**
      * 將 Map 轉換為 JSON 字串
      * <p>
@@ -368,10 +728,21 @@ public class DocumentChunkVectorStore implements VectorStore {
         }
     }
 
+    /**
+     * 從 metadata 取得可為 null 的整數值
+     */
+    private Integer getIntegerFromMetadata(Map<String, Object> metadata, String key) {
+        if (metadata == null || metadata.get(key) == null) {
+            return null;
+        }
+        return getIntFromMetadata(metadata, key, 0);
+    }
+
     /**
      * Document RowMapper
      * <p>
      * 將資料庫查詢結果轉換為 Spring AI Document 物件。
+     * 版本、函式庫、文件等資訊由欄位還原至 metadata，維持與呼叫端的 metadata 鍵相容。
      * 參考 Spring AI PgVectorStore 的 DocumentRowMapper 實作。
      * </p>
      */
@@ -382,6 +753,13 @@ public class DocumentChunkVectorStore implements VectorStore {
         private static final String COLUMN_CONTENT = "content";
         private static final String COLUMN_METADATA = "metadata";
         private static final String COLUMN_DISTANCE = "distance";
+        private static final String COLUMN_VERSION_ID = "version_id";
+        private static final String COLUMN_LIBRARY_ID = "library_id";
+        private static final String COLUMN_DOCUMENT_ID = "document_id";
+        private static final String COLUMN_CHUNK_INDEX = "chunk_index";
+        private static final String COLUMN_TOKEN_COUNT = "token_count";
+        private static final String COLUMN_DOCUMENT_TITLE = "document_title";
+        private static final String COLUMN_DOCUMENT_PATH = "document_path";
 
         private final ObjectMapper objectMapper;
 
@@ -397,6 +775,13 @@ public class DocumentChunkVectorStore implements VectorStore {
             float distance = rs.getFloat(COLUMN_DISTANCE);
 
             Map<String, Object> metadata = toMap(pgMetadata);
+            putIfNotNull(metadata, METADATA_VERSION_ID, rs.getString(COLUMN_VERSION_ID));
+            putIfNotNull(metadata, METADATA_LIBRARY_ID, rs.getString(COLUMN_LIBRARY_ID));
+            putIfNotNull(metadata, METADATA_DOCUMENT_ID, rs.getString(COLUMN_DOCUMENT_ID));
+            putIfNotNull(metadata, METADATA_CHUNK_INDEX, rs.getObject(COLUMN_CHUNK_INDEX, Integer.class));
+            putIfNotNull(metadata, METADATA_TOKEN_COUNT, rs.getObject(COLUMN_TOKEN_COUNT, Integer.class));
+            putIfNotNull(metadata, METADATA_DOCUMENT_TITLE, rs.getString(COLUMN_DOCUMENT_TITLE));
+            putIfNotNull(metadata, METADATA_DOCUMENT_PATH, rs.getString(COLUMN_DOCUMENT_PATH));
             metadata.put(DocumentMetadata.DISTANCE.value(), distance);
 
             // 參考官方風格，使用 Document.builder() 並設定 score
@@ -408,6 +793,15 @@ public class DocumentChunkVectorStore implements VectorStore {
                     .build();
         }
 
+        /**
+         * 欄位值不為 null 時放入 metadata
+         */
+        private static void putIfNotNull(Map<String, Object> metadata, String key, Object value) {
+            if (value != null) {
+                metadata.put(key, value);
+            }
+        }
+
         /**
          * 將 PGobject 轉換為 Map
          * <p>
@@ -416,6 +810,9 @@ public class DocumentChunkVectorStore implements VectorStore {
          */
         @SuppressWarnings("unchecked")
         private Map<String, Object> toMap(PGobject pgObject) {
+            if (pgObject == null || pgObject.getValue() == null) {
+                return new HashMap<>();
+            }
             String source = pgObject.getValue();
             try {
                 return (Map<String, Object>) objectMapper.readValue(source, Map.class);
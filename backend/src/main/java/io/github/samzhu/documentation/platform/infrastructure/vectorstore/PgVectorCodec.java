@@ -0,0 +1,66 @@
+package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
+
+import java.nio.ByteBuffer;
+
+/**
+ * pgvector 二進位格式編解碼
+ * <p>
+ * 讀取：以 {@code vector_send(embedding)} 取得 bytea，格式為
+ * int16 維度、int16 保留欄位、維度個 float4（皆為 big-endian），直接解碼為 float[]，
+ * 不經過 {@code [0.1,0.2,...]} 文字格式的輸出與解析。
+ * </p>
+ * <p>
+ * 寫入：以 float[] 綁定參數並於 SQL 轉型為 {@code ?::vector}，
+ * pgjdbc 以二進位格式傳送 float4[]，再由 pgvector 的 real[] → vector 轉型寫入。
+ * </p>
+ */
+public final class PgVectorCodec {
+
+    private static final int HEADER_BYTES = 2 * Short.BYTES;
+
+    private PgVectorCodec() {
+    }
+
+    /**
+     * 解碼 vector_send 的輸出
+     *
+     * @param bytes vector 二進位格式（可為 null）
+     * @return 向量；輸入為 null 時回傳 null
+     * @throws IllegalArgumentException 長度與維度不符
+     */
+    public static float[] decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length < HEADER_BYTES) {
+            throw new IllegalArgumentException("Invalid vector binary length: " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int dimensions = Short.toUnsignedInt(buffer.getShort());
+        buffer.getShort(); // 保留欄位，固定為 0
+        if (buffer.remaining() != dimensions * Float.BYTES) {
+            throw new IllegalArgumentException("Vector binary length " + bytes.length
+                    + " does not match dimensions " + dimensions);
+        }
+        float[] vector = new float[dimensions];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * 編碼為 vector 二進位格式（與 vector_send 輸出相同）
+     *
+     * @param vector 向量（可為 null）
+     * @return 二進位格式；輸入為 null 時回傳 null
+     */
+    public static byte[] encode(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + vector.length * Float.BYTES);
+        buffer.putShort((short) vector.length);
+        buffer.putShort((short) 0);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
+
+import org.springframework.boot.health.contributor.AbstractHealthIndicator;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * 向量索引健康檢查
+ * <p>
+ * 於 /actuator/health 的 vectorIndex 元件回報 HNSW 索引狀態：
+ * </p>
+ * <ul>
+ *   <li>UP：索引有效，或未由平台管理</li>
+ *   <li>UNKNOWN：索引建立 / 重建中（附建立進度），語意搜尋暫以舊索引或循序掃描執行</li>
+ *   <li>DOWN：索引不存在或無效且未在建立中</li>
+ * </ul>
+ */
+@Component("vectorIndex")
+public class VectorIndexHealthIndicator extends AbstractHealthIndicator {
+
+    private final VectorIndexManager indexManager;
+
+    public VectorIndexHealthIndicator(VectorIndexManager indexManager) {
+        super("Vector index health check failed");
+        this.indexManager = indexManager;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        VectorIndexManager.VectorIndexStatus status = indexManager.status();
+        if (!status.managed()) {
+            builder.up().withDetail("managed", false);
+            return;
+        }
+
+        if (status.valid()) {
+            builder.up();
+        } else if (status.building()) {
+            builder.unknown();
+        } else {
+            builder.down();
+        }
+
+        builder.withDetail("index", status.name())
+                .withDetail("exists", status.exists())
+                .withDetail("valid", status.valid())
+                .withDetail("building", status.building())
+                .withDetail("sizeBytes", status.sizeBytes());
+        if (status.options() != null) {
+            builder.withDetail("options", status.options());
+        }
+        if (status.progress() != null) {
+            builder.withDetail("progress", status.progress());
+        }
+        if (status.lastError() != null) {
+            builder.withDetail("lastError", status.lastError());
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.ai.vectorstore.pgvector.autoconfigure.PgVectorStoreProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 向量索引管理器
+ * <p>
+ * 管理 document_chunks.embedding 上的 HNSW 索引生命週期：
+ * </p>
+ * <ul>
+ *   <li>應用程式就緒後於背景以 {@code CREATE INDEX CONCURRENTLY} 建立索引，不阻擋寫入</li>
+ *   <li>偵測建立失敗留下的無效索引（indisvalid = false）並重建</li>
+ *   <li>透過 pg_stat_progress_create_index 回報建立進度</li>
+ *   <li>以「建立新索引 → 刪除舊索引 → 更名」方式重建，過程中查詢始終有可用索引</li>
+ * </ul>
+ * <p>
+ * document_chunks 為分區表時（見 {@link ChunkPartitionManager}），父表建立 {@code ON ONLY} 索引，
+ * 再逐一對各分區 CONCURRENTLY 建立索引並 ATTACH；之後新建的分區會由 PostgreSQL 自動建立索引。
+ * </p>
+ * <p>
+ * 多個實例同時啟動時，以 PostgreSQL advisory lock 確保只有一個實例執行建立。
+ * 僅在 spring.ai.vectorstore.pgvector.index-type=HNSW 且 platform.vector-index.enabled=true 時生效。
+ * </p>
+ */
+@Component
+public class VectorIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexManager.class);
+
+    public static final String INDEX_NAME = "idx_document_chunks_embedding_hnsw";
+    private static final String REBUILD_INDEX_NAME = INDEX_NAME + "_new";
+
+    // 跨實例互斥用的 advisory lock key
+    private static final String SQL_TRY_LOCK = "SELECT pg_try_advisory_lock(hashtext('" + INDEX_NAME + "'))";
+    private static final String SQL_UNLOCK = "SELECT pg_advisory_unlock(hashtext('" + INDEX_NAME + "'))";
+
+    // 查詢語句皆使用 <=> 餘弦距離，因此固定使用 vector_cosine_ops
+    private static final String SQL_CREATE_INDEX = """
+        CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON document_chunks
+        USING hnsw (embedding vector_cosine_ops) WITH (m = %d, ef_construction = %d)
+        """;
+
+    // 分區表：父表 ON ONLY 索引，於所有分區索引 ATTACH 後才會變為有效
+    private static final String SQL_CREATE_PARENT_INDEX = """
+        CREATE INDEX IF NOT EXISTS %s ON ONLY document_chunks
+        USING hnsw (embedding vector_cosine_ops) WITH (m = %d, ef_construction = %d)
+        """;
+
+    private static final String SQL_CREATE_PARTITION_INDEX = """
+        CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON %s
+        USING hnsw (embedding vector_cosine_ops) WITH (m = %d, ef_construction = %d)
+        """;
+
+    // 尚未有索引 ATTACH 到指定父索引的分區
+    private static final String SQL_UNATTACHED_PARTITIONS = """
+        SELECT c.relname FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'document_chunks'::regclass
+        AND NOT EXISTS (
+            SELECT 1 FROM pg_inherits ii
+            JOIN pg_index x ON x.indexrelid = ii.inhrelid
+            WHERE ii.inhparent = ?::regclass AND x.indrelid = c.oid
+        )
+        ORDER BY c.relname
+        """;
+
+    // 分區上未 ATTACH 到任何父索引的 HNSW 索引（前次建立中斷的殘留，可能無效）
+    private static final String SQL_ORPHAN_PARTITION_INDEXES = """
+        SELECT c.relname FROM pg_index x
+        JOIN pg_class c ON c.oid = x.indexrelid
+        WHERE x.indrelid = ?::regclass
+        AND starts_with(c.relname, ?)
+        AND NOT EXISTS (SELECT 1 FROM pg_inherits ii WHERE ii.inhrelid = c.oid)
+        """;
+
+    // 分區索引大小為各分區索引加總（非分區索引時 pg_partition_tree 僅回傳自身）
+    private static final String SQL_INDEX_STATE = """
+        SELECT i.indisvalid AS valid,
+               (SELECT COALESCE(sum(pg_relation_size(t.relid)), 0) FROM pg_partition_tree(c.oid) t) AS size_bytes,
+               array_to_string(c.reloptions, ',') AS options
+        FROM pg_class c
+        JOIN pg_index i ON i.indexrelid = c.oid
+        WHERE c.relname = ? AND c.relkind = 'i'
+        """;
+
+    private static final String SQL_BUILD_PROGRESS = """
+        SELECT p.phase, p.blocks_done, p.blocks_total, p.tuples_done, p.tuples_total
+        FROM pg_stat_progress_create_index p
+        WHERE p.relid = 'document_chunks'::regclass
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VectorIndexProperties properties;
+    private final ChunkPartitionManager partitionManager;
+    private final ExecutorService executor;
+    private final boolean managed;
+    private final AtomicBoolean building = new AtomicBoolean(false);
+    private volatile String lastError;
+
+    /**
+     * 建構向量索引管理器
+     *
+     * @param jdbcTemplate            JDBC 操作模板
+     * @param properties              向量索引配置
+     * @param pgVectorStoreProperties PgVector 配置屬性（判斷 index-type）
+     * @param partitionManager        分區管理器（判斷是否為分區表）
+     * @param virtualThreadExecutor   背景建立索引使用的執行器
+     */
+    public VectorIndexManager(JdbcTemplate jdbcTemplate,
+                              VectorIndexProperties properties,
+                              PgVectorStoreProperties pgVectorStoreProperties,
+                              ChunkPartitionManager partitionManager,
+                              ExecutorService virtualThreadExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.partitionManager = partitionManager;
+        this.executor = virtualThreadExecutor;
+        this.managed = properties.isEnabled()
+                && pgVectorStoreProperties.getIndexType() == PgVectorStore.PgIndexType.HNSW;
+    }
+
+    /**
+     * 是否由平台管理 HNSW 索引
+     */
+    public boolean isManaged() {
+        return managed;
+    }
+
+    /**
+     * 是否正在建立或重建索引
+     */
+    public boolean isBuilding() {
+        return building.get();
+    }
+
+    /**
+     * 應用程式就緒後於背景確保索引存在
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (managed && properties.isBuildOnStartup()) {
+            executor.execute(this::ensureIndex);
+        }
+    }
+
+    /**
+     * 確保 HNSW 索引存在且有效
+     * <p>
+     * 索引不存在時建立；前次 CONCURRENTLY 建立中斷留下的無效索引會先刪除再重建。
+     * 分區表則補齊尚未 ATTACH 的分區索引。
+     * 建立參數與目前配置不同時僅記錄警告，需呼叫 {@link #rebuild()} 套用。
+     * </p>
+     */
+    public void ensureIndex() {
+        if (!managed || !building.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            IndexState state = findIndexState(INDEX_NAME);
+            if (state != null && state.valid()) {
+                if (!state.options().equals(expectedOptions())) {
+                    log.warn("HNSW index {} was built with [{}], configured [{}]; rebuild to apply",
+                            INDEX_NAME, state.options(), expectedOptions());
+                }
+                return;
+            }
+            if (partitionManager.isPartitioned()) {
+                withBuildLock(connection -> createPartitionedIndex(connection, INDEX_NAME));
+                return;
+            }
+            withBuildLock(connection -> {
+                if (state != null) {
+                    log.warn("Dropping invalid HNSW index {} left by an interrupted build", INDEX_NAME);
+                    execute(connection, "DROP INDEX CONCURRENTLY IF EXISTS " + INDEX_NAME);
+                }
+                createIndex(connection, INDEX_NAME);
+            });
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("Failed to build HNSW index {}: {}", INDEX_NAME, e.getMessage());
+        } finally {
+            building.set(false);
+        }
+    }
+
+    /**
+     * 於背景重建索引（不中斷查詢）
+     * <p>
+     * 先以新名稱 CONCURRENTLY 建立索引，完成後以 CONCURRENTLY 刪除舊索引，再將新索引更名。
+     * 期間查詢可持續使用舊索引或新索引。
+     * 分區表的父索引不支援 CONCURRENTLY 刪除，改以一般 DROP INDEX 刪除舊索引（僅短暫鎖定）。
+     * </p>
+     *
+     * @return 重建作業；已有建立作業進行中或未啟用管理時回傳 null
+     */
+    public CompletableFuture<Void> rebuild() {
+        if (!managed || !building.compareAndSet(false, true)) {
+            return null;
+        }
+        return CompletableFuture.runAsync(() -> {
+            try {
+                boolean partitioned = partitionManager.isPartitioned();
+                String drop = partitioned ? "DROP INDEX IF EXISTS " : "DROP INDEX CONCURRENTLY IF EXISTS ";
+                boolean acquired = withBuildLock(connection -> {
+                    // 清除前次重建中斷留下的索引
+                    execute(connection, drop + REBUILD_INDEX_NAME);
+                    if (partitioned) {
+                        createPartitionedIndex(connection, REBUILD_INDEX_NAME);
+                    } else {
+                        createIndex(connection, REBUILD_INDEX_NAME);
+                    }
+                    execute(connection, drop + INDEX_NAME);
+                    execute(connection, "ALTER INDEX " + REBUILD_INDEX_NAME + " RENAME TO " + INDEX_NAME);
+                });
+                if (!acquired) {
+                    log.info("HNSW index {} rebuild skipped, another instance holds the build lock", INDEX_NAME);
+                    return;
+                }
+                log.info("HNSW index {} rebuilt", INDEX_NAME);
+            } catch (RuntimeException e) {
+                lastError = e.getMessage();
+                log.error("Failed to rebuild HNSW index {}: {}", INDEX_NAME, e.getMessage());
+                throw e;
+            } finally {
+                building.set(false);
+            }
+        }, executor);
+    }
+
+    /**
+     * 取得索引狀態（含建立進度）
+     */
+    public VectorIndexStatus status() {
+        if (!managed) {
+            return new VectorIndexStatus(false, INDEX_NAME, false, false, 0, null, false, null, null);
+        }
+        IndexState state = findIndexState(INDEX_NAME);
+        BuildProgress progress = building.get() ? findBuildProgress() : null;
+        return new VectorIndexStatus(
+                true,
+                INDEX_NAME,
+                state != null,
+                state != null && state.valid(),
+                state != null ? state.sizeBytes() : 0,
+                state != null ? state.options() : null,
+                building.get(),
+                progress,
+                lastError
+        );
+    }
+
+    // ========== 私有輔助方法 ==========
+
+    /**
+     * 以單一連線執行建立作業，並以 advisory lock 避免多實例重複建立
+     * <p>
+     * CREATE INDEX CONCURRENTLY 不可在交易中執行，且 SET 參數需與建立語句在同一連線，
+     * 因此直接使用 ConnectionCallback（autocommit 模式）。
+     * </p>
+     *
+     * @return 是否取得鎖並執行；其他實例正在建立時回傳 false
+     */
+    private boolean withBuildLock(SqlWork work) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!queryBoolean(connection, SQL_TRY_LOCK)) {
+                log.info("HNSW index build is running on another instance, skipping");
+                return false;
+            }
+            try {
+                setSession(connection, "maintenance_work_mem", properties.getMaintenanceWorkMem());
+                setSession(connection, "max_parallel_maintenance_workers",
+                        String.valueOf(properties.getMaxParallelMaintenanceWorkers()));
+                work.run(connection);
+            } finally {
+                execute(connection, "RESET maintenance_work_mem");
+                execute(connection, "RESET max_parallel_maintenance_workers");
+                queryBoolean(connection, SQL_UNLOCK);
+            }
+            return true;
+        }));
+    }
+
+    private void createIndex(Connection connection, String indexName) throws SQLException {
+        long start = System.currentTimeMillis();
+        log.info("Building HNSW index {} (m={}, ef_construction={})",
+                indexName, properties.getM(), properties.getEfConstruction());
+        execute(connection, SQL_CREATE_INDEX.formatted(indexName, properties.getM(), properties.getEfConstruction()));
+        lastError = null;
+        log.info("HNSW index {} built in {} ms", indexName, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 建立分區表的 HNSW 索引
+     * <p>
+     * 父表建立 ON ONLY 索引後，逐一對尚未 ATTACH 的分區 CONCURRENTLY 建立索引並 ATTACH。
+     * 中斷後重新執行會從未完成的分區繼續；分區上未 ATTACH 的殘留索引（可能無效）會先刪除。
+     * 分區索引名稱帶建立批次後綴，重建時不與目前使用中的索引衝突。
+     * </p>
+     */
+    private void createPartitionedIndex(Connection connection, String parentIndex) throws SQLException {
+        long start = System.currentTimeMillis();
+        String generation = Long.toString(start, 36);
+        execute(connection, SQL_CREATE_PARENT_INDEX.formatted(parentIndex, properties.getM(), properties.getEfConstruction()));
+
+        List<String> partitions = queryStrings(connection, SQL_UNATTACHED_PARTITIONS, parentIndex);
+
+        log.info("Building HNSW index {} on {} partition(s) (m={}, ef_construction={})",
+                parentIndex, partitions.size(), properties.getM(), properties.getEfConstruction());
+        for (String partition : partitions) {
+            String prefix = partition + "_hnsw_";
+            for (String orphan : queryStrings(connection, SQL_ORPHAN_PARTITION_INDEXES, partition, prefix)) {
+                execute(connection, "DROP INDEX CONCURRENTLY IF EXISTS " + orphan);
+            }
+            String partitionIndex = prefix + generation;
+            execute(connection, SQL_CREATE_PARTITION_INDEX.formatted(
+                    partitionIndex, partition, properties.getM(), properties.getEfConstruction()));
+            execute(connection, "ALTER INDEX " + parentIndex + " ATTACH PARTITION " + partitionIndex);
+        }
+        lastError = null;
+        log.info("HNSW index {} built in {} ms", parentIndex, System.currentTimeMillis() - start);
+    }
+
+    private String expectedOptions() {
+        return "m=" + properties.getM() + ",ef_construction=" + properties.getEfConstruction();
+    }
+
+    private IndexState findIndexState(String indexName) {
+        List<IndexState> states = jdbcTemplate.query(SQL_INDEX_STATE,
+                (rs, rowNum) -> new IndexState(
+                        rs.getBoolean("valid"),
+                        rs.getLong("size_bytes"),
+                        rs.getString("options") != null ? rs.getString("options") : ""),
+                indexName);
+        return states.isEmpty() ? null : states.getFirst();
+    }
+
+    private BuildProgress findBuildProgress() {
+        List<BuildProgress> progress = jdbcTemplate.query(SQL_BUILD_PROGRESS,
+                (rs, rowNum) -> new BuildProgress(
+                        rs.getString("phase"),
+                        rs.getLong("blocks_done"),
+                        rs.getLong("blocks_total"),
+                        rs.getLong("tuples_done"),
+                        rs.getLong("tuples_total")));
+        return progress.isEmpty() ? null : progress.getFirst();
+    }
+
+    private static void setSession(Connection connection, String name, String value) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT set_config(?, ?, false)")) {
+            ps.setString(1, name);
+            ps.setString(2, value);
+            ps.execute();
+        }
+    }
+
+    private static List<String> queryStrings(Connection connection, String sql, String... params) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setString(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    values.add(rs.getString(1));
+                }
+            }
+        }
+        return values;
+    }
+
+    private static boolean queryBoolean(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * 在單一連線上執行的 SQL 工作
+     */
+    @FunctionalInterface
+    private interface SqlWork {
+        void run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * 索引目錄狀態
+     */
+    private record IndexState(boolean valid, long sizeBytes, String options) {}
+
+    /**
+     * 索引建立進度（pg_stat_progress_create_index）
+     *
+     * @param phase       建立階段（如 "building index"）
+     * @param blocksDone  已處理區塊數
+     * @param blocksTotal 總區塊數
+     * @param tuplesDone  已處理資料列數
+     * @param tuplesTotal 總資料列數
+     */
+    public record BuildProgress(String phase, long blocksDone, long blocksTotal,
+                                long tuplesDone, long tuplesTotal) {}
+
+    /**
+     * 向量索引狀態
+     *
+     * @param managed   是否由平台管理
+     * @param name      索引名稱
+     * @param exists    索引是否存在
+     * @param valid     索引是否有效（CONCURRENTLY 建立中或失敗時為 false）
+     * @param sizeBytes 索引大小（位元組）
+     * @param options   建立參數（如 m=16,ef_construction=64）
+     * @param building  是否正在建立或重建
+     * @param progress  建立進度（未建立時為 null）
+     * @param lastError 最近一次建立失敗的錯誤訊息
+     */
+    public record VectorIndexStatus(boolean managed, String name, boolean exists, boolean valid,
+                                    long sizeBytes, String options, boolean building,
+                                    BuildProgress progress, String lastError) {}
+}
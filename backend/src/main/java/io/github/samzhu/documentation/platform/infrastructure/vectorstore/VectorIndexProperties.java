@@ -0,0 +1,146 @@
+package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 向量索引配置屬性
+ * <p>
+ * 控制 document_chunks.embedding 上 HNSW 索引的建立參數與查詢時參數。
+ * 僅在 spring.ai.vectorstore.pgvector.index-type=HNSW 時生效。
+ * </p>
+ * <p>
+ * 配置範例：
+ * <pre>
+ * platform:
+ *   vector-index:
+ *     enabled: true
+ *     m: 16
+ *     ef-construction: 64
+ *     ef-search: 100
+ *     iterative-scan: relaxed_order
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties(prefix = "platform.vector-index")
+public class VectorIndexProperties {
+
+    /**
+     * 是否由平台管理 HNSW 索引（建立、監控、重建）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 應用程式就緒後，若索引不存在或無效則於背景建立
+     */
+    private boolean buildOnStartup = true;
+
+    /**
+     * HNSW 每個節點的最大連線數（建立時參數，調整後需重建索引）
+     */
+    private int m = 16;
+
+    /**
+     * HNSW 建立時的候選清單大小（建立時參數，調整後需重建索引）
+     */
+    private int efConstruction = 64;
+
+    /**
+     * 查詢時的候選清單大小（hnsw.ef_search），越大召回率越高但越慢
+     */
+    private int efSearch = 100;
+
+    /**
+     * 迭代索引掃描模式（hnsw.iterative_scan：off / strict_order / relaxed_order）
+     * <p>
+     * 搭配 metadata 過濾時，索引掃描會持續進行直到取滿 topK，避免過濾後結果不足。
+     * </p>
+     */
+    private String iterativeScan = "relaxed_order";
+
+    /**
+     * 迭代掃描最多檢查的資料列數（hnsw.max_scan_tuples）
+     */
+    private int maxScanTuples = 20000;
+
+    /**
+     * 建立索引時的 maintenance_work_mem（索引圖放得進記憶體時建立速度快很多）
+     */
+    private String maintenanceWorkMem = "1GB";
+
+    /**
+     * 建立索引時的平行維護工作者數（max_parallel_maintenance_workers）
+     */
+    private int maxParallelMaintenanceWorkers = 2;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isBuildOnStartup() {
+        return buildOnStartup;
+    }
+
+    public void setBuildOnStartup(boolean buildOnStartup) {
+        this.buildOnStartup = buildOnStartup;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public void setM(int m) {
+        this.m = m;
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    public void setEfConstruction(int efConstruction) {
+        this.efConstruction = efConstruction;
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    public String getIterativeScan() {
+        return iterativeScan;
+    }
+
+    public void setIterativeScan(String iterativeScan) {
+        this.iterativeScan = iterativeScan;
+    }
+
+    public int getMaxScanTuples() {
+        return maxScanTuples;
+    }
+
+    public void setMaxScanTuples(int maxScanTuples) {
+        this.maxScanTuples = maxScanTuples;
+    }
+
+    public String getMaintenanceWorkMem() {
+        return maintenanceWorkMem;
+    }
+
+    public void setMaintenanceWorkMem(String maintenanceWorkMem) {
+        this.maintenanceWorkMem = maintenanceWorkMem;
+    }
+
+    public int getMaxParallelMaintenanceWorkers() {
+        return maxParallelMaintenanceWorkers;
+    }
+
+    public void setMaxParallelMaintenanceWorkers(int maxParallelMaintenanceWorkers) {
+        this.maxParallelMaintenanceWorkers = maxParallelMaintenanceWorkers;
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.samzhu.documentation.platform.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 區塊全文檢索資料存取
+ * <p>
+ * 以 document_chunks.search_vector（GIN 索引）進行關鍵字搜尋，結果以區塊為單位，
+ * 與語意搜尋使用相同的區塊 ID，混合搜尋可在段落層級融合。
+ * </p>
+ * <p>
+ * 內層只在區塊表排序並取前 N 筆，文件標題、路徑與 offsets 模式的區塊文字僅對最終結果關聯 documents 取得。
+ * 回傳內容為 {@code ts_headline} 於資料庫端產生的摘要，只包含命中詞附近的片段（以 {@code **} 標示命中詞），
+ * 不回傳整段區塊或整份文件內容。
+ * </p>
+ */
+@Repository
+public class ChunkSearchRepository {
+
+    /**
+     * ts_headline 選項：最多 2 個片段、每段 15-35 個詞，命中詞以 Markdown 粗體標示
+     */
+    private static final String HEADLINE_OPTIONS =
+            "MaxFragments=2, MaxWords=35, MinWords=15, StartSel=**, StopSel=**, FragmentDelimiter=\" ... \"";
+
+    // ts_headline 需重新解析文字，成本遠高於 ts_rank，因此只對排序後的前 N 筆結果產生
+    private static final String SQL_FULL_TEXT_SEARCH = """
+        WITH q AS (
+            SELECT plainto_tsquery('english', ?) AS query
+        ),
+        ranked AS MATERIALIZED (
+            SELECT dc.id, dc.document_id, dc.chunk_index, dc.content, dc.start_offset, dc.end_offset,
+                   ts_rank(dc.search_vector, q.query) AS rank
+            FROM document_chunks dc, q
+            WHERE dc.version_id = ?
+            AND dc.search_vector @@ q.query
+            ORDER BY rank DESC
+            LIMIT ?
+        )
+        SELECT r.id, r.document_id, r.chunk_index, d.title, d.path,
+               ts_headline('english',
+                   COALESCE(r.content, substring(d.content FROM r.start_offset + 1 FOR r.end_offset - r.start_offset)),
+                   q.query, ?) AS snippet,
+               r.rank
+        FROM ranked r
+        JOIN documents d ON d.id = r.document_id
+        CROSS JOIN q
+        ORDER BY r.rank DESC
+        """;
+
+    private static final RowMapper<ChunkSearchHit> CHUNK_HIT_MAPPER = (rs, rowNum) -> new ChunkSearchHit(
+            rs.getString("id"),
+            rs.getString("document_id"),
+            rs.getInt("chunk_index"),
+            rs.getString("title"),
+            rs.getString("path"),
+            rs.getString("snippet"),
+            rs.getDouble("rank"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChunkSearchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 區塊全文檢索
+     *
+     * @param versionId 版本 ID（TSID 格式）
+     * @param query     搜尋關鍵字
+     * @param limit     最大回傳筆數
+     * @return 符合條件的區塊（依 ts_rank 由高至低排序）
+     */
+    public List<ChunkSearchHit> fullTextSearch(String versionId, String query, int limit) {
+        return jdbcTemplate.query(SQL_FULL_TEXT_SEARCH, CHUNK_HIT_MAPPER,
+                query, versionId, limit, HEADLINE_OPTIONS);
+    }
+}
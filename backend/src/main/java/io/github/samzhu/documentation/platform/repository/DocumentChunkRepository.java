@@ -1,11 +1,13 @@
 package io.github.samzhu.documentation.platform.repository;
 
 import io.github.samzhu.documentation.platform.domain.model.DocumentChunk;
+import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,6 +16,15 @@ import java.util.List;
  * 提供文件區塊的 CRUD 操作及向量相似度搜尋功能。
  * ID 類型為 TSID 字串。
  * </p>
+ * <p>
+ * 不需要向量的查詢以 {@code NULL AS embedding} 取代 embedding 欄位，避免讀取與解析 768 維向量；
+ * 需要向量時以 {@code vector_send(embedding)} 取得二進位格式，由 JdbcConfig 直接解碼。
+ * </p>
+ * <p>
+ * 區塊可能只以 start_offset / end_offset 參照 documents.content（content 為 NULL）：
+ * 少量結果的查詢於 SQL 以 substring 還原；依文件取得全部區塊時由呼叫端以
+ * {@link DocumentChunk#withContentFrom(int[])} 還原，避免每列重複解壓整份文件。
+ * </p>
  */
 @Repository
 public interface DocumentChunkRepository extends CrudRepository<DocumentChunk, String> {
@@ -24,9 +35,28 @@ public interface DocumentChunkRepository extends CrudRepository<DocumentChunk, S
      * @param documentId 文件 ID（TSID 格式）
      * @return 區塊列表
      */
-    @Query("SELECT * FROM document_chunks WHERE document_id = :documentId ORDER BY chunk_index")
+    @Query("""
+            SELECT id, document_id, chunk_index, content, start_offset, end_offset, NULL AS embedding,
+                   token_count, metadata, version, created_at, updated_at
+            FROM document_chunks
+            WHERE document_id = :documentId
+            ORDER BY chunk_index
+            """)
     List<DocumentChunk> findByDocumentIdOrderByChunkIndex(@Param("documentId") String documentId);
 
+    /**
+     * 刪除指定文件的所有區塊
+     * <p>
+     * 以單一 DELETE 取代逐筆載入後刪除。
+     * </p>
+     *
+     * @param documentId 文件 ID（TSID 格式）
+     * @return 刪除的區塊數量
+     */
+    @Modifying
+    @Query("DELETE FROM document_chunks WHERE document_id = :documentId")
+    int deleteByDocumentId(@Param("documentId") String documentId);
+
     /**
      * 向量相似度搜尋
      * <p>
@@ -40,7 +70,12 @@ public interface DocumentChunkRepository extends CrudRepository<DocumentChunk, S
      * @return 最相似的區塊列表
      */
     @Query("""
-            SELECT dc.* FROM document_chunks dc
+            SELECT dc.id, dc.document_id, dc.chunk_index,
+                   COALESCE(dc.content, substring(d.content FROM dc.start_offset + 1 FOR dc.end_offset - dc.start_offset))
+                       AS content,
+                   dc.start_offset, dc.end_offset, NULL AS embedding, dc.token_count,
+                   dc.metadata, dc.version, dc.created_at, dc.updated_at
+            FROM document_chunks dc
             JOIN documents d ON dc.document_id = d.id
             WHERE d.version_id = :versionId
             AND dc.embedding IS NOT NULL
@@ -65,7 +100,13 @@ public interface DocumentChunkRepository extends CrudRepository<DocumentChunk, S
      * @return 相似的區塊列表
      */
     @Query("""
-            SELECT dc.* FROM document_chunks dc
+            SELECT dc.id, dc.document_id, dc.chunk_index,
+                   COALESCE(dc.content, substring(d.content FROM dc.start_offset + 1 FOR dc.end_offset - dc.start_offset))
+                       AS content,
+                   dc.start_offset, dc.end_offset, NULL AS embedding, dc.token_count,
+                   dc.metadata, dc.version, dc.created_at, dc.updated_at
+            FROM document_chunks dc
+            JOIN documents d ON dc.document_id = d.id
             WHERE dc.document_id != :documentId
             AND dc.embedding IS NOT NULL
             ORDER BY dc.embedding <=> cast(:queryEmbedding as vector)
@@ -83,7 +124,18 @@ public interface DocumentChunkRepository extends CrudRepository<DocumentChunk, S
      * @param documentId 文件 ID（TSID 格式）
      * @return 第一個區塊（用於取得代表向量）
      */
-    @Query("SELECT * FROM document_chunks WHERE document_id = :documentId ORDER BY chunk_index LIMIT 1")
+    @Query("""
+            SELECT dc.id, dc.document_id, dc.chunk_index,
+                   COALESCE(dc.content, substring(d.content FROM dc.start_offset + 1 FOR dc.end_offset - dc.start_offset))
+                       AS content,
+                   dc.start_offset, dc.end_offset, vector_send(dc.embedding) AS embedding, dc.token_count,
+                   dc.metadata, dc.version, dc.created_at, dc.updated_at
+            FROM document_chunks dc
+            JOIN documents d ON dc.document_id = d.id
+            WHERE dc.document_id = :documentId
+            ORDER BY dc.chunk_index
+            LIMIT 1
+            """)
     DocumentChunk findFirstByDocumentId(@Param("documentId") String documentId);
 
     /**
@@ -99,4 +151,44 @@ public interface DocumentChunkRepository extends CrudRepository<DocumentChunk, S
             WHERE lv.library_id = :libraryId
             """)
     long countByLibraryId(@Param("libraryId") String libraryId);
+
+    /**
+     * 統計尚待產生向量嵌入的區塊數量
+     *
+     * @return 待嵌入區塊數量
+     */
+    @Query("SELECT COUNT(*) FROM document_chunks WHERE embedding IS NULL")
+    long countPendingEmbeddings();
+
+    /**
+     * 統計指定版本尚待產生向量嵌入的區塊數量
+     *
+     * @param versionId 版本 ID（TSID 格式）
+     * @return 待嵌入區塊數量
+     */
+    @Query("""
+            SELECT COUNT(dc.id) FROM document_chunks dc
+            JOIN documents d ON dc.document_id = d.id
+            WHERE d.version_id = :versionId
+            AND dc.embedding IS NULL
+            """)
+    long countPendingEmbeddingsByVersionId(@Param("versionId") String versionId);
+
+    /**
+     * 以單一查詢統計多個版本尚待產生向量嵌入的區塊數量
+     * <p>
+     * 沒有待嵌入區塊的版本不會出現在結果中。
+     * </p>
+     *
+     * @param versionIds 版本 ID 集合（TSID 格式）
+     * @return 各版本的待嵌入區塊數量
+     */
+    @Query("""
+            SELECT d.version_id, COUNT(dc.id) AS pending FROM document_chunks dc
+            JOIN documents d ON dc.document_id = d.id
+            WHERE d.version_id IN (:versionIds)
+            AND dc.embedding IS NULL
+            GROUP BY d.version_id
+            """)
+    List<PendingEmbeddingCount> countPendingEmbeddingsByVersionIds(@Param("versionIds") Collection<String> versionIds);
 }
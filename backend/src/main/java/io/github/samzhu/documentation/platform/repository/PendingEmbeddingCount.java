@@ -0,0 +1,13 @@
+package io.github.samzhu.documentation.platform.repository;
+
+/**
+ * 版本待嵌入區塊數投影
+ *
+ * @param versionId 版本 ID（TSID 格式）
+ * @param pending   embedding 為 NULL 的區塊數
+ */
+public record PendingEmbeddingCount(
+        String versionId,
+        long pending
+) {
+}
@@ -0,0 +1,61 @@
+package io.github.samzhu.documentation.platform.scheduler;
+
+import io.github.samzhu.documentation.platform.infrastructure.embedding.EmbeddingProperties;
+import io.github.samzhu.documentation.platform.service.EmbeddingBackfillService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 向量嵌入補齊排程器
+ * <p>
+ * 定期檢查 embedding 為 NULL 的區塊並逐批補齊，直到沒有可認領的區塊或遇到暫時性錯誤為止。
+ * 只有在 platform.embedding.backfill.enabled=true 時才會執行。
+ * </p>
+ */
+@Component
+public class EmbeddingBackfillScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingBackfillScheduler.class);
+
+    private final EmbeddingBackfillService backfillService;
+    private final EmbeddingProperties embeddingProperties;
+
+    /**
+     * 建構嵌入補齊排程器
+     *
+     * @param backfillService     嵌入補齊服務
+     * @param embeddingProperties 嵌入配置，控制排程是否啟用
+     */
+    public EmbeddingBackfillScheduler(EmbeddingBackfillService backfillService,
+                                      EmbeddingProperties embeddingProperties) {
+        this.backfillService = backfillService;
+        this.embeddingProperties = embeddingProperties;
+    }
+
+    /**
+     * 定時補齊任務
+     */
+    @Scheduled(fixedDelayString = "${platform.embedding.backfill.interval-ms:10000}")
+    public void backfillPendingEmbeddings() {
+        if (!embeddingProperties.getBackfill().isEnabled()) {
+            return;
+        }
+
+        int total = 0;
+        try {
+            int processed;
+            do {
+                processed = backfillService.backfillBatch();
+                total += processed;
+            } while (processed > 0);
+        } catch (Exception e) {
+            log.error("Embedding backfill stopped after {} chunks: {}", total, e.getMessage());
+        }
+
+        if (total > 0) {
+            log.info("Embedding backfill completed, {} chunks processed", total);
+        }
+    }
+}
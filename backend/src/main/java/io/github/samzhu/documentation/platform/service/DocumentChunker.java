@@ -11,6 +11,10 @@ import java.util.List;
  * 將長文件分割成適合向量嵌入的小區塊。
  * 使用滑動視窗策略，保持區塊間的上下文重疊。
  * </p>
+ * <p>
+ * 每個區塊都是原文的子字串，並附帶在原文中的起訖位置（以 Unicode code point 計，
+ * 與 PostgreSQL {@code substring} 的字元計數一致），供區塊以位置參照 documents.content。
+ * </p>
  */
 @Service
 public class DocumentChunker {
@@ -58,12 +62,15 @@ public class DocumentChunker {
 
         // 如果內容小於區塊大小，直接回傳單一區塊
         if (contentLength <= chunkSize) {
-            chunks.add(new ChunkResult(0, content, estimateTokenCount(content)));
+            chunks.add(new ChunkResult(0, content, estimateTokenCount(content),
+                    0, content.codePointCount(0, contentLength)));
             return chunks;
         }
 
         int start = 0;
         int chunkIndex = 0;
+        // 目前 start 對應的 code point 位置（逐步累加，避免每個區塊從頭計數）
+        int codePointStart = 0;
 
         while (start < contentLength) {
             int end = Math.min(start + chunkSize, contentLength);
@@ -72,16 +79,21 @@ public class DocumentChunker {
             if (end < contentLength) {
                 end = findNaturalBreakPoint(content, start, end);
             }
+            end = avoidSplittingSurrogatePair(content, start, end);
 
             String chunkContent = content.substring(start, end);
-            chunks.add(new ChunkResult(chunkIndex, chunkContent, estimateTokenCount(chunkContent)));
+            int codePointEnd = codePointStart + chunkContent.codePointCount(0, chunkContent.length());
+            chunks.add(new ChunkResult(chunkIndex, chunkContent, estimateTokenCount(chunkContent),
+                    codePointStart, codePointEnd));
 
             // 移動起始位置（考慮重疊）
             int step = end - start - overlap;
             if (step <= 0) {
                 step = chunkSize - overlap;
             }
-            start += step;
+            int nextStart = avoidSplittingSurrogatePair(content, start, Math.min(start + step, contentLength));
+            codePointStart += content.codePointCount(start, nextStart);
+            start = nextStart;
             chunkIndex++;
 
             // 防止無限迴圈
@@ -133,6 +145,18 @@ public class DocumentChunker {
         return preferredEnd;
     }
 
+    /**
+     * 避免在代理對（surrogate pair）中間切開，使位置能以 code point 表示
+     */
+    private int avoidSplittingSurrogatePair(String content, int start, int position) {
+        if (position > start + 1 && position < content.length()
+                && Character.isHighSurrogate(content.charAt(position - 1))
+                && Character.isLowSurrogate(content.charAt(position))) {
+            return position - 1;
+        }
+        return position;
+    }
+
     /**
      * 估算 token 數量
      * <p>
@@ -172,10 +196,14 @@ public class DocumentChunker {
      * @param index      區塊索引（從 0 開始）
      * @param content    區塊內容
      * @param tokenCount 估算的 token 數量
+     * @param startOffset 在原文中的起始位置（code point，含）
+     * @param endOffset   在原文中的結束位置（code point，不含）
      */
     public record ChunkResult(
             int index,
             String content,
-            int tokenCount
+            int tokenCount,
+            int startOffset,
+            int endOffset
     ) {}
 }
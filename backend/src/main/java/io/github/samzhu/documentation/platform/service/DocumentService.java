@@ -51,6 +51,11 @@ public class DocumentService {
                 .orElseThrow(() -> DocumentNotFoundException.byId(documentId));
 
         List<DocumentChunk> chunks = chunkRepository.findByDocumentIdOrderByChunkIndex(documentId);
+        // 以位置參照文件內容的區塊，由已載入的文件內容還原文字（整份文件只轉換一次 code point）
+        if (document.getContent() != null && chunks.stream().anyMatch(chunk -> chunk.getContent() == null)) {
+            int[] codePoints = document.getContent().codePoints().toArray();
+            chunks = chunks.stream().map(chunk -> chunk.withContentFrom(codePoints)).toList();
+        }
         List<CodeExample> codeExamples = codeExampleRepository.findByDocumentId(documentId);
 
         return new DocumentContent(document, chunks, codeExamples);
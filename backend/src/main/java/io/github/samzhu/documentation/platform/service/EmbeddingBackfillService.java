@@ -0,0 +1,266 @@
+package io.github.samzhu.documentation.platform.service;
+
+import io.github.samzhu.documentation.platform.infrastructure.embedding.EmbeddingProperties;
+import io.github.samzhu.documentation.platform.infrastructure.embedding.EmbeddingScheduler;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.ChunkPartitionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 向量嵌入補齊服務
+ * <p>
+ * 延遲嵌入模式下，同步作業先寫入 embedding 為 NULL 的區塊，由本服務於背景補齊向量：
+ * </p>
+ * <ul>
+ *   <li>以 {@code FOR UPDATE SKIP LOCKED} 認領一批待嵌入區塊並記錄認領時間後立即提交，
+ *       多個實例可同時執行而不重複處理；嵌入請求進行期間不持有資料列鎖定與連線</li>
+ *   <li>優先處理最新版本（is_latest）與 LTS 版本的區塊，曾失敗的區塊排在後面</li>
+ *   <li>經由 EmbeddingScheduler 產生向量後以另一個交易寫回</li>
+ *   <li>寫回後使相關版本的搜尋結果快取失效（新向量會改變語意搜尋結果）</li>
+ * </ul>
+ * <p>
+ * 失敗處理：暫時性錯誤（限流、5xx）釋放認領後中止本輪；無法重試的錯誤改為逐筆嵌入以找出問題區塊，
+ * 問題區塊累計失敗次數，於認領租約到期後再試，達上限後不再認領。
+ * 實例中途終止時，未寫回的區塊於租約到期後由其他實例重新認領。
+ * </p>
+ */
+@Service
+public class EmbeddingBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingBackfillService.class);
+
+    // 認領待嵌入區塊：未失敗過的優先，其次最新 / LTS 版本，再依建立時間
+    // 以位置參照文件內容的區塊由 documents.content 還原文字
+    private static final String SQL_CLAIM_PENDING = """
+        WITH claimable AS (
+            SELECT dc.id
+            FROM document_chunks dc
+            JOIN documents d ON d.id = dc.document_id
+            JOIN library_versions lv ON lv.id = d.version_id
+            WHERE dc.embedding IS NULL
+            AND dc.embedding_attempts < ?
+            AND (dc.embedding_claimed_at IS NULL
+                 OR dc.embedding_claimed_at < CURRENT_TIMESTAMP - make_interval(secs => ?))
+            ORDER BY dc.embedding_attempts,
+                     (COALESCE(lv.is_latest, FALSE) OR COALESCE(lv.is_lts, FALSE)) DESC,
+                     dc.created_at, dc.id
+            LIMIT ?
+            FOR UPDATE OF dc SKIP LOCKED
+        )
+        UPDATE document_chunks dc
+        SET embedding_claimed_at = CURRENT_TIMESTAMP
+        FROM claimable c, documents d
+        WHERE dc.id = c.id
+        AND d.id = dc.document_id
+        RETURNING dc.id, dc.version_id,
+                  COALESCE(dc.content, substring(d.content FROM dc.start_offset + 1 FOR dc.end_offset - dc.start_offset))
+                      AS content
+        """;
+
+    private static final String SQL_UPDATE_EMBEDDING = """
+        UPDATE document_chunks
+        SET embedding = ?::vector, embedding_claimed_at = NULL, updated_at = CURRENT_TIMESTAMP
+        WHERE id = ?
+        """;
+
+    // 分區表：帶上分區鍵 version_id，直接定位到單一分區
+    private static final String SQL_UPDATE_EMBEDDING_PARTITIONED = """
+        UPDATE document_chunks
+        SET embedding = ?::vector, embedding_claimed_at = NULL, updated_at = CURRENT_TIMESTAMP
+        WHERE id = ? AND version_id = ?
+        """;
+
+    // 暫時性錯誤：釋放認領，下一輪即可再認領
+    private static final String SQL_RELEASE_CLAIM = """
+        UPDATE document_chunks SET embedding_claimed_at = NULL WHERE id = ?
+        """;
+
+    private static final String SQL_RELEASE_CLAIM_PARTITIONED = """
+        UPDATE document_chunks SET embedding_claimed_at = NULL WHERE id = ? AND version_id = ?
+        """;
+
+    // 無法重試的錯誤：累計失敗次數並保留認領時間，租約到期前不再認領
+    private static final String SQL_RECORD_FAILURE = """
+        UPDATE document_chunks SET embedding_attempts = embedding_attempts + 1 WHERE id = ?
+        """;
+
+    private static final String SQL_RECORD_FAILURE_PARTITIONED = """
+        UPDATE document_chunks SET embedding_attempts = embedding_attempts + 1 WHERE id = ? AND version_id = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmbeddingScheduler embeddingScheduler;
+    private final EmbeddingProperties embeddingProperties;
+    private final ChunkPartitionManager partitionManager;
+    private final SearchCacheInvalidator searchCacheInvalidator;
+
+    public EmbeddingBackfillService(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    EmbeddingScheduler embeddingScheduler,
+                                    EmbeddingProperties embeddingProperties,
+                                    ChunkPartitionManager partitionManager,
+                                    SearchCacheInvalidator searchCacheInvalidator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.embeddingScheduler = embeddingScheduler;
+        this.embeddingProperties = embeddingProperties;
+        this.partitionManager = partitionManager;
+        this.searchCacheInvalidator = searchCacheInvalidator;
+    }
+
+    /**
+     * 認領並補齊一批待嵌入區塊
+     * <p>
+     * 認領與寫回各自為短交易，嵌入請求在交易之外進行。
+     * </p>
+     *
+     * @return 本次處理的區塊數（含失敗的區塊；0 表示沒有可認領的區塊）
+     * @throws RuntimeException 暫時性錯誤（已釋放認領），呼叫端應停止本輪補齊
+     */
+    public int backfillBatch() {
+        EmbeddingProperties.Backfill config = embeddingProperties.getBackfill();
+        List<PendingChunk> claimed = transactionTemplate.execute(status -> jdbcTemplate.query(SQL_CLAIM_PENDING,
+                (rs, rowNum) -> new PendingChunk(rs.getString("id"), rs.getString("version_id"), rs.getString("content")),
+                Math.max(1, config.getMaxAttempts()),
+                Math.max(0, config.getClaimTimeoutMs()) / 1000.0,
+                Math.max(1, config.getBatchSize())));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<float[]> embeddings;
+        try {
+            embeddings = embeddingScheduler.embedAll(claimed.stream().map(PendingChunk::content).toList());
+        } catch (RuntimeException e) {
+            if (EmbeddingScheduler.isRetryable(e)) {
+                release(claimed);
+                throw e;
+            }
+            if (claimed.size() == 1) {
+                log.warn("Embedding failed for chunk {}: {}", claimed.getFirst().id(), e.getMessage());
+                recordFailures(claimed);
+                return 1;
+            }
+            // 無法重試：逐筆嵌入，只讓問題區塊累計失敗次數
+            log.warn("Embedding backfill batch of {} chunks failed, retrying one by one: {}",
+                    claimed.size(), e.getMessage());
+            embedIndividually(claimed);
+            return claimed.size();
+        }
+
+        writeEmbeddings(claimed, embeddings);
+        log.debug("Backfilled embeddings for {} chunks", claimed.size());
+        return claimed.size();
+    }
+
+    /**
+     * 逐筆嵌入並寫回成功的區塊；遇到暫時性錯誤時寫回已完成的部分、釋放其餘認領後拋出
+     */
+    private void embedIndividually(List<PendingChunk> claimed) {
+        List<PendingChunk> embedded = new ArrayList<>();
+        List<float[]> embeddings = new ArrayList<>();
+        List<PendingChunk> failed = new ArrayList<>();
+        try {
+            for (int i = 0; i < claimed.size(); i++) {
+                PendingChunk chunk = claimed.get(i);
+                try {
+                    embeddings.add(embeddingScheduler.embedAll(List.of(chunk.content())).getFirst());
+                    embedded.add(chunk);
+                } catch (RuntimeException e) {
+                    if (EmbeddingScheduler.isRetryable(e)) {
+                        release(claimed.subList(i, claimed.size()));
+                        throw e;
+                    }
+                    log.warn("Embedding failed for chunk {}: {}", chunk.id(), e.getMessage());
+                    failed.add(chunk);
+                }
+            }
+        } finally {
+            writeEmbeddings(embedded, embeddings);
+            recordFailures(failed);
+        }
+    }
+
+    /**
+     * 寫回向量並清除認領（單一交易），提交後使相關版本的搜尋快取失效
+     */
+    private void writeEmbeddings(List<PendingChunk> chunks, List<float[]> embeddings) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        boolean partitioned = partitionManager.isPartitioned();
+        String sql = partitioned ? SQL_UPDATE_EMBEDDING_PARTITIONED : SQL_UPDATE_EMBEDDING;
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    StatementCreatorUtils.setParameterValue(ps, 1, SqlTypeValue.TYPE_UNKNOWN,
+                            embeddings.get(i));
+                    StatementCreatorUtils.setParameterValue(ps, 2, SqlTypeValue.TYPE_UNKNOWN,
+                            chunks.get(i).id());
+                    if (partitioned) {
+                        StatementCreatorUtils.setParameterValue(ps, 3, Types.VARCHAR,
+                                chunks.get(i).versionId());
+                    }
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return chunks.size();
+                }
+            });
+
+            chunks.stream()
+                    .map(PendingChunk::versionId)
+                    .distinct()
+                    .forEach(searchCacheInvalidator::invalidateVersion);
+        });
+    }
+
+    private void release(List<PendingChunk> chunks) {
+        updateClaimed(chunks, SQL_RELEASE_CLAIM, SQL_RELEASE_CLAIM_PARTITIONED);
+    }
+
+    private void recordFailures(List<PendingChunk> chunks) {
+        updateClaimed(chunks, SQL_RECORD_FAILURE, SQL_RECORD_FAILURE_PARTITIONED);
+    }
+
+    /**
+     * 以區塊 ID（分區表另帶 version_id）批次更新認領狀態
+     */
+    private void updateClaimed(List<PendingChunk> chunks, String sql, String partitionedSql) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        boolean partitioned = partitionManager.isPartitioned();
+        List<Object[]> args = chunks.stream()
+                .map(chunk -> partitioned
+                        ? new Object[]{chunk.id(), chunk.versionId()}
+                        : new Object[]{chunk.id()})
+                .toList();
+        jdbcTemplate.batchUpdate(partitioned ? partitionedSql : sql, args);
+    }
+
+    /**
+     * 待嵌入區塊
+     *
+     * @param id        區塊 ID
+     * @param versionId 版本 ID（分區鍵）
+     * @param content   區塊內容
+     */
+    private record PendingChunk(String id, String versionId, String content) {}
+}
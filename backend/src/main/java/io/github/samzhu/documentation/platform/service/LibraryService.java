@@ -211,6 +211,7 @@ public class LibraryService {
     @Transactional
     public void deleteLibrary(String id) {
         Library library = getLibraryById(id);
+        versionService.dropVersionPartitions(id);
         libraryRepository.delete(library);
     }
 
@@ -0,0 +1,64 @@
+package io.github.samzhu.documentation.platform.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 搜尋結果快取失效
+ * <p>
+ * 版本內容變更（同步完成、補齊嵌入）後呼叫：
+ * </p>
+ * <ul>
+ *   <li>移除本程序的快取結果；在交易內呼叫時延後至提交後，避免提交前的查詢重新快取舊資料</li>
+ *   <li>以 {@code pg_notify} 通知其他程序（MCP Server）；NOTIFY 本身隨交易提交才送出</li>
+ * </ul>
+ */
+@Component
+public class SearchCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchCacheInvalidator.class);
+
+    private final SearchResultCache searchResultCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    public SearchCacheInvalidator(SearchResultCache searchResultCache, JdbcTemplate jdbcTemplate) {
+        this.searchResultCache = searchResultCache;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 使版本的搜尋結果快取失效
+     *
+     * @param versionId 版本 ID（TSID 格式）
+     */
+    public void invalidateVersion(String versionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 交易內：NOTIFY 於提交時送出，失敗時隨交易回滾（重試時再通知）
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    searchResultCache.invalidateVersion(versionId);
+                }
+            });
+            publish(versionId);
+            return;
+        }
+
+        searchResultCache.invalidateVersion(versionId);
+        try {
+            publish(versionId);
+        } catch (DataAccessException e) {
+            // 通知失敗不影響呼叫端，其他程序的快取由存活時間保底
+            log.warn("Failed to publish search cache invalidation for version {}: {}", versionId, e.getMessage());
+        }
+    }
+
+    private void publish(String versionId) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", SearchResultCache.INVALIDATION_CHANNEL, versionId);
+    }
+}
@@ -0,0 +1,234 @@
+package io.github.samzhu.documentation.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.samzhu.documentation.platform.service.dto.SearchResultItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 搜尋結果快取
+ * <p>
+ * 以（版本, 正規化查詢, 模式, 筆數, alpha, 閾值）為鍵快取搜尋結果。版本內容只在同步或補齊嵌入後改變，
+ * 因此快取項目以版本為標記，於版本內容變更時整批失效：
+ * </p>
+ * <ul>
+ *   <li>容量以結果的估計位元組數加權（Caffeine weigher），大型結果不會擠掉大量小型結果之外的額度</li>
+ *   <li>每個版本有一個世代號碼並納入快取鍵；失效時遞增世代並移除該版本的項目，
+ *       失效前開始、失效後才完成的搜尋寫入舊世代，不會被後續查詢讀到</li>
+ *   <li>存活時間為保底，避免漏接失效通知時無限期回傳舊結果</li>
+ * </ul>
+ * <p>
+ * 指標：{@code search.result.cache}（tag result = hit / miss）、{@code search.result.cache.size}。
+ * </p>
+ * <p>
+ * 回傳的結果列表為共用的不可變實例。
+ * </p>
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchResultCache.class);
+
+    /**
+     * 跨程序失效通知的 PostgreSQL NOTIFY 頻道（payload 為版本 ID）
+     */
+    public static final String INVALIDATION_CHANNEL = "search_cache_invalidation";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // 物件標頭、欄位與字串標頭的概估額外開銷
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int ITEM_OVERHEAD_BYTES = 96;
+
+    private final boolean enabled;
+    private final Cache<Key, List<SearchResultItem>> cache;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    /**
+     * 快取鍵
+     *
+     * @param versionId  版本 ID
+     * @param generation 取得鍵時的版本世代
+     * @param query      正規化後的查詢文字
+     * @param mode       搜尋模式
+     * @param limit      結果數量上限
+     * @param alpha      關鍵字搜尋權重（非混合搜尋為 0）
+     * @param threshold  相似度閾值（全文檢索為 0）
+     */
+    public record Key(String versionId, long generation, String query, String mode,
+                      int limit, double alpha, double threshold) {
+    }
+
+    /**
+     * 建構子
+     *
+     * @param enabled        是否啟用快取
+     * @param maxWeightBytes 快取結果的估計總位元組數上限
+     * @param ttl            快取存活時間（自寫入起算）
+     * @param meterRegistry  指標註冊表
+     */
+    public SearchResultCache(@Value("${platform.search.cache.enabled:true}") boolean enabled,
+                             @Value("${platform.search.cache.max-weight-bytes:67108864}") long maxWeightBytes,
+                             @Value("${platform.search.cache.ttl:1h}") Duration ttl,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher(SearchResultCache::weigh)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.hitCounter = resultCounter(meterRegistry, "hit");
+        this.missCounter = resultCounter(meterRegistry, "miss");
+        Gauge.builder("search.result.cache.size", cache, Cache::estimatedSize)
+                .description("搜尋結果快取筆數")
+                .register(meterRegistry);
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("search.result.cache")
+                .description("搜尋結果快取查詢次數")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 建立快取鍵（擷取版本目前的世代）
+     *
+     * @param versionId 版本 ID
+     * @param query     查詢文字
+     * @param mode      搜尋模式
+     * @param limit     結果數量上限
+     * @param alpha     關鍵字搜尋權重
+     * @param threshold 相似度閾值
+     * @return 快取鍵
+     */
+    public Key key(String versionId, String query, String mode, int limit, double alpha, double threshold) {
+        return new Key(versionId, generation(versionId).get(), normalize(query), mode, limit, alpha, threshold);
+    }
+
+    /**
+     * 查詢快取
+     *
+     * @param key 快取鍵
+     * @return 快取的結果，未命中或停用時回傳 null
+     */
+    public List<SearchResultItem> getIfPresent(Key key) {
+        if (!enabled) {
+            return null;
+        }
+        List<SearchResultItem> results = cache.getIfPresent(key);
+        (results != null ? hitCounter : missCounter).increment();
+        return results;
+    }
+
+    /**
+     * 寫入快取
+     * <p>
+     * 取得鍵之後版本已失效時不寫入。
+     * </p>
+     *
+     * @param key     快取鍵
+     * @param results 搜尋結果
+     */
+    public void put(Key key, List<SearchResultItem> results) {
+        if (!enabled || generation(key.versionId()).get() != key.generation()) {
+            return;
+        }
+        cache.put(key, List.copyOf(results));
+    }
+
+    /**
+     * 查詢快取，未命中時執行搜尋並寫入
+     *
+     * @param key    快取鍵
+     * @param loader 未命中時的搜尋
+     * @return 搜尋結果
+     */
+    public List<SearchResultItem> get(Key key, Supplier<List<SearchResultItem>> loader) {
+        List<SearchResultItem> cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<SearchResultItem> results = loader.get();
+        put(key, results);
+        return results;
+    }
+
+    /**
+     * 使版本的所有快取結果失效
+     *
+     * @param versionId 版本 ID
+     */
+    public void invalidateVersion(String versionId) {
+        if (versionId == null) {
+            return;
+        }
+        generation(versionId).incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> versionId.equals(key.versionId()));
+        log.debug("Invalidated search result cache for version {}", versionId);
+    }
+
+    /**
+     * 使所有快取結果失效
+     */
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        cache.invalidateAll();
+    }
+
+    /**
+     * 目前快取筆數（估計值）
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private AtomicLong generation(String versionId) {
+        return generations.computeIfAbsent(versionId, id -> new AtomicLong());
+    }
+
+    /**
+     * 估計快取項目佔用的位元組數（字串以每字元 2 位元組計）
+     */
+    private static int weigh(Key key, List<SearchResultItem> results) {
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * key.query().length();
+        for (SearchResultItem item : results) {
+            bytes += ITEM_OVERHEAD_BYTES + 2L * (length(item.documentId()) + length(item.chunkId())
+                    + length(item.title()) + length(item.path()) + length(item.content()));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * 正規化查詢文字（NFKC、去除首尾空白並合併連續空白）
+     */
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(normalized.strip()).replaceAll(" ");
+    }
+}
@@ -1,24 +1,31 @@
 package io.github.samzhu.documentation.platform.service;
 
-import io.github.samzhu.documentation.platform.domain.model.Document;
+import io.github.samzhu.documentation.platform.infrastructure.keyword.LuceneChunkIndex;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.DocumentChunkVectorStore;
+import io.github.samzhu.documentation.platform.repository.ChunkSearchHit;
+import io.github.samzhu.documentation.platform.repository.ChunkSearchRepository;
 import io.github.samzhu.documentation.platform.service.dto.SearchResultItem;
-import io.github.samzhu.documentation.platform.repository.DocumentRepository;
+import io.github.samzhu.documentation.platform.repository.DocumentChunkRepository;
 import io.github.samzhu.documentation.platform.repository.LibraryVersionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static io.github.samzhu.documentation.platform.infrastructure.vectorstore.DocumentChunkVectorStore.*;
 
@@ -26,9 +33,11 @@ import static io.github.samzhu.documentation.platform.infrastructure.vectorstore
  * 搜尋服務
  * <p>
  * 提供全文檢索和語意搜尋功能。
- * 全文檢索使用 PostgreSQL 的 tsvector/tsquery。
+ * 全文檢索使用 PostgreSQL 的 tsvector/tsquery，以區塊為單位搜尋；
+ * platform.search.keyword.engine=lucene 時改用每個版本的本機 Lucene 索引（BM25）。
  * 語意搜尋使用 pgvector 的向量相似度計算。
  * 混合搜尋使用 RRF（Reciprocal Rank Fusion）演算法融合兩種搜尋結果。
+ * 版本解析後的搜尋結果經由 {@link SearchResultCache} 快取，版本內容變更時失效。
  * </p>
  */
 @Service
@@ -43,9 +52,21 @@ public class SearchService {
      */
     private static final int RRF_K = 60;
 
-    private final DocumentRepository documentRepository;
+    private static final String MODE_FULLTEXT = "fulltext";
+    private static final String MODE_SEMANTIC = "semantic";
+    private static final String MODE_HYBRID = "hybrid";
+
+    private final DocumentChunkRepository chunkRepository;
+    private final ChunkSearchRepository chunkSearchRepository;
     private final LibraryVersionRepository versionRepository;
-    private final VectorStore vectorStore;
+    private final DocumentChunkVectorStore vectorStore;
+    private final ExecutorService searchExecutor;
+    private final SearchResultCache resultCache;
+
+    /**
+     * Lucene 區塊關鍵字索引（未啟用時為 null，使用 PostgreSQL 全文檢索）
+     */
+    private final LuceneChunkIndex keywordIndex;
 
     /**
      * 混合搜尋的 alpha 參數，控制關鍵字搜尋與語意搜尋的權重比例
@@ -61,19 +82,45 @@ public class SearchService {
     @Value("${platform.search.hybrid.min-similarity:0.5}")
     private double minSimilarity;
 
-    public SearchService(DocumentRepository documentRepository,
+    /**
+     * 是否以單一 SQL 語句執行混合搜尋（關鍵字排名、ANN 排名與 RRF 融合皆在資料庫內完成）
+     */
+    @Value("${platform.search.hybrid.sql-native:false}")
+    private boolean sqlNativeHybrid;
+
+    /**
+     * 混合搜尋中關鍵字搜尋的逾時時間
+     */
+    @Value("${platform.search.hybrid.keyword-timeout:2s}")
+    private Duration keywordTimeout;
+
+    /**
+     * 混合搜尋中語意搜尋的逾時時間（含查詢嵌入的遠端呼叫）
+     */
+    @Value("${platform.search.hybrid.semantic-timeout:5s}")
+    private Duration semanticTimeout;
+
+    public SearchService(DocumentChunkRepository chunkRepository,
+                         ChunkSearchRepository chunkSearchRepository,
                          LibraryVersionRepository versionRepository,
-                         VectorStore vectorStore) {
-        this.documentRepository = documentRepository;
+                         DocumentChunkVectorStore vectorStore,
+                         ExecutorService virtualThreadExecutor,
+                         SearchResultCache resultCache,
+                         ObjectProvider<LuceneChunkIndex> keywordIndex) {
+        this.chunkRepository = chunkRepository;
+        this.chunkSearchRepository = chunkSearchRepository;
         this.versionRepository = versionRepository;
         this.vectorStore = vectorStore;
+        this.searchExecutor = virtualThreadExecutor;
+        this.resultCache = resultCache;
+        this.keywordIndex = keywordIndex.getIfAvailable();
     }
 
     /**
      * 全文檢索
      * <p>
-     * 使用 PostgreSQL tsvector 進行全文搜尋，
-     * 在文件標題和內容中搜尋關鍵字。
+     * 使用 document_chunks.search_vector（或 Lucene 關鍵字索引）進行全文搜尋，
+     * 回傳符合的區塊（與語意搜尋相同的區塊 ID），而非整份文件。
      * </p>
      *
      * @param libraryId 函式庫 ID（TSID 格式）
@@ -94,18 +141,19 @@ public class SearchService {
             return List.of();
         }
 
-        // 執行全文搜尋
-        List<Document> documents = documentRepository.fullTextSearch(versionId, query, limit);
-
-        // 轉換為搜尋結果
-        return documents.stream()
-                .map(doc -> SearchResultItem.fromDocument(
-                        doc.getId(),
-                        doc.getTitle(),
-                        doc.getPath(),
-                        truncateContent(doc.getContent(), 500),
-                        1.0  // 全文檢索不回傳分數，使用預設值
-                ))
+        return resultCache.get(resultCache.key(versionId, query, MODE_FULLTEXT, limit, 0, 0),
+                () -> keywordSearch(versionId, query, limit));
+    }
+
+    /**
+     * 區塊全文搜尋（版本已解析）
+     */
+    private List<SearchResultItem> keywordSearch(String versionId, String query, int limit) {
+        List<ChunkSearchHit> hits = keywordIndex != null
+                ? keywordIndex.search(versionId, query, limit)
+                : chunkSearchRepository.fullTextSearch(versionId, query, limit);
+        return hits.stream()
+                .map(SearchService::toSearchResultItem)
                 .toList();
     }
 
@@ -114,6 +162,7 @@ public class SearchService {
      * <p>
      * 使用 VectorStore 進行向量相似度搜尋，
      * 將查詢文字轉換為向量後，搜尋相似的文件區塊。
+     * 不在呼叫端開啟交易：等待嵌入供應商時不佔用連線，HNSW 查詢參數由 VectorStore 於查詢的短交易內設定。
      * </p>
      *
      * @param libraryId 函式庫 ID（TSID 格式）
@@ -123,6 +172,7 @@ public class SearchService {
      * @param threshold 相似度閾值（0-1，越高越嚴格）
      * @return 搜尋結果列表
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<SearchResultItem> semanticSearch(String libraryId, String version,
                                                   String query, int limit, double threshold) {
         if (query == null || query.isBlank()) {
@@ -135,8 +185,16 @@ public class SearchService {
             return List.of();
         }
 
+        return resultCache.get(resultCache.key(versionId, query, MODE_SEMANTIC, limit, 0, threshold),
+                () -> vectorSearch(versionId, query, limit, threshold));
+    }
+
+    /**
+     * 向量相似度搜尋（版本已解析）
+     */
+    private List<SearchResultItem> vectorSearch(String versionId, String query, int limit, double threshold) {
         // 使用 VectorStore 執行語意搜尋
-        // 透過 filterExpression 限制搜尋範圍為特定版本
+        // 透過 filterExpression 限制搜尋範圍為特定版本；結果以單一 JOIN 取得標題與路徑
         SearchRequest request = SearchRequest.builder()
                 .query(query)
                 .topK(limit)
@@ -144,113 +202,39 @@ public class SearchService {
                 .filterExpression(METADATA_VERSION_ID + " == '" + versionId + "'")
                 .build();
 
-        List<org.springframework.ai.document.Document> results = vectorStore.similaritySearch(request);
-
-        if (results.isEmpty()) {
-            return List.of();
-        }
-
-        // 從結果中取得 document IDs 並批次查詢文件資訊
-        List<String> documentIds = results.stream()
-                .map(doc -> {
-                    Object docIdObj = doc.getMetadata().get(METADATA_DOCUMENT_ID);
-                    return docIdObj != null ? docIdObj.toString() : null;
-                })
-                .filter(id -> id != null)
-                .distinct()
-                .toList();
-
-        Map<String, Document> documentMap = StreamSupport.stream(
-                        documentRepository.findAllById(documentIds).spliterator(), false)
-                .collect(Collectors.toMap(Document::getId, Function.identity()));
-
-        // 轉換為搜尋結果
-        return results.stream()
-                .map(doc -> toSearchResultItem(doc, documentMap))
-                .filter(item -> item != null)
+        return vectorStore.similaritySearchHits(request).stream()
+                .map(SearchService::toSearchResultItem)
                 .toList();
     }
 
     /**
-     * 將 Spring AI Document 轉換為 SearchResultItem
+     * 將區塊搜尋結果投影轉換為 SearchResultItem
      */
-    private SearchResultItem toSearchResultItem(org.springframework.ai.document.Document doc,
-                                                 Map<String, Document> documentMap) {
-        Map<String, Object> metadata = doc.getMetadata();
-
-        // 取得 document ID
-        String documentId = getMetadataString(metadata, METADATA_DOCUMENT_ID);
-        if (documentId == null) {
-            return null;
-        }
-
-        // 取得對應的文件資訊
-        Document dbDoc = documentMap.get(documentId);
-        if (dbDoc == null) {
-            return null;
-        }
-
-        // 取得 chunk ID 和其他資訊
-        String chunkId = doc.getId();
-        int chunkIndex = getMetadataInt(metadata, METADATA_CHUNK_INDEX, 0);
-        double score = getMetadataDouble(metadata, "score", 0.0);
-
+    private static SearchResultItem toSearchResultItem(ChunkSearchHit hit) {
         return SearchResultItem.fromChunk(
-                dbDoc.getId(),
-                chunkId,
-                dbDoc.getTitle(),
-                dbDoc.getPath(),
-                doc.getText(),
-                score,
-                chunkIndex
+                hit.documentId(),
+                hit.chunkId(),
+                hit.title(),
+                hit.path(),
+                hit.content(),
+                hit.score(),
+                hit.chunkIndex()
         );
     }
 
     /**
-     * 從 metadata 取得字串值
-     */
-    private String getMetadataString(Map<String, Object> metadata, String key) {
-        if (metadata == null || !metadata.containsKey(key)) {
-            return null;
-        }
-        Object value = metadata.get(key);
-        return value != null ? value.toString() : null;
-    }
-
-    /**
-     * 從 metadata 取得整數值
-     */
-    private int getMetadataInt(Map<String, Object> metadata, String key, int defaultValue) {
-        if (metadata == null || !metadata.containsKey(key)) {
-            return defaultValue;
-        }
-        Object value = metadata.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
-        }
-        try {
-            return Integer.parseInt(value.toString());
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
-    }
-
-    /**
-     * 從 metadata 取得 double 值
+     * 統計搜尋範圍內尚待產生向量嵌入的區塊數
+     * <p>
+     * 延遲嵌入模式下，這些區塊已可被全文檢索找到，但尚未參與語意搜尋。
+     * </p>
+     *
+     * @param libraryId 函式庫 ID（TSID 格式）
+     * @param version   版本（可選，null 表示最新版本）
+     * @return 待嵌入區塊數，版本不存在時回傳 0
      */
-    private double getMetadataDouble(Map<String, Object> metadata, String key, double defaultValue) {
-        if (metadata == null || !metadata.containsKey(key)) {
-            return defaultValue;
-        }
-        Object value = metadata.get(key);
-        if (value instanceof Number) {
-            return ((Number) value).doubleValue();
-        }
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+    public long countPendingEmbeddings(String libraryId, String version) {
+        String versionId = resolveVersionId(libraryId, version);
+        return versionId != null ? chunkRepository.countPendingEmbeddingsByVersionId(versionId) : 0;
     }
 
     /**
@@ -268,19 +252,6 @@ public class SearchService {
         }
     }
 
-    /**
-     * 截斷內容
-     */
-    private String truncateContent(String content, int maxLength) {
-        if (content == null) {
-            return "";
-        }
-        if (content.length() <= maxLength) {
-            return content;
-        }
-        return content.substring(0, maxLength) + "...";
-    }
-
     /**
      * 混合搜尋（使用 RRF 演算法融合全文搜尋與語意搜尋結果）
      * <p>
@@ -296,6 +267,7 @@ public class SearchService {
      * @param limit     結果數量上限
      * @return 融合後的搜尋結果列表（依 RRF 分數排序）
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<SearchResultItem> hybridSearch(String libraryId, String version,
                                                 String query, int limit) {
         return hybridSearch(libraryId, version, query, limit, hybridAlpha, minSimilarity);
@@ -303,6 +275,15 @@ public class SearchService {
 
     /**
      * 混合搜尋（使用自訂參數）
+     * <p>
+     * 兩種搜尋於各自的虛擬執行緒上並行執行，逾時者不納入融合；有檢索器逾時的不完整結果不寫入快取。
+     * 不在呼叫端開啟交易：檢索器於其他執行緒取得各自的連線，避免呼叫端閒置佔用一條連線。
+     * </p>
+     * <p>
+     * platform.search.hybrid.sql-native=true 時改以單一 SQL 語句完成兩種排名與 RRF 融合，
+     * 查詢向量以參數傳入，檢索與融合只需一次查詢（另有版本解析與 HNSW 查詢參數設定）。
+     * 關鍵字排名使用 Lucene 索引時不適用（關鍵字排名不在資料庫內）。
+     * </p>
      *
      * @param libraryId      函式庫 ID（TSID 格式）
      * @param version        版本（可選，null 表示最新版本）
@@ -312,6 +293,7 @@ public class SearchService {
      * @param minSimilarity  語意搜尋最低相似度閾值
      * @return 融合後的搜尋結果列表（依 RRF 分數排序）
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<SearchResultItem> hybridSearch(String libraryId, String version,
                                                 String query, int limit,
                                                 double alpha, double minSimilarity) {
@@ -324,12 +306,66 @@ public class SearchService {
         // 取得更多結果以確保融合後有足夠的資料
         int fetchLimit = limit * 2;
 
-        // 並行執行兩種搜尋
-        List<SearchResultItem> keywordResults = fullTextSearch(libraryId, version, query, fetchLimit);
-        List<SearchResultItem> semanticResults = semanticSearch(libraryId, version, query, fetchLimit, minSimilarity);
+        // 解析版本（兩種搜尋共用）
+        String versionId = resolveVersionId(libraryId, version);
+        if (versionId == null) {
+            return List.of();
+        }
+
+        SearchResultCache.Key cacheKey = resultCache.key(versionId, query, MODE_HYBRID, limit, alpha, minSimilarity);
+        List<SearchResultItem> cached = resultCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (sqlNativeHybrid && keywordIndex == null) {
+            List<SearchResultItem> fusedResults =
+                    sqlNativeHybridSearch(versionId, query, fetchLimit, limit, alpha, minSimilarity);
+            resultCache.put(cacheKey, fusedResults);
+            return fusedResults;
+        }
+
+        // 並行執行兩種搜尋：各自於虛擬執行緒上執行並有獨立逾時，延遲為兩者較大值而非總和
+        long startNanos = System.nanoTime();
+        Future<List<SearchResultItem>> keywordFuture =
+                searchExecutor.submit(() -> keywordSearch(versionId, query, fetchLimit));
+        Future<List<SearchResultItem>> semanticFuture =
+                searchExecutor.submit(() -> vectorSearch(versionId, query, fetchLimit, minSimilarity));
+        List<SearchResultItem> keywordResults;
+        List<SearchResultItem> semanticResults;
+        try {
+            keywordResults = awaitRetriever(keywordFuture, startNanos, keywordTimeout, "keyword");
+            semanticResults = awaitRetriever(semanticFuture, startNanos, semanticTimeout, "semantic");
+        } finally {
+            // 任一方失敗時取消另一方（已完成者不受影響）
+            keywordFuture.cancel(true);
+            semanticFuture.cancel(true);
+        }
 
         log.debug("關鍵字搜尋結果: {} 筆, 語意搜尋結果: {} 筆", keywordResults.size(), semanticResults.size());
 
+        List<SearchResultItem> fusedResults = fuse(keywordResults, semanticResults, alpha, limit);
+
+        // 逾時的檢索器已被取消；完成者的 cancel 不生效
+        if (!keywordFuture.isCancelled() && !semanticFuture.isCancelled()) {
+            resultCache.put(cacheKey, fusedResults);
+        }
+
+        return fusedResults;
+    }
+
+    /**
+     * 融合兩種搜尋結果
+     *
+     * @param keywordResults  關鍵字搜尋結果（已排序）
+     * @param semanticResults 語意搜尋結果（已排序）
+     * @param alpha           關鍵字搜尋權重
+     * @param limit           結果數量上限
+     * @return 融合後的搜尋結果列表（依 RRF 分數排序）
+     */
+    private List<SearchResultItem> fuse(List<SearchResultItem> keywordResults,
+                                        List<SearchResultItem> semanticResults,
+                                        double alpha, int limit) {
         // 如果任一搜尋無結果，直接返回另一種搜尋的結果
         if (keywordResults.isEmpty() && semanticResults.isEmpty()) {
             return List.of();
@@ -371,6 +407,54 @@ public class SearchService {
         return fusedResults;
     }
 
+    /**
+     * 以單一 SQL 語句執行混合搜尋
+     */
+    private List<SearchResultItem> sqlNativeHybridSearch(String versionId, String query,
+                                                          int fetchLimit, int limit,
+                                                          double alpha, double minSimilarity) {
+        List<SearchResultItem> fusedResults = vectorStore
+                .hybridSearchHits(versionId, query, fetchLimit, limit, alpha, RRF_K, minSimilarity).stream()
+                .map(hit -> toSearchResultItem(hit).withScore(normalizeRRFScore(hit.score())))
+                .toList();
+
+        log.debug("混合搜尋（SQL）融合後結果: {} 筆", fusedResults.size());
+
+        return fusedResults;
+    }
+
+    /**
+     * 等待單一檢索器的結果
+     * <p>
+     * 逾時時中斷該檢索器（虛擬執行緒上的 JDBC / HTTP 阻塞 I/O 可被中斷）並回傳空結果，
+     * 混合搜尋退化為另一種搜尋；其他失敗則向上拋出。
+     * </p>
+     *
+     * @param future     檢索器任務
+     * @param startNanos 兩個檢索器的啟動時間（System.nanoTime）
+     * @param timeout    逾時時間（自啟動起算）
+     * @param name       檢索器名稱（用於日誌）
+     * @return 搜尋結果，逾時時為空列表
+     */
+    private List<SearchResultItem> awaitRetriever(Future<List<SearchResultItem>> future, long startNanos,
+                                                  Duration timeout, String name) {
+        try {
+            long remainingNanos = timeout.toNanos() - (System.nanoTime() - startNanos);
+            return future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("{} 搜尋逾時（{} ms），略過其結果", name, timeout.toMillis());
+            return List.of();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hybrid search interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException(name + " retriever failed", e.getCause());
+        }
+    }
+
     /**
      * 計算 RRF（倒數排名融合）分數
      * <p>
@@ -407,7 +491,7 @@ public class SearchService {
 
     /**
      * 取得搜尋結果的唯一識別鍵
-     * 優先使用 chunkId（語意搜尋），若無則使用 documentId（全文搜尋）
+     * 全文與語意搜尋皆回傳區塊，以 chunkId 為鍵使同一段落的兩種排名得以融合；無 chunkId 時退回 documentId
      */
     private String getResultKey(SearchResultItem item) {
         if (item.chunkId() != null) {
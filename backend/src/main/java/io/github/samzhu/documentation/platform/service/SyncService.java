@@ -7,6 +7,7 @@ import io.github.samzhu.documentation.platform.domain.model.SyncHistory;
 import io.github.samzhu.documentation.platform.infrastructure.github.GitHubContentFetcher;
 import io.github.samzhu.documentation.platform.infrastructure.github.GitHubFile;
 import io.github.samzhu.documentation.platform.infrastructure.github.strategy.FetchResult;
+import io.github.samzhu.documentation.platform.infrastructure.keyword.LuceneChunkIndex;
 import io.github.samzhu.documentation.platform.infrastructure.local.LocalFileClient;
 import io.github.samzhu.documentation.platform.infrastructure.parser.DocumentParser;
 import io.github.samzhu.documentation.platform.infrastructure.parser.ParsedDocument;
@@ -18,6 +19,7 @@ import io.github.samzhu.documentation.platform.repository.SyncHistoryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +40,7 @@ import java.util.concurrent.CompletableFuture;
  * <p>
  * 負責從來源（GitHub、本地檔案）同步文件到資料庫。
  * 包含解析、分塊、嵌入向量生成。
+ * 同步結束（成功或失敗）後使該版本的搜尋結果快取失效，並於背景重建該版本的 Lucene 關鍵字索引（啟用時）。
  * </p>
  */
 @Service
@@ -56,6 +59,9 @@ public class SyncService {
     private final DocumentChunkRepository chunkRepository;
     private final CodeExampleRepository codeExampleRepository;
     private final SyncHistoryRepository syncHistoryRepository;
+    private final SearchCacheInvalidator searchCacheInvalidator;
+    private final SearchResultCache searchResultCache;
+    private final LuceneChunkIndex keywordIndex;
 
     public SyncService(IdService idService,
                        GitHubContentFetcher gitHubContentFetcher,
@@ -67,7 +73,10 @@ public class SyncService {
                        DocumentRepository documentRepository,
                        DocumentChunkRepository chunkRepository,
                        CodeExampleRepository codeExampleRepository,
-                       SyncHistoryRepository syncHistoryRepository) {
+                       SyncHistoryRepository syncHistoryRepository,
+                       SearchCacheInvalidator searchCacheInvalidator,
+                       SearchResultCache searchResultCache,
+                       ObjectProvider<LuceneChunkIndex> keywordIndex) {
         this.idService = idService;
         this.gitHubContentFetcher = gitHubContentFetcher;
         this.localFileClient = localFileClient;
@@ -79,6 +88,9 @@ public class SyncService {
         this.chunkRepository = chunkRepository;
         this.codeExampleRepository = codeExampleRepository;
         this.syncHistoryRepository = syncHistoryRepository;
+        this.searchCacheInvalidator = searchCacheInvalidator;
+        this.searchResultCache = searchResultCache;
+        this.keywordIndex = keywordIndex.getIfAvailable();
     }
 
     /**
@@ -147,6 +159,22 @@ public class SyncService {
             syncHistory = completeSyncHistory(syncHistory, SyncStatus.FAILED, 0, 0, e.getMessage());
 
             return CompletableFuture.completedFuture(syncHistory);
+        } finally {
+            // 失敗前可能已寫入部分文件，成功與失敗皆需失效
+            searchCacheInvalidator.invalidateVersion(versionId);
+            refreshKeywordIndex(versionId);
+        }
+    }
+
+    /**
+     * 於背景重建版本的 Lucene 關鍵字索引
+     * <p>
+     * 重建期間關鍵字搜尋仍以舊索引回應，這些結果可能已被快取，因此重建完成後再使本程序的快取失效一次。
+     * </p>
+     */
+    private void refreshKeywordIndex(String versionId) {
+        if (keywordIndex != null) {
+            keywordIndex.refresh(versionId).thenRun(() -> searchResultCache.invalidateVersion(versionId));
         }
     }
 
@@ -250,6 +278,9 @@ public class SyncService {
             log.error("Local sync failed for version: {}", versionId, e);
             syncHistory = completeSyncHistory(syncHistory, SyncStatus.FAILED, 0, 0, e.getMessage());
             return CompletableFuture.completedFuture(syncHistory);
+        } finally {
+            searchCacheInvalidator.invalidateVersion(versionId);
+            refreshKeywordIndex(versionId);
         }
     }
 
@@ -286,8 +317,7 @@ public class SyncService {
             String docId = existingDoc.get().getId();
             codeExampleRepository.findByDocumentId(docId)
                     .forEach(ex -> codeExampleRepository.delete(ex));
-            chunkRepository.findByDocumentIdOrderByChunkIndex(docId)
-                    .forEach(chunk -> chunkRepository.delete(chunk));
+            chunkRepository.deleteByDocumentId(docId);
             documentRepository.delete(existingDoc.get());
         }
 
@@ -311,7 +341,9 @@ public class SyncService {
                         chunkResult.content(),
                         chunkResult.tokenCount(),
                         parsed.title(),
-                        path
+                        path,
+                        chunkResult.startOffset(),
+                        chunkResult.endOffset()
                 ))
                 .toList();
 
@@ -371,8 +403,7 @@ public class SyncService {
             String docId = existingDoc.get().getId();
             codeExampleRepository.findByDocumentId(docId)
                     .forEach(ex -> codeExampleRepository.delete(ex));
-            chunkRepository.findByDocumentIdOrderByChunkIndex(docId)
-                    .forEach(chunk -> chunkRepository.delete(chunk));
+            chunkRepository.deleteByDocumentId(docId);
             documentRepository.delete(existingDoc.get());
         }
 
@@ -396,7 +427,9 @@ public class SyncService {
                         chunkResult.content(),
                         chunkResult.tokenCount(),
                         parsed.title(),
-                        file.path()
+                        file.path(),
+                        chunkResult.startOffset(),
+                        chunkResult.endOffset()
                 ))
                 .toList();
 
@@ -3,6 +3,7 @@ package io.github.samzhu.documentation.platform.service;
 import io.github.samzhu.documentation.platform.domain.enums.VersionStatus;
 import io.github.samzhu.documentation.platform.domain.exception.LibraryNotFoundException;
 import io.github.samzhu.documentation.platform.domain.model.LibraryVersion;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.ChunkPartitionManager;
 import io.github.samzhu.documentation.platform.repository.LibraryRepository;
 import io.github.samzhu.documentation.platform.repository.LibraryVersionRepository;
 import org.slf4j.Logger;
@@ -30,13 +31,16 @@ public class VersionService {
     private final IdService idService;
     private final LibraryRepository libraryRepository;
     private final LibraryVersionRepository versionRepository;
+    private final ChunkPartitionManager partitionManager;
 
     public VersionService(IdService idService,
                           LibraryRepository libraryRepository,
-                          LibraryVersionRepository versionRepository) {
+                          LibraryVersionRepository versionRepository,
+                          ChunkPartitionManager partitionManager) {
         this.idService = idService;
         this.libraryRepository = libraryRepository;
         this.versionRepository = versionRepository;
+        this.partitionManager = partitionManager;
     }
 
     /**
@@ -170,6 +174,7 @@ public class VersionService {
         );
 
         LibraryVersion saved = versionRepository.save(newVersion);
+        partitionManager.ensureVersionPartition(saved.getId());
         log.info("建立新版本: {} (libraryId={})", version, libraryId);
 
         return saved;
@@ -216,6 +221,9 @@ public class VersionService {
 
     /**
      * 刪除版本
+     * <p>
+     * document_chunks 已分區時先移除版本分區，再串聯刪除文件。
+     * </p>
      *
      * @param versionId 版本 ID（TSID 格式）
      * @throws LibraryNotFoundException 若版本不存在
@@ -223,10 +231,25 @@ public class VersionService {
     @Transactional
     public void deleteVersion(String versionId) {
         LibraryVersion version = getVersionById(versionId);
+        partitionManager.dropVersionPartition(versionId);
         versionRepository.delete(version);
         log.info("刪除版本: {} (id={})", version.getVersion(), versionId);
     }
 
+    /**
+     * 移除函式庫所有版本的區塊分區
+     * <p>
+     * 刪除函式庫前呼叫；document_chunks 未分區時為 no-op。
+     * </p>
+     *
+     * @param libraryId 函式庫 ID（TSID 格式）
+     */
+    @Transactional
+    public void dropVersionPartitions(String libraryId) {
+        versionRepository.findByLibraryId(libraryId)
+                .forEach(v -> partitionManager.dropVersionPartition(v.getId()));
+    }
+
     /**
      * 設定最新版本
      *
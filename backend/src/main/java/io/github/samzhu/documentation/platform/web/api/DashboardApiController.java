@@ -46,7 +46,7 @@ public class DashboardApiController {
     /**
      * 取得儀表板統計資料
      * <p>
-     * 回傳系統整體統計，包含函式庫、文件、向量片段、API 金鑰數量。
+     * 回傳系統整體統計，包含函式庫、文件、向量片段、待嵌入片段、API 金鑰數量。
      * </p>
      *
      * @return 統計資料
@@ -56,12 +56,14 @@ public class DashboardApiController {
         long libraryCount = libraryRepository.count();
         long documentCount = documentRepository.count();
         long chunkCount = documentChunkRepository.count();
+        long pendingEmbeddingCount = documentChunkRepository.countPendingEmbeddings();
         long apiKeyCount = apiKeyRepository.countByStatus(ApiKeyStatus.ACTIVE);
 
         return new DashboardStatsResponse(
                 libraryCount,
                 documentCount,
                 chunkCount,
+                pendingEmbeddingCount,
                 apiKeyCount
         );
     }
@@ -72,12 +74,14 @@ public class DashboardApiController {
      * @param libraryCount  函式庫數量
      * @param documentCount 文件數量
      * @param chunkCount    向量片段數量
+     * @param pendingEmbeddingCount 尚待產生向量嵌入的片段數量
      * @param apiKeyCount   啟用中的 API 金鑰數量
      */
     public record DashboardStatsResponse(
             long libraryCount,
             long documentCount,
             long chunkCount,
+            long pendingEmbeddingCount,
             long apiKeyCount
     ) {}
 }
@@ -70,7 +70,7 @@ public class SearchApiController {
     ) {
         // 檢查查詢是否為空
         if (query == null || query.isBlank()) {
-            return new SearchResultDto(query, mode, 0, List.of());
+            return new SearchResultDto(query, mode, 0, List.of(), null);
         }
 
         // 如果沒有指定 libraryId，取得第一個函式庫作為預設
@@ -78,7 +78,7 @@ public class SearchApiController {
         if (libraryId == null || libraryId.isBlank()) {
             var libraries = libraryService.listLibraries(null);
             if (libraries.isEmpty()) {
-                return new SearchResultDto(query, mode, 0, List.of());
+                return new SearchResultDto(query, mode, 0, List.of(), null);
             }
             libraryId = libraries.getFirst().getId();
         }
@@ -91,6 +91,11 @@ public class SearchApiController {
             default -> throw new IllegalArgumentException("不支援的搜尋模式: " + mode);
         };
 
-        return SearchResultDto.from(query, mode, results);
+        // 語意 / 混合搜尋回報尚未嵌入的區塊數，提示結果可能不完整
+        Long pendingEmbeddings = "fulltext".equalsIgnoreCase(mode)
+                ? null
+                : searchService.countPendingEmbeddings(libraryId, version);
+
+        return SearchResultDto.from(query, mode, results, pendingEmbeddings);
     }
 }
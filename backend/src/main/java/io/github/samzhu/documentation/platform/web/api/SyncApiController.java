@@ -3,8 +3,10 @@ package io.github.samzhu.documentation.platform.web.api;
 import io.github.samzhu.documentation.platform.domain.model.Library;
 import io.github.samzhu.documentation.platform.domain.model.LibraryVersion;
 import io.github.samzhu.documentation.platform.domain.model.SyncHistory;
+import io.github.samzhu.documentation.platform.repository.DocumentChunkRepository;
 import io.github.samzhu.documentation.platform.repository.LibraryRepository;
 import io.github.samzhu.documentation.platform.repository.LibraryVersionRepository;
+import io.github.samzhu.documentation.platform.repository.PendingEmbeddingCount;
 import io.github.samzhu.documentation.platform.service.SyncService;
 import io.github.samzhu.documentation.platform.web.dto.SyncHistoryDto;
 import org.springframework.http.ResponseEntity;
@@ -34,6 +36,7 @@ public class SyncApiController {
     private final SyncService syncService;
     private final LibraryVersionRepository versionRepository;
     private final LibraryRepository libraryRepository;
+    private final DocumentChunkRepository chunkRepository;
 
     /**
      * 建構函式
@@ -41,13 +44,16 @@ public class SyncApiController {
      * @param syncService       同步服務
      * @param versionRepository 版本 Repository
      * @param libraryRepository 文件庫 Repository
+     * @param chunkRepository   文件區塊 Repository（統計待嵌入區塊）
      */
     public SyncApiController(SyncService syncService,
                              LibraryVersionRepository versionRepository,
-                             LibraryRepository libraryRepository) {
+                             LibraryRepository libraryRepository,
+                             DocumentChunkRepository chunkRepository) {
         this.syncService = syncService;
         this.versionRepository = versionRepository;
         this.libraryRepository = libraryRepository;
+        this.chunkRepository = chunkRepository;
     }
 
     /**
@@ -95,6 +101,10 @@ public class SyncApiController {
                 .stream(libraryRepository.findAllById(libraryIds).spliterator(), false)
                 .collect(Collectors.toMap(Library::getId, Function.identity()));
 
+        // 各版本待嵌入區塊數（單一 GROUP BY 查詢，沒有待嵌入區塊的版本為 0）
+        Map<String, Long> pendingMap = chunkRepository.countPendingEmbeddingsByVersionIds(versionIds).stream()
+                .collect(Collectors.toMap(PendingEmbeddingCount::versionId, PendingEmbeddingCount::pending));
+
         // 轉換為 DTO，包含關聯資訊
         return histories.stream()
                 .map(history -> {
@@ -105,7 +115,8 @@ public class SyncApiController {
                             history,
                             library != null ? library.getId() : null,
                             library != null ? (library.getDisplayName() != null ? library.getDisplayName() : library.getName()) : null,
-                            version != null ? version.getVersion() : null
+                            version != null ? version.getVersion() : null,
+                            pendingMap.getOrDefault(history.getVersionId(), 0L)
                     );
                 })
                 .toList();
@@ -134,7 +145,8 @@ public class SyncApiController {
                             history,
                             library != null ? library.getId() : null,
                             library != null ? (library.getDisplayName() != null ? library.getDisplayName() : library.getName()) : null,
-                            version != null ? version.getVersion() : null
+                            version != null ? version.getVersion() : null,
+                            chunkRepository.countPendingEmbeddingsByVersionId(history.getVersionId())
                     );
                 })
                 .map(ResponseEntity::ok)
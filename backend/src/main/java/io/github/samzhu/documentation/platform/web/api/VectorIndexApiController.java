@@ -0,0 +1,63 @@
+package io.github.samzhu.documentation.platform.web.api;
+
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.VectorIndexManager;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.VectorIndexManager.VectorIndexStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 向量索引管理 REST API
+ * <p>
+ * 提供 HNSW 索引狀態、建立進度查詢與不中斷服務的重建操作。
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/vector-index")
+public class VectorIndexApiController {
+
+    private final VectorIndexManager indexManager;
+
+    /**
+     * 建構函式
+     *
+     * @param indexManager 向量索引管理器
+     */
+    public VectorIndexApiController(VectorIndexManager indexManager) {
+        this.indexManager = indexManager;
+    }
+
+    /**
+     * 取得索引狀態
+     * <p>
+     * 回傳索引是否存在、是否有效、大小、建立參數，建立中時附帶進度。
+     * </p>
+     *
+     * @return 索引狀態
+     */
+    @GetMapping
+    public VectorIndexStatus getStatus() {
+        return indexManager.status();
+    }
+
+    /**
+     * 重建索引
+     * <p>
+     * 以目前配置的 m / ef_construction 於背景建立新索引後替換舊索引，
+     * 期間語意搜尋持續可用。已有建立作業進行中時回傳 409。
+     * </p>
+     *
+     * @return 202 Accepted 與目前狀態；409 Conflict 表示已在建立中或未啟用管理
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<VectorIndexStatus> rebuild() {
+        CompletableFuture<Void> rebuild = indexManager.rebuild();
+        HttpStatus status = rebuild != null ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(indexManager.status());
+    }
+}
@@ -14,21 +14,31 @@ import java.util.List;
  * @param mode      搜尋模式（fulltext, semantic, hybrid）
  * @param total     結果總數
  * @param items     搜尋結果項目列表
+ * @param pendingEmbeddings 搜尋範圍內尚待產生向量嵌入的區塊數（僅語意 / 混合搜尋，其餘為 null）
  */
 public record SearchResultDto(
         String query,
         String mode,
         int total,
-        List<SearchResultItemDto> items
+        List<SearchResultItemDto> items,
+        Long pendingEmbeddings
 ) {
     /**
      * 從搜尋結果列表建立
      */
     public static SearchResultDto from(String query, String mode, List<SearchResultItem> items) {
+        return from(query, mode, items, null);
+    }
+
+    /**
+     * 從搜尋結果列表建立（含待嵌入區塊數）
+     */
+    public static SearchResultDto from(String query, String mode, List<SearchResultItem> items,
+                                       Long pendingEmbeddings) {
         List<SearchResultItemDto> dtos = items.stream()
                 .map(SearchResultItemDto::from)
                 .toList();
-        return new SearchResultDto(query, mode, dtos.size(), dtos);
+        return new SearchResultDto(query, mode, dtos.size(), dtos, pendingEmbeddings);
     }
 
     /**
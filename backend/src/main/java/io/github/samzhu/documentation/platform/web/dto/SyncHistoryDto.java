@@ -24,6 +24,7 @@ import java.util.Map;
  * @param chunksCreated      已建立區塊數
  * @param errorMessage       錯誤訊息
  * @param metadata           額外的元資料
+ * @param pendingEmbeddings  該版本尚待產生向量嵌入的區塊數（延遲嵌入模式）
  */
 public record SyncHistoryDto(
         String id,
@@ -37,13 +38,14 @@ public record SyncHistoryDto(
         Integer documentsProcessed,
         Integer chunksCreated,
         String errorMessage,
-        Map<String, Object> metadata
+        Map<String, Object> metadata,
+        Long pendingEmbeddings
 ) {
     /**
      * 從 SyncHistory 實體轉換（不含關聯資訊）
      */
     public static SyncHistoryDto from(SyncHistory history) {
-        return from(history, null, null, null);
+        return from(history, null, null, null, null);
     }
 
     /**
@@ -53,10 +55,12 @@ public record SyncHistoryDto(
      * @param libraryId   文件庫 ID
      * @param libraryName 文件庫名稱
      * @param version     版本號
+     * @param pendingEmbeddings 待嵌入區塊數
      * @return SyncHistoryDto
      */
     public static SyncHistoryDto from(SyncHistory history, String libraryId,
-                                       String libraryName, String version) {
+                                       String libraryName, String version,
+                                       Long pendingEmbeddings) {
         return new SyncHistoryDto(
                 history.getId(),
                 history.getVersionId(),
@@ -69,7 +73,8 @@ public record SyncHistoryDto(
                 history.getDocumentsProcessed(),
                 history.getChunksCreated(),
                 history.getErrorMessage(),
-                history.getMetadata()
+                history.getMetadata(),
+                pendingEmbeddings
         );
     }
 }
@@ -72,7 +72,6 @@ CREATE TABLE IF NOT EXISTS documents (
     content_hash VARCHAR(64),
     doc_type VARCHAR(50),
     metadata JSONB DEFAULT '{}',
-    search_vector TSVECTOR,
     version BIGINT DEFAULT 0,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
@@ -88,20 +87,27 @@ COMMENT ON COLUMN documents.content IS '文件完整內容';
 COMMENT ON COLUMN documents.content_hash IS '內容雜湊值（SHA-256），用於偵測文件變更';
 COMMENT ON COLUMN documents.doc_type IS '文件類型（如 markdown, html, text）';
 COMMENT ON COLUMN documents.metadata IS '額外元資料（JSONB 格式）';
-COMMENT ON COLUMN documents.search_vector IS '全文檢索向量（tsvector），由標題與內容組合產生';
 COMMENT ON COLUMN documents.version IS '樂觀鎖版本號，用於併發控制';
 COMMENT ON COLUMN documents.created_at IS '資料建立時間';
 COMMENT ON COLUMN documents.updated_at IS '資料最後更新時間';
 
 -- 建立 document_chunks 表（文件區塊表，含向量嵌入）
+-- 選用的 version_id LIST 分區由 Liquibase（history/006-chunk-partitioning.yaml）轉換，此處維持一般表
 CREATE TABLE IF NOT EXISTS document_chunks (
     id VARCHAR(13) PRIMARY KEY,
     document_id VARCHAR(13) NOT NULL REFERENCES documents(id) ON DELETE CASCADE,
+    version_id VARCHAR(13),
+    library_id VARCHAR(13),
     chunk_index INTEGER NOT NULL,
-    content TEXT NOT NULL,
+    content TEXT,
+    start_offset INTEGER,
+    end_offset INTEGER,
     embedding vector(768),
     token_count INTEGER,
     metadata JSONB DEFAULT '{}',
+    search_vector tsvector,
+    embedding_attempts INTEGER NOT NULL DEFAULT 0,
+    embedding_claimed_at TIMESTAMP WITH TIME ZONE,
     version BIGINT DEFAULT 0,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
@@ -111,11 +117,18 @@ CREATE TABLE IF NOT EXISTS document_chunks (
 COMMENT ON TABLE document_chunks IS '儲存分塊的文件內容與向量嵌入';
 COMMENT ON COLUMN document_chunks.id IS 'TSID 格式（13 字元 Crockford Base32）';
 COMMENT ON COLUMN document_chunks.document_id IS '所屬文件 ID（外鍵關聯 documents）';
+COMMENT ON COLUMN document_chunks.version_id IS '所屬版本 ID（冗餘自 documents.version_id，供向量搜尋過濾）';
+COMMENT ON COLUMN document_chunks.library_id IS '所屬函式庫 ID（冗餘自 library_versions.library_id，供向量搜尋過濾）';
 COMMENT ON COLUMN document_chunks.chunk_index IS '區塊索引，從 0 開始，表示在原文件中的順序';
-COMMENT ON COLUMN document_chunks.content IS '區塊文字內容（典型大小 500-1000 tokens）';
+COMMENT ON COLUMN document_chunks.content IS '區塊文字內容（典型大小 500-1000 tokens）；有起訖位置時為 NULL，由 documents.content 還原';
+COMMENT ON COLUMN document_chunks.start_offset IS '區塊在 documents.content 的起始位置（字元數，從 0 開始，含）';
+COMMENT ON COLUMN document_chunks.end_offset IS '區塊在 documents.content 的結束位置（字元數，不含）';
 COMMENT ON COLUMN document_chunks.embedding IS '768 維度向量嵌入，用於語意搜尋（gemini-embedding-001）';
 COMMENT ON COLUMN document_chunks.token_count IS '此區塊的 token 數量';
-COMMENT ON COLUMN document_chunks.metadata IS '額外元資料（JSONB 格式，含 versionId 等篩選欄位）';
+COMMENT ON COLUMN document_chunks.metadata IS '額外元資料（JSONB 格式，版本、文件等資訊已由欄位提供）';
+COMMENT ON COLUMN document_chunks.search_vector IS '區塊全文檢索向量（tsvector），寫入區塊時由文件標題（權重 A）與區塊文字產生';
+COMMENT ON COLUMN document_chunks.embedding_attempts IS '嵌入失敗（無法重試的錯誤）次數';
+COMMENT ON COLUMN document_chunks.embedding_claimed_at IS '背景補齊作業最近一次認領時間（認領租約）';
 COMMENT ON COLUMN document_chunks.version IS '樂觀鎖版本號，用於併發控制';
 COMMENT ON COLUMN document_chunks.created_at IS '資料建立時間';
 COMMENT ON COLUMN document_chunks.updated_at IS '資料最後更新時間';
@@ -224,14 +237,25 @@ CREATE INDEX IF NOT EXISTS idx_library_versions_status ON library_versions(statu
 -- Documents 索引
 CREATE INDEX IF NOT EXISTS idx_documents_version_id ON documents(version_id);
 CREATE INDEX IF NOT EXISTS idx_documents_doc_type ON documents(doc_type);
-CREATE INDEX IF NOT EXISTS idx_documents_search_vector ON documents USING GIN(search_vector);
 
 -- Document chunks 索引
 CREATE INDEX IF NOT EXISTS idx_document_chunks_document_id ON document_chunks(document_id);
 
 -- Document chunks metadata 索引（支援 VectorStore filter 機制）
 CREATE INDEX IF NOT EXISTS idx_document_chunks_metadata ON document_chunks USING GIN(metadata);
-CREATE INDEX IF NOT EXISTS idx_document_chunks_version_id ON document_chunks ((metadata->>'versionId'));
+
+-- Document chunks 版本 / 函式庫欄位索引（VectorStore 依 versionId / libraryId 過濾時使用）
+CREATE INDEX IF NOT EXISTS idx_document_chunks_version_id ON document_chunks(version_id, document_id, chunk_index);
+CREATE INDEX IF NOT EXISTS idx_document_chunks_library_version ON document_chunks(library_id, version_id);
+
+-- Document chunks 全文檢索索引（區塊層級關鍵字搜尋）
+CREATE INDEX IF NOT EXISTS idx_document_chunks_search_vector ON document_chunks USING GIN(search_vector);
+
+-- Document chunks 待嵌入索引（延遲嵌入模式下由背景補齊作業認領）
+CREATE INDEX IF NOT EXISTS idx_document_chunks_embedding_pending ON document_chunks (created_at) WHERE embedding IS NULL;
+
+-- Document chunks HNSW 向量索引由應用程式（VectorIndexManager）於啟動後以 CREATE INDEX CONCURRENTLY 建立，
+-- 參數見 platform.vector-index.*，此處不建立
 
 -- Code examples 索引
 CREATE INDEX IF NOT EXISTS idx_code_examples_document_id ON code_examples(document_id);
@@ -245,22 +269,43 @@ CREATE INDEX IF NOT EXISTS idx_sync_history_status ON sync_history(status);
 CREATE INDEX IF NOT EXISTS idx_api_keys_key_prefix ON api_keys(key_prefix);
 CREATE INDEX IF NOT EXISTS idx_api_keys_status ON api_keys(status);
 
--- 注意：tsvector 觸發器需要在資料庫層面另外設定
--- 因為 Spring SQL 初始化不支援 PostgreSQL 的 $$ 引用語法
--- 可透過 psql 手動執行以下 SQL：
+-- 函式庫目錄異動通知觸發器（MCP Server 的目錄快取依此重新載入）需在資料庫層面另外設定
+-- （Spring SQL 初始化不支援 PostgreSQL 的 $$ 引用語法），
+-- Liquibase 遷移（history/009-catalog-change-notify.yaml）會自動建立：
 --
--- CREATE OR REPLACE FUNCTION update_documents_search_vector()
+-- CREATE OR REPLACE FUNCTION notify_catalog_changed()
 -- RETURNS TRIGGER AS $$
 -- BEGIN
---     NEW.search_vector :=
---         setweight(to_tsvector('english', COALESCE(NEW.title, '')), 'A') ||
---         setweight(to_tsvector('english', COALESCE(NEW.content, '')), 'B');
---     RETURN NEW;
+--     PERFORM pg_notify('catalog_changed', TG_TABLE_NAME);
+--     RETURN NULL;
 -- END;
 -- $$ LANGUAGE plpgsql;
 --
--- CREATE TRIGGER trigger_documents_search_vector
---     BEFORE INSERT OR UPDATE OF title, content
---     ON documents
+-- CREATE TRIGGER trigger_libraries_catalog_changed
+--     AFTER INSERT OR DELETE OR TRUNCATE ON libraries
+--     FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_changed();
+--
+-- -- 更新只在目錄欄位的值改變時通知（只更新 updated_at、樂觀鎖版本號時不通知）
+-- CREATE TRIGGER trigger_libraries_catalog_updated
+--     AFTER UPDATE ON libraries
+--     FOR EACH ROW
+--     WHEN ((OLD.name, OLD.display_name, OLD.description, OLD.source_type, OLD.source_url,
+--            OLD.category, OLD.tags)
+--           IS DISTINCT FROM
+--           (NEW.name, NEW.display_name, NEW.description, NEW.source_type, NEW.source_url,
+--            NEW.category, NEW.tags))
+--     EXECUTE FUNCTION notify_catalog_changed();
+--
+-- CREATE TRIGGER trigger_library_versions_catalog_changed
+--     AFTER INSERT OR DELETE OR TRUNCATE ON library_versions
+--     FOR EACH STATEMENT EXECUTE FUNCTION notify_catalog_changed();
+--
+-- CREATE TRIGGER trigger_library_versions_catalog_updated
+--     AFTER UPDATE ON library_versions
 --     FOR EACH ROW
---     EXECUTE FUNCTION update_documents_search_vector();
+--     WHEN ((OLD.library_id, OLD.version, OLD.is_latest, OLD.is_lts, OLD.status, OLD.docs_path,
+--            OLD.release_date)
+--           IS DISTINCT FROM
+--           (NEW.library_id, NEW.version, NEW.is_latest, NEW.is_lts, NEW.status, NEW.docs_path,
+--            NEW.release_date))
+--     EXECUTE FUNCTION notify_catalog_changed();
@@ -0,0 +1,157 @@
+package io.github.samzhu.documentation.platform.infrastructure.embedding;
+
+import com.google.genai.errors.ApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * EmbeddingScheduler 單元測試
+ * <p>
+ * 測試依 token 數切分批次、限流重試與錯誤分類。
+ * </p>
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmbeddingScheduler 單元測試")
+class EmbeddingSchedulerTest {
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private ExecutorService executor;
+    private EmbeddingScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        EmbeddingProperties properties = new EmbeddingProperties();
+        properties.getScheduler().setMaxTokensPerBatch(10);
+        properties.getScheduler().setMaxItemsPerBatch(100);
+        properties.getScheduler().setInitialBackoffMs(1);
+        properties.getScheduler().setMaxBackoffMs(5);
+        properties.getScheduler().setMaxRetries(3);
+        properties.getScheduler().setInitialConcurrency(1);
+        properties.getScheduler().setMinConcurrency(1);
+        properties.getScheduler().setMaxConcurrency(1);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        scheduler = new EmbeddingScheduler(embeddingModel, properties, executor, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("應依 token 數切分批次 - 而非固定筆數")
+    void shouldPartitionByTokens() {
+        // Given - 每段 20 個 ASCII 字元，約 5 tokens
+        String text = "a".repeat(20);
+        List<String> texts = List.of(text, text, text, text, text);
+
+        // When
+        List<EmbeddingScheduler.BatchRange> ranges = scheduler.partition(texts);
+
+        // Then
+        assertThat(ranges).containsExactly(
+                new EmbeddingScheduler.BatchRange(0, 2),
+                new EmbeddingScheduler.BatchRange(2, 4),
+                new EmbeddingScheduler.BatchRange(4, 5));
+    }
+
+    @Test
+    @DisplayName("應重試後成功 - 當遭到 429 限流時")
+    void shouldRetry_whenThrottled() {
+        // Given
+        List<float[]> embeddings = List.of(new float[]{0.1f}, new float[]{0.2f});
+        when(embeddingModel.embed(anyList()))
+                .thenThrow(new RuntimeException("embed failed",
+                        new ApiException(429, "RESOURCE_EXHAUSTED", "Quota exceeded")))
+                .thenReturn(embeddings);
+
+        // When
+        List<float[]> result = scheduler.embedAll(List.of("first", "second"));
+
+        // Then
+        assertThat(result).containsExactlyElementsOf(embeddings);
+        verify(embeddingModel, times(2)).embed(anyList());
+    }
+
+    @Test
+    @DisplayName("應直接拋出例外 - 當錯誤不可重試時")
+    void shouldFailFast_whenErrorNotRetryable() {
+        // Given
+        when(embeddingModel.embed(anyList()))
+                .thenThrow(new IllegalArgumentException("invalid argument"));
+
+        // When & Then
+        assertThatThrownBy(() -> scheduler.embedAll(List.of("text")))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(embeddingModel, times(1)).embed(anyList());
+    }
+
+    @Test
+    @DisplayName("應不重試 - 當錯誤訊息含有狀態碼字樣但例外不帶 HTTP 狀態時")
+    void shouldNotRetry_whenOnlyMessageLooksLikeStatus() {
+        // Given
+        when(embeddingModel.embed(anyList()))
+                .thenThrow(new IllegalStateException("Input of 500 tokens exceeds INTERNAL limit"));
+
+        // When & Then
+        assertThatThrownBy(() -> scheduler.embedAll(List.of("text")))
+                .isInstanceOf(IllegalStateException.class);
+        verify(embeddingModel, times(1)).embed(anyList());
+    }
+
+    @Test
+    @DisplayName("應依 HTTP 狀態碼分類 - 5xx 可重試、4xx 不可重試")
+    void shouldClassifyByStatus() {
+        // When & Then
+        assertThat(EmbeddingScheduler.classify(new ApiException(503, "UNAVAILABLE", "busy")).retryable()).isTrue();
+        assertThat(EmbeddingScheduler.classify(new ApiException(400, "INVALID_ARGUMENT", "500 chars")).retryable())
+                .isFalse();
+    }
+
+    @Test
+    @DisplayName("應釋放並行名額 - 當請求拋出 Error 時")
+    void shouldReleasePermit_whenRequestThrowsError() {
+        // Given - 並行上限為 1，名額遺失時第二次呼叫會永遠等待
+        when(embeddingModel.embed(anyString()))
+                .thenThrow(new AssertionError("boom"))
+                .thenReturn(new float[]{0.5f});
+
+        // When & Then
+        assertThatThrownBy(() -> scheduler.embed("first")).isInstanceOf(AssertionError.class);
+        float[] result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> scheduler.embed("second"));
+        assertThat(result).containsExactly(0.5f);
+    }
+
+    @Test
+    @DisplayName("應解析重試等待時間 - Retry-After 標頭與 Gemini RetryInfo")
+    void shouldParseRetryAfter() {
+        // When & Then
+        assertThat(EmbeddingScheduler.parseRetryAfter("3")).isEqualTo(Duration.ofSeconds(3));
+        assertThat(EmbeddingScheduler.classify(new ApiException(429, "RESOURCE_EXHAUSTED",
+                "Too Many Requests: \"retryDelay\": \"2s\"")).retryAfter())
+                .isEqualTo(Duration.ofSeconds(2));
+    }
+}
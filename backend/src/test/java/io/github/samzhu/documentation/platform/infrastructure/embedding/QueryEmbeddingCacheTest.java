@@ -0,0 +1,181 @@
+package io.github.samzhu.documentation.platform.infrastructure.embedding;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * QueryEmbeddingCache 單元測試
+ * <p>
+ * 測試查詢正規化、快取命中、並行未命中合併、失敗不快取與等待逾時。
+ * </p>
+ */
+@DisplayName("QueryEmbeddingCache 單元測試")
+class QueryEmbeddingCacheTest {
+
+    private static QueryEmbeddingCache newCache(Function<String, float[]> embedder) {
+        return newCache(embedder, Duration.ofSeconds(30));
+    }
+
+    private static QueryEmbeddingCache newCache(Function<String, float[]> embedder, Duration waitTimeout) {
+        return new QueryEmbeddingCache(embedder, "test-model/3", true, 100, Duration.ofMinutes(5),
+                waitTimeout, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("應命中快取 - 當查詢僅空白不同時")
+    void shouldHit_whenQueryDiffersOnlyInWhitespace() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        List<String> embeddedTexts = new ArrayList<>();
+        QueryEmbeddingCache cache = newCache(text -> {
+            calls.incrementAndGet();
+            embeddedTexts.add(text);
+            return new float[]{0.1f, 0.2f, 0.3f};
+        });
+
+        // When
+        float[] first = cache.embed("  spring   boot\tconfig ");
+        float[] second = cache.embed("spring boot config");
+
+        // Then
+        assertThat(calls).hasValue(1);
+        assertThat(embeddedTexts).containsExactly("spring boot config");
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("應只嵌入一次 - 當相同查詢同時未命中")
+    void shouldCoalesceConcurrentMisses() throws Exception {
+        // Given - 嵌入函式阻塞直到所有呼叫端都已送出
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        QueryEmbeddingCache cache = newCache(text -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new float[]{1f};
+        });
+
+        // When
+        List<Future<float[]>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> cache.embed("same query")));
+            }
+            Thread.sleep(100);
+            release.countDown();
+        }
+
+        // Then
+        assertThat(calls).hasValue(1);
+        for (Future<float[]> future : futures) {
+            assertThat(future.get()).containsExactly(1f);
+        }
+    }
+
+    @Test
+    @DisplayName("應重新嵌入 - 當前一次嵌入失敗時")
+    void shouldNotCacheFailures() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        QueryEmbeddingCache cache = newCache(text -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("503 UNAVAILABLE");
+            }
+            return new float[]{2f};
+        });
+
+        // When & Then
+        assertThatThrownBy(() -> cache.embed("query"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(cache.embed("query")).containsExactly(2f);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("應通知等待者並移除項目 - 當嵌入函式拋出 Error 時")
+    void shouldReleaseWaiters_whenEmbedderThrowsError() throws Exception {
+        // Given - 第一次呼叫阻塞直到等待者加入後拋出 Error
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        QueryEmbeddingCache cache = newCache(text -> {
+            if (calls.incrementAndGet() == 1) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new StackOverflowError("boom");
+            }
+            return new float[]{3f};
+        });
+
+        // When
+        Future<float[]> leader;
+        Future<float[]> waiter;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            leader = executor.submit(() -> cache.embed("query"));
+            started.await();
+            waiter = executor.submit(() -> cache.embed("query"));
+            Thread.sleep(100);
+            release.countDown();
+        }
+
+        // Then - 兩者皆失敗而非永久阻塞，下一次呼叫重新嵌入
+        assertThatThrownBy(leader::get).hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(waiter::get).hasRootCauseInstanceOf(StackOverflowError.class);
+        assertThat(cache.embed("query")).containsExactly(3f);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("應拋出 IllegalStateException - 當等待進行中的嵌入超過逾時")
+    void shouldTimeOut_whenWaitingTooLong() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        QueryEmbeddingCache cache = newCache(text -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new float[]{4f};
+        }, Duration.ofMillis(50));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<float[]> leader = executor.submit(() -> cache.embed("query"));
+            started.await();
+
+            // When / Then
+            assertThatThrownBy(() -> cache.embed("query"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Timed out");
+
+            // Then - 進行中的請求不受影響，完成後仍寫入快取
+            release.countDown();
+            assertThat(leader.get()).containsExactly(4f);
+        }
+        assertThat(cache.embed("query")).containsExactly(4f);
+    }
+}
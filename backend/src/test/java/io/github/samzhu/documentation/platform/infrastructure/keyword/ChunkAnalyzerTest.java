@@ -0,0 +1,67 @@
+package io.github.samzhu.documentation.platform.infrastructure.keyword;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ChunkAnalyzer 單元測試
+ * <p>
+ * 驗證英文取詞幹 / 停用詞與 CJK 二元詞切分。
+ * </p>
+ */
+@DisplayName("ChunkAnalyzer 單元測試")
+class ChunkAnalyzerTest {
+
+    private static List<String> tokens(String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (Analyzer analyzer = new ChunkAnalyzer();
+             TokenStream stream = analyzer.tokenStream("content", text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+
+    @Test
+    @DisplayName("應移除停用詞並取詞幹 - 當文字為英文時")
+    void shouldStemAndRemoveStopWords_whenEnglish() throws IOException {
+        // When
+        List<String> tokens = tokens("The Configuring of Beans");
+
+        // Then
+        assertThat(tokens).containsExactly("configur", "bean");
+    }
+
+    @Test
+    @DisplayName("應切分為二元詞 - 當文字為中文時")
+    void shouldProduceBigrams_whenChinese() throws IOException {
+        // When
+        List<String> tokens = tokens("向量搜尋");
+
+        // Then
+        assertThat(tokens).containsExactly("向量", "量搜", "搜尋");
+    }
+
+    @Test
+    @DisplayName("應分別處理 - 當中英文混合時")
+    void shouldHandleMixedText() throws IOException {
+        // When
+        List<String> tokens = tokens("Spring 設定檔");
+
+        // Then
+        assertThat(tokens).containsExactly("spring", "設定", "定檔");
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.samzhu.documentation.platform.infrastructure.parser;
+
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * AsciidoctorPool 單元測試
+ * <p>
+ * 測試執行個體延遲建立與重用、例外傳遞與借用逾時。
+ * 建立 Asciidoctor 需數秒，整個測試類別共用一個大小為 1 的池。
+ * </p>
+ */
+@DisplayName("AsciidoctorPool 單元測試")
+class AsciidoctorPoolTest {
+
+    private static final long BORROW_TIMEOUT_MS = 120_000;
+
+    private static AsciiDocProperties properties;
+    private static AsciidoctorPool pool;
+
+    @BeforeAll
+    static void setUp() {
+        properties = new AsciiDocProperties();
+        properties.setPoolSize(1);
+        properties.setWarmUp(false);
+        properties.setBorrowTimeoutMs(BORROW_TIMEOUT_MS);
+        pool = new AsciidoctorPool(properties);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdown();
+    }
+
+    @AfterEach
+    void resetTimeout() {
+        properties.setBorrowTimeoutMs(BORROW_TIMEOUT_MS);
+    }
+
+    @Test
+    @DisplayName("應重用同一個執行個體 - 當同一個工作執行緒多次借用時")
+    void shouldReuseInstance_whenBorrowedTwice() {
+        // When
+        Asciidoctor first = pool.execute(asciidoctor -> asciidoctor);
+        Asciidoctor second = pool.execute(asciidoctor -> asciidoctor);
+
+        // Then
+        assertThat(first).isNotNull().isSameAs(second);
+    }
+
+    @Test
+    @DisplayName("應回傳解析結果 - 當工作使用執行個體解析文件時")
+    void shouldReturnTaskResult() {
+        // When
+        String title = pool.execute(asciidoctor -> asciidoctor
+                .load("= Getting Started\n\nHello.", Options.builder().build())
+                .getDoctitle());
+
+        // Then
+        assertThat(title).isEqualTo("Getting Started");
+    }
+
+    @Test
+    @DisplayName("應原樣拋出 RuntimeException - 當工作失敗時")
+    void shouldRethrowRuntimeException_whenTaskFails() {
+        // When / Then
+        assertThatThrownBy(() -> pool.execute(asciidoctor -> {
+            throw new IllegalArgumentException("boom");
+        }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("boom");
+    }
+
+    @Test
+    @DisplayName("應拋出 IllegalStateException - 當工作超過借用逾時")
+    void shouldThrow_whenBorrowTimesOut() {
+        // Given
+        pool.execute(asciidoctor -> asciidoctor);
+        properties.setBorrowTimeoutMs(50);
+
+        // When / Then
+        assertThatThrownBy(() -> pool.execute(asciidoctor -> {
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Timed out");
+
+        // Then：逾時的工作已被中斷，池仍可使用
+        properties.setBorrowTimeoutMs(BORROW_TIMEOUT_MS);
+        assertThat(pool.execute(asciidoctor -> "ok")).isEqualTo("ok");
+    }
+}
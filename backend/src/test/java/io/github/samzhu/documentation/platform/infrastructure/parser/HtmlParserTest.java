@@ -0,0 +1,124 @@
+package io.github.samzhu.documentation.platform.infrastructure.parser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HtmlParser 單元測試
+ * <p>
+ * 測試單次走訪解析：標題擷取、程式碼區塊擷取與 Markdown 輸出。
+ * </p>
+ */
+@DisplayName("HtmlParser 單元測試")
+class HtmlParserTest {
+
+    private HtmlParser htmlParser;
+
+    @BeforeEach
+    void setUp() {
+        htmlParser = new HtmlParser();
+    }
+
+    @Test
+    @DisplayName("應輸出主要內容區塊的 Markdown - 並略過導覽列與腳本")
+    void shouldConvertContentRootToMarkdown_whenMainElementPresent() {
+        // Given
+        String html = """
+                <html><head><title>Guide</title><script>var x = 1;</script></head>
+                <body><nav>Menu</nav><main><h1>Intro</h1><p>Use <code>foo()</code> now.</p>
+                <pre><code class="language-java">int a = 1;
+                int b = 2;</code></pre></main><footer>Footer</footer></body></html>
+                """;
+
+        // When
+        ParsedDocument parsed = htmlParser.parse(html, "docs/guide.html");
+
+        // Then
+        assertThat(parsed.title()).isEqualTo("Guide");
+        assertThat(parsed.content())
+                .startsWith("# Intro")
+                .contains("Use `foo()` now.")
+                .contains("```java\nint a = 1;\nint b = 2;\n```")
+                .doesNotContain("Menu")
+                .doesNotContain("Footer")
+                .doesNotContain("var x");
+    }
+
+    @Test
+    @DisplayName("應使用第一個 h1 作為標題 - 當缺少 title 標籤時")
+    void shouldUseFirstHeadingAsTitle_whenTitleMissing() {
+        // Given
+        String html = "<body><h1>API</h1><ul><li>one</li><li>two</li></ul></body>";
+
+        // When
+        ParsedDocument parsed = htmlParser.parse(html, "docs/api.html");
+
+        // Then
+        assertThat(parsed.title()).isEqualTo("API");
+        assertThat(parsed.content()).isEqualTo("# API\n\n- one\n- two");
+    }
+
+    @Test
+    @DisplayName("應擷取程式碼區塊 - 保留換行並以前一段落作為描述")
+    void shouldExtractCodeBlocks_withDescriptionAndLanguage() {
+        // Given
+        String html = "<body><p>Example config</p><pre><code class=\"language-yaml\">a: 1\nb: 2</code></pre></body>";
+
+        // When
+        ParsedDocument parsed = htmlParser.parse(html, "docs/config.html");
+
+        // Then
+        assertThat(parsed.codeBlocks()).hasSize(1);
+        ParsedDocument.CodeBlock block = parsed.codeBlocks().get(0);
+        assertThat(block.language()).isEqualTo("yaml");
+        assertThat(block.code()).isEqualTo("a: 1\nb: 2");
+        assertThat(block.description()).isEqualTo("Example config");
+    }
+
+    @Test
+    @DisplayName("應保留文章標頭 - 當 h1 位於 article 內的 header 且缺少 title 標籤")
+    void shouldKeepArticleHeader_whenHeadlineInsideArticleHeader() {
+        // Given - 頁面框架的 header 仍略過
+        String html = """
+                <body><header><a href="/">Site</a></header>
+                <article><header><h1>Release Notes</h1><p>March 2025</p></header>
+                <p>Body text.</p></article></body>
+                """;
+
+        // When
+        ParsedDocument parsed = htmlParser.parse(html, "docs/release-notes.html");
+
+        // Then
+        assertThat(parsed.title()).isEqualTo("Release Notes");
+        assertThat(parsed.content())
+                .startsWith("# Release Notes")
+                .contains("March 2025")
+                .contains("Body text.")
+                .doesNotContain("Site");
+    }
+
+    @Test
+    @DisplayName("應擷取頁面框架內的標題與程式碼區塊 - 但不輸出其 Markdown")
+    void shouldCollectTitleAndCodeBlocksInsideChrome() {
+        // Given
+        String html = """
+                <body><header><h1>Getting Started</h1></header>
+                <main><p>Intro</p></main>
+                <footer><p>Install</p><pre><code class="language-bash">npm install demo</code></pre></footer></body>
+                """;
+
+        // When
+        ParsedDocument parsed = htmlParser.parse(html, "docs/start.html");
+
+        // Then
+        assertThat(parsed.title()).isEqualTo("Getting Started");
+        assertThat(parsed.content()).isEqualTo("Intro");
+        assertThat(parsed.codeBlocks()).hasSize(1);
+        assertThat(parsed.codeBlocks().get(0).language()).isEqualTo("bash");
+        assertThat(parsed.codeBlocks().get(0).code()).isEqualTo("npm install demo");
+        assertThat(parsed.codeBlocks().get(0).description()).isEqualTo("Install");
+    }
+}
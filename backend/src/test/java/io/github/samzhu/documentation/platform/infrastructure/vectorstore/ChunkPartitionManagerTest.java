@@ -0,0 +1,184 @@
+package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ChunkPartitionManager 單元測試
+ * <p>
+ * 測試分區名稱驗證、分區建立快取與交易回滾時不記錄分區、DETACH + DROP 移除分區。
+ * </p>
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChunkPartitionManager 單元測試")
+class ChunkPartitionManagerTest {
+
+    private static final String VERSION_ID = "0HZXEQ5Y8JY5Z";
+    private static final String PARTITION = "document_chunks_v_0hzxeq5y8jy5z";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ChunkPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new ChunkPartitionManager(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("分區名稱應為小寫 - 並拒絕非英數字的版本 ID")
+    void shouldBuildPartitionName() {
+        // When / Then
+        assertThat(ChunkPartitionManager.partitionName(VERSION_ID)).isEqualTo(PARTITION);
+        assertThatThrownBy(() -> ChunkPartitionManager.partitionName("v1'); DROP TABLE x; --"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ChunkPartitionManager.partitionName(null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("未分區時不應執行 DDL")
+    void shouldDoNothing_whenNotPartitioned() {
+        // Given
+        givenRelkind("r");
+
+        // When
+        manager.ensureVersionPartition(VERSION_ID);
+        manager.dropVersionPartition(VERSION_ID);
+
+        // Then
+        assertThat(manager.isPartitioned()).isFalse();
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    @DisplayName("應只建立一次分區 - 當交易外重複確保同一版本時")
+    void shouldCreatePartitionOnce_outsideTransaction() {
+        // Given
+        givenRelkind("p");
+
+        // When
+        manager.ensureVersionPartition(VERSION_ID);
+        manager.ensureVersionPartition(VERSION_ID);
+
+        // Then
+        verify(jdbcTemplate, times(1)).execute("CREATE TABLE IF NOT EXISTS " + PARTITION
+                + " PARTITION OF document_chunks FOR VALUES IN ('" + VERSION_ID + "')");
+    }
+
+    @Test
+    @DisplayName("應於提交後才記錄分區 - 當交易內建立分區時")
+    void shouldRegisterPartitionAfterCommit() {
+        // Given
+        givenRelkind("p");
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When - 提交前再次確保仍會執行建立
+        manager.ensureVersionPartition(VERSION_ID);
+        manager.ensureVersionPartition(VERSION_ID);
+        complete(true);
+        manager.ensureVersionPartition(VERSION_ID);
+
+        // Then
+        verify(jdbcTemplate, times(2)).execute(contains("CREATE TABLE IF NOT EXISTS " + PARTITION));
+    }
+
+    @Test
+    @DisplayName("不應記錄分區 - 當建立分區的交易回滾時")
+    void shouldNotRegisterPartition_whenTransactionRollsBack() {
+        // Given
+        givenRelkind("p");
+        TransactionSynchronizationManager.initSynchronization();
+        manager.ensureVersionPartition(VERSION_ID);
+
+        // When - 回滾後分區已不存在，下次寫入前應重新建立
+        complete(false);
+        manager.ensureVersionPartition(VERSION_ID);
+
+        // Then
+        verify(jdbcTemplate, times(2)).execute(contains("CREATE TABLE IF NOT EXISTS " + PARTITION));
+    }
+
+    @Test
+    @DisplayName("應先 DETACH 再 DROP - 當移除存在的版本分區時")
+    void shouldDetachAndDropPartition() {
+        // Given
+        givenRelkind("p");
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq("document_chunks")))
+                .thenReturn(List.of("document_chunks_default", PARTITION));
+
+        // When
+        manager.dropVersionPartition(VERSION_ID);
+
+        // Then
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("ALTER TABLE document_chunks DETACH PARTITION " + PARTITION);
+        order.verify(jdbcTemplate).execute("DROP TABLE " + PARTITION);
+    }
+
+    @Test
+    @DisplayName("不應執行 DDL - 當版本分區不存在時")
+    void shouldSkipDrop_whenPartitionMissing() {
+        // Given
+        givenRelkind("p");
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq("document_chunks")))
+                .thenReturn(List.of("document_chunks_default"));
+
+        // When
+        manager.dropVersionPartition(VERSION_ID);
+
+        // Then
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    private void givenRelkind(String relkind) {
+        when(jdbcTemplate.queryForList(contains("relkind"), eq(String.class), eq("document_chunks")))
+                .thenReturn(List.of(relkind));
+    }
+
+    /**
+     * 模擬交易完成：提交時呼叫 afterCommit，並結束同步
+     */
+    private static void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (committed) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(committed
+                    ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DocumentChunkFilterExpressionConverter 單元測試
+ * <p>
+ * 驗證欄位鍵轉為欄位條件、其餘鍵轉為 JSONPath 條件，以及參數化輸出。
+ * </p>
+ */
+@DisplayName("DocumentChunkFilterExpressionConverter 單元測試")
+class DocumentChunkFilterExpressionConverterTest {
+
+    private final DocumentChunkFilterExpressionConverter converter = new DocumentChunkFilterExpressionConverter();
+    private final FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+    @Test
+    @DisplayName("versionId 應轉為 version_id 欄位條件")
+    void shouldConvertVersionIdToColumnPredicate() {
+        // When
+        String sql = converter.convertExpression(b.eq("versionId", "0ABCDEFGHJKMN").build());
+
+        // Then
+        assertThat(sql).isEqualTo("dc.version_id = '0ABCDEFGHJKMN'");
+    }
+
+    @Test
+    @DisplayName("libraryId IN 應轉為欄位 IN 條件")
+    void shouldConvertLibraryIdInToColumnPredicate() {
+        // When
+        String sql = converter.convertExpression(b.in("libraryId", "A", "B").build());
+
+        // Then
+        assertThat(sql).isEqualTo("dc.library_id IN ('A', 'B')");
+    }
+
+    @Test
+    @DisplayName("非欄位鍵應轉為 JSONPath 條件並轉義單引號")
+    void shouldConvertOtherKeysToJsonPath() {
+        // When
+        String sql = converter.convertExpression(b.eq("section", "it's").build());
+
+        // Then
+        assertThat(sql).isEqualTo("dc.metadata::jsonb @@ '$.section == \"it''s\"'::jsonpath");
+    }
+
+    @Test
+    @DisplayName("AND 組合應保留兩側條件")
+    void shouldCombineColumnAndJsonPathWithAnd() {
+        // When
+        String sql = converter.convertExpression(
+                b.and(b.eq("versionId", "V1"), b.gte("chunkIndex", 2)).build());
+
+        // Then
+        assertThat(sql).isEqualTo("(dc.version_id = 'V1' AND dc.chunk_index >= 2)");
+    }
+
+    @Test
+    @DisplayName("參數化轉換時不同版本 ID 應產生相同 SQL")
+    void shouldProduceStableSqlForDifferentVersionIds() {
+        // When
+        var first = converter.convertToSqlFilter(b.eq("versionId", "V1").build());
+        var second = converter.convertToSqlFilter(b.eq("versionId", "V2").build());
+
+        // Then
+        assertThat(first.sql()).isEqualTo("dc.version_id = ?").isEqualTo(second.sql());
+        assertThat(first.params()).containsExactly("V1");
+        assertThat(second.params()).containsExactly("V2");
+    }
+
+    @Test
+    @DisplayName("參數化轉換時 IN 應轉為陣列參數，JSONPath 應為綁定參數")
+    void shouldBindInListAsArrayAndJsonPathAsParameter() {
+        // When
+        var filter = converter.convertToSqlFilter(
+                b.and(b.in("libraryId", "A", "B"), b.eq("section", "it's")).build());
+
+        // Then
+        assertThat(filter.sql()).isEqualTo("(dc.library_id = ANY(?) AND dc.metadata::jsonb @@ ?::jsonpath)");
+        assertThat(filter.params()).hasSize(2);
+        assertThat((String[]) filter.params().get(0)).containsExactly("A", "B");
+        assertThat(filter.params().get(1)).isEqualTo("$.section == \"it's\"");
+    }
+}
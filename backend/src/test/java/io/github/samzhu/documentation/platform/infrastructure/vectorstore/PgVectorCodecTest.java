@@ -0,0 +1,66 @@
+package io.github.samzhu.documentation.platform.infrastructure.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * PgVectorCodec 單元測試
+ * <p>
+ * 驗證 pgvector 二進位格式（vector_send）的編解碼。
+ * </p>
+ */
+@DisplayName("PgVectorCodec 單元測試")
+class PgVectorCodecTest {
+
+    @Test
+    @DisplayName("應解碼 vector_send 格式為 float[]")
+    void shouldDecodeVectorSendFormat() {
+        // Given - int16 維度、int16 保留、float4 big-endian
+        byte[] bytes = ByteBuffer.allocate(4 + 3 * Float.BYTES)
+                .putShort((short) 3)
+                .putShort((short) 0)
+                .putFloat(0.5f)
+                .putFloat(-1.25f)
+                .putFloat(3.0f)
+                .array();
+
+        // When
+        float[] vector = PgVectorCodec.decode(bytes);
+
+        // Then
+        assertThat(vector).containsExactly(0.5f, -1.25f, 3.0f);
+    }
+
+    @Test
+    @DisplayName("編碼後解碼應還原原始向量")
+    void shouldRoundTrip() {
+        // Given
+        float[] original = {0.1f, 0.2f, Float.MIN_VALUE, -0.0f};
+
+        // When
+        float[] decoded = PgVectorCodec.decode(PgVectorCodec.encode(original));
+
+        // Then
+        assertThat(decoded).containsExactly(original);
+    }
+
+    @Test
+    @DisplayName("長度與維度不符時應拋出例外")
+    void shouldRejectTruncatedInput() {
+        // Given - 宣告 2 維但只有 1 個 float
+        byte[] bytes = ByteBuffer.allocate(4 + Float.BYTES)
+                .putShort((short) 2)
+                .putShort((short) 0)
+                .putFloat(1.0f)
+                .array();
+
+        // When / Then
+        assertThatThrownBy(() -> PgVectorCodec.decode(bytes))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,232 @@
+package io.github.samzhu.documentation.platform.repository;
+
+import io.github.samzhu.documentation.platform.TestcontainersConfiguration;
+import io.github.samzhu.documentation.platform.domain.enums.SourceType;
+import io.github.samzhu.documentation.platform.domain.model.Document;
+import io.github.samzhu.documentation.platform.domain.model.Library;
+import io.github.samzhu.documentation.platform.domain.model.LibraryVersion;
+import io.github.samzhu.documentation.platform.infrastructure.vectorstore.DocumentChunkVectorStore;
+import io.github.samzhu.documentation.platform.service.IdService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ChunkSearchRepository 整合測試
+ * <p>
+ * 使用 Testcontainers 啟動真實 PostgreSQL 資料庫進行測試。
+ * 區塊經由 DocumentChunkVectorStore 寫入（延遲嵌入模式，不呼叫嵌入模型），
+ * 驗證 search_vector（文件標題權重 A 與區塊文字）、ts_headline 摘要與 offsets 模式的文字還原。
+ * </p>
+ */
+@Tag("integration")
+@SpringBootTest(properties = "platform.embedding.deferred=true")
+@Import(TestcontainersConfiguration.class)
+@Transactional
+class ChunkSearchRepositoryIntegrationTest {
+
+    @MockitoBean
+    EmbeddingModel embeddingModel;
+
+    @Autowired
+    ChunkSearchRepository chunkSearchRepository;
+
+    @Autowired
+    DocumentChunkVectorStore vectorStore;
+
+    @Autowired
+    DocumentChunkRepository documentChunkRepository;
+
+    @Autowired
+    DocumentRepository documentRepository;
+
+    @Autowired
+    LibraryVersionRepository libraryVersionRepository;
+
+    @Autowired
+    LibraryRepository libraryRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    IdService idService;
+
+    private LibraryVersion testVersion;
+
+    @BeforeEach
+    void setUp() {
+        // 清除所有測試資料
+        documentChunkRepository.deleteAll();
+        documentRepository.deleteAll();
+        libraryVersionRepository.deleteAll();
+        libraryRepository.deleteAll();
+
+        // 建立測試用 Library 和 Version
+        Library library = Library.create(
+                idService.generateId(),
+                "spring-boot",
+                "Spring Boot",
+                "Spring Boot 框架",
+                SourceType.GITHUB,
+                "https://github.com/spring-projects/spring-boot",
+                "backend",
+                List.of()
+        );
+        library = libraryRepository.save(library);
+
+        testVersion = LibraryVersion.create(
+                idService.generateId(),
+                library.getId(),
+                "3.2.0",
+                true
+        );
+        testVersion = libraryVersionRepository.save(testVersion);
+    }
+
+    /**
+     * 建立文件（內容即為其唯一區塊的文字）
+     */
+    private Document saveDocument(String title, String path, String content) {
+        return documentRepository.save(Document.create(
+                idService.generateId(),
+                testVersion.getId(),
+                title,
+                path,
+                content,
+                "hash-" + path,
+                "markdown"
+        ));
+    }
+
+    /**
+     * 經由 VectorStore 寫入區塊（與正式寫入路徑相同的 search_vector 運算式）
+     *
+     * @param startOffset 區塊在文件內容中的起始位置；null 表示不記錄位置（保存文字副本）
+     * @return 區塊 ID
+     */
+    private String addChunk(Document document, int chunkIndex, String text, Integer startOffset) {
+        String chunkId = idService.generateId();
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(DocumentChunkVectorStore.METADATA_VERSION_ID, testVersion.getId());
+        metadata.put(DocumentChunkVectorStore.METADATA_DOCUMENT_ID, document.getId());
+        metadata.put(DocumentChunkVectorStore.METADATA_CHUNK_INDEX, chunkIndex);
+        if (startOffset != null) {
+            metadata.put(DocumentChunkVectorStore.METADATA_START_OFFSET, startOffset);
+            metadata.put(DocumentChunkVectorStore.METADATA_END_OFFSET, startOffset + text.length());
+        }
+        vectorStore.add(List.of(new org.springframework.ai.document.Document(chunkId, text, metadata)));
+        return chunkId;
+    }
+
+    private String addWholeDocumentChunk(String title, String path, String content) {
+        return addChunk(saveDocument(title, path, content), 0, content, null);
+    }
+
+    @Test
+    @DisplayName("應找到命中的區塊 - 並回傳標題、路徑與標示命中詞的摘要")
+    void shouldFindMatchingChunk() {
+        // Given
+        String chunkId = addWholeDocumentChunk("Configuration", "/docs/configuration.md",
+                "Set the datasource url and credentials in application properties.");
+        addWholeDocumentChunk("Testing", "/docs/testing.md",
+                "Use slice tests to verify web controllers in isolation.");
+
+        // When
+        List<ChunkSearchHit> hits = chunkSearchRepository.fullTextSearch(testVersion.getId(), "datasource", 10);
+
+        // Then
+        assertThat(hits).hasSize(1);
+        ChunkSearchHit hit = hits.get(0);
+        assertThat(hit.chunkId()).isEqualTo(chunkId);
+        assertThat(hit.title()).isEqualTo("Configuration");
+        assertThat(hit.path()).isEqualTo("/docs/configuration.md");
+        assertThat(hit.content()).contains("**datasource**");
+        assertThat(hit.score()).isPositive();
+    }
+
+    @Test
+    @DisplayName("標題命中的區塊應排名較高 - 當區塊文字命中次數相同")
+    void shouldRankTitleMatchesHigher() {
+        // Given - 兩個區塊各提到一次 actuator，只有第一份文件的標題包含 actuator
+        String titled = addWholeDocumentChunk("Actuator Endpoints", "/docs/actuator.md",
+                "Expose the actuator health endpoint over HTTP.");
+        String untitled = addWholeDocumentChunk("Logging", "/docs/logging.md",
+                "Change log levels through the actuator at runtime.");
+
+        // When
+        List<ChunkSearchHit> hits = chunkSearchRepository.fullTextSearch(testVersion.getId(), "actuator", 10);
+
+        // Then
+        assertThat(hits).extracting(ChunkSearchHit::chunkId).containsExactly(titled, untitled);
+        assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+    }
+
+    @Test
+    @DisplayName("應遵守結果數量上限")
+    void shouldRespectLimit() {
+        // Given
+        addWholeDocumentChunk("Beans", "/docs/beans.md", "Declare a bean with the bean annotation.");
+        addWholeDocumentChunk("Scopes", "/docs/scopes.md", "Each bean has a scope.");
+        addWholeDocumentChunk("Profiles", "/docs/profiles.md", "A bean can be limited to a profile.");
+
+        // When
+        List<ChunkSearchHit> hits = chunkSearchRepository.fullTextSearch(testVersion.getId(), "bean", 2);
+
+        // Then
+        assertThat(hits).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("應回傳空列表 - 當沒有區塊命中或版本不同")
+    void shouldReturnEmptyList_whenNothingMatches() {
+        // Given
+        addWholeDocumentChunk("Configuration", "/docs/configuration.md",
+                "Set the datasource url and credentials in application properties.");
+
+        // When / Then
+        assertThat(chunkSearchRepository.fullTextSearch(testVersion.getId(), "kubernetes", 10)).isEmpty();
+        assertThat(chunkSearchRepository.fullTextSearch(idService.generateId(), "datasource", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("應由文件內容還原 offsets 模式區塊的文字 - 摘要只含該區塊範圍")
+    void shouldBuildSnippetFromOffsetsModeChunk() {
+        // Given - 區塊只記錄在文件內容中的位置
+        String intro = "Introduction to caching in the framework. ";
+        String section = "The eviction policy removes the least recently used entries first.";
+        String outro = " Eviction is unrelated to the closing remarks.";
+        Document document = saveDocument("Caching", "/docs/caching.md", intro + section + outro);
+        String chunkId = addChunk(document, 1, section, intro.length());
+
+        // When
+        List<ChunkSearchHit> hits = chunkSearchRepository.fullTextSearch(testVersion.getId(), "policy", 10);
+
+        // Then
+        String storedContent = jdbcTemplate.queryForObject(
+                "SELECT content FROM document_chunks WHERE id = ?", String.class, chunkId);
+        assertThat(storedContent).isNull();
+        assertThat(hits).hasSize(1);
+        assertThat(hits.get(0).chunkId()).isEqualTo(chunkId);
+        assertThat(hits.get(0).chunkIndex()).isEqualTo(1);
+        assertThat(hits.get(0).content())
+                .contains("**policy**")
+                .contains("least recently used")
+                .doesNotContain("Introduction")
+                .doesNotContain("closing remarks");
+    }
+}
@@ -195,6 +195,8 @@ class DocumentChunkRepositoryIntegrationTest {
         assertThat(first).isNotNull();
         assertThat(first.getChunkIndex()).isEqualTo(0);
         assertThat(first.getContent()).isEqualTo("First chunk");
+        // 向量以 vector_send 二進位格式讀回
+        assertThat(first.getEmbedding()).containsExactly(createTestEmbedding(768, 0.1f));
     }
 
     @Test
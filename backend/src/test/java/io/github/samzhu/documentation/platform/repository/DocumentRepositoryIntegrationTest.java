@@ -220,90 +220,6 @@ class DocumentRepositoryIntegrationTest {
         assertThat(found).isEmpty();
     }
 
-    @Test
-    @DisplayName("全文搜尋應能執行")
-    void shouldExecuteFullTextSearch() {
-        // Given - 建立測試文件
-        Document doc1 = Document.create(
-                idService.generateId(),
-                testVersion.getId(),
-                "Spring Boot Introduction",
-                "/docs/intro.md",
-                "Spring Boot makes it easy to create stand-alone applications",
-                "hash1",
-                "markdown"
-        );
-
-        documentRepository.save(doc1);
-
-        // When - 執行全文搜尋
-        // 注意：全文搜尋依賴 PostgreSQL search_vector trigger，
-        // 在某些測試環境中可能需要額外配置
-        List<Document> results = documentRepository.fullTextSearch(
-                testVersion.getId(),
-                "spring",
-                10
-        );
-
-        // Then - 搜尋應能執行（即使結果為空也表示查詢語法正確）
-        assertThat(results).isNotNull();
-    }
-
-    @Test
-    @DisplayName("全文搜尋應遵守 limit 限制")
-    void shouldRespectLimitInFullTextSearch() {
-        // Given - 建立多個文件
-        for (int i = 0; i < 10; i++) {
-            Document doc = Document.create(
-                    idService.generateId(),
-                    testVersion.getId(),
-                    "Document " + i,
-                    "/docs/doc-" + i + ".md",
-                    "Spring Boot application content number " + i,
-                    "hash" + i,
-                    "markdown"
-            );
-            documentRepository.save(doc);
-        }
-
-        // When - 搜尋並限制結果數量
-        List<Document> results = documentRepository.fullTextSearch(
-                testVersion.getId(),
-                "spring",
-                3
-        );
-
-        // Then - limit 應被遵守（結果數量 <= limit）
-        // 注意：全文搜尋依賴 PostgreSQL search_vector trigger
-        assertThat(results.size()).isLessThanOrEqualTo(3);
-    }
-
-    @Test
-    @DisplayName("全文搜尋無結果時應回傳空列表")
-    void shouldReturnEmptyListWhenNoSearchResults() {
-        // Given - 建立文件
-        Document document = Document.create(
-                idService.generateId(),
-                testVersion.getId(),
-                "Getting Started",
-                "/docs/getting-started.md",
-                "Getting started content",
-                "hash1",
-                "markdown"
-        );
-        documentRepository.save(document);
-
-        // When - 搜尋不存在的關鍵字
-        List<Document> results = documentRepository.fullTextSearch(
-                testVersion.getId(),
-                "nonexistentword",
-                10
-        );
-
-        // Then - 應為空列表
-        assertThat(results).isEmpty();
-    }
-
     @Test
     @DisplayName("應能統計指定 Library 的文件數量")
     void shouldCountByLibraryId() {
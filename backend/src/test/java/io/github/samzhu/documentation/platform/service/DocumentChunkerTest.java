@@ -270,4 +270,23 @@ class DocumentChunkerTest {
         assertThat(chunks).hasSize(1);
         assertThat(chunks.get(0).content()).hasSize(1000);
     }
+
+    @Test
+    @DisplayName("區塊位置應能從原文還原區塊內容 - 含代理對字元時以 code point 計算")
+    void shouldReconstructChunkFromCodePointOffsets() {
+        // Given - 含 emoji（代理對）的長文字
+        String content = ("段落內容 😀 with emoji. ".repeat(40) + "\n\n").repeat(5);
+        int[] codePoints = content.codePoints().toArray();
+
+        // When
+        List<ChunkResult> chunks = documentChunker.chunk(content, 300, 60);
+
+        // Then - 以 code point 位置切出的文字應與區塊內容一致（等同 PostgreSQL substring）
+        assertThat(chunks).hasSizeGreaterThan(1);
+        for (ChunkResult chunk : chunks) {
+            String reconstructed = new String(codePoints, chunk.startOffset(),
+                    chunk.endOffset() - chunk.startOffset());
+            assertThat(reconstructed).isEqualTo(chunk.content());
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package io.github.samzhu.documentation.platform.service;
+
+import io.github.samzhu.documentation.platform.service.dto.SearchResultItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SearchResultCache 單元測試
+ * <p>
+ * 測試快取鍵正規化、依版本失效與失效期間的寫入略過。
+ * </p>
+ */
+@DisplayName("SearchResultCache 單元測試")
+class SearchResultCacheTest {
+
+    private static final List<SearchResultItem> RESULTS = List.of(
+            SearchResultItem.fromChunk("doc-1", "chunk-1", "Title", "docs/a.md", "content", 0.9, 0));
+
+    private static SearchResultCache newCache() {
+        return new SearchResultCache(true, 1024 * 1024, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("應命中快取 - 當查詢僅空白不同時")
+    void shouldHit_whenQueryDiffersOnlyInWhitespace() {
+        // Given
+        SearchResultCache cache = newCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        cache.get(cache.key("v1", " spring  boot ", "hybrid", 10, 0.3, 0.5), () -> {
+            loads.incrementAndGet();
+            return RESULTS;
+        });
+        List<SearchResultItem> second = cache.get(cache.key("v1", "spring boot", "hybrid", 10, 0.3, 0.5), () -> {
+            loads.incrementAndGet();
+            return RESULTS;
+        });
+
+        // Then
+        assertThat(loads).hasValue(1);
+        assertThat(second).isEqualTo(RESULTS);
+    }
+
+    @Test
+    @DisplayName("應只移除該版本的結果 - 當版本失效時")
+    void shouldEvictOnlyInvalidatedVersion() {
+        // Given
+        SearchResultCache cache = newCache();
+        cache.put(cache.key("v1", "query", "fulltext", 10, 0, 0), RESULTS);
+        cache.put(cache.key("v2", "query", "fulltext", 10, 0, 0), RESULTS);
+
+        // When
+        cache.invalidateVersion("v1");
+
+        // Then
+        assertThat(cache.getIfPresent(cache.key("v1", "query", "fulltext", 10, 0, 0))).isNull();
+        assertThat(cache.getIfPresent(cache.key("v2", "query", "fulltext", 10, 0, 0))).isEqualTo(RESULTS);
+    }
+
+    @Test
+    @DisplayName("不應寫入快取 - 當搜尋期間版本已失效")
+    void shouldSkipPut_whenVersionInvalidatedDuringSearch() {
+        // Given - 搜尋開始時取得鍵
+        SearchResultCache cache = newCache();
+        SearchResultCache.Key staleKey = cache.key("v1", "query", "semantic", 10, 0, 0.5);
+
+        // When - 搜尋完成前版本重新同步
+        cache.invalidateVersion("v1");
+        cache.put(staleKey, RESULTS);
+
+        // Then
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getIfPresent(cache.key("v1", "query", "semantic", 10, 0, 0.5))).isNull();
+    }
+}
@@ -1,12 +1,17 @@
 package io.github.samzhu.documentation.mcp;
 
+import io.github.samzhu.documentation.mcp.config.CatalogProperties;
+import io.github.samzhu.documentation.mcp.config.EmbeddingProperties;
+import io.github.samzhu.documentation.mcp.config.KeywordIndexProperties;
 import io.github.samzhu.documentation.mcp.config.SearchProperties;
+import io.github.samzhu.documentation.mcp.config.VectorIndexProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
-@EnableConfigurationProperties(SearchProperties.class)
+@EnableConfigurationProperties({SearchProperties.class, VectorIndexProperties.class, EmbeddingProperties.class,
+		CatalogProperties.class, KeywordIndexProperties.class})
 public class DocumentationMcpServerApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,22 @@
+package io.github.samzhu.documentation.mcp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 函式庫目錄快取配置屬性
+ * <p>
+ * 從 platform.catalog.* 讀取。目錄於收到 catalog_changed 通知時重新載入，
+ * 另依 reloadInterval 定期完整重載，作為漏接通知時的保底。
+ * </p>
+ *
+ * @param reloadInterval 定期完整重載的間隔（預設 5 分鐘）
+ */
+@ConfigurationProperties(prefix = "platform.catalog")
+public record CatalogProperties(Duration reloadInterval) {
+
+    public CatalogProperties {
+        reloadInterval = reloadInterval != null ? reloadInterval : Duration.ofMinutes(5);
+    }
+}
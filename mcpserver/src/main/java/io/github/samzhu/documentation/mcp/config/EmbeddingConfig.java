@@ -0,0 +1,94 @@
+package io.github.samzhu.documentation.mcp.config;
+
+import io.github.samzhu.documentation.mcp.infrastructure.embedding.EmbeddingScheduler;
+import io.github.samzhu.documentation.mcp.infrastructure.embedding.QueryEmbeddingBatcher;
+import io.github.samzhu.documentation.mcp.infrastructure.embedding.QueryEmbeddingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * 查詢嵌入相關配置
+ * <p>
+ * 查詢向量的取得路徑為：查詢向量快取 → 微批次合併器（可停用）→ 請求排程器（AIMD 並行度與重試）→ EmbeddingModel。
+ * </p>
+ */
+@Configuration
+public class EmbeddingConfig {
+
+    /**
+     * 建立查詢嵌入請求排程器
+     *
+     * @param embeddingModel      嵌入模型（Google GenAI）
+     * @param embeddingProperties 查詢嵌入配置（platform.embedding.scheduler.*）
+     * @param meterRegistry       指標註冊表
+     * @return 請求排程器
+     */
+    @Bean
+    public EmbeddingScheduler embeddingScheduler(EmbeddingModel embeddingModel,
+                                                 EmbeddingProperties embeddingProperties,
+                                                 MeterRegistry meterRegistry) {
+        EmbeddingProperties.Scheduler config = embeddingProperties.scheduler();
+        return new EmbeddingScheduler(embeddingModel, config.initialConcurrency(), config.minConcurrency(),
+                config.maxConcurrency(), config.latencyTarget(), config.maxRetries(),
+                config.initialBackoff(), config.maxBackoff(), meterRegistry);
+    }
+
+    /**
+     * 建立查詢嵌入微批次合併器
+     *
+     * @param embeddingScheduler    查詢嵌入請求排程器
+     * @param embeddingProperties   查詢嵌入配置（platform.embedding.batch.*）
+     * @param virtualThreadExecutor 送出批次請求的執行器
+     * @param meterRegistry         指標註冊表
+     * @return 微批次合併器
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "platform.embedding.batch", name = "enabled", havingValue = "true",
+            matchIfMissing = true)
+    public QueryEmbeddingBatcher queryEmbeddingBatcher(
+            EmbeddingScheduler embeddingScheduler,
+            EmbeddingProperties embeddingProperties,
+            ExecutorService virtualThreadExecutor,
+            MeterRegistry meterRegistry) {
+        EmbeddingProperties.Batch config = embeddingProperties.batch();
+        return new QueryEmbeddingBatcher(embeddingScheduler::embed, config.window(), config.maxBatchSize(),
+                config.timeout(), virtualThreadExecutor, meterRegistry);
+    }
+
+    /**
+     * 建立查詢向量快取
+     * <p>
+     * 未命中時經由微批次合併器（停用時直接經由請求排程器）；模型名稱與維度納入快取鍵。
+     * </p>
+     *
+     * @param embeddingScheduler  查詢嵌入請求排程器
+     * @param batcher             查詢嵌入微批次合併器（可能不存在）
+     * @param embeddingProperties 查詢嵌入配置（platform.embedding.query-cache.*）
+     * @param meterRegistry       指標註冊表
+     * @param model               嵌入模型名稱
+     * @param dimensions          嵌入維度
+     * @return 查詢向量快取
+     */
+    @Bean
+    public QueryEmbeddingCache queryEmbeddingCache(
+            EmbeddingScheduler embeddingScheduler,
+            ObjectProvider<QueryEmbeddingBatcher> batcher,
+            EmbeddingProperties embeddingProperties,
+            MeterRegistry meterRegistry,
+            @Value("${spring.ai.google.genai.embedding.text.options.model:default}") String model,
+            @Value("${spring.ai.google.genai.embedding.text.options.dimensions:0}") int dimensions) {
+        QueryEmbeddingBatcher queryBatcher = batcher.getIfAvailable();
+        Function<String, float[]> embedder = queryBatcher != null ? queryBatcher::embed : embeddingScheduler::embed;
+        EmbeddingProperties.QueryCache config = embeddingProperties.queryCache();
+        return new QueryEmbeddingCache(embedder, model + "/" + dimensions,
+                config.enabled(), config.maxSize(), config.ttl(), config.waitTimeout(), meterRegistry);
+    }
+}
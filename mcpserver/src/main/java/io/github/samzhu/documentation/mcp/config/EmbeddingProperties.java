@@ -0,0 +1,83 @@
+package io.github.samzhu.documentation.mcp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 查詢嵌入配置屬性
+ * <p>
+ * 從 platform.embedding.* 讀取查詢向量快取、微批次與請求排程參數。
+ * </p>
+ *
+ * @param queryCache 查詢向量快取參數
+ * @param batch      查詢嵌入微批次參數
+ * @param scheduler  查詢嵌入請求排程參數
+ */
+@ConfigurationProperties(prefix = "platform.embedding")
+public record EmbeddingProperties(QueryCache queryCache, Batch batch, Scheduler scheduler) {
+
+    public EmbeddingProperties {
+        queryCache = queryCache != null ? queryCache : new QueryCache(true, 5000, null, null);
+        batch = batch != null ? batch : new Batch(true, null, 100, null);
+        scheduler = scheduler != null ? scheduler : new Scheduler(0, 0, 0, null, null, null, null);
+    }
+
+    /**
+     * 查詢向量快取參數
+     *
+     * @param enabled     是否啟用查詢向量快取
+     * @param maxSize     最多快取的查詢數（768 維向量每筆約 3 KB）
+     * @param ttl         快取存活時間（預設 1 小時）
+     * @param waitTimeout 等待其他呼叫端進行中的相同查詢嵌入的時間上限（預設 10 秒）
+     */
+    public record QueryCache(boolean enabled, long maxSize, Duration ttl, Duration waitTimeout) {
+
+        public QueryCache {
+            ttl = ttl != null ? ttl : Duration.ofHours(1);
+            waitTimeout = waitTimeout != null ? waitTimeout : Duration.ofSeconds(10);
+        }
+    }
+
+    /**
+     * 查詢嵌入微批次參數
+     *
+     * @param enabled      是否合併同時到達的查詢嵌入請求
+     * @param window       收集批次的時間窗（預設 5 毫秒，即單一查詢的額外延遲上限）
+     * @param maxBatchSize 單一批次的查詢數上限（Google GenAI 限制 100）
+     * @param timeout      呼叫端等待查詢向量的時間上限（預設 10 秒）
+     */
+    public record Batch(boolean enabled, Duration window, int maxBatchSize, Duration timeout) {
+
+        public Batch {
+            window = window != null ? window : Duration.ofMillis(5);
+            maxBatchSize = maxBatchSize > 0 ? maxBatchSize : 100;
+            timeout = timeout != null ? timeout : Duration.ofSeconds(10);
+        }
+    }
+
+    /**
+     * 查詢嵌入請求排程參數（AIMD 並行度與重試）
+     *
+     * @param initialConcurrency 初始並行請求數（預設 4）
+     * @param minConcurrency     並行請求數下限（預設 1）
+     * @param maxConcurrency     並行請求數上限（預設 16）
+     * @param latencyTarget      延遲目標，超過時降低並行度（預設 2 秒）
+     * @param maxRetries         最大重試次數（預設 2）
+     * @param initialBackoff     初始退避時間（預設 200 毫秒）
+     * @param maxBackoff         最大退避時間（預設 2 秒），伺服器要求的等待超過此值時不重試
+     */
+    public record Scheduler(int initialConcurrency, int minConcurrency, int maxConcurrency,
+                            Duration latencyTarget, Integer maxRetries, Duration initialBackoff, Duration maxBackoff) {
+
+        public Scheduler {
+            initialConcurrency = initialConcurrency > 0 ? initialConcurrency : 4;
+            minConcurrency = minConcurrency > 0 ? minConcurrency : 1;
+            maxConcurrency = maxConcurrency > 0 ? maxConcurrency : 16;
+            latencyTarget = latencyTarget != null ? latencyTarget : Duration.ofSeconds(2);
+            maxRetries = maxRetries != null && maxRetries >= 0 ? maxRetries : 2;
+            initialBackoff = initialBackoff != null ? initialBackoff : Duration.ofMillis(200);
+            maxBackoff = maxBackoff != null ? maxBackoff : Duration.ofSeconds(2);
+        }
+    }
+}
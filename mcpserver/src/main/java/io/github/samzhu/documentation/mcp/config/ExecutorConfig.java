@@ -0,0 +1,27 @@
+package io.github.samzhu.documentation.mcp.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 執行緒池配置
+ * <p>
+ * 使用 Virtual Threads 執行 I/O 密集型任務，如混合搜尋中並行的資料庫查詢與嵌入請求。
+ * </p>
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * 建立使用 Virtual Threads 的執行緒池
+     *
+     * @return 執行緒池服務
+     */
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.samzhu.documentation.mcp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 關鍵字搜尋引擎配置屬性
+ * <p>
+ * 從 platform.search.keyword.* 讀取。engine=lucene 時，關鍵字排名改用每個版本一份的本機 Lucene 索引（BM25），
+ * 索引由本程序自 PostgreSQL 建立，收到 Backend 的同步通知時重新檢查並重建。
+ * </p>
+ *
+ * @param engine      關鍵字搜尋引擎（預設 postgres）
+ * @param indexDir    Lucene 索引根目錄（預設 data/mcpserver/keyword-index，與 Backend 的索引目錄分開）
+ * @param loadTimeout 搜尋等待版本索引載入或建立的時間上限（預設 30 秒）
+ */
+@ConfigurationProperties(prefix = "platform.search.keyword")
+public record KeywordIndexProperties(Engine engine, String indexDir, Duration loadTimeout) {
+
+    public KeywordIndexProperties {
+        engine = engine != null ? engine : Engine.POSTGRES;
+        indexDir = indexDir != null && !indexDir.isBlank() ? indexDir : "data/mcpserver/keyword-index";
+        loadTimeout = loadTimeout != null ? loadTimeout : Duration.ofSeconds(30);
+    }
+
+    /**
+     * 關鍵字搜尋引擎
+     */
+    public enum Engine {
+        /**
+         * PostgreSQL 全文檢索（search_vector / ts_rank）
+         */
+        POSTGRES,
+        /**
+         * 本機 Lucene BM25 索引
+         */
+        LUCENE
+    }
+}
@@ -2,24 +2,75 @@ package io.github.samzhu.documentation.mcp.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
 /**
  * 搜尋相關配置屬性
  * <p>
- * 從 platform.search.* 讀取混合搜尋參數。
+ * 從 platform.search.* 讀取混合搜尋與搜尋結果快取參數。
  * </p>
  *
  * @param hybrid       混合搜尋參數
  * @param defaultLimit 預設回傳筆數上限
  * @param maxLimit     最大回傳筆數上限
+ * @param cache        搜尋結果快取參數
  */
 @ConfigurationProperties(prefix = "platform.search")
-public record SearchProperties(Hybrid hybrid, int defaultLimit, int maxLimit) {
+public record SearchProperties(Hybrid hybrid, int defaultLimit, int maxLimit, Cache cache) {
+
+    public SearchProperties {
+        cache = cache != null ? cache : new Cache(true, null, null, null);
+    }
 
     /**
      * 混合搜尋參數
      *
-     * @param alpha         關鍵字搜尋權重（0-1），(1 - alpha) 為語意搜尋權重
-     * @param minSimilarity 語意搜尋的最低相似度閾值
+     * @param alpha           關鍵字搜尋權重（0-1），(1 - alpha) 為語意搜尋權重
+     * @param minSimilarity   語意搜尋的最低相似度閾值
+     * @param sqlNative       是否以單一 SQL 語句完成兩種排名與 RRF 融合
+     * @param keywordTimeout  並行檢索時關鍵字搜尋的逾時時間（預設 2 秒）
+     * @param semanticTimeout 並行檢索時語意搜尋的逾時時間，含查詢嵌入（預設 5 秒）
+     */
+    public record Hybrid(double alpha, double minSimilarity, boolean sqlNative,
+                         Duration keywordTimeout, Duration semanticTimeout) {
+
+        public Hybrid {
+            keywordTimeout = keywordTimeout != null ? keywordTimeout : Duration.ofSeconds(2);
+            semanticTimeout = semanticTimeout != null ? semanticTimeout : Duration.ofSeconds(5);
+        }
+    }
+
+    /**
+     * 搜尋結果快取參數
+     *
+     * @param enabled   是否啟用快取
+     * @param maxWeight 快取結果的估計總大小上限（預設 64MB）
+     * @param ttl       存活時間，漏接失效通知時的保底（預設 1 小時）
+     * @param similar   相似查詢索引參數
      */
-    public record Hybrid(double alpha, double minSimilarity) {}
+    public record Cache(boolean enabled, DataSize maxWeight, Duration ttl, Similar similar) {
+
+        public Cache {
+            maxWeight = maxWeight != null ? maxWeight : DataSize.ofMegabytes(64);
+            ttl = ttl != null ? ttl : Duration.ofHours(1);
+            similar = similar != null ? similar : new Similar(true, 0, 0);
+        }
+    }
+
+    /**
+     * 相似查詢索引參數（語意與混合搜尋）
+     *
+     * @param enabled   是否沿用相似查詢的結果
+     * @param threshold 沿用結果的最低餘弦相似度（預設 0.95）
+     * @param capacity  每個版本集合保留的查詢數（預設 256）
+     */
+    public record Similar(boolean enabled, double threshold, int capacity) {
+
+        public Similar {
+            threshold = threshold > 0 ? threshold : 0.95;
+            capacity = capacity > 0 ? capacity : 256;
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package io.github.samzhu.documentation.mcp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+/**
+ * 向量索引查詢參數
+ * <p>
+ * 從 platform.vector-index.* 讀取 HNSW 查詢時參數。
+ * 索引本身由 Backend 建立與管理，MCP Server 僅於查詢時設定。
+ * </p>
+ *
+ * @param enabled       是否設定 hnsw.* 查詢參數（需 spring.ai.vectorstore.pgvector.index-type=HNSW）
+ * @param efSearch      查詢時的候選清單大小（hnsw.ef_search，預設 100；常駐索引亦以此為候選數）
+ * @param iterativeScan 迭代索引掃描模式（off / strict_order / relaxed_order，預設 relaxed_order）
+ * @param maxScanTuples 迭代掃描最多檢查的資料列數（hnsw.max_scan_tuples，預設 20000）
+ * @param inProcess     程序內常駐 HNSW 索引
+ * @param snapshot      版本嵌入快照（精確搜尋）
+ */
+@ConfigurationProperties(prefix = "platform.vector-index")
+public record VectorIndexProperties(boolean enabled, int efSearch, String iterativeScan, int maxScanTuples,
+                                    InProcess inProcess, Snapshot snapshot) {
+
+    public VectorIndexProperties {
+        efSearch = efSearch > 0 ? efSearch : 100;
+        iterativeScan = iterativeScan != null && !iterativeScan.isBlank() ? iterativeScan : "relaxed_order";
+        maxScanTuples = maxScanTuples > 0 ? maxScanTuples : 20000;
+        inProcess = inProcess != null ? inProcess : new InProcess(false, null, null, null);
+        snapshot = snapshot != null ? snapshot : new Snapshot(false, null, null);
+    }
+
+    /**
+     * 程序內常駐 HNSW 索引
+     * <p>
+     * 啟用後常用版本的向量與 HNSW 圖常駐於本程序（記憶體映射檔，不佔 JVM 堆積），
+     * 語意搜尋在程序內完成近鄰搜尋，PostgreSQL 只讀取最終結果；未常駐的版本仍走 pgvector。
+     * </p>
+     *
+     * @param enabled        是否啟用（預設 false）
+     * @param indexDir       索引根目錄（預設 data/vector-index，每個版本一個子目錄）
+     * @param memoryBudget   常駐索引的總大小上限（預設 1GB），超過時移除最久未使用的非固定版本
+     * @param pinnedVersions 固定常駐的版本（{@code 函式庫名稱} 表示最新版本，或 {@code 函式庫名稱@版本}），
+     *                       啟動時載入且不會被移除；其他版本於首次查詢後於背景載入
+     */
+    public record InProcess(boolean enabled, String indexDir, DataSize memoryBudget, List<String> pinnedVersions) {
+
+        public InProcess {
+            indexDir = indexDir != null && !indexDir.isBlank() ? indexDir : "data/vector-index";
+            memoryBudget = memoryBudget != null ? memoryBudget : DataSize.ofGigabytes(1);
+            pinnedVersions = pinnedVersions != null ? List.copyOf(pinnedVersions) : List.of();
+        }
+    }
+
+    /**
+     * 版本嵌入快照
+     * <p>
+     * 啟用後選定的版本以記憶體映射的向量矩陣精確搜尋（不需 ANN 參數），
+     * 優先於程序內 HNSW 索引與 pgvector；未選定或尚未映射的版本仍走其他路徑。
+     * 預設只選定各函式庫的最新版本，磁碟與 page cache 用量隨函式庫數量成長；不再選定的版本於目錄變更後刪除。
+     * JVM 加上 {@code --add-modules jdk.incubator.vector} 時以 Vector API（SIMD）計算內積，否則使用純量迴圈。
+     * </p>
+     *
+     * @param enabled   是否啟用（預設 false）
+     * @param dir       快照根目錄（預設 data/vector-snapshot，每個版本一個子目錄）
+     * @param versions  使用快照的版本（{@code 函式庫名稱} 表示最新版本，或 {@code 函式庫名稱@版本}；
+     *                  預設空白，表示所有函式庫的最新版本）
+     */
+    public record Snapshot(boolean enabled, String dir, List<String> versions) {
+
+        public Snapshot {
+            dir = dir != null && !dir.isBlank() ? dir : "data/vector-snapshot";
+            versions = versions != null ? List.copyOf(versions) : List.of();
+        }
+    }
+}
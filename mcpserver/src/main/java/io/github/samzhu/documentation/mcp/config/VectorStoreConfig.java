@@ -1,22 +1,32 @@
 package io.github.samzhu.documentation.mcp.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.samzhu.documentation.mcp.infrastructure.embedding.QueryEmbeddingCache;
 import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore;
+import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.EmbeddingSnapshotIndex;
+import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.LuceneVectorIndex;
+import io.github.samzhu.documentation.mcp.service.CatalogCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
 import org.springframework.ai.vectorstore.pgvector.autoconfigure.PgVectorStoreProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
 
 /**
  * VectorStore 配置類別
  * <p>
  * 配置自訂的 DocumentChunkVectorStore（唯讀版）作為系統的 VectorStore 實作。
  * 使用 @Primary 確保系統預設使用此實作。
+ * platform.vector-index.in-process.enabled=true 時另建立程序內常駐 HNSW 索引 {@link LuceneVectorIndex}；
+ * platform.vector-index.snapshot.enabled=true 時另建立版本嵌入快照索引 {@link EmbeddingSnapshotIndex}。
  * </p>
  */
 @Configuration
@@ -24,26 +34,102 @@ public class VectorStoreConfig {
 
     private static final Logger log = LoggerFactory.getLogger(VectorStoreConfig.class);
 
+    /**
+     * Lucene 向量欄位的預設維度上限
+     */
+    private static final int LUCENE_MAX_DIMENSIONS = 1024;
+
     /**
      * 建立 DocumentChunkVectorStore Bean（唯讀版）
      *
      * @param jdbcTemplate            JDBC 操作模板
-     * @param embeddingModel          嵌入模型（Google GenAI）
+     * @param queryEmbeddingCache     查詢向量快取（包裝 Google GenAI 嵌入模型）
      * @param objectMapper            JSON 序列化工具
      * @param pgVectorStoreProperties PgVector 配置屬性（從 spring.ai.vectorstore.pgvector.* 讀取）
-     * @return VectorStore 實例
+     * @param vectorIndexProperties   向量索引查詢參數（HNSW）
+     * @param transactionManager      交易管理器（HNSW 查詢參數的短交易）
+     * @return VectorStore 實例（以實作型別宣告，SearchService 可直接使用搜尋結果投影）
      */
     @Bean
     @Primary
-    public VectorStore documentChunkVectorStore(
+    public DocumentChunkVectorStore documentChunkVectorStore(
             JdbcTemplate jdbcTemplate,
-            EmbeddingModel embeddingModel,
+            QueryEmbeddingCache queryEmbeddingCache,
             ObjectMapper objectMapper,
-            PgVectorStoreProperties pgVectorStoreProperties) {
+            PgVectorStoreProperties pgVectorStoreProperties,
+            VectorIndexProperties vectorIndexProperties,
+            PlatformTransactionManager transactionManager) {
+
+        int dimensions = pgVectorStoreProperties.getDimensions();
+        boolean hnswEnabled = vectorIndexProperties.enabled()
+                && pgVectorStoreProperties.getIndexType() == PgVectorStore.PgIndexType.HNSW;
+        log.info("初始化 DocumentChunkVectorStore（唯讀），向量維度: {}，HNSW: {}", dimensions, hnswEnabled);
+
+        return new DocumentChunkVectorStore(jdbcTemplate, queryEmbeddingCache, objectMapper, dimensions,
+                vectorIndexProperties, hnswEnabled, transactionManager);
+    }
+
+    /**
+     * 建立程序內常駐 HNSW 索引（應用程式關閉時關閉所有常駐索引）
+     *
+     * @param jdbcTemplate            JDBC 操作模板
+     * @param catalogCache            函式庫目錄快取（解析固定版本）
+     * @param pgVectorStoreProperties PgVector 配置屬性（向量維度）
+     * @param vectorIndexProperties   向量索引配置
+     * @param virtualThreadExecutor   載入與更新索引的執行器
+     * @return 程序內向量索引
+     */
+    @Bean
+    @ConditionalOnProperty(name = "platform.vector-index.in-process.enabled", havingValue = "true")
+    public LuceneVectorIndex luceneVectorIndex(
+            JdbcTemplate jdbcTemplate,
+            CatalogCache catalogCache,
+            PgVectorStoreProperties pgVectorStoreProperties,
+            VectorIndexProperties vectorIndexProperties,
+            ExecutorService virtualThreadExecutor) {
 
         int dimensions = pgVectorStoreProperties.getDimensions();
-        log.info("初始化 DocumentChunkVectorStore（唯讀），向量維度: {}", dimensions);
+        if (dimensions > LUCENE_MAX_DIMENSIONS) {
+            throw new IllegalStateException("In-process vector index supports at most " + LUCENE_MAX_DIMENSIONS
+                    + " dimensions, but spring.ai.vectorstore.pgvector.dimensions is " + dimensions);
+        }
+        VectorIndexProperties.InProcess inProcess = vectorIndexProperties.inProcess();
+        Path indexDir = Path.of(inProcess.indexDir()).toAbsolutePath().normalize();
+        log.info("初始化程序內向量索引，目錄: {}，記憶體預算: {}，固定版本: {}",
+                indexDir, inProcess.memoryBudget(), inProcess.pinnedVersions());
+
+        return new LuceneVectorIndex(jdbcTemplate, catalogCache, indexDir, inProcess.memoryBudget().toBytes(),
+                inProcess.pinnedVersions(), vectorIndexProperties.efSearch(), virtualThreadExecutor);
+    }
+
+    /**
+     * 建立版本嵌入快照索引（精確搜尋）
+     *
+     * @param jdbcTemplate          JDBC 操作模板
+     * @param catalogCache          函式庫目錄快取（解析選定函式庫的版本）
+     * @param vectorIndexProperties 向量索引配置
+     * @param virtualThreadExecutor 建立與映射快照的執行器
+     * @return 嵌入快照索引
+     */
+    @Bean
+    @ConditionalOnProperty(name = "platform.vector-index.snapshot.enabled", havingValue = "true")
+    public EmbeddingSnapshotIndex embeddingSnapshotIndex(
+            JdbcTemplate jdbcTemplate,
+            CatalogCache catalogCache,
+            VectorIndexProperties vectorIndexProperties,
+            ExecutorService virtualThreadExecutor) {
+
+        VectorIndexProperties.Snapshot snapshot = vectorIndexProperties.snapshot();
+        Path dir = Path.of(snapshot.dir()).toAbsolutePath().normalize();
+        log.info("初始化嵌入快照索引，目錄: {}，版本: {}，Vector API: {}",
+                dir, snapshot.versions().isEmpty() ? "所有函式庫的最新版本" : snapshot.versions(),
+                EmbeddingSnapshotIndex.simdEnabled());
+        if (!EmbeddingSnapshotIndex.simdEnabled()) {
+            log.warn("未載入 jdk.incubator.vector 模組，嵌入快照改以純量迴圈計算內積；"
+                    + "請於 JVM 參數加上 --add-modules jdk.incubator.vector");
+        }
 
-        return new DocumentChunkVectorStore(jdbcTemplate, embeddingModel, objectMapper, dimensions);
+        return new EmbeddingSnapshotIndex(jdbcTemplate, catalogCache, dir, snapshot.versions(),
+                virtualThreadExecutor);
     }
 }
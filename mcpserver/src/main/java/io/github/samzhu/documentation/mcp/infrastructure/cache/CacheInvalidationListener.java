@@ -0,0 +1,183 @@
+package io.github.samzhu.documentation.mcp.infrastructure.cache;
+
+import io.github.samzhu.documentation.mcp.infrastructure.keyword.LuceneChunkIndex;
+import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.EmbeddingSnapshotIndex;
+import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.LuceneVectorIndex;
+import io.github.samzhu.documentation.mcp.service.CatalogCache;
+import io.github.samzhu.documentation.mcp.service.SearchResultCache;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 快取失效通知監聽器
+ * <p>
+ * 以一條專用連線 {@code LISTEN} 下列頻道，於虛擬執行緒上輪詢通知（長期佔用連線池中的一條連線）：
+ * </p>
+ * <ul>
+ *   <li>{@link SearchResultCache#INVALIDATION_CHANNEL}：Backend 於版本同步完成或補齊嵌入後發送版本 ID，
+ *       使該版本的搜尋結果快取失效；啟用 Lucene 關鍵字索引、程序內向量索引或嵌入快照時於背景重新檢查並更新該版本的索引，
+ *       更新完成後再使快取失效一次（更新期間以舊索引回應的結果可能已被快取）</li>
+ *   <li>{@link CatalogCache#CHANGE_CHANNEL}：libraries / library_versions 異動時由資料庫觸發器發送，
+ *       重新載入函式庫目錄（同一批通知只重新載入一次），並載入新的固定常駐版本</li>
+ * </ul>
+ * <p>
+ * 連線建立或中斷後清空搜尋結果快取、重新載入目錄並重新檢查已載入的索引，因為中斷期間的通知無法補收。
+ * 每次輪詢逾時也會檢查目錄是否需要定期重載。
+ * </p>
+ */
+@Component
+public class CacheInvalidationListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    private static final int POLL_TIMEOUT_MS = 10_000;
+    private static final long RECONNECT_DELAY_MS = 5_000;
+
+    private final DataSource dataSource;
+    private final SearchResultCache searchResultCache;
+    private final CatalogCache catalogCache;
+    private final LuceneChunkIndex keywordIndex;
+    private final LuceneVectorIndex vectorIndex;
+    private final EmbeddingSnapshotIndex snapshotIndex;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public CacheInvalidationListener(DataSource dataSource, SearchResultCache searchResultCache,
+                                     CatalogCache catalogCache, ObjectProvider<LuceneChunkIndex> keywordIndex,
+                                     ObjectProvider<LuceneVectorIndex> vectorIndex,
+                                     ObjectProvider<EmbeddingSnapshotIndex> snapshotIndex) {
+        this.dataSource = dataSource;
+        this.searchResultCache = searchResultCache;
+        this.catalogCache = catalogCache;
+        this.keywordIndex = keywordIndex.getIfAvailable();
+        this.vectorIndex = vectorIndex.getIfAvailable();
+        this.snapshotIndex = snapshotIndex.getIfAvailable();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        listenerThread = Thread.ofVirtual().name("cache-invalidation-listener").start(this::listen);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 監聽迴圈：連線中斷時等待後重新連線
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + SearchResultCache.INVALIDATION_CHANNEL);
+                    statement.execute("LISTEN " + CatalogCache.CHANGE_CHANNEL);
+                }
+                searchResultCache.invalidateAll();
+                catalogCache.reload();
+                if (keywordIndex != null) {
+                    keywordIndex.refreshLoaded();
+                }
+                if (vectorIndex != null) {
+                    vectorIndex.refreshAll();
+                }
+                if (snapshotIndex != null) {
+                    snapshotIndex.refreshAll();
+                }
+                log.info("Listening for cache invalidations on channels {}, {}",
+                        SearchResultCache.INVALIDATION_CHANNEL, CatalogCache.CHANGE_CHANNEL);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null || notifications.length == 0) {
+                        catalogCache.reloadIfStale();
+                        continue;
+                    }
+                    dispatch(notifications);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener disconnected, retrying in {} ms: {}",
+                        RECONNECT_DELAY_MS, e.getMessage());
+                searchResultCache.invalidateAll();
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 分派一批通知
+     */
+    private void dispatch(PGNotification[] notifications) {
+        boolean catalogChanged = false;
+        for (PGNotification notification : notifications) {
+            if (CatalogCache.CHANGE_CHANNEL.equals(notification.getName())) {
+                catalogChanged = true;
+            } else {
+                invalidateVersion(notification.getParameter());
+            }
+        }
+        if (catalogChanged) {
+            catalogCache.reload();
+            if (vectorIndex != null) {
+                vectorIndex.loadPinned();
+            }
+            if (snapshotIndex != null) {
+                snapshotIndex.removeIneligible();
+            }
+        }
+    }
+
+    /**
+     * 使版本的搜尋結果快取失效，並於背景重新檢查該版本的關鍵字索引、向量索引與嵌入快照
+     */
+    private void invalidateVersion(String versionId) {
+        searchResultCache.invalidateVersion(versionId);
+        if (keywordIndex == null && vectorIndex == null && snapshotIndex == null) {
+            return;
+        }
+        CompletableFuture<?> keywordRefresh = keywordIndex != null
+                ? keywordIndex.refresh(versionId) : CompletableFuture.completedFuture(null);
+        CompletableFuture<?> vectorRefresh = vectorIndex != null
+                ? vectorIndex.refresh(versionId) : CompletableFuture.completedFuture(null);
+        CompletableFuture<?> snapshotRefresh = snapshotIndex != null
+                ? snapshotIndex.refresh(versionId) : CompletableFuture.completedFuture(null);
+        // 失敗已由各索引記錄，仍需使快取失效（部分索引可能已更新）
+        CompletableFuture.allOf(keywordRefresh, vectorRefresh, snapshotRefresh)
+                .whenComplete((ignored, e) -> searchResultCache.invalidateVersion(versionId));
+    }
+}
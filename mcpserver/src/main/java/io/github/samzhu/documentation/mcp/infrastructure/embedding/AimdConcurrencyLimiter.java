@@ -0,0 +1,139 @@
+package io.github.samzhu.documentation.mcp.infrastructure.embedding;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD 並行度限制器
+ * <p>
+ * 以加法增加、乘法減少（Additive Increase / Multiplicative Decrease）調整允許的並行請求數：
+ * </p>
+ * <ul>
+ *   <li>請求成功且延遲低於目標：上限增加 1 / limit（約每輪增加 1）</li>
+ *   <li>請求成功但延遲超過目標：上限乘以 0.9</li>
+ *   <li>遭到限流（429）：上限減半</li>
+ * </ul>
+ * <p>
+ * 優先請求（查詢時的嵌入）等待時，一般請求不會取得新的名額，避免同步作業排擠搜尋。
+ * </p>
+ */
+class AimdConcurrencyLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+
+    private double limit;
+    private int inFlight;
+    private int priorityWaiting;
+
+    AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTargetMs) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMs);
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+    }
+
+    /**
+     * 取得一個並行名額，名額不足時等待
+     *
+     * @param priority 是否為優先請求
+     */
+    void acquire(boolean priority) throws InterruptedException {
+        lock.lock();
+        try {
+            if (priority) {
+                priorityWaiting++;
+                try {
+                    while (inFlight >= (int) limit) {
+                        available.await();
+                    }
+                } finally {
+                    priorityWaiting--;
+                }
+            } else {
+                while (inFlight >= (int) limit || priorityWaiting > 0) {
+                    available.await();
+                }
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 請求成功，依延遲調整上限並釋放名額
+     */
+    void onSuccess(long latencyNanos) {
+        lock.lock();
+        try {
+            if (latencyNanos > latencyTargetNanos) {
+                limit = Math.max(minLimit, limit * 0.9);
+            } else {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 請求遭到限流，上限減半並釋放名額
+     */
+    void onThrottled() {
+        lock.lock();
+        try {
+            limit = Math.max(minLimit, limit / 2);
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 請求因其他原因失敗，不調整上限，僅釋放名額
+     */
+    void onFailure() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 目前的並行上限
+     */
+    double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 目前進行中的請求數
+     */
+    int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        inFlight--;
+        available.signalAll();
+    }
+}
@@ -0,0 +1,267 @@
+package io.github.samzhu.documentation.mcp.infrastructure.embedding;
+
+import com.google.genai.errors.ApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 查詢嵌入請求排程器
+ * <p>
+ * 所有查詢嵌入（微批次合併器送出的批次或停用合併時的單筆）皆經由此排程器呼叫 EmbeddingModel：
+ * </p>
+ * <ul>
+ *   <li>並行請求數由 {@link AimdConcurrencyLimiter} 依延遲與限流回應調整，避免尖峰時觸發供應商限流</li>
+ *   <li>限流（429）與暫時性錯誤（5xx、逾時）以抖動指數退避重試；查詢對延遲敏感，
+ *       重試次數與退避上限較 Backend 的同步路徑小，伺服器要求的等待超過退避上限時直接失敗</li>
+ *   <li>錯誤依例外型別與 HTTP 狀態碼分類，不比對錯誤訊息文字</li>
+ * </ul>
+ * <p>
+ * 請求於呼叫端執行緒上送出，不另外排入執行器。
+ * </p>
+ */
+public class EmbeddingScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingScheduler.class);
+
+    // Gemini 錯誤內容中的 RetryInfo，例如 "retryDelay": "30s"
+    private static final Pattern RETRY_DELAY_PATTERN =
+            Pattern.compile("retryDelay\"?\\s*[:=]\\s*\"?(\\d+(?:\\.\\d+)?)s");
+
+    private final EmbeddingModel embeddingModel;
+    private final AimdConcurrencyLimiter limiter;
+    private final int maxRetries;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final Timer requestTimer;
+    private final Counter throttledCounter;
+    private final Counter retryCounter;
+
+    /**
+     * 建構子
+     *
+     * @param embeddingModel     嵌入模型
+     * @param initialConcurrency 初始並行請求數
+     * @param minConcurrency     並行請求數下限
+     * @param maxConcurrency     並行請求數上限
+     * @param latencyTarget      延遲目標，超過時降低並行度
+     * @param maxRetries         最大重試次數
+     * @param initialBackoff     初始退避時間
+     * @param maxBackoff         最大退避時間
+     * @param meterRegistry      指標註冊表
+     */
+    public EmbeddingScheduler(EmbeddingModel embeddingModel, int initialConcurrency, int minConcurrency,
+                              int maxConcurrency, Duration latencyTarget, int maxRetries,
+                              Duration initialBackoff, Duration maxBackoff, MeterRegistry meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.limiter = new AimdConcurrencyLimiter(initialConcurrency, minConcurrency, maxConcurrency,
+                latencyTarget.toMillis());
+        this.maxRetries = Math.max(0, maxRetries);
+        this.initialBackoffMs = Math.max(1, initialBackoff.toMillis());
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoff.toMillis());
+
+        Gauge.builder("embedding.scheduler.concurrency.limit", limiter, AimdConcurrencyLimiter::getLimit)
+                .description("AIMD 調整後的嵌入請求並行上限")
+                .register(meterRegistry);
+        Gauge.builder("embedding.scheduler.in.flight", limiter, AimdConcurrencyLimiter::getInFlight)
+                .description("進行中的嵌入請求數")
+                .register(meterRegistry);
+        this.requestTimer = Timer.builder("embedding.scheduler.request")
+                .description("嵌入請求延遲")
+                .register(meterRegistry);
+        this.throttledCounter = Counter.builder("embedding.scheduler.throttled")
+                .description("遭到限流的嵌入請求數")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("embedding.scheduler.retries")
+                .description("嵌入請求重試次數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 嵌入單筆查詢
+     *
+     * @param text 查詢文字
+     * @return 向量
+     */
+    public float[] embed(String text) {
+        return execute(() -> embeddingModel.embed(text));
+    }
+
+    /**
+     * 以單一請求嵌入一批查詢
+     *
+     * @param texts 查詢文字（不超過供應商的單一請求筆數上限）
+     * @return 與輸入順序一致的向量列表
+     */
+    public List<float[]> embed(List<String> texts) {
+        List<float[]> embeddings = execute(() -> embeddingModel.embed(texts));
+        if (embeddings.size() != texts.size()) {
+            throw new IllegalStateException("Embedding count mismatch: expected "
+                    + texts.size() + " but got " + embeddings.size());
+        }
+        return embeddings;
+    }
+
+    /**
+     * 在並行限制下執行請求，失敗時依錯誤類型退避重試（名額於 finally 中釋放）
+     */
+    private <T> T execute(Supplier<T> request) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                limiter.acquire(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for embedding capacity", e);
+            }
+
+            long start = System.nanoTime();
+            boolean released = false;
+            Duration delay;
+            try {
+                T result = request.get();
+                long latency = System.nanoTime() - start;
+                limiter.onSuccess(latency);
+                released = true;
+                requestTimer.record(latency, TimeUnit.NANOSECONDS);
+                return result;
+            } catch (RuntimeException e) {
+                Failure failure = classify(e);
+                if (failure.throttled()) {
+                    throttledCounter.increment();
+                    limiter.onThrottled();
+                } else {
+                    limiter.onFailure();
+                }
+                released = true;
+
+                delay = failure.retryable() && attempt < maxRetries ? backoff(attempt, failure.retryAfter()) : null;
+                if (delay == null) {
+                    throw e;
+                }
+                retryCounter.increment();
+                log.warn("Query embedding request failed (attempt {}/{}, throttled={}), retrying in {} ms: {}",
+                        attempt + 1, maxRetries + 1, failure.throttled(), delay.toMillis(), e.getMessage());
+            } finally {
+                if (!released) {
+                    limiter.onFailure();
+                }
+            }
+            sleep(delay);
+        }
+    }
+
+    /**
+     * 抖動指數退避（full jitter），並以 Retry-After 作為下限
+     *
+     * @return 等待時間；伺服器要求的等待超過退避上限時回傳 null（不重試）
+     */
+    private Duration backoff(int attempt, Duration retryAfter) {
+        if (retryAfter != null && retryAfter.toMillis() > maxBackoffMs) {
+            return null;
+        }
+        long cap = Math.min(maxBackoffMs, initialBackoffMs * (1L << Math.min(attempt, 20)));
+        long jittered = ThreadLocalRandom.current().nextLong(initialBackoffMs, cap + 1);
+        if (retryAfter != null) {
+            jittered = Math.max(jittered, retryAfter.toMillis());
+        }
+        return Duration.ofMillis(jittered);
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during embedding retry backoff", e);
+        }
+    }
+
+    /**
+     * 判斷錯誤是否可重試、是否為限流，以及伺服器建議的等待時間
+     * <p>
+     * 沿 cause 鏈尋找帶有 HTTP 狀態碼的例外（Spring RestClient 或 Google GenAI SDK）或 I/O 逾時；
+     * 其他例外一律不重試。錯誤訊息只用於讀取 Gemini RetryInfo 的建議等待時間。
+     * </p>
+     */
+    static Failure classify(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof RestClientResponseException http) {
+                Duration retryAfter = http.getResponseHeaders() != null
+                        ? parseRetryAfter(http.getResponseHeaders().getFirst("Retry-After"))
+                        : null;
+                return byStatus(http.getStatusCode().value(), retryAfter);
+            }
+            if (t instanceof ApiException api) {
+                return byStatus(api.code(), parseRetryDelay(api.getMessage()));
+            }
+            if (t instanceof IOException || t instanceof TimeoutException) {
+                return new Failure(true, false, null);
+            }
+        }
+        return new Failure(false, false, null);
+    }
+
+    private static Failure byStatus(int status, Duration retryAfter) {
+        boolean throttled = status == 429;
+        boolean retryable = throttled || status == 408 || status >= 500;
+        return new Failure(retryable, throttled, retryable ? retryAfter : null);
+    }
+
+    /**
+     * 解析 Retry-After 標頭（秒數或 HTTP 日期）
+     */
+    static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static Duration parseRetryDelay(String message) {
+        if (message == null) {
+            return null;
+        }
+        Matcher matcher = RETRY_DELAY_PATTERN.matcher(message);
+        if (matcher.find()) {
+            return Duration.ofMillis((long) (Double.parseDouble(matcher.group(1)) * 1000));
+        }
+        return null;
+    }
+
+    /**
+     * 錯誤分類結果
+     *
+     * @param retryable  是否可重試
+     * @param throttled  是否為限流
+     * @param retryAfter 伺服器建議的等待時間（可能為 null）
+     */
+    record Failure(boolean retryable, boolean throttled, Duration retryAfter) {}
+}
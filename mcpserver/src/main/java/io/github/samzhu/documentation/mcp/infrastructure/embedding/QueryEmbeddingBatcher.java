@@ -0,0 +1,224 @@
+package io.github.samzhu.documentation.mcp.infrastructure.embedding;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 查詢嵌入微批次合併器
+ * <p>
+ * 位於請求排程器之前：同時到達的查詢文字先進入佇列，由分派執行緒收集
+ * 第一筆到達後 {@code window} 時間內（或達到 {@code maxBatchSize} 筆）的查詢，
+ * 以單一批次請求嵌入後再分別完成各呼叫端的 future。
+ * </p>
+ * <p>
+ * 多個 Agent 同時搜尋時，可將 N 次嵌入 HTTP 請求合併為一次，降低供應商請求數與尾端延遲，
+ * 並避免超過每分鐘請求配額。單一請求的額外延遲上限為 window。
+ * 批次請求於執行器上送出，分派執行緒立即收集下一個批次。
+ * </p>
+ * <p>
+ * 失敗處理：批次請求失敗（限流除外）時改為逐筆嵌入，單一無法嵌入的查詢不會拖累同批次的其他查詢；
+ * 執行器拒絕工作時該批次以例外結束，分派執行緒繼續運作；呼叫端最多等待 {@code timeout}。
+ * </p>
+ * <p>
+ * 指標：{@code embedding.query.batch.size}（每次請求的查詢數）、{@code embedding.query.batch.requests}。
+ * </p>
+ */
+public class QueryEmbeddingBatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryEmbeddingBatcher.class);
+
+    private final Function<List<String>, List<float[]>> batchEmbedder;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Duration timeout;
+    private final ExecutorService executor;
+    private final BlockingQueue<PendingQuery> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSizeSummary;
+    private final Counter requestCounter;
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    /**
+     * 等待嵌入的查詢
+     */
+    private record PendingQuery(String text, CompletableFuture<float[]> result) {
+    }
+
+    /**
+     * 建構子
+     *
+     * @param batchEmbedder  以單一請求嵌入一批查詢的函式（經由請求排程器）
+     * @param window         收集批次的時間窗（自第一筆查詢到達起算）
+     * @param maxBatchSize   單一批次的查詢數上限（Google GenAI 限制 100）
+     * @param timeout        呼叫端等待查詢向量的時間上限
+     * @param executor       送出批次請求的執行器
+     * @param meterRegistry  指標註冊表
+     */
+    public QueryEmbeddingBatcher(Function<List<String>, List<float[]>> batchEmbedder, Duration window, int maxBatchSize,
+                                 Duration timeout, ExecutorService executor, MeterRegistry meterRegistry) {
+        this.batchEmbedder = batchEmbedder;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timeout = timeout;
+        this.executor = executor;
+        this.batchSizeSummary = DistributionSummary.builder("embedding.query.batch.size")
+                .description("每次嵌入請求合併的查詢數")
+                .register(meterRegistry);
+        this.requestCounter = Counter.builder("embedding.query.batch.requests")
+                .description("送出的查詢嵌入批次請求數")
+                .register(meterRegistry);
+        this.dispatcher = Thread.ofVirtual().name("query-embedding-batcher").start(this::dispatchLoop);
+    }
+
+    /**
+     * 取得查詢向量（與同時到達的其他查詢合併為一次請求）
+     *
+     * @param text 查詢文字
+     * @return 查詢向量
+     */
+    public float[] embed(String text) {
+        if (closed) {
+            throw new IllegalStateException("Query embedding batcher is closed");
+        }
+        CompletableFuture<float[]> result = new CompletableFuture<>();
+        queue.add(new PendingQuery(text, result));
+        if (closed) {
+            // 與 close() 競爭：分派執行緒可能已結束並清空佇列，再清空一次避免永久等待
+            failPending(new IllegalStateException("Query embedding batcher is closed"));
+        }
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.completeExceptionally(e);
+            throw new IllegalStateException("Timed out after " + timeout.toMillis()
+                    + " ms waiting for query embedding", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for query embedding", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException("Query embedding failed", e.getCause());
+        }
+    }
+
+    /**
+     * 分派迴圈：等待第一筆查詢，於時間窗內收集後送出
+     */
+    private void dispatchLoop() {
+        List<PendingQuery> batch = List.of();
+        try {
+            while (!closed) {
+                batch = new ArrayList<>(maxBatchSize);
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    // 先取走已在佇列中的查詢，不等待
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingQuery next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+                batch = List.of();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 收集中的批次與佇列中的查詢皆以例外結束
+            IllegalStateException closedError = new IllegalStateException("Query embedding batcher is closed");
+            batch.forEach(pending -> pending.result().completeExceptionally(closedError));
+            failPending(closedError);
+        }
+    }
+
+    /**
+     * 將批次交給執行器；執行器拒絕（例如關閉中）時以例外結束該批次，分派迴圈繼續運作
+     */
+    private void dispatch(List<PendingQuery> batch) {
+        try {
+            executor.execute(() -> embedBatch(batch));
+        } catch (RuntimeException e) {
+            log.warn("無法送出查詢嵌入批次（{} 筆）: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 以單一請求嵌入整個批次並完成各呼叫端的 future
+     * <p>
+     * 批次失敗時（限流與 Error 除外）改為逐筆嵌入；任何 Throwable 都會結束對應的 future。
+     * </p>
+     */
+    private void embedBatch(List<PendingQuery> batch) {
+        batchSizeSummary.record(batch.size());
+        requestCounter.increment();
+        try {
+            List<float[]> vectors = embedTexts(batch.stream().map(PendingQuery::text).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(vectors.get(i));
+            }
+        } catch (Throwable t) {
+            if (batch.size() > 1 && t instanceof RuntimeException && !EmbeddingScheduler.classify(t).throttled()) {
+                log.warn("查詢嵌入批次失敗（{} 筆），改為逐筆嵌入: {}", batch.size(), t.getMessage());
+                batch.forEach(this::embedSingle);
+            } else {
+                log.warn("查詢嵌入批次失敗（{} 筆）: {}", batch.size(), t.getMessage());
+                batch.forEach(pending -> pending.result().completeExceptionally(t));
+            }
+        }
+    }
+
+    private void embedSingle(PendingQuery pending) {
+        requestCounter.increment();
+        try {
+            pending.result().complete(embedTexts(List.of(pending.text())).getFirst());
+        } catch (Throwable t) {
+            pending.result().completeExceptionally(t);
+        }
+    }
+
+    private List<float[]> embedTexts(List<String> texts) {
+        List<float[]> vectors = batchEmbedder.apply(texts);
+        if (vectors.size() != texts.size()) {
+            throw new IllegalStateException("Embedding count " + vectors.size()
+                    + " does not match batch size " + texts.size());
+        }
+        return vectors;
+    }
+
+    private void failPending(RuntimeException cause) {
+        List<PendingQuery> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending -> pending.result().completeExceptionally(cause));
+    }
+
+    /**
+     * 停止分派執行緒，佇列中尚未送出的查詢以例外結束
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+    }
+}
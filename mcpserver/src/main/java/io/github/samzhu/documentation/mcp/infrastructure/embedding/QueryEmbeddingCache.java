@@ -0,0 +1,169 @@
+package io.github.samzhu.documentation.mcp.infrastructure.embedding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * 查詢向量快取
+ * <p>
+ * 以（模型, 正規化查詢文字）為鍵快取查詢向量，上限筆數與存活時間由配置決定：
+ * </p>
+ * <ul>
+ *   <li>查詢文字以 NFKC 正規化、去除首尾空白並合併連續空白；嵌入的是正規化後的文字，快取結果與實際嵌入一致</li>
+ *   <li>相同鍵同時未命中時只送出一次嵌入請求（singleflight），其餘呼叫端最多等待 waitTimeout 取得同一個結果</li>
+ *   <li>嵌入失敗（含 Error）不會被快取，等待中的呼叫端收到相同的失敗，下一次呼叫會重新請求</li>
+ * </ul>
+ * <p>
+ * 指標：{@code embedding.query.cache}（tag result = hit / miss / coalesced）、
+ * {@code embedding.query.cache.size}、{@code embedding.query.latency}（未命中時的嵌入延遲）。
+ * </p>
+ * <p>
+ * 回傳的向量為共用實例，呼叫端不可修改。
+ * </p>
+ */
+public class QueryEmbeddingCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Function<String, float[]> embedder;
+    private final String model;
+    private final boolean enabled;
+    private final Duration waitTimeout;
+    private final Cache<Key, CompletableFuture<float[]>> cache;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter coalescedCounter;
+    private final Timer latencyTimer;
+
+    /**
+     * 快取鍵
+     *
+     * @param model 模型識別（名稱與維度）
+     * @param text  正規化後的查詢文字
+     */
+    private record Key(String model, String text) {
+    }
+
+    /**
+     * 建構子
+     *
+     * @param embedder      未命中時的嵌入函式
+     * @param model         模型識別（名稱與維度），模型變更時不會誤用舊向量
+     * @param enabled       是否啟用快取（停用時每次皆呼叫嵌入函式）
+     * @param maxSize       最多快取的查詢數
+     * @param ttl           快取存活時間（自寫入起算）
+     * @param waitTimeout   等待其他呼叫端進行中的嵌入請求的時間上限
+     * @param meterRegistry 指標註冊表
+     */
+    public QueryEmbeddingCache(Function<String, float[]> embedder, String model, boolean enabled,
+                               long maxSize, Duration ttl, Duration waitTimeout, MeterRegistry meterRegistry) {
+        this.embedder = embedder;
+        this.model = model;
+        this.enabled = enabled;
+        this.waitTimeout = waitTimeout;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.hitCounter = resultCounter(meterRegistry, "hit");
+        this.missCounter = resultCounter(meterRegistry, "miss");
+        this.coalescedCounter = resultCounter(meterRegistry, "coalesced");
+        Gauge.builder("embedding.query.cache.size", cache, Cache::estimatedSize)
+                .description("查詢向量快取筆數")
+                .register(meterRegistry);
+        this.latencyTimer = Timer.builder("embedding.query.latency")
+                .description("查詢向量嵌入延遲（未命中快取時）")
+                .register(meterRegistry);
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("embedding.query.cache")
+                .description("查詢向量快取查詢次數")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 取得查詢向量
+     *
+     * @param query 查詢文字
+     * @return 查詢向量（共用實例，不可修改）
+     */
+    public float[] embed(String query) {
+        String text = normalize(query);
+        if (!enabled) {
+            return latencyTimer.record(() -> embedder.apply(text));
+        }
+
+        Key key = new Key(model, text);
+        CompletableFuture<float[]> created = new CompletableFuture<>();
+        CompletableFuture<float[]> existing = cache.asMap().putIfAbsent(key, created);
+        if (existing != null) {
+            // 已完成為命中；尚未完成代表其他呼叫端正在嵌入相同查詢，等待其結果
+            (existing.isDone() ? hitCounter : coalescedCounter).increment();
+            return await(existing);
+        }
+
+        missCounter.increment();
+        try {
+            float[] vector = latencyTimer.record(() -> embedder.apply(text));
+            created.complete(vector);
+            return vector;
+        } catch (Throwable t) {
+            // 失敗不快取（含 Error）：先移除再通知等待中的呼叫端，避免等待者永久阻塞
+            cache.asMap().remove(key, created);
+            created.completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    /**
+     * 目前快取筆數（估計值）
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 正規化查詢文字
+     */
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(normalized.strip()).replaceAll(" ");
+    }
+
+    /**
+     * 等待進行中的嵌入請求（可被中斷，以配合混合搜尋的逾時取消；最多等待 waitTimeout）
+     */
+    private float[] await(CompletableFuture<float[]> future) {
+        try {
+            return future.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out after " + waitTimeout.toMillis()
+                    + " ms waiting for query embedding", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for query embedding", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException("Query embedding failed", e.getCause());
+        }
+    }
+}
@@ -3,124 +3,258 @@ package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
 import org.springframework.ai.vectorstore.filter.Filter;
 import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore.METADATA_CHUNK_INDEX;
+import static io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore.METADATA_DOCUMENT_ID;
+import static io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore.METADATA_DOCUMENT_PATH;
+import static io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore.METADATA_DOCUMENT_TITLE;
+import static io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore.METADATA_LIBRARY_ID;
+import static io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore.METADATA_TOKEN_COUNT;
+import static io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore.METADATA_VERSION_ID;
 
 /**
  * Filter Expression 轉換器
  * <p>
- * 將 Spring AI 的 Filter.Expression 轉換為 PostgreSQL JSONPath 格式。
+ * 將 Spring AI 的 Filter.Expression 轉換為 PostgreSQL WHERE 條件（document_chunks 別名為 dc）：
+ * </p>
+ * <ul>
+ *   <li>versionId、libraryId、documentId、chunkIndex、tokenCount 轉為欄位條件，可使用 B-tree 索引</li>
+ *   <li>documentTitle、documentPath 轉為 documents 表的關聯子查詢</li>
+ *   <li>其餘鍵值沿用 JSONPath 格式查詢 metadata JSONB</li>
+ * </ul>
+ * <p>
+ * 查詢應使用 {@link #convertToSqlFilter(Filter.Expression)}：值一律以綁定參數傳遞，
+ * 同一結構的過濾條件產生相同的 SQL 文字，pgjdbc 可重用伺服器端預備語句與查詢計畫。
+ * {@link #convertExpression(Filter.Expression)} 將值內嵌為字面值，僅供記錄與除錯。
+ * </p>
+ * <p>
  * 參考 Spring AI PgVectorFilterExpressionConverter 實作。
  * </p>
  */
 public class DocumentChunkFilterExpressionConverter implements FilterExpressionConverter {
 
+    // 由欄位提供的 metadata 鍵 → SQL 運算式
+    private static final Map<String, String> COLUMN_KEYS = Map.of(
+            METADATA_VERSION_ID, "dc.version_id",
+            METADATA_LIBRARY_ID, "dc.library_id",
+            METADATA_DOCUMENT_ID, "dc.document_id",
+            METADATA_CHUNK_INDEX, "dc.chunk_index",
+            METADATA_TOKEN_COUNT, "dc.token_count",
+            METADATA_DOCUMENT_TITLE, "(SELECT d.title FROM documents d WHERE d.id = dc.document_id)",
+            METADATA_DOCUMENT_PATH, "(SELECT d.path FROM documents d WHERE d.id = dc.document_id)"
+    );
+
+    /**
+     * 參數化的 SQL 過濾條件
+     *
+     * @param sql    WHERE 條件（以 ? 表示參數，空字串表示無條件）
+     * @param params 依序綁定的參數值
+     */
+    public record SqlFilter(String sql, List<Object> params) {
+
+        public static final SqlFilter NONE = new SqlFilter("", List.of());
+
+        public boolean isEmpty() {
+            return sql.isEmpty();
+        }
+    }
+
+    /**
+     * 轉換為內嵌字面值的 SQL 條件（僅供記錄與除錯）
+     */
     @Override
     public String convertExpression(Filter.Expression expression) {
         if (expression == null) {
             return "";
         }
-        return doConvert(expression);
+        return doConvert(expression, null);
     }
 
     /**
-     * 遞迴轉換 Filter Expression 為 JSONPath 格式
+     * 轉換為參數化的 SQL 條件
+     * <p>
+     * 欄位鍵的值、IN 清單（以陣列參數搭配 {@code = ANY(?)}）與 JSONPath 皆為綁定參數，
+     * SQL 文字只取決於過濾條件的結構，不因版本 ID 等值而改變。
+     * </p>
+     *
+     * @param expression 過濾條件（可為 null）
+     * @return 參數化條件；無條件時回傳 {@link SqlFilter#NONE}
      */
-    private String doConvert(Filter.Expression expression) {
+    public SqlFilter convertToSqlFilter(Filter.Expression expression) {
+        if (expression == null) {
+            return SqlFilter.NONE;
+        }
+        List<Object> params = new ArrayList<>();
+        return new SqlFilter(doConvert(expression, params), List.copyOf(params));
+    }
+
+    /**
+     * 遞迴轉換運算元（Expression 或括號群組）
+     */
+    private String doConvert(Filter.Operand operand, List<Object> params) {
+        if (operand instanceof Filter.Group group) {
+            return "(" + doConvert(group.content(), params) + ")";
+        }
+        return doConvert((Filter.Expression) operand, params);
+    }
+
+    /**
+     * 遞迴轉換 Filter Expression 為 SQL 條件
+     * <p>
+     * params 為 null 時內嵌字面值，否則以 ? 表示並依序加入 params。
+     * </p>
+     */
+    private String doConvert(Filter.Expression expression, List<Object> params) {
         return switch (expression.type()) {
-            case AND -> {
-                String left = doConvert((Filter.Expression) expression.left());
-                String right = doConvert((Filter.Expression) expression.right());
-                yield left + " && " + right;
-            }
-            case OR -> {
-                String left = doConvert((Filter.Expression) expression.left());
-                String right = doConvert((Filter.Expression) expression.right());
-                yield left + " || " + right;
-            }
-            case NOT -> {
-                String operand = doConvert((Filter.Expression) expression.left());
-                yield "!(" + operand + ")";
-            }
-            case EQ -> convertComparison(expression, "==");
-            case NE -> convertComparison(expression, "!=");
-            case GT -> convertComparison(expression, ">");
-            case GTE -> convertComparison(expression, ">=");
-            case LT -> convertComparison(expression, "<");
-            case LTE -> convertComparison(expression, "<=");
-            case IN -> convertIn(expression);
-            case NIN -> "!(" + convertIn(expression) + ")";
-            case ISNULL -> convertIsNull(expression, true);
-            case ISNOTNULL -> convertIsNull(expression, false);
+            case AND -> "(" + doConvert(expression.left(), params) + " AND " + doConvert(expression.right(), params) + ")";
+            case OR -> "(" + doConvert(expression.left(), params) + " OR " + doConvert(expression.right(), params) + ")";
+            case NOT -> "NOT (" + doConvert(expression.left(), params) + ")";
+            case EQ -> convertComparison(expression, "=", "==", params);
+            case NE -> convertComparison(expression, "<>", "!=", params);
+            case GT -> convertComparison(expression, ">", ">", params);
+            case GTE -> convertComparison(expression, ">=", ">=", params);
+            case LT -> convertComparison(expression, "<", "<", params);
+            case LTE -> convertComparison(expression, "<=", "<=", params);
+            case IN -> convertIn(expression, params);
+            case NIN -> "NOT (" + convertIn(expression, params) + ")";
+            case ISNULL -> convertIsNull(expression, true, params);
+            case ISNOTNULL -> convertIsNull(expression, false, params);
         };
     }
 
     /**
-     * 轉換比較運算 - 使用 JSONPath 格式 $.key == "value"
+     * 轉換比較運算
+     * <p>
+     * 欄位鍵：dc.version_id = ?；其餘鍵：metadata::jsonb @@ ?::jsonpath（參數為 $.key == "value"）
+     * </p>
      */
-    private String convertComparison(Filter.Expression expression, String operator) {
-        Filter.Key key = (Filter.Key) expression.left();
-        Filter.Value value = (Filter.Value) expression.right();
-        String keyName = key.key();
-        Object val = value.value();
+    private String convertComparison(Filter.Expression expression, String sqlOperator, String jsonPathOperator,
+                                     List<Object> params) {
+        String keyName = ((Filter.Key) expression.left()).key();
+        Object val = ((Filter.Value) expression.right()).value();
 
-        // JSONPath 格式：$.key == "value" 或 $.key == 123
-        if (val instanceof String) {
-            return String.format("$.%s %s \"%s\"", keyName, operator, escapeJsonPath(val.toString()));
-        } else {
-            return String.format("$.%s %s %s", keyName, operator, val);
+        String column = COLUMN_KEYS.get(keyName);
+        if (column != null) {
+            return column + " " + sqlOperator + " " + bind(val, params);
         }
+        return jsonPathPredicate(jsonPathComparison(keyName, jsonPathOperator, val), params);
     }
 
     /**
-     * 轉換 IN 運算 - 使用多個 OR 條件
-     * 格式：($.key == "val1" || $.key == "val2")
+     * 轉換 IN 運算
+     * <p>
+     * 欄位鍵：dc.version_id = ANY(?)（陣列參數，清單長度不影響 SQL 文字）；其餘鍵：多個 JSONPath OR 條件
+     * </p>
      */
-    private String convertIn(Filter.Expression expression) {
-        Filter.Key key = (Filter.Key) expression.left();
-        Filter.Value value = (Filter.Value) expression.right();
-        String keyName = key.key();
-        Object val = value.value();
-
-        if (val instanceof List<?> list) {
-            String conditions = list.stream()
-                    .map(v -> {
-                        if (v instanceof String) {
-                            return String.format("$.%s == \"%s\"", keyName, escapeJsonPath(v.toString()));
-                        } else {
-                            return String.format("$.%s == %s", keyName, v);
-                        }
-                    })
-                    .reduce((a, b) -> a + " || " + b)
-                    .orElse("true");
-            return "(" + conditions + ")";
+    private String convertIn(Filter.Expression expression, List<Object> params) {
+        String keyName = ((Filter.Key) expression.left()).key();
+        Object val = ((Filter.Value) expression.right()).value();
+        List<?> values = val instanceof List<?> list ? list : List.of(val);
+        if (values.isEmpty()) {
+            return "FALSE";
         }
 
-        // 單一值時視為 EQ
-        if (val instanceof String) {
-            return String.format("$.%s == \"%s\"", keyName, escapeJsonPath(val.toString()));
-        } else {
-            return String.format("$.%s == %s", keyName, val);
+        String column = COLUMN_KEYS.get(keyName);
+        if (column != null) {
+            if (params == null) {
+                return column + " IN (" + values.stream()
+                        .map(DocumentChunkFilterExpressionConverter::sqlLiteral)
+                        .collect(Collectors.joining(", ")) + ")";
+            }
+            params.add(toArray(values));
+            return column + " = ANY(?)";
         }
+
+        String conditions = values.stream()
+                .map(v -> jsonPathComparison(keyName, "==", v))
+                .collect(Collectors.joining(" || "));
+        return jsonPathPredicate("(" + conditions + ")", params);
     }
 
     /**
      * 轉換 IS NULL / IS NOT NULL
      */
-    private String convertIsNull(Filter.Expression expression, boolean isNull) {
-        Filter.Key key = (Filter.Key) expression.left();
-        String keyName = key.key();
+    private String convertIsNull(Filter.Expression expression, boolean isNull, List<Object> params) {
+        String keyName = ((Filter.Key) expression.left()).key();
+
+        String column = COLUMN_KEYS.get(keyName);
+        if (column != null) {
+            return column + (isNull ? " IS NULL" : " IS NOT NULL");
+        }
         // JSONPath 的 exists() 函數
-        if (isNull) {
-            return "!(exists($.\"" + keyName + "\"))";
-        } else {
-            return "exists($.\"" + keyName + "\")";
+        String exists = "exists($.\"" + escapeJsonPath(keyName) + "\")";
+        return jsonPathPredicate(isNull ? "!(" + exists + ")" : exists, params);
+    }
+
+    /**
+     * JSONPath 比較式 - 格式：$.key == "value" 或 $.key == 123
+     */
+    private static String jsonPathComparison(String keyName, String operator, Object val) {
+        if (val instanceof String) {
+            return String.format("$.%s %s \"%s\"", keyName, operator, escapeJsonPath(val.toString()));
         }
+        return String.format("$.%s %s %s", keyName, operator, val);
+    }
+
+    /**
+     * 將 JSONPath 條件包成 SQL 條件
+     */
+    private static String jsonPathPredicate(String jsonPath, List<Object> params) {
+        if (params == null) {
+            return "dc.metadata::jsonb @@ '" + escapeSqlLiteral(jsonPath) + "'::jsonpath";
+        }
+        params.add(jsonPath);
+        return "dc.metadata::jsonb @@ ?::jsonpath";
+    }
+
+    /**
+     * 綁定參數或內嵌字面值
+     */
+    private static String bind(Object val, List<Object> params) {
+        if (params == null) {
+            return sqlLiteral(val);
+        }
+        params.add(val);
+        return "?";
+    }
+
+    /**
+     * 將 IN 清單轉為陣列參數（整數清單為 bigint[]，其餘為 text[]）
+     */
+    private static Object toArray(List<?> values) {
+        boolean integral = values.stream()
+                .allMatch(v -> v instanceof Integer || v instanceof Long || v instanceof Short);
+        if (integral) {
+            return values.stream().map(v -> ((Number) v).longValue()).toArray(Long[]::new);
+        }
+        return values.stream().map(String::valueOf).toArray(String[]::new);
+    }
+
+    /**
+     * 轉換為 SQL 字面值（字串加上單引號並轉義，數值與布林值原樣輸出）
+     */
+    private static String sqlLiteral(Object val) {
+        if (val instanceof Number || val instanceof Boolean) {
+            return val.toString();
+        }
+        return "'" + escapeSqlLiteral(String.valueOf(val)) + "'";
+    }
+
+    /**
+     * 轉義 SQL 字串字面值中的單引號
+     */
+    private static String escapeSqlLiteral(String str) {
+        return str.replace("'", "''");
     }
 
     /**
      * 轉義 JSONPath 字串中的特殊字元
      */
-    private String escapeJsonPath(String str) {
+    private static String escapeJsonPath(String str) {
         if (str == null) return "";
         return str.replace("\\", "\\\\")
                   .replace("\"", "\\\"");
@@ -2,25 +2,31 @@ package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.pgvector.PGvector;
+import io.github.samzhu.documentation.mcp.config.VectorIndexProperties;
+import io.github.samzhu.documentation.mcp.infrastructure.embedding.QueryEmbeddingCache;
+import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkFilterExpressionConverter.SqlFilter;
+import io.github.samzhu.documentation.mcp.repository.ChunkSearchHit;
 import org.postgresql.util.PGobject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.document.DocumentMetadata;
-import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.Filter;
-import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * DocumentChunk VectorStore 唯讀實作
@@ -35,6 +41,7 @@ public class DocumentChunkVectorStore implements VectorStore {
 
     // Metadata 鍵名常數 - 用於 document_chunks.metadata JSONB 欄位
     public static final String METADATA_VERSION_ID = "versionId";
+    public static final String METADATA_LIBRARY_ID = "libraryId";
     public static final String METADATA_DOCUMENT_ID = "documentId";
     public static final String METADATA_CHUNK_INDEX = "chunkIndex";
     public static final String METADATA_TOKEN_COUNT = "tokenCount";
@@ -42,40 +49,166 @@ public class DocumentChunkVectorStore implements VectorStore {
     public static final String METADATA_DOCUMENT_PATH = "documentPath";
 
     // 相似度搜尋 SQL - 使用餘弦距離 (<=>)
+    // 內層以 ORDER BY distance LIMIT 走 HNSW 索引；距離閾值放在外層過濾，避免迭代掃描為湊滿 topK 而掃過整個索引
+    // relaxed_order 迭代掃描的結果可能略為亂序，因此外層再排序一次
     // distance = 1 - similarity，所以 distance < threshold 等同於 similarity > (1 - threshold)
+    // 文件標題與路徑僅對最終 topK 筆結果關聯 documents 取得
+    // 結果不需要向量本身，不選取 embedding 欄位；查詢向量以 float[] 二進位傳送後轉型為 vector
+    // 以位置參照文件內容的區塊，僅對最終結果以 substring 還原文字（PostgreSQL substring 以字元計，從 1 開始）
     private static final String SQL_SIMILARITY_SEARCH = """
-        SELECT dc.id, dc.document_id, dc.chunk_index, dc.content,
-               dc.embedding, dc.token_count, dc.metadata,
-               dc.embedding <=> ? AS distance
-        FROM document_chunks dc
-        WHERE dc.embedding IS NOT NULL
-        %s
-        AND dc.embedding <=> ? < ?
-        ORDER BY distance
-        LIMIT ?
+        WITH nearest AS MATERIALIZED (
+            SELECT dc.id, dc.document_id, dc.version_id, dc.library_id, dc.chunk_index, dc.content,
+                   dc.start_offset, dc.end_offset, dc.token_count, dc.metadata,
+                   dc.embedding <=> ?::vector AS distance
+            FROM document_chunks dc
+            WHERE dc.embedding IS NOT NULL%s
+            ORDER BY distance
+            LIMIT ?
+        )
+        SELECT n.id, n.document_id, n.version_id, n.library_id, n.chunk_index,
+               COALESCE(n.content, substring(d.content FROM n.start_offset + 1 FOR n.end_offset - n.start_offset))
+                   AS content,
+               n.token_count, n.metadata, n.distance, d.title AS document_title, d.path AS document_path
+        FROM nearest n
+        JOIN documents d ON d.id = n.document_id
+        WHERE n.distance < ?
+        ORDER BY n.distance
+        """;
+
+    // 搜尋結果投影 - 與 SQL_SIMILARITY_SEARCH 相同的 ANN 掃描，但只回傳組成搜尋結果所需的欄位
+    // 不選取 version_id / library_id / token_count / metadata，省去每列 JSONB 解析與 Map 建立
+    private static final String SQL_SIMILARITY_HITS = """
+        WITH nearest AS MATERIALIZED (
+            SELECT dc.id, dc.document_id, dc.chunk_index, dc.content, dc.start_offset, dc.end_offset,
+                   dc.embedding <=> ?::vector AS distance
+            FROM document_chunks dc
+            WHERE dc.embedding IS NOT NULL%s
+            ORDER BY distance
+            LIMIT ?
+        )
+        SELECT n.id, n.document_id, n.chunk_index, d.title, d.path,
+               COALESCE(n.content, substring(d.content FROM n.start_offset + 1 FOR n.end_offset - n.start_offset))
+                   AS content,
+               1 - n.distance AS score
+        FROM nearest n
+        JOIN documents d ON d.id = n.document_id
+        WHERE n.distance < ?
+        ORDER BY n.distance
+        """;
+
+    // 單一語句混合搜尋 - 關鍵字排名、ANN 排名、加權 RRF 融合與結果投影在同一次往返完成
+    // nearest 與 SQL_SIMILARITY_SEARCH 相同（內層 ORDER BY distance LIMIT 走 HNSW），距離閾值於排名前過濾
+    // keyword 以 search_vector（GIN 索引）篩選後依 ts_rank 排名
+    // fused 以 FULL OUTER JOIN 合併兩個排名：score = alpha / (K + keyword_rank) + (1 - alpha) / (K + semantic_rank)
+    // 最終結果才關聯 documents 與還原 offsets 模式的區塊文字；帶入 version_id 使分區表只掃描單一分區
+    // 版本條件（%1$s）：單一版本為 version_id = ?，跨函式庫搜尋為 version_id = ANY(?)，兩個排名皆在所有版本間全域排序
+    private static final String SQL_HYBRID_SEARCH_TEMPLATE = """
+        WITH q AS (
+            SELECT plainto_tsquery('english', ?) AS query
+        ),
+        nearest AS MATERIALIZED (
+            SELECT dc.id, dc.embedding <=> ?::vector AS distance
+            FROM document_chunks dc
+            WHERE dc.embedding IS NOT NULL AND dc.%1$s
+            ORDER BY distance
+            LIMIT ?
+        ),
+        semantic AS (
+            SELECT n.id, row_number() OVER (ORDER BY n.distance) AS rank
+            FROM nearest n
+            WHERE n.distance < ?
+        ),
+        keyword AS (
+            SELECT dc.id, row_number() OVER (ORDER BY ts_rank(dc.search_vector, q.query) DESC) AS rank
+            FROM document_chunks dc, q
+            WHERE dc.%1$s AND dc.search_vector @@ q.query
+            ORDER BY rank
+            LIMIT ?
+        ),
+        fused AS (
+            SELECT COALESCE(s.id, k.id) AS id,
+                   COALESCE(? / (? + k.rank), 0) + COALESCE((1 - ?) / (? + s.rank), 0) AS score
+            FROM semantic s
+            FULL OUTER JOIN keyword k ON k.id = s.id
+            ORDER BY score DESC
+            LIMIT ?
+        )
+        SELECT dc.id, dc.document_id, dc.chunk_index, d.title, d.path,
+               COALESCE(dc.content, substring(d.content FROM dc.start_offset + 1 FOR dc.end_offset - dc.start_offset))
+                   AS content,
+               f.score
+        FROM fused f
+        JOIN document_chunks dc ON dc.id = f.id AND dc.%1$s
+        JOIN documents d ON d.id = dc.document_id
+        ORDER BY f.score DESC
+        """;
+
+    private static final String SQL_HYBRID_SEARCH = SQL_HYBRID_SEARCH_TEMPLATE.formatted("version_id = ?");
+    private static final String SQL_HYBRID_SEARCH_VERSIONS = SQL_HYBRID_SEARCH_TEMPLATE.formatted("version_id = ANY(?)");
+
+    // 常駐 HNSW 索引命中區塊的結果投影 - 區塊 ID 與相似度以陣列參數傳入，依傳入順序回傳
+    // 帶入 version_id 使分區表只掃描相關分區；索引建立後已刪除的區塊不會出現在結果中
+    private static final String SQL_HITS_BY_IDS = """
+        SELECT dc.id, dc.document_id, dc.chunk_index, d.title, d.path,
+               COALESCE(dc.content, substring(d.content FROM dc.start_offset + 1 FOR dc.end_offset - dc.start_offset))
+                   AS content,
+               r.score
+        FROM unnest(?::text[], ?::float8[]) WITH ORDINALITY AS r(id, score, ord)
+        JOIN document_chunks dc ON dc.id = r.id AND dc.version_id = ANY(?)
+        JOIN documents d ON d.id = dc.document_id
+        ORDER BY r.ord
+        """;
+
+    private static final RowMapper<ChunkSearchHit> CHUNK_HIT_MAPPER = (rs, rowNum) -> new ChunkSearchHit(
+            rs.getString("id"),
+            rs.getString("document_id"),
+            rs.getInt("chunk_index"),
+            rs.getString("title"),
+            rs.getString("path"),
+            rs.getString("content"),
+            rs.getDouble("score"));
+
+    // HNSW 查詢參數，僅在目前交易內生效（set_config 第三個參數 is_local = true）
+    private static final String SQL_SET_SEARCH_PARAMS = """
+        SELECT set_config('hnsw.ef_search', ?, true),
+               set_config('hnsw.iterative_scan', ?, true),
+               set_config('hnsw.max_scan_tuples', ?, true)
         """;
 
     private final JdbcTemplate jdbcTemplate;
-    private final EmbeddingModel embeddingModel;
-    private final FilterExpressionConverter filterExpressionConverter;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final VectorIndexProperties indexProperties;
+    private final boolean hnswEnabled;
+    private final DocumentChunkFilterExpressionConverter filterExpressionConverter;
     private final DocumentRowMapper documentRowMapper;
+    private final TransactionTemplate searchTransaction;
 
     /**
      * 建構子
      *
      * @param jdbcTemplate   JDBC 操作模板
-     * @param embeddingModel 嵌入模型（用於生成查詢向量）
+     * @param queryEmbeddingCache 查詢向量快取（用於取得查詢向量）
      * @param objectMapper   JSON 序列化工具
      * @param dimensions     向量維度（用於日誌紀錄）
+     * @param indexProperties 向量索引查詢參數（HNSW）
+     * @param hnswEnabled    是否使用 HNSW 索引（決定是否設定 hnsw.* 查詢參數）
+     * @param transactionManager 交易管理器（HNSW 查詢參數與查詢的短交易）
      */
     public DocumentChunkVectorStore(JdbcTemplate jdbcTemplate,
-                                     EmbeddingModel embeddingModel,
+                                     QueryEmbeddingCache queryEmbeddingCache,
                                      ObjectMapper objectMapper,
-                                     int dimensions) {
+                                     int dimensions,
+                                     VectorIndexProperties indexProperties,
+                                     boolean hnswEnabled,
+                                     PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
-        this.embeddingModel = embeddingModel;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.indexProperties = indexProperties;
+        this.hnswEnabled = hnswEnabled;
         this.filterExpressionConverter = new DocumentChunkFilterExpressionConverter();
         this.documentRowMapper = new DocumentRowMapper(objectMapper);
+        this.searchTransaction = new TransactionTemplate(transactionManager);
+        this.searchTransaction.setReadOnly(true);
 
         log.info("初始化 DocumentChunkVectorStore（唯讀），向量維度: {}", dimensions);
     }
@@ -109,6 +242,7 @@ public class DocumentChunkVectorStore implements VectorStore {
      * <p>
      * 使用 pgvector 的餘弦距離進行相似度搜尋。
      * 支援透過 filterExpression 過濾特定 versionId 的文件。
+     * 使用 HNSW 索引時，於同一交易內設定 hnsw.ef_search 與迭代掃描參數。
      * </p>
      *
      * @param request 搜尋請求（包含查詢文字、topK、similarityThreshold、filterExpression）
@@ -123,38 +257,196 @@ public class DocumentChunkVectorStore implements VectorStore {
         log.debug("執行語意搜尋，查詢: {}, topK: {}, threshold: {}",
                 request.getQuery(), request.getTopK(), request.getSimilarityThreshold());
 
-        // 將查詢文字轉換為向量
-        float[] queryEmbedding = embeddingModel.embed(request.getQuery());
-        PGvector queryVector = new PGvector(queryEmbedding);
+        List<Document> results = query(request, DocumentChunkVectorStore::similaritySql,
+                documentRowMapper);
 
-        // 處理過濾條件 - 使用 JSONPath 格式
-        String jsonPathFilter = "";
-        if (request.getFilterExpression() != null) {
-            String nativeFilterExpression = filterExpressionConverter.convertExpression(request.getFilterExpression());
-            if (StringUtils.hasText(nativeFilterExpression)) {
-                jsonPathFilter = " AND metadata::jsonb @@ '" + nativeFilterExpression + "'::jsonpath ";
-            }
+        log.debug("語意搜尋完成，找到 {} 個結果", results.size());
+        return results;
+    }
+
+    /**
+     * 向量相似度搜尋（搜尋結果投影）
+     * <p>
+     * 與 {@link #similaritySearch(SearchRequest)} 相同的查詢與過濾條件，
+     * 但以單一 JOIN 取得文件標題與路徑，直接回傳 {@link ChunkSearchHit}，
+     * 呼叫端不需再載入 documents 實體，也不建立 Spring AI Document 與 metadata Map。
+     * </p>
+     *
+     * @param request 搜尋請求（包含查詢文字、topK、similarityThreshold、filterExpression）
+     * @return 相似度最高的區塊（score 為相似度）
+     */
+    public List<ChunkSearchHit> similaritySearchHits(SearchRequest request) {
+        if (request.getQuery() == null || request.getQuery().isBlank()) {
+            return List.of();
         }
 
+        log.debug("執行語意搜尋（結果投影），查詢: {}, topK: {}, threshold: {}",
+                request.getQuery(), request.getTopK(), request.getSimilarityThreshold());
+
+        return query(request, DocumentChunkVectorStore::similarityHitsSql, CHUNK_HIT_MAPPER);
+    }
+
+    /**
+     * 混合搜尋（單一 SQL 語句）
+     * <p>
+     * 查詢向量以參數傳入，關鍵字與語意兩個排名在資料庫內以加權 RRF 融合並直接回傳結果投影，
+     * 取代「全文檢索 → 語意搜尋 → 應用程式內融合」的多次往返。
+     * </p>
+     *
+     * @param versionId     版本 ID（TSID 格式）
+     * @param query         搜尋查詢（同時用於關鍵字與語意搜尋）
+     * @param fetchLimit    每個排名取得的候選數
+     * @param limit         融合後回傳筆數
+     * @param alpha         關鍵字搜尋權重（0-1）
+     * @param rrfK          RRF 常數 K
+     * @param minSimilarity 語意搜尋最低相似度閾值
+     * @return 依 RRF 分數排序的區塊（score 為未正規化的 RRF 分數）
+     */
+    public List<ChunkSearchHit> hybridSearchHits(String versionId, String query, int fetchLimit, int limit,
+                                                 double alpha, int rrfK, double minSimilarity) {
+        return hybridSearchHits(SQL_HYBRID_SEARCH, versionId, query, fetchLimit, limit, alpha, rrfK, minSimilarity);
+    }
+
+    /**
+     * 多版本混合搜尋（單一 SQL 語句，跨函式庫搜尋）
+     * <p>
+     * 查詢只嵌入一次，關鍵字與語意排名在所有版本間全域排序後融合，分數可直接比較。
+     * </p>
+     *
+     * @param versionIds    版本 ID 列表（TSID 格式）
+     * @param query         搜尋查詢（同時用於關鍵字與語意搜尋）
+     * @param fetchLimit    每個排名取得的候選數
+     * @param limit         融合後回傳筆數
+     * @param alpha         關鍵字搜尋權重（0-1）
+     * @param rrfK          RRF 常數 K
+     * @param minSimilarity 語意搜尋最低相似度閾值
+     * @return 依 RRF 分數排序的區塊（score 為未正規化的 RRF 分數）
+     */
+    public List<ChunkSearchHit> hybridSearchHits(List<String> versionIds, String query, int fetchLimit, int limit,
+                                                 double alpha, int rrfK, double minSimilarity) {
+        if (versionIds.size() == 1) {
+            return hybridSearchHits(versionIds.getFirst(), query, fetchLimit, limit, alpha, rrfK, minSimilarity);
+        }
+        return hybridSearchHits(SQL_HYBRID_SEARCH_VERSIONS, versionIds.toArray(String[]::new),
+                query, fetchLimit, limit, alpha, rrfK, minSimilarity);
+    }
+
+    /**
+     * 取得程序內向量索引命中區塊的結果投影
+     * <p>
+     * 近鄰搜尋已在程序內完成，PostgreSQL 只需依主鍵讀取最終 topK 筆的標題、路徑與區塊文字。
+     * 資料庫中已不存在的區塊不會出現在結果中，結果筆數少於 nearest 代表程序內索引已過期。
+     * </p>
+     *
+     * @param versionIds 版本 ID 列表（TSID 格式）
+     * @param nearest    依相似度排序的區塊 ID 與相似度
+     * @return 區塊（順序與 nearest 相同，score 為相似度）
+     */
+    public List<ChunkSearchHit> findHits(List<String> versionIds,
+                                         List<ScoredChunk> nearest) {
+        if (nearest.isEmpty()) {
+            return List.of();
+        }
+        String[] chunkIds = nearest.stream().map(ScoredChunk::chunkId).toArray(String[]::new);
+        double[] scores = nearest.stream().mapToDouble(ScoredChunk::similarity).toArray();
+        return jdbcTemplate.query(SQL_HITS_BY_IDS, CHUNK_HIT_MAPPER,
+                chunkIds, scores, versionIds.toArray(String[]::new));
+    }
+
+    /**
+     * 執行混合搜尋語句
+     *
+     * @param sql          單一版本或多版本語句
+     * @param versionParam 版本條件參數（版本 ID 或版本 ID 陣列）
+     */
+    private List<ChunkSearchHit> hybridSearchHits(String sql, Object versionParam, String query,
+                                                  int fetchLimit, int limit,
+                                                  double alpha, int rrfK, double minSimilarity) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+
+        // 於交易外取得查詢向量，等待嵌入供應商與批次時間窗時不佔用連線
+        float[] queryVector = queryEmbeddingCache.embed(query);
+
+        // 參數順序依 SQL 中出現的位置
+        return search(() -> jdbcTemplate.query(sql, CHUNK_HIT_MAPPER,
+                query,
+                queryVector, versionParam, fetchLimit,
+                1 - minSimilarity,
+                versionParam, fetchLimit,
+                alpha, rrfK, alpha, rrfK,
+                limit,
+                versionParam));
+    }
+
+    /**
+     * 執行向量相似度查詢
+     */
+    private <T> List<T> query(SearchRequest request, UnaryOperator<String> sqlBuilder, RowMapper<T> rowMapper) {
+        // 將查詢文字轉換為向量（經由查詢向量快取；於交易外取得，等待嵌入供應商時不佔用連線）
+        float[] queryVector = queryEmbeddingCache.embed(request.getQuery());
+
+        // 處理過濾條件 - versionId / libraryId 等轉為欄位條件，其餘為 JSONPath，值皆為綁定參數
+        SqlFilter filter = filterExpressionConverter.convertToSqlFilter(request.getFilterExpression());
+
         // 計算距離閾值：distance = 1 - similarity
         double distanceThreshold = 1 - request.getSimilarityThreshold();
         int topK = request.getTopK() > 0 ? request.getTopK() : 10;
 
-        // 建構 SQL
-        String sql = String.format(SQL_SIMILARITY_SEARCH, jsonPathFilter);
+        // 建構 SQL - 相同結構的過濾條件得到相同語句，pgjdbc 可重用伺服器端預備語句
+        String sql = sqlBuilder.apply(filter.sql());
 
-        // 執行查詢 - 直接傳遞 PGvector 物件
-        List<Document> results = jdbcTemplate.query(
-                sql,
-                documentRowMapper,
-                queryVector,      // 用於計算 distance
-                queryVector,      // 用於 WHERE 條件
-                distanceThreshold,
-                topK
-        );
+        // 參數順序：查詢向量、過濾條件參數、內層 LIMIT、外層距離閾值
+        List<Object> args = new ArrayList<>(filter.params().size() + 3);
+        args.add(queryVector);
+        args.addAll(filter.params());
+        args.add(topK);
+        args.add(distanceThreshold);
 
-        log.debug("語意搜尋完成，找到 {} 個結果", results.size());
-        return results;
+        // 執行查詢 - 查詢向量以 float[] 二進位傳送
+        return search(() -> jdbcTemplate.query(sql, rowMapper, args.toArray()));
+    }
+
+    /**
+     * 執行搜尋語句
+     * <p>
+     * 使用 HNSW 索引時於短暫的唯讀交易內先設定查詢參數（set_config 的 is_local 只在交易內有效），
+     * 交易只涵蓋參數設定與查詢本身；查詢向量須於呼叫前取得。
+     * </p>
+     */
+    private <T> List<T> search(Supplier<List<T>> statement) {
+        if (!hnswEnabled) {
+            return statement.get();
+        }
+        return searchTransaction.execute(status -> {
+            applySearchParams();
+            return statement.get();
+        });
+    }
+
+    /**
+     * 由參數化過濾條件組合相似度搜尋語句
+     */
+    private static String similaritySql(String filterSql) {
+        return SQL_SIMILARITY_SEARCH.formatted(filterSql.isEmpty() ? "" : " AND " + filterSql);
+    }
+
+    /**
+     * 由參數化過濾條件組合搜尋結果投影語句
+     */
+    private static String similarityHitsSql(String filterSql) {
+        return SQL_SIMILARITY_HITS.formatted(filterSql.isEmpty() ? "" : " AND " + filterSql);
+    }
+
+    /**
+     * 設定本次交易的 HNSW 查詢參數（須於 {@link #searchTransaction} 內呼叫）
+     */
+    private void applySearchParams() {
+        jdbcTemplate.queryForList(SQL_SET_SEARCH_PARAMS,
+                String.valueOf(indexProperties.efSearch()),
+                indexProperties.iterativeScan(),
+                String.valueOf(indexProperties.maxScanTuples()));
     }
 
     /**
@@ -169,6 +461,7 @@ public class DocumentChunkVectorStore implements VectorStore {
      * Document RowMapper
      * <p>
      * 將資料庫查詢結果轉換為 Spring AI Document 物件。
+     * 版本、函式庫、文件等資訊由欄位還原至 metadata。
      * </p>
      */
     private static class DocumentRowMapper implements RowMapper<Document> {
@@ -177,6 +470,13 @@ public class DocumentChunkVectorStore implements VectorStore {
         private static final String COLUMN_CONTENT = "content";
         private static final String COLUMN_METADATA = "metadata";
         private static final String COLUMN_DISTANCE = "distance";
+        private static final String COLUMN_VERSION_ID = "version_id";
+        private static final String COLUMN_LIBRARY_ID = "library_id";
+        private static final String COLUMN_DOCUMENT_ID = "document_id";
+        private static final String COLUMN_CHUNK_INDEX = "chunk_index";
+        private static final String COLUMN_TOKEN_COUNT = "token_count";
+        private static final String COLUMN_DOCUMENT_TITLE = "document_title";
+        private static final String COLUMN_DOCUMENT_PATH = "document_path";
 
         private final ObjectMapper objectMapper;
 
@@ -192,6 +492,13 @@ public class DocumentChunkVectorStore implements VectorStore {
             float distance = rs.getFloat(COLUMN_DISTANCE);
 
             Map<String, Object> metadata = toMap(pgMetadata);
+            putIfNotNull(metadata, METADATA_VERSION_ID, rs.getString(COLUMN_VERSION_ID));
+            putIfNotNull(metadata, METADATA_LIBRARY_ID, rs.getString(COLUMN_LIBRARY_ID));
+            putIfNotNull(metadata, METADATA_DOCUMENT_ID, rs.getString(COLUMN_DOCUMENT_ID));
+            putIfNotNull(metadata, METADATA_CHUNK_INDEX, rs.getObject(COLUMN_CHUNK_INDEX, Integer.class));
+            putIfNotNull(metadata, METADATA_TOKEN_COUNT, rs.getObject(COLUMN_TOKEN_COUNT, Integer.class));
+            putIfNotNull(metadata, METADATA_DOCUMENT_TITLE, rs.getString(COLUMN_DOCUMENT_TITLE));
+            putIfNotNull(metadata, METADATA_DOCUMENT_PATH, rs.getString(COLUMN_DOCUMENT_PATH));
             metadata.put(DocumentMetadata.DISTANCE.value(), distance);
 
             // 使用 Document.builder() 並設定 score = 1 - distance
@@ -203,11 +510,20 @@ public class DocumentChunkVectorStore implements VectorStore {
                     .build();
         }
 
+        private static void putIfNotNull(Map<String, Object> metadata, String key, Object value) {
+            if (value != null) {
+                metadata.put(key, value);
+            }
+        }
+
         /**
          * 將 PGobject 轉換為 Map
          */
         @SuppressWarnings("unchecked")
         private Map<String, Object> toMap(PGobject pgObject) {
+            if (pgObject == null || pgObject.getValue() == null) {
+                return new HashMap<>();
+            }
             String source = pgObject.getValue();
             try {
                 return (Map<String, Object>) objectMapper.readValue(source, Map.class);
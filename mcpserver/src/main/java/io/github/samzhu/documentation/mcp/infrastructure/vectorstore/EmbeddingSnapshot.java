@@ -0,0 +1,248 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 版本嵌入快照（不可變的記憶體映射檔）
+ * <p>
+ * 檔案格式（little-endian）：
+ * </p>
+ * <ul>
+ *   <li>標頭 {@value #HEADER_BYTES} 位元組：magic、格式版本、維度、區塊數、區塊 ID 欄寬</li>
+ *   <li>向量矩陣：區塊數 × 維度個 float32，每列為正規化後的單位向量</li>
+ *   <li>區塊 ID：區塊數 × 欄寬位元組（UTF-8，不足補 0）</li>
+ * </ul>
+ * <p>
+ * 整個檔案以 {@link FileChannel#map(FileChannel.MapMode, long, long, Arena)} 映射為 {@link MemorySegment}，
+ * 資料留在 page cache，不佔 JVM 堆積；映射由 {@link Arena#ofAuto()} 管理，快照不再被參考後由 GC 解除映射，
+ * 搜尋中的執行緒不受快照替換影響。
+ * </p>
+ */
+final class EmbeddingSnapshot {
+
+    static final String FILE_SUFFIX = ".snapshot";
+
+    private static final int MAGIC = 0x53565044; // "DPVS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+
+    private static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final String fingerprint;
+    private final MemorySegment segment;
+    private final int dimensions;
+    private final int count;
+    private final int idWidth;
+    private final long idsOffset;
+
+    private EmbeddingSnapshot(String fingerprint, MemorySegment segment,
+                              int dimensions, int count, int idWidth) {
+        this.fingerprint = fingerprint;
+        this.segment = segment;
+        this.dimensions = dimensions;
+        this.count = count;
+        this.idWidth = idWidth;
+        this.idsOffset = HEADER_BYTES + (long) count * dimensions * Float.BYTES;
+    }
+
+    /**
+     * 映射快照檔
+     *
+     * @param file        快照檔
+     * @param fingerprint 建立時的區塊指紋
+     * @return 快照
+     * @throws IOException 檔案無法讀取或格式不符
+     */
+    static EmbeddingSnapshot open(Path file, String fingerprint) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Embedding snapshot is truncated: " + file);
+            }
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, Arena.ofAuto());
+            if (segment.get(INT_LE, 0) != MAGIC || segment.get(INT_LE, 4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported embedding snapshot format: " + file);
+            }
+            int dimensions = segment.get(INT_LE, 8);
+            int count = segment.get(INT_LE, 12);
+            int idWidth = segment.get(INT_LE, 16);
+            long expectedSize = HEADER_BYTES + (long) count * dimensions * Float.BYTES + (long) count * idWidth;
+            if (size != expectedSize) {
+                throw new IOException("Embedding snapshot size mismatch: " + file
+                        + " (expected " + expectedSize + " bytes, found " + size + ")");
+            }
+            return new EmbeddingSnapshot(fingerprint, segment, dimensions, count, idWidth);
+        }
+    }
+
+    String fingerprint() {
+        return fingerprint;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * 精確掃描所有向量，將不低於門檻的結果加入 topK 收集器
+     *
+     * @param unitQuery 正規化後的查詢向量（維度需與快照相同）
+     * @param threshold 最低餘弦相似度
+     * @param collector topK 收集器（可跨多個快照共用）
+     */
+    void scan(float[] unitQuery, double threshold, TopK collector) {
+        long rowBytes = (long) dimensions * Float.BYTES;
+        long offset = HEADER_BYTES;
+        for (int row = 0; row < count; row++, offset += rowBytes) {
+            float similarity = VectorScorer.dot(unitQuery, segment, offset);
+            if (similarity >= threshold) {
+                collector.offer(this, row, similarity);
+            }
+        }
+    }
+
+    /**
+     * 讀取區塊 ID（只解碼最終結果，不在堆積中保留整份 ID 陣列）
+     */
+    String chunkId(int row) {
+        long offset = idsOffset + (long) row * idWidth;
+        int length = 0;
+        while (length < idWidth && segment.get(ValueLayout.JAVA_BYTE, offset + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 跨快照的 topK 收集器（最小堆積，只保留目前最高的 k 筆）
+     */
+    static final class TopK {
+
+        private record Candidate(EmbeddingSnapshot snapshot, int row, float similarity) {
+        }
+
+        private final int k;
+        private final PriorityQueue<Candidate> heap;
+
+        TopK(int k) {
+            this.k = k;
+            this.heap = new PriorityQueue<>(k + 1, (a, b) -> Float.compare(a.similarity(), b.similarity()));
+        }
+
+        void offer(EmbeddingSnapshot snapshot, int row, float similarity) {
+            if (heap.size() < k) {
+                heap.add(new Candidate(snapshot, row, similarity));
+            } else if (similarity > heap.peek().similarity()) {
+                heap.poll();
+                heap.add(new Candidate(snapshot, row, similarity));
+            }
+        }
+
+        /**
+         * @return 依相似度由高至低排序的結果
+         */
+        List<ScoredChunk> results() {
+            List<Candidate> candidates = new ArrayList<>(heap);
+            candidates.sort((a, b) -> Float.compare(b.similarity(), a.similarity()));
+            List<ScoredChunk> results = new ArrayList<>(candidates.size());
+            for (Candidate candidate : candidates) {
+                results.add(new ScoredChunk(candidate.snapshot().chunkId(candidate.row()), candidate.similarity()));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * 快照檔寫入器（依序加入向量，{@link #finish()} 後寫入區塊 ID 與標頭）
+     */
+    static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final List<String> chunkIds = new ArrayList<>();
+        private ByteBuffer rowBuffer;
+        private int dimensions;
+
+        Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.channel.position(HEADER_BYTES);
+        }
+
+        /**
+         * 加入一列向量
+         *
+         * @param chunkId    區塊 ID
+         * @param unitVector 正規化後的向量
+         */
+        void add(String chunkId, float[] unitVector) throws IOException {
+            if (rowBuffer == null) {
+                dimensions = unitVector.length;
+                rowBuffer = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            } else if (unitVector.length != dimensions) {
+                throw new IllegalStateException("Chunk " + chunkId + " has " + unitVector.length
+                        + " dimensions, expected " + dimensions);
+            }
+            rowBuffer.clear();
+            rowBuffer.asFloatBuffer().put(unitVector);
+            writeFully(rowBuffer);
+            chunkIds.add(chunkId);
+        }
+
+        /**
+         * 寫入區塊 ID 與標頭並同步至磁碟
+         *
+         * @return 已寫入的區塊數
+         */
+        int finish() throws IOException {
+            List<byte[]> encoded = chunkIds.stream().map(id -> id.getBytes(StandardCharsets.UTF_8)).toList();
+            int idWidth = encoded.stream().mapToInt(bytes -> bytes.length).max().orElse(0);
+            ByteBuffer idBuffer = ByteBuffer.allocate(encoded.size() * idWidth);
+            for (byte[] bytes : encoded) {
+                idBuffer.put(bytes).position(idBuffer.position() + idWidth - bytes.length);
+            }
+            idBuffer.flip();
+            writeFully(idBuffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putInt(dimensions)
+                    .putInt(encoded.size())
+                    .putInt(idWidth);
+            header.clear();
+            channel.position(0);
+            writeFully(header);
+            channel.force(true);
+            return encoded.size();
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
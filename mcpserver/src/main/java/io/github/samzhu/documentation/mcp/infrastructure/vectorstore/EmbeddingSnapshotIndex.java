@@ -0,0 +1,450 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+import io.github.samzhu.documentation.mcp.domain.model.LibraryVersion;
+import io.github.samzhu.documentation.mcp.service.CatalogCache;
+import io.github.samzhu.documentation.mcp.service.CatalogSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 版本嵌入快照索引（精確搜尋）
+ * <p>
+ * 每個版本一份不可變的嵌入快照（{@link EmbeddingSnapshot}：正規化的 float32 向量矩陣與區塊 ID），
+ * 以記憶體映射檔開啟並逐列計算內積（{@link VectorScorer}，可用時使用 Vector API），
+ * 不需 ANN 參數即為精確召回；資料留在 page cache，重新啟動時直接映射既有快照檔。
+ * </p>
+ * <ul>
+ *   <li>只處理選定的版本（platform.vector-index.snapshot.versions，函式庫名稱表示最新版本，
+ *       空白表示所有函式庫的最新版本），快照數量隨函式庫數量而非版本數量成長；
+ *       其他版本由呼叫端改用程序內 HNSW 索引或 pgvector</li>
+ *   <li>版本於首次查詢時於背景映射（快照檔不存在或已過期時由 PostgreSQL 建立），完成前由呼叫端改用其他路徑</li>
+ *   <li>收到同步通知時比對區塊指紋，有異動時建立新的快照檔並替換，舊檔於替換後刪除；
+ *       同一版本最多排入一次後續更新，補齊嵌入期間（仍有未嵌入的區塊）延後重建</li>
+ *   <li>函式庫目錄變更後（例如發布新的最新版本）移除不再選定的版本，並刪除其快照目錄</li>
+ * </ul>
+ */
+public class EmbeddingSnapshotIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingSnapshotIndex.class);
+
+    /**
+     * 每頁讀取的區塊數（以區塊 ID 分頁，不需長時間持有交易）
+     */
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * 補齊嵌入期間既有快照最久沿用的時間（Backend 每批寫入都會通知，逐批重建整份快照代價過高）
+     */
+    private static final Duration MAX_DEFERRED_REBUILD = Duration.ofMinutes(5);
+
+    private static final String SQL_FINGERPRINT = """
+        SELECT count(embedding) AS chunk_count,
+               max(id) FILTER (WHERE embedding IS NOT NULL) AS max_id,
+               count(*) - count(embedding) AS pending_count
+        FROM document_chunks
+        WHERE version_id = ?
+        """;
+
+    private static final String SQL_EMBEDDING_PAGE = """
+        SELECT id, vector_send(embedding) AS embedding
+        FROM document_chunks
+        WHERE version_id = ? AND embedding IS NOT NULL AND id > ?
+        ORDER BY id
+        LIMIT ?
+        """;
+
+    private record ChunkVector(String id, float[] vector) {
+    }
+
+    /**
+     * 已嵌入區塊的指紋與尚未嵌入的區塊數
+     */
+    private record Fingerprint(String value, long pendingCount) {
+    }
+
+    /**
+     * 可使用快照的版本（依目錄快照計算，目錄替換後重新計算）
+     */
+    private record Eligibility(CatalogSnapshot catalog, Set<String> versionIds) {
+    }
+
+    private static final RowMapper<ChunkVector> CHUNK_VECTOR_MAPPER = (rs, rowNum) -> new ChunkVector(
+            rs.getString("id"), PgVectorCodec.decode(rs.getBytes("embedding")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogCache catalogCache;
+    private final Path rootDir;
+    private final List<String> versions;
+    private final ExecutorService executor;
+    private final Map<String, EmbeddingSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<EmbeddingSnapshot>> loading = new ConcurrentHashMap<>();
+    /**
+     * {@link #loading} 中的 Future 為尚未開始的後續更新的版本（新的通知併入該次更新）
+     */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private volatile Eligibility eligibility = new Eligibility(null, Set.of());
+
+    /**
+     * @param jdbcTemplate JDBC 操作模板（讀取區塊向量）
+     * @param catalogCache 函式庫目錄快取（解析選定的版本）
+     * @param rootDir      快照根目錄（絕對路徑）
+     * @param versions     使用快照的版本（函式庫名稱或 函式庫名稱@版本；空白表示所有函式庫的最新版本）
+     * @param executor     建立與映射快照的執行器
+     */
+    public EmbeddingSnapshotIndex(JdbcTemplate jdbcTemplate, CatalogCache catalogCache, Path rootDir,
+                                  List<String> versions, ExecutorService executor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogCache = catalogCache;
+        this.rootDir = rootDir;
+        this.versions = versions;
+        this.executor = executor;
+    }
+
+    /**
+     * 是否以 Vector API（SIMD）計算內積（JVM 需以 {@code --add-modules jdk.incubator.vector} 啟動）
+     */
+    public static boolean simdEnabled() {
+        return VectorScorer.SIMD;
+    }
+
+    /**
+     * 精確搜尋
+     * <p>
+     * 所有版本皆已選定且快照已映射時於程序內搜尋；否則回傳 null，由呼叫端改用其他路徑
+     * （選定但尚未映射的版本於背景映射）。
+     * 快照可能仍含資料庫已刪除的區塊（同步通知尚未送達或已漏接），呼叫端讀取結果時應比對，
+     * 缺少區塊時呼叫 {@link #refresh(String)} 並改用其他路徑。
+     * </p>
+     *
+     * @param versionIds  版本 ID 列表（TSID 格式）
+     * @param queryVector 查詢向量
+     * @param topK        結果數量上限
+     * @param threshold   最低餘弦相似度
+     * @return 依相似度由高至低排序的區塊；無法以快照回應時回傳 null
+     */
+    public List<ScoredChunk> search(List<String> versionIds, float[] queryVector, int topK, double threshold) {
+        Set<String> eligibleVersionIds = eligibleVersionIds();
+        if (!eligibleVersionIds.containsAll(versionIds)) {
+            return null;
+        }
+        float[] unitQuery = VectorScorer.normalize(queryVector);
+        if (unitQuery == null || versionIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<EmbeddingSnapshot> resident = new ArrayList<>(versionIds.size());
+        boolean complete = true;
+        for (String versionId : versionIds) {
+            EmbeddingSnapshot snapshot = snapshots.get(versionId);
+            if (snapshot == null) {
+                load(versionId);
+                complete = false;
+            } else if (snapshot.count() > 0 && snapshot.dimensions() != unitQuery.length) {
+                log.warn("Embedding snapshot for version {} has {} dimensions, query has {}",
+                        versionId, snapshot.dimensions(), unitQuery.length);
+                return null;
+            } else {
+                resident.add(snapshot);
+            }
+        }
+        if (!complete) {
+            return null;
+        }
+
+        EmbeddingSnapshot.TopK collector = new EmbeddingSnapshot.TopK(topK);
+        for (EmbeddingSnapshot snapshot : resident) {
+            snapshot.scan(unitQuery, threshold, collector);
+        }
+        return collector.results();
+    }
+
+    /**
+     * 於背景檢查並更新版本快照（收到 Backend 的同步或補齊嵌入通知時呼叫）
+     * <p>
+     * 只處理已映射或映射中的版本；同一版本已有更新進行中時，於其完成後再更新一次，
+     * 該次更新開始前收到的通知併入同一次更新（補齊嵌入逐批通知時不會逐批排隊）。
+     * </p>
+     *
+     * @param versionId 版本 ID（TSID 格式）
+     * @return 更新完成的 Future（失敗時已記錄日誌）
+     */
+    public CompletableFuture<?> refresh(String versionId) {
+        if (!snapshots.containsKey(versionId) && !loading.containsKey(versionId)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean[] scheduled = {false};
+        CompletableFuture<EmbeddingSnapshot> future = loading.compute(versionId, (id, running) -> {
+            if (running != null && queued.contains(id)) {
+                // 後續更新尚未開始，開始時才讀取指紋，已涵蓋這次通知
+                return running;
+            }
+            scheduled[0] = true;
+            if (running == null) {
+                return CompletableFuture.supplyAsync(() -> update(id), executor);
+            }
+            queued.add(id);
+            return running.handle((snapshot, e) -> null).thenApplyAsync(ignored -> {
+                queued.remove(id);
+                return update(id);
+            }, executor);
+        });
+        return scheduled[0] ? track(versionId, future) : future;
+    }
+
+    /**
+     * 移除不再選定的版本，再檢查已映射的版本並映射磁碟上既有快照的選定版本（啟動或漏接通知後呼叫）
+     */
+    public void refreshAll() {
+        removeIneligible();
+        Set<String> versionIds = new HashSet<>(snapshots.keySet());
+        Set<String> eligibleVersionIds = eligibleVersionIds();
+        for (Path dir : versionDirs()) {
+            String versionId = dir.getFileName().toString();
+            if (eligibleVersionIds.contains(versionId)) {
+                versionIds.add(versionId);
+            }
+        }
+        versionIds.forEach(versionId -> {
+            if (snapshots.containsKey(versionId)) {
+                refresh(versionId);
+            } else {
+                load(versionId);
+            }
+        });
+    }
+
+    /**
+     * 移除不再選定的版本（函式庫目錄變更時呼叫，例如選定函式庫發布新的最新版本或版本已刪除）
+     * <p>
+     * 解除對其快照的參考並刪除版本目錄；搜尋中的執行緒仍可讀取已映射的快照，GC 後解除映射。
+     * 映射中的版本略過，於下次目錄變更或重新連線時再處理；目錄尚未載入（沒有任何函式庫）時不刪除。
+     * </p>
+     */
+    public void removeIneligible() {
+        if (catalogCache.snapshot().libraries().isEmpty()) {
+            return;
+        }
+        Set<String> eligibleVersionIds = eligibleVersionIds();
+        Set<String> versionIds = new HashSet<>(snapshots.keySet());
+        versionDirs().forEach(dir -> versionIds.add(dir.getFileName().toString()));
+        for (String versionId : versionIds) {
+            if (eligibleVersionIds.contains(versionId) || loading.containsKey(versionId)) {
+                continue;
+            }
+            snapshots.remove(versionId);
+            Path versionDir = rootDir.resolve(versionId);
+            if (Files.isDirectory(versionDir)) {
+                deleteStaleFiles(versionDir, null);
+                try {
+                    Files.deleteIfExists(versionDir);
+                    log.info("Removed embedding snapshot for version {} (no longer selected)", versionId);
+                } catch (IOException e) {
+                    log.debug("Failed to delete {}: {}", versionDir, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 快照根目錄下的版本目錄
+     */
+    private List<Path> versionDirs() {
+        List<Path> dirs = new ArrayList<>();
+        if (Files.isDirectory(rootDir)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(rootDir, Files::isDirectory)) {
+                stream.forEach(dirs::add);
+            } catch (IOException e) {
+                log.warn("Failed to list embedding snapshot directory {}: {}", rootDir, e.getMessage());
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * 於背景映射版本快照（已在映射中時不重複）
+     */
+    private void load(String versionId) {
+        CompletableFuture<EmbeddingSnapshot> future = loading.computeIfAbsent(versionId,
+                id -> CompletableFuture.supplyAsync(() -> update(id), executor));
+        track(versionId, future);
+    }
+
+    private CompletableFuture<EmbeddingSnapshot> track(String versionId, CompletableFuture<EmbeddingSnapshot> future) {
+        future.whenComplete((snapshot, e) -> {
+            loading.remove(versionId, future);
+            if (e != null) {
+                log.warn("Failed to load embedding snapshot for version {}: {}", versionId, e.getMessage());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 映射與資料庫一致的快照，必要時先建立（同一版本的更新經由 {@link #loading} 依序執行）
+     * <p>
+     * 版本仍有未嵌入的區塊時（補齊嵌入進行中）沿用既有快照，直到補齊完成的通知或快照超過
+     * {@link #MAX_DEFERRED_REBUILD}；嵌入失敗而永久留下的未嵌入區塊因此不會讓快照停止更新。
+     * </p>
+     */
+    private EmbeddingSnapshot update(String versionId) {
+        try {
+            Fingerprint state = fingerprint(versionId);
+            String fingerprint = state.value();
+            EmbeddingSnapshot current = snapshots.get(versionId);
+            if (current != null && current.fingerprint().equals(fingerprint)) {
+                return current;
+            }
+
+            Path versionDir = versionDir(versionId);
+            if (current != null && state.pendingCount() > 0 && isRecent(versionDir, current)) {
+                log.debug("Deferring embedding snapshot rebuild for version {}: {} chunks not yet embedded",
+                        versionId, state.pendingCount());
+                return current;
+            }
+            Path file = versionDir.resolve(fingerprint + EmbeddingSnapshot.FILE_SUFFIX);
+            if (!Files.exists(file)) {
+                build(versionId, versionDir, file);
+            }
+            EmbeddingSnapshot snapshot = EmbeddingSnapshot.open(file, fingerprint);
+            snapshots.put(versionId, snapshot);
+            deleteStaleFiles(versionDir, file);
+            return snapshot;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load embedding snapshot for version " + versionId, e);
+        }
+    }
+
+    /**
+     * 版本已嵌入區塊的指紋（補齊嵌入會增加區塊數，重新同步會產生新的最大 ID）與未嵌入的區塊數
+     */
+    private Fingerprint fingerprint(String versionId) {
+        return jdbcTemplate.queryForObject(SQL_FINGERPRINT,
+                (rs, rowNum) -> new Fingerprint(rs.getLong("chunk_count") + "-" + rs.getString("max_id"),
+                        rs.getLong("pending_count")),
+                versionId);
+    }
+
+    /**
+     * 快照檔建立至今是否未超過 {@link #MAX_DEFERRED_REBUILD}（無法讀取時視為過期）
+     */
+    private static boolean isRecent(Path versionDir, EmbeddingSnapshot snapshot) {
+        Path file = versionDir.resolve(snapshot.fingerprint() + EmbeddingSnapshot.FILE_SUFFIX);
+        try {
+            Instant builtAt = Files.getLastModifiedTime(file).toInstant();
+            return builtAt.plus(MAX_DEFERRED_REBUILD).isAfter(Instant.now());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 由 PostgreSQL 建立快照檔（寫入暫存檔後以原子更名發布，映射端不會看到寫入中的檔案）
+     */
+    private void build(String versionId, Path versionDir, Path file) throws IOException {
+        long startNanos = System.nanoTime();
+        Files.createDirectories(versionDir);
+        Path tempFile = Files.createTempFile(versionDir, "build-", ".tmp");
+        try {
+            int count;
+            try (EmbeddingSnapshot.Writer writer = new EmbeddingSnapshot.Writer(tempFile)) {
+                String lastId = "";
+                while (true) {
+                    List<ChunkVector> page = jdbcTemplate.query(SQL_EMBEDDING_PAGE, CHUNK_VECTOR_MAPPER,
+                            versionId, lastId, PAGE_SIZE);
+                    for (ChunkVector chunk : page) {
+                        float[] unitVector = VectorScorer.normalize(chunk.vector());
+                        if (unitVector != null) {
+                            writer.add(chunk.id(), unitVector);
+                        }
+                    }
+                    if (page.size() < PAGE_SIZE) {
+                        break;
+                    }
+                    lastId = page.getLast().id();
+                }
+                count = writer.finish();
+            }
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Built embedding snapshot for version {}: {} chunks ({} bytes) in {} ms",
+                    versionId, count, Files.size(file), Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 刪除版本目錄中的舊快照與中斷的暫存檔（current 為 null 時刪除全部；已映射的舊快照在 GC 解除映射前仍可讀取）
+     */
+    private static void deleteStaleFiles(Path versionDir, Path current) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(versionDir)) {
+            for (Path file : files) {
+                if (!file.equals(current)) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        log.debug("Failed to delete {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Failed to list embedding snapshot directory {}: {}", versionDir, e.getMessage());
+        }
+    }
+
+    /**
+     * 解析選定的版本 ID（函式庫名稱表示最新版本，找不到的項目略過；目錄快照未替換時沿用上次的結果）
+     */
+    private Set<String> eligibleVersionIds() {
+        CatalogSnapshot catalog = catalogCache.snapshot();
+        Eligibility current = eligibility;
+        if (current.catalog() == catalog) {
+            return current.versionIds();
+        }
+        Set<String> versionIds = new HashSet<>();
+        if (versions.isEmpty()) {
+            catalog.latestByLibrary().values().forEach(version -> versionIds.add(version.getId()));
+        } else {
+            for (String selected : versions) {
+                int separator = selected.indexOf('@');
+                String libraryName = separator < 0 ? selected : selected.substring(0, separator);
+                catalog.findLibraryByName(libraryName)
+                        .flatMap(library -> separator < 0
+                                ? catalog.findLatestVersion(library.getId())
+                                : catalog.findVersion(library.getId(), selected.substring(separator + 1)))
+                        .map(LibraryVersion::getId)
+                        .ifPresent(versionIds::add);
+            }
+        }
+        Eligibility updated = new Eligibility(catalog, Set.copyOf(versionIds));
+        eligibility = updated;
+        return updated.versionIds();
+    }
+
+    private Path versionDir(String versionId) {
+        Path versionDir = rootDir.resolve(versionId).normalize();
+        if (!rootDir.equals(versionDir.getParent())) {
+            throw new IllegalArgumentException("Invalid version ID: " + versionId);
+        }
+        return versionDir;
+    }
+}
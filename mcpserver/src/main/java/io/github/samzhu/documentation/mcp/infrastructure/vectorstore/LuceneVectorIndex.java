@@ -0,0 +1,550 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+import io.github.samzhu.documentation.mcp.domain.model.LibraryVersion;
+import io.github.samzhu.documentation.mcp.service.CatalogCache;
+import io.github.samzhu.documentation.mcp.service.CatalogSnapshot;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnFloatVectorQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 程序內常駐 HNSW 向量索引（Lucene）
+ * <p>
+ * 每個常駐版本一份 Lucene HNSW 索引，以 {@link MMapDirectory} 開啟：向量與圖結構以
+ * {@link java.lang.foreign.MemorySegment}（FFM API）映射至記憶體，不佔 JVM 堆積、不增加 GC 負擔。
+ * 語意搜尋在程序內完成近鄰搜尋，PostgreSQL 只依主鍵讀取最終 topK 筆的結果投影。
+ * </p>
+ * <ul>
+ *   <li>固定版本（platform.vector-index.in-process.pinned-versions）於啟動與目錄變更時載入，不會被移除</li>
+ *   <li>其他版本於首次單一版本查詢時於背景載入，載入完成前由 pgvector 回應；跨版本查詢不觸發載入，
+ *       只在所有版本皆已常駐時於程序內搜尋（否則版本集合超過記憶體預算時，每次跨函式庫查詢都會載入一個版本並
+ *       移除另一個，不斷重複載入）</li>
+ *   <li>常駐索引的總大小超過記憶體預算時，移除最久未使用的非固定版本（索引檔保留於磁碟，重新載入只需增量更新）</li>
+ *   <li>收到同步通知時增量更新：依區塊 ID 比對資料庫，刪除已移除的區塊並加入新嵌入的區塊；
+ *       大部分區塊已替換（重新同步）時整份重建</li>
+ *   <li>reader 以參考計數管理，更新完成後才替換，被替換的 reader 於最後一個進行中的搜尋結束後關閉</li>
+ * </ul>
+ * <p>
+ * 向量於寫入與查詢時正規化為單位向量並以內積計算，等同 pgvector 的餘弦相似度。
+ * </p>
+ */
+public class LuceneVectorIndex implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LuceneVectorIndex.class);
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_VECTOR = "embedding";
+
+    /**
+     * 每頁讀取的區塊數（以區塊 ID 分頁，不需長時間持有交易）
+     */
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * 需刪除的區塊超過此比例時整份重建（重新同步會以新的 ID 替換所有區塊）
+     */
+    private static final double REBUILD_RATIO = 0.5;
+
+    private static final double WRITER_RAM_BUFFER_MB = 64;
+
+    private static final String SQL_FINGERPRINT = """
+        SELECT count(*) AS chunk_count, max(id) AS max_id
+        FROM document_chunks
+        WHERE version_id = ? AND embedding IS NOT NULL
+        """;
+
+    private static final String SQL_EMBEDDED_IDS = """
+        SELECT id
+        FROM document_chunks
+        WHERE version_id = ? AND embedding IS NOT NULL
+        """;
+
+    private static final String SQL_EMBEDDING_PAGE = """
+        SELECT id, vector_send(embedding) AS embedding
+        FROM document_chunks
+        WHERE version_id = ? AND embedding IS NOT NULL AND id > ?
+        ORDER BY id
+        LIMIT ?
+        """;
+
+    private static final String SQL_EMBEDDINGS_BY_IDS = """
+        SELECT id, vector_send(embedding) AS embedding
+        FROM document_chunks
+        WHERE version_id = ? AND embedding IS NOT NULL AND id = ANY(?)
+        """;
+
+    private static final RowMapper<ChunkVector> CHUNK_VECTOR_MAPPER = (rs, rowNum) -> new ChunkVector(
+            rs.getString("id"), PgVectorCodec.decode(rs.getBytes("embedding")));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogCache catalogCache;
+    private final Path rootDir;
+    private final long memoryBudgetBytes;
+    private final List<String> pinnedVersions;
+    private final int candidates;
+    private final ExecutorService executor;
+    private final Map<String, Handle> handles = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Handle>> loading = new ConcurrentHashMap<>();
+    /**
+     * {@link #loading} 中的 Future 為尚未開始的後續更新的版本（新的通知併入該次更新）
+     */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean closed;
+
+    private record ChunkVector(String id, float[] vector) {
+    }
+
+    /**
+     * 常駐的版本索引
+     *
+     * @param fingerprint     載入時的區塊指紋（已嵌入區塊數與最大區塊 ID）
+     * @param reader          索引 reader（參考計數，關閉時一併關閉目錄）
+     * @param sizeBytes       索引檔總大小（計入記憶體預算）
+     * @param lastAccessNanos 最近一次搜尋的時間（移除最久未使用的版本）
+     */
+    private record Handle(String fingerprint, DirectoryReader reader, long sizeBytes, AtomicLong lastAccessNanos) {
+    }
+
+    /**
+     * @param jdbcTemplate      JDBC 操作模板（讀取區塊向量）
+     * @param catalogCache      函式庫目錄快取（解析固定版本）
+     * @param rootDir           索引根目錄（絕對路徑）
+     * @param memoryBudgetBytes 常駐索引的總大小上限
+     * @param pinnedVersions    固定常駐的版本（函式庫名稱或 函式庫名稱@版本）
+     * @param candidates        HNSW 搜尋的候選數下限（對應 hnsw.ef_search）
+     * @param executor          載入與更新索引的執行器
+     */
+    public LuceneVectorIndex(JdbcTemplate jdbcTemplate, CatalogCache catalogCache, Path rootDir,
+                             long memoryBudgetBytes, List<String> pinnedVersions, int candidates,
+                             ExecutorService executor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogCache = catalogCache;
+        this.rootDir = rootDir;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.pinnedVersions = pinnedVersions;
+        this.candidates = candidates;
+        this.executor = executor;
+    }
+
+    /**
+     * 近鄰搜尋
+     * <p>
+     * 所有版本皆常駐時於程序內搜尋；任一版本未常駐時回傳 null，由呼叫端改用 pgvector。
+     * 單一版本查詢同時於背景載入該版本，跨版本查詢不觸發載入。
+     * </p>
+     *
+     * @param versionIds  版本 ID 列表（TSID 格式）
+     * @param queryVector 查詢向量
+     * @param topK        結果數量上限
+     * @param threshold   最低餘弦相似度
+     * @return 依相似度由高至低排序的區塊；有版本未常駐時回傳 null
+     */
+    public List<ScoredChunk> search(List<String> versionIds, float[] queryVector, int topK, double threshold) {
+        float[] unitVector = VectorScorer.normalize(queryVector);
+        if (unitVector == null || versionIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Handle> acquired = new ArrayList<>(versionIds.size());
+        try {
+            for (String versionId : versionIds) {
+                Handle handle = tryAcquire(versionId);
+                if (handle == null) {
+                    if (versionIds.size() == 1) {
+                        load(versionId);
+                    }
+                    return null;
+                }
+                acquired.add(handle);
+            }
+            if (acquired.size() == 1) {
+                return search(acquired.getFirst().reader(), unitVector, topK, threshold);
+            }
+            IndexReader[] readers = acquired.stream().map(Handle::reader).toArray(IndexReader[]::new);
+            try (MultiReader reader = new MultiReader(readers, false)) {
+                return search(reader, unitVector, topK, threshold);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("In-process vector search failed for versions " + versionIds, e);
+        } finally {
+            acquired.forEach(LuceneVectorIndex::release);
+        }
+    }
+
+    /**
+     * 於背景更新版本索引（收到 Backend 的同步或補齊嵌入通知時呼叫）
+     * <p>
+     * 只處理已常駐、載入中或固定的版本；同一版本已有更新進行中時，於其完成後再更新一次，
+     * 該次更新開始前收到的通知併入同一次更新（補齊嵌入逐批通知時不會逐批重新讀取區塊 ID）。
+     * </p>
+     *
+     * @param versionId 版本 ID（TSID 格式）
+     * @return 更新完成的 Future（失敗時已記錄日誌）
+     */
+    public CompletableFuture<?> refresh(String versionId) {
+        if (!handles.containsKey(versionId) && !loading.containsKey(versionId)
+                && !pinnedVersionIds().contains(versionId)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean[] scheduled = {false};
+        CompletableFuture<Handle> future = loading.compute(versionId, (id, running) -> {
+            if (running != null && queued.contains(id)) {
+                // 後續更新尚未開始，開始時才讀取指紋，已涵蓋這次通知
+                return running;
+            }
+            scheduled[0] = true;
+            if (running == null) {
+                return CompletableFuture.supplyAsync(() -> update(id), executor);
+            }
+            queued.add(id);
+            return running.handle((handle, e) -> null).thenApplyAsync(ignored -> {
+                queued.remove(id);
+                return update(id);
+            }, executor);
+        });
+        return scheduled[0] ? track(versionId, future) : future;
+    }
+
+    /**
+     * 更新所有常駐版本並載入固定版本（啟動或漏接通知後呼叫）
+     */
+    public void refreshAll() {
+        Set<String> versionIds = new HashSet<>(handles.keySet());
+        versionIds.addAll(pinnedVersionIds());
+        versionIds.forEach(this::refresh);
+    }
+
+    /**
+     * 載入尚未常駐的固定版本（函式庫目錄變更時呼叫，例如固定函式庫發布新的最新版本）
+     */
+    public void loadPinned() {
+        pinnedVersionIds().stream()
+                .filter(versionId -> !handles.containsKey(versionId))
+                .forEach(this::load);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (String versionId : handles.keySet()) {
+            Handle handle = handles.remove(versionId);
+            if (handle != null) {
+                release(handle);
+            }
+        }
+    }
+
+    /**
+     * 於背景載入版本索引（已在載入中時不重複）
+     */
+    private void load(String versionId) {
+        CompletableFuture<Handle> future = loading.computeIfAbsent(versionId,
+                id -> CompletableFuture.supplyAsync(() -> update(id), executor));
+        track(versionId, future);
+    }
+
+    private CompletableFuture<Handle> track(String versionId, CompletableFuture<Handle> future) {
+        future.whenComplete((handle, e) -> {
+            loading.remove(versionId, future);
+            if (e != null) {
+                log.warn("Failed to load in-process vector index for version {}: {}", versionId, e.getMessage());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 取得常駐的版本索引並增加參考計數（使用完畢需呼叫 {@link #release}）
+     *
+     * @return 版本索引，未常駐時回傳 null
+     */
+    private Handle tryAcquire(String versionId) {
+        while (!closed) {
+            Handle handle = handles.get(versionId);
+            if (handle == null) {
+                return null;
+            }
+            if (handle.reader().tryIncRef()) {
+                handle.lastAccessNanos().set(System.nanoTime());
+                return handle;
+            }
+            // 剛被更新後的索引替換，重新讀取
+        }
+        return null;
+    }
+
+    private static void release(Handle handle) {
+        try {
+            handle.reader().decRef();
+        } catch (IOException e) {
+            log.warn("Failed to close in-process vector index reader: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 增量更新並開啟版本索引（同一版本的更新經由 {@link #loading} 依序執行）
+     */
+    private Handle update(String versionId) {
+        if (closed) {
+            throw new IllegalStateException("In-process vector index is closed");
+        }
+        try {
+            String fingerprint = fingerprint(versionId);
+            Handle current = handles.get(versionId);
+            if (current != null && current.fingerprint().equals(fingerprint)) {
+                return current;
+            }
+
+            Path indexDir = versionDir(versionId);
+            write(versionId, indexDir);
+
+            Handle handle = open(indexDir, fingerprint);
+            Handle previous = handles.put(versionId, handle);
+            if (previous != null) {
+                release(previous);
+            }
+            if (closed && handles.remove(versionId, handle)) {
+                // 更新期間已關閉，不再保留
+                release(handle);
+                return handle;
+            }
+            enforceBudget();
+            return handle;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to update in-process vector index for version " + versionId, e);
+        }
+    }
+
+    /**
+     * 版本已嵌入區塊的指紋（補齊嵌入會增加區塊數，重新同步會產生新的最大 ID）
+     */
+    private String fingerprint(String versionId) {
+        return jdbcTemplate.queryForObject(SQL_FINGERPRINT,
+                (rs, rowNum) -> rs.getLong("chunk_count") + "-" + rs.getString("max_id"), versionId);
+    }
+
+    /**
+     * 將版本索引更新至與資料庫一致（提交前開啟中的 reader 不受影響）
+     */
+    private void write(String versionId, Path indexDir) throws IOException {
+        long startNanos = System.nanoTime();
+        IndexWriterConfig config = new IndexWriterConfig()
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setRAMBufferSizeMB(WRITER_RAM_BUFFER_MB);
+        try (Directory directory = new MMapDirectory(indexDir);
+             IndexWriter writer = new IndexWriter(directory, config)) {
+            Set<String> indexed = indexedIds(writer);
+            Set<String> embedded = new HashSet<>(jdbcTemplate.queryForList(SQL_EMBEDDED_IDS, String.class, versionId));
+
+            List<String> removed = indexed.stream().filter(id -> !embedded.contains(id)).toList();
+            if (indexed.isEmpty() || removed.size() > indexed.size() * REBUILD_RATIO) {
+                writer.deleteAll();
+                int added = addAll(versionId, writer);
+                // 整份重建後合併為單一區段，搜尋只需走訪一張 HNSW 圖
+                writer.forceMerge(1);
+                writer.commit();
+                log.info("Built in-process vector index for version {}: {} chunks in {} ms",
+                        versionId, added, Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+                return;
+            }
+
+            List<String> added = embedded.stream().filter(id -> !indexed.contains(id)).toList();
+            if (!removed.isEmpty()) {
+                writer.deleteDocuments(removed.stream().map(id -> new Term(FIELD_ID, id)).toArray(Term[]::new));
+            }
+            for (int from = 0; from < added.size(); from += PAGE_SIZE) {
+                String[] ids = added.subList(from, Math.min(from + PAGE_SIZE, added.size())).toArray(String[]::new);
+                addVectors(writer, jdbcTemplate.query(SQL_EMBEDDINGS_BY_IDS, CHUNK_VECTOR_MAPPER, versionId, ids));
+            }
+            writer.commit();
+            log.info("Updated in-process vector index for version {}: +{} -{} chunks in {} ms",
+                    versionId, added.size(), removed.size(),
+                    Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        }
+    }
+
+    /**
+     * 由 PostgreSQL 寫入版本所有已嵌入的區塊
+     */
+    private int addAll(String versionId, IndexWriter writer) throws IOException {
+        int added = 0;
+        String lastId = "";
+        while (true) {
+            List<ChunkVector> page = jdbcTemplate.query(SQL_EMBEDDING_PAGE, CHUNK_VECTOR_MAPPER,
+                    versionId, lastId, PAGE_SIZE);
+            addVectors(writer, page);
+            added += page.size();
+            if (page.size() < PAGE_SIZE) {
+                return added;
+            }
+            lastId = page.getLast().id();
+        }
+    }
+
+    private static void addVectors(IndexWriter writer, List<ChunkVector> chunks) throws IOException {
+        List<Document> documents = new ArrayList<>(chunks.size());
+        for (ChunkVector chunk : chunks) {
+            float[] unitVector = VectorScorer.normalize(chunk.vector());
+            if (unitVector == null) {
+                continue;
+            }
+            Document document = new Document();
+            document.add(new StringField(FIELD_ID, chunk.id(), Field.Store.YES));
+            document.add(new KnnFloatVectorField(FIELD_VECTOR, unitVector, VectorSimilarityFunction.DOT_PRODUCT));
+            documents.add(document);
+        }
+        writer.addDocuments(documents);
+    }
+
+    /**
+     * 目前索引中（未刪除）的區塊 ID
+     */
+    private static Set<String> indexedIds(IndexWriter writer) throws IOException {
+        Set<String> ids = new HashSet<>();
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            for (LeafReaderContext leaf : reader.leaves()) {
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                StoredFields storedFields = leaf.reader().storedFields();
+                for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        ids.add(storedFields.document(doc).get(FIELD_ID));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static Handle open(Path indexDir, String fingerprint) throws IOException {
+        Directory directory = new MMapDirectory(indexDir);
+        try {
+            DirectoryReader reader = DirectoryReader.open(directory);
+            long sizeBytes = 0;
+            for (String file : reader.getIndexCommit().getFileNames()) {
+                sizeBytes += directory.fileLength(file);
+            }
+            reader.getReaderCacheHelper().addClosedListener(key -> IOUtils.closeWhileHandlingException(directory));
+            return new Handle(fingerprint, reader, sizeBytes, new AtomicLong(System.nanoTime()));
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeWhileHandlingException(directory);
+            throw e;
+        }
+    }
+
+    private List<ScoredChunk> search(IndexReader reader, float[] unitVector, int topK, double threshold)
+            throws IOException {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        // 候選數取 ef_search 與 topK 的較大者，與 pgvector 的召回率設定一致
+        TopDocs topDocs = searcher.search(
+                new KnnFloatVectorQuery(FIELD_VECTOR, unitVector, Math.max(topK, candidates)), topK);
+        StoredFields storedFields = searcher.storedFields();
+        List<ScoredChunk> results = new ArrayList<>(topDocs.scoreDocs.length);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            // DOT_PRODUCT 分數為 (1 + cos) / 2
+            double similarity = 2.0 * scoreDoc.score - 1.0;
+            if (similarity < threshold) {
+                break;
+            }
+            results.add(new ScoredChunk(storedFields.document(scoreDoc.doc).get(FIELD_ID), similarity));
+        }
+        return results;
+    }
+
+    /**
+     * 常駐索引超過記憶體預算時，依最久未使用的順序移除非固定版本
+     */
+    private synchronized void enforceBudget() {
+        long totalBytes = handles.values().stream().mapToLong(Handle::sizeBytes).sum();
+        if (totalBytes <= memoryBudgetBytes) {
+            return;
+        }
+        Set<String> pinned = pinnedVersionIds();
+        List<Map.Entry<String, Handle>> evictable = handles.entrySet().stream()
+                .filter(entry -> !pinned.contains(entry.getKey()))
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccessNanos().get()))
+                .toList();
+        for (Map.Entry<String, Handle> entry : evictable) {
+            if (totalBytes <= memoryBudgetBytes) {
+                break;
+            }
+            if (handles.remove(entry.getKey(), entry.getValue())) {
+                release(entry.getValue());
+                totalBytes -= entry.getValue().sizeBytes();
+                log.info("Evicted in-process vector index for version {} ({} bytes)",
+                        entry.getKey(), entry.getValue().sizeBytes());
+            }
+        }
+        if (totalBytes > memoryBudgetBytes) {
+            log.warn("Pinned in-process vector indexes use {} bytes, exceeding the memory budget of {} bytes",
+                    totalBytes, memoryBudgetBytes);
+        }
+    }
+
+    /**
+     * 解析固定版本（函式庫名稱表示最新版本；找不到的項目略過）
+     */
+    private Set<String> pinnedVersionIds() {
+        if (pinnedVersions.isEmpty()) {
+            return Set.of();
+        }
+        CatalogSnapshot catalog = catalogCache.snapshot();
+        Set<String> versionIds = new HashSet<>();
+        for (String pinned : pinnedVersions) {
+            int separator = pinned.indexOf('@');
+            String libraryName = separator < 0 ? pinned : pinned.substring(0, separator);
+            catalog.findLibraryByName(libraryName)
+                    .flatMap(library -> separator < 0
+                            ? catalog.findLatestVersion(library.getId())
+                            : catalog.findVersion(library.getId(), pinned.substring(separator + 1)))
+                    .map(LibraryVersion::getId)
+                    .ifPresent(versionIds::add);
+        }
+        return versionIds;
+    }
+
+    private Path versionDir(String versionId) {
+        Path versionDir = rootDir.resolve(versionId).normalize();
+        if (!rootDir.equals(versionDir.getParent())) {
+            throw new IllegalArgumentException("Invalid version ID: " + versionId);
+        }
+        return versionDir;
+    }
+}
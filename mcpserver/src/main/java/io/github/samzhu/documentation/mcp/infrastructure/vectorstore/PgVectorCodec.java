@@ -0,0 +1,45 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+import java.nio.ByteBuffer;
+
+/**
+ * pgvector 二進位格式解碼
+ * <p>
+ * 以 {@code vector_send(embedding)} 取得 bytea，格式為
+ * int16 維度、int16 保留欄位、維度個 float4（皆為 big-endian），直接解碼為 float[]，
+ * 不經過 {@code [0.1,0.2,...]} 文字格式的輸出與解析。
+ * </p>
+ */
+public final class PgVectorCodec {
+
+    private static final int HEADER_BYTES = 2 * Short.BYTES;
+
+    private PgVectorCodec() {
+    }
+
+    /**
+     * 解碼 vector_send 的輸出
+     *
+     * @param bytes vector 二進位格式（可為 null）
+     * @return 向量；輸入為 null 時回傳 null
+     * @throws IllegalArgumentException 長度與維度不符
+     */
+    public static float[] decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length < HEADER_BYTES) {
+            throw new IllegalArgumentException("Invalid vector binary length: " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int dimensions = Short.toUnsignedInt(buffer.getShort());
+        buffer.getShort(); // 保留欄位，固定為 0
+        if (buffer.remaining() != dimensions * Float.BYTES) {
+            throw new IllegalArgumentException("Vector binary length " + bytes.length
+                    + " does not match dimensions " + dimensions);
+        }
+        float[] vector = new float[dimensions];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+/**
+ * 程序內近鄰搜尋結果
+ *
+ * @param chunkId    區塊 ID（TSID 格式）
+ * @param similarity 餘弦相似度
+ */
+public record ScoredChunk(String chunkId, double similarity) {
+}
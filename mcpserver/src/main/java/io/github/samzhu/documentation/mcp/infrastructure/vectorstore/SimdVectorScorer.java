@@ -0,0 +1,40 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+
+/**
+ * 以 Vector API（SIMD）計算內積
+ * <p>
+ * 只由 {@link VectorScorer} 在 jdk.incubator.vector 模組已載入時呼叫，避免未載入時的類別連結錯誤。
+ * </p>
+ */
+final class SimdVectorScorer {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private SimdVectorScorer() {
+    }
+
+    static float dot(float[] query, MemorySegment segment, long offset) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(query.length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+            FloatVector v = FloatVector.fromMemorySegment(SPECIES, segment,
+                    offset + (long) i * Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+            sum = q.fma(v, sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        // 維度不是 lane 數倍數時的尾端
+        for (; i < query.length; i++) {
+            result += query[i] * segment.get(VectorScorer.FLOAT_LE, offset + (long) i * Float.BYTES);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * 查詢向量與記憶體映射向量的內積計算
+ * <p>
+ * JVM 以 {@code --add-modules jdk.incubator.vector} 啟動時使用 Vector API（SIMD）；
+ * 未載入該模組（含 native image）時使用純量迴圈，結果相同。
+ * </p>
+ */
+final class VectorScorer {
+
+    /**
+     * 快照檔中的向量元素（little-endian float32，不要求對齊）
+     */
+    static final ValueLayout.OfFloat FLOAT_LE =
+            ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * 是否使用 Vector API（SimdVectorScorer 只在模組存在時載入）
+     */
+    static final boolean SIMD = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorScorer() {
+    }
+
+    /**
+     * 計算內積
+     *
+     * @param query   查詢向量
+     * @param segment 向量所在的記憶體區段
+     * @param offset  向量起始位移（位元組）
+     * @return 內積
+     */
+    static float dot(float[] query, MemorySegment segment, long offset) {
+        return SIMD ? SimdVectorScorer.dot(query, segment, offset) : scalarDot(query, segment, offset);
+    }
+
+    /**
+     * 正規化為單位向量（正規化後的內積即為餘弦相似度）
+     *
+     * @return 單位向量；零向量回傳 null
+     */
+    static float[] normalize(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        double sumOfSquares = 0;
+        for (float value : vector) {
+            sumOfSquares += value * value;
+        }
+        if (sumOfSquares == 0) {
+            return null;
+        }
+        double norm = Math.sqrt(sumOfSquares);
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    static float scalarDot(float[] query, MemorySegment segment, long offset) {
+        float sum = 0;
+        for (int i = 0; i < query.length; i++) {
+            sum += query[i] * segment.get(FLOAT_LE, offset + (long) i * Float.BYTES);
+        }
+        return sum;
+    }
+}
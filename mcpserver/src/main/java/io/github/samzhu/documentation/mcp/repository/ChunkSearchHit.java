@@ -0,0 +1,27 @@
+package io.github.samzhu.documentation.mcp.repository;
+
+/**
+ * 區塊搜尋結果投影
+ * <p>
+ * 全文檢索與語意搜尋共用的精簡讀取模型：只包含組成搜尋結果所需的欄位，
+ * 以單一 JOIN 取得文件標題與路徑，不載入整份文件內容、向量或 metadata JSONB。
+ * </p>
+ *
+ * @param chunkId    區塊 ID（TSID 格式）
+ * @param documentId 文件 ID（TSID 格式）
+ * @param chunkIndex 區塊索引
+ * @param title      文件標題
+ * @param path       文件路徑
+ * @param content    區塊文字（語意搜尋）或命中詞摘要（全文檢索）
+ * @param score      相關性分數（語意搜尋為相似度，全文檢索為 ts_rank 或 BM25）
+ */
+public record ChunkSearchHit(
+        String chunkId,
+        String documentId,
+        int chunkIndex,
+        String title,
+        String path,
+        String content,
+        double score
+) {
+}
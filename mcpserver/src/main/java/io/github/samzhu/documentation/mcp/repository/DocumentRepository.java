@@ -12,7 +12,7 @@ import java.util.Optional;
 /**
  * 文件唯讀資料存取介面
  * <p>
- * 提供 MCP Tools 所需的文件查詢與全文搜尋功能。
+ * 提供 MCP Tools 所需的文件查詢功能（全文檢索以區塊為單位，見 ChunkSearchRepository）。
  * </p>
  */
 @Repository
@@ -40,31 +40,6 @@ public interface DocumentRepository extends CrudRepository<Document, String> {
             @Param("path") String path
     );
 
-    /**
-     * 全文搜尋文件
-     * <p>
-     * 使用 PostgreSQL 的 tsvector 進行全文搜尋，
-     * 標題權重較高（A），內容權重次之（B）。
-     * </p>
-     *
-     * @param versionId 版本 ID（TSID 格式）
-     * @param query     搜尋關鍵字
-     * @param limit     最大回傳筆數
-     * @return 符合條件的文件列表（依相關性排序）
-     */
-    @Query("""
-            SELECT * FROM documents
-            WHERE version_id = :versionId
-            AND search_vector @@ plainto_tsquery('english', :query)
-            ORDER BY ts_rank(search_vector, plainto_tsquery('english', :query)) DESC
-            LIMIT :limit
-            """)
-    List<Document> fullTextSearch(
-            @Param("versionId") String versionId,
-            @Param("query") String query,
-            @Param("limit") int limit
-    );
-
     /**
      * 統計指定 Library 的文件數量（透過 LibraryVersion JOIN）
      *
@@ -0,0 +1,115 @@
+package io.github.samzhu.documentation.mcp.service;
+
+import io.github.samzhu.documentation.mcp.config.CatalogProperties;
+import io.github.samzhu.documentation.mcp.repository.LibraryRepository;
+import io.github.samzhu.documentation.mcp.repository.LibraryVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 函式庫目錄快取
+ * <p>
+ * 以不可變的 {@link CatalogSnapshot} 取代每次工具呼叫的函式庫 / 版本查詢（原本每次搜尋 2-3 次資料庫往返）：
+ * </p>
+ * <ul>
+ *   <li>Backend 的資料庫觸發器於 libraries / library_versions 異動時發送 {@link #CHANGE_CHANNEL} 通知，
+ *       由監聽器呼叫 {@link #reload()}</li>
+ *   <li>快照超過 platform.catalog.reload-interval 時重新載入，作為漏接通知時的保底</li>
+ *   <li>重新載入期間讀取端繼續使用舊快照，只有首次載入需要等待</li>
+ * </ul>
+ */
+@Component
+public class CatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCache.class);
+
+    /**
+     * 目錄異動通知的 PostgreSQL NOTIFY 頻道（payload 為異動的表名；需與 Backend 的觸發器一致）
+     */
+    public static final String CHANGE_CHANNEL = "catalog_changed";
+
+    private final LibraryRepository libraryRepository;
+    private final LibraryVersionRepository versionRepository;
+    private final long reloadIntervalNanos;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile CatalogSnapshot snapshot;
+    private volatile long loadedAtNanos;
+
+    public CatalogCache(LibraryRepository libraryRepository,
+                        LibraryVersionRepository versionRepository,
+                        CatalogProperties catalogProperties) {
+        this.libraryRepository = libraryRepository;
+        this.versionRepository = versionRepository;
+        this.reloadIntervalNanos = catalogProperties.reloadInterval().toNanos();
+    }
+
+    /**
+     * 取得目前的目錄快照
+     * <p>
+     * 快照過期且其他執行緒正在重新載入時，直接回傳舊快照。
+     * </p>
+     *
+     * @return 目錄快照
+     */
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            reloadLock.lock();
+            try {
+                if (snapshot == null) {
+                    load();
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+            return snapshot;
+        }
+        if (isStale() && reloadLock.tryLock()) {
+            try {
+                if (isStale()) {
+                    load();
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 重新載入目錄快照
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            load();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * 快照過期時重新載入（供監聽器定期呼叫，使請求路徑很少遇到過期快照）
+     */
+    public void reloadIfStale() {
+        if (snapshot != null && isStale()) {
+            reload();
+        }
+    }
+
+    private boolean isStale() {
+        return System.nanoTime() - loadedAtNanos > reloadIntervalNanos;
+    }
+
+    private void load() {
+        CatalogSnapshot loaded = CatalogSnapshot.of(libraryRepository.findAll(), versionRepository.findAll());
+        snapshot = loaded;
+        loadedAtNanos = System.nanoTime();
+        log.debug("Catalog reloaded: {} libraries, {} with versions",
+                loaded.libraries().size(), loaded.versionsByLibrary().size());
+    }
+}
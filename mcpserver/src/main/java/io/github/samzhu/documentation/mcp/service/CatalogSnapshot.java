@@ -0,0 +1,118 @@
+package io.github.samzhu.documentation.mcp.service;
+
+import io.github.samzhu.documentation.mcp.domain.model.Library;
+import io.github.samzhu.documentation.mcp.domain.model.LibraryVersion;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 函式庫目錄快照（不可變）
+ * <p>
+ * 包含所有函式庫、各函式庫的版本（依建立時間降序）與最新版本、LTS 版本指標，
+ * 重新載入時整份替換（copy-on-write），讀取端不需加鎖。
+ * </p>
+ *
+ * @param libraries          所有函式庫（依名稱排序）
+ * @param librariesByName    名稱 → 函式庫
+ * @param versionsByLibrary  函式庫 ID → 版本列表（依建立時間降序）
+ * @param latestByLibrary    函式庫 ID → 最新版本（is_latest = true）
+ * @param ltsByLibrary       函式庫 ID → 最新的 LTS 版本（is_lts = true）
+ */
+public record CatalogSnapshot(List<Library> libraries,
+                              Map<String, Library> librariesByName,
+                              Map<String, List<LibraryVersion>> versionsByLibrary,
+                              Map<String, LibraryVersion> latestByLibrary,
+                              Map<String, LibraryVersion> ltsByLibrary) {
+
+    private static final Comparator<LibraryVersion> NEWEST_FIRST = Comparator.comparing(
+            LibraryVersion::getCreatedAt, Comparator.nullsLast(Comparator.<OffsetDateTime>reverseOrder()));
+
+    /**
+     * 由資料庫查詢結果建立快照
+     *
+     * @param libraries 所有函式庫
+     * @param versions  所有版本
+     * @return 目錄快照
+     */
+    public static CatalogSnapshot of(Iterable<Library> libraries, Iterable<LibraryVersion> versions) {
+        List<Library> sortedLibraries = new ArrayList<>();
+        libraries.forEach(sortedLibraries::add);
+        sortedLibraries.sort(Comparator.comparing(Library::getName));
+
+        Map<String, List<LibraryVersion>> versionsByLibrary = new HashMap<>();
+        Map<String, LibraryVersion> latestByLibrary = new HashMap<>();
+        Map<String, LibraryVersion> ltsByLibrary = new HashMap<>();
+        for (LibraryVersion version : versions) {
+            versionsByLibrary.computeIfAbsent(version.getLibraryId(), id -> new ArrayList<>()).add(version);
+            if (Boolean.TRUE.equals(version.getIsLatest())) {
+                latestByLibrary.merge(version.getLibraryId(), version,
+                        (a, b) -> NEWEST_FIRST.compare(a, b) <= 0 ? a : b);
+            }
+            if (Boolean.TRUE.equals(version.getIsLts())) {
+                ltsByLibrary.merge(version.getLibraryId(), version,
+                        (a, b) -> NEWEST_FIRST.compare(a, b) <= 0 ? a : b);
+            }
+        }
+        versionsByLibrary.replaceAll((id, list) -> list.stream().sorted(NEWEST_FIRST).toList());
+
+        return new CatalogSnapshot(
+                List.copyOf(sortedLibraries),
+                sortedLibraries.stream().collect(Collectors.toUnmodifiableMap(Library::getName, l -> l)),
+                Map.copyOf(versionsByLibrary),
+                Map.copyOf(latestByLibrary),
+                Map.copyOf(ltsByLibrary));
+    }
+
+    /**
+     * 根據名稱查找函式庫
+     */
+    public Optional<Library> findLibraryByName(String name) {
+        return Optional.ofNullable(name).map(librariesByName::get);
+    }
+
+    /**
+     * 根據分類查找函式庫
+     */
+    public List<Library> findLibrariesByCategory(String category) {
+        return libraries.stream()
+                .filter(library -> category.equals(library.getCategory()))
+                .toList();
+    }
+
+    /**
+     * 取得函式庫的所有版本（依建立時間降序）
+     */
+    public List<LibraryVersion> findVersions(String libraryId) {
+        return versionsByLibrary.getOrDefault(libraryId, List.of());
+    }
+
+    /**
+     * 取得函式庫的最新版本
+     */
+    public Optional<LibraryVersion> findLatestVersion(String libraryId) {
+        return Optional.ofNullable(latestByLibrary.get(libraryId));
+    }
+
+    /**
+     * 取得函式庫的 LTS 版本（有多個時取建立時間最新者）
+     */
+    public Optional<LibraryVersion> findLtsVersion(String libraryId) {
+        return Optional.ofNullable(ltsByLibrary.get(libraryId));
+    }
+
+    /**
+     * 取得函式庫的特定版本
+     */
+    public Optional<LibraryVersion> findVersion(String libraryId, String version) {
+        return findVersions(libraryId).stream()
+                .filter(v -> v.getVersion().equals(version))
+                .findFirst();
+    }
+}
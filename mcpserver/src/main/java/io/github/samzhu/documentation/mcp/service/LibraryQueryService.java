@@ -6,8 +6,6 @@ import io.github.samzhu.documentation.mcp.domain.model.Library;
 import io.github.samzhu.documentation.mcp.domain.model.LibraryVersion;
 import io.github.samzhu.documentation.mcp.repository.CodeExampleRepository;
 import io.github.samzhu.documentation.mcp.repository.DocumentRepository;
-import io.github.samzhu.documentation.mcp.repository.LibraryRepository;
-import io.github.samzhu.documentation.mcp.repository.LibraryVersionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -20,7 +18,7 @@ import java.util.Optional;
  * 函式庫查詢服務
  * <p>
  * 封裝「libraryName → libraryId → versionId」的通用解析邏輯，
- * 提供 MCP Tools 統一的查詢入口。
+ * 提供 MCP Tools 統一的查詢入口。函式庫與版本由 {@link CatalogCache} 的記憶體快照解析，不需查詢資料庫。
  * </p>
  */
 @Service
@@ -29,17 +27,14 @@ public class LibraryQueryService {
 
     private static final Logger log = LoggerFactory.getLogger(LibraryQueryService.class);
 
-    private final LibraryRepository libraryRepository;
-    private final LibraryVersionRepository versionRepository;
+    private final CatalogCache catalogCache;
     private final DocumentRepository documentRepository;
     private final CodeExampleRepository codeExampleRepository;
 
-    public LibraryQueryService(LibraryRepository libraryRepository,
-                               LibraryVersionRepository versionRepository,
+    public LibraryQueryService(CatalogCache catalogCache,
                                DocumentRepository documentRepository,
                                CodeExampleRepository codeExampleRepository) {
-        this.libraryRepository = libraryRepository;
-        this.versionRepository = versionRepository;
+        this.catalogCache = catalogCache;
         this.documentRepository = documentRepository;
         this.codeExampleRepository = codeExampleRepository;
     }
@@ -52,7 +47,7 @@ public class LibraryQueryService {
      * @throws IllegalArgumentException 找不到時拋出
      */
     public Library findLibraryByName(String name) {
-        return libraryRepository.findByName(name)
+        return catalogCache.snapshot().findLibraryByName(name)
                 .orElseThrow(() -> new IllegalArgumentException("找不到函式庫: " + name));
     }
 
@@ -64,9 +59,9 @@ public class LibraryQueryService {
      */
     public List<Library> findAllLibraries(String category) {
         if (category != null && !category.isBlank()) {
-            return libraryRepository.findByCategory(category);
+            return catalogCache.snapshot().findLibrariesByCategory(category);
         }
-        return libraryRepository.findAll();
+        return catalogCache.snapshot().libraries();
     }
 
     /**
@@ -77,7 +72,7 @@ public class LibraryQueryService {
      */
     public List<LibraryVersion> findVersionsByLibraryName(String libraryName) {
         Library library = findLibraryByName(libraryName);
-        return versionRepository.findByLibraryId(library.getId());
+        return catalogCache.snapshot().findVersions(library.getId());
     }
 
     /**
@@ -94,9 +89,9 @@ public class LibraryQueryService {
     public String resolveVersionId(String libraryId, String version) {
         Optional<LibraryVersion> versionOpt;
         if (version != null && !version.isBlank()) {
-            versionOpt = versionRepository.findByLibraryIdAndVersion(libraryId, version);
+            versionOpt = catalogCache.snapshot().findVersion(libraryId, version);
         } else {
-            versionOpt = versionRepository.findLatestByLibraryId(libraryId);
+            versionOpt = catalogCache.snapshot().findLatestVersion(libraryId);
         }
         return versionOpt
                 .map(LibraryVersion::getId)
@@ -0,0 +1,326 @@
+package io.github.samzhu.documentation.mcp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.samzhu.documentation.mcp.config.SearchProperties;
+import io.github.samzhu.documentation.mcp.service.dto.SearchResultItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 搜尋結果快取
+ * <p>
+ * 以（版本集合, 正規化查詢, 模式, 筆數, alpha, 閾值）為鍵快取搜尋結果（跨函式庫搜尋的版本集合為各函式庫的最新版本）。版本內容只在 Backend 同步或補齊嵌入後改變，
+ * 因此快取項目以版本為標記，收到失效通知（{@link #INVALIDATION_CHANNEL}）時整批失效：
+ * </p>
+ * <ul>
+ *   <li>容量以結果的估計位元組數加權（Caffeine weigher），大型結果不會擠掉大量小型結果之外的額度</li>
+ *   <li>每個版本有一個世代號碼，版本集合的世代總和納入快取鍵；失效時遞增世代並移除包含該版本的項目，
+ *       失效前開始、失效後才完成的搜尋寫入舊世代，不會被後續查詢讀到</li>
+ *   <li>存活時間為保底，避免漏接失效通知時無限期回傳舊結果</li>
+ *   <li>第二層為相似查詢索引（{@link SimilarQueryIndex}）：完全相同的鍵未命中時，
+ *       以查詢向量尋找同版本集合、同參數且餘弦相似度超過閾值的查詢並沿用其結果</li>
+ * </ul>
+ * <p>
+ * 指標：{@code search.result.cache}（tag result = hit / miss）、{@code search.result.cache.size}、
+ * {@code search.result.cache.similar}（tag result = hit / miss）。
+ * </p>
+ * <p>
+ * 回傳的結果列表為共用的不可變實例。
+ * </p>
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchResultCache.class);
+
+    /**
+     * 失效通知的 PostgreSQL NOTIFY 頻道（由 Backend 發送，payload 為版本 ID；需與 Backend 一致）
+     */
+    public static final String INVALIDATION_CHANNEL = "search_cache_invalidation";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // 物件標頭、欄位與字串標頭的概估額外開銷
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int ITEM_OVERHEAD_BYTES = 96;
+
+    private final boolean enabled;
+    private final Cache<Key, List<SearchResultItem>> cache;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final SimilarQueryIndex similarIndex;
+    private final Counter similarHitCounter;
+    private final Counter similarMissCounter;
+
+    /**
+     * 快取鍵
+     *
+     * @param versionIds 版本 ID 列表（單一版本搜尋只有一個元素）
+     * @param generation 取得鍵時各版本世代的總和
+     * @param query      正規化後的查詢文字
+     * @param mode       搜尋模式
+     * @param limit      結果數量上限
+     * @param alpha      關鍵字搜尋權重（非混合搜尋為 0）
+     * @param threshold  相似度閾值（全文檢索為 0）
+     */
+    public record Key(List<String> versionIds, long generation, String query, String mode,
+                      int limit, double alpha, double threshold) {
+    }
+
+    /**
+     * 建構子
+     *
+     * @param searchProperties 搜尋配置（platform.search.cache.*）
+     * @param meterRegistry    指標註冊表
+     */
+    public SearchResultCache(SearchProperties searchProperties, MeterRegistry meterRegistry) {
+        SearchProperties.Cache config = searchProperties.cache();
+        this.enabled = config.enabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.maxWeight().toBytes())
+                .weigher(SearchResultCache::weigh)
+                .expireAfterWrite(config.ttl())
+                .build();
+
+        this.hitCounter = resultCounter(meterRegistry, "search.result.cache", "hit");
+        this.missCounter = resultCounter(meterRegistry, "search.result.cache", "miss");
+        SearchProperties.Similar similar = config.similar();
+        this.similarIndex = enabled && similar.enabled()
+                ? new SimilarQueryIndex(similar.threshold(), similar.capacity(), config.ttl())
+                : null;
+        this.similarHitCounter = resultCounter(meterRegistry, "search.result.cache.similar", "hit");
+        this.similarMissCounter = resultCounter(meterRegistry, "search.result.cache.similar", "miss");
+        Gauge.builder("search.result.cache.size", cache, Cache::estimatedSize)
+                .description("搜尋結果快取筆數")
+                .register(meterRegistry);
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder(name)
+                .description("搜尋結果快取查詢次數")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 建立快取鍵（擷取版本目前的世代）
+     *
+     * @param versionId 版本 ID
+     * @param query     查詢文字
+     * @param mode      搜尋模式
+     * @param limit     結果數量上限
+     * @param alpha     關鍵字搜尋權重
+     * @param threshold 相似度閾值
+     * @return 快取鍵
+     */
+    public Key key(String versionId, String query, String mode, int limit, double alpha, double threshold) {
+        return key(List.of(versionId), query, mode, limit, alpha, threshold);
+    }
+
+    /**
+     * 建立多版本搜尋的快取鍵（擷取各版本目前的世代）
+     *
+     * @param versionIds 版本 ID 列表
+     * @param query      查詢文字
+     * @param mode       搜尋模式
+     * @param limit      結果數量上限
+     * @param alpha      關鍵字搜尋權重
+     * @param threshold  相似度閾值
+     * @return 快取鍵
+     */
+    public Key key(List<String> versionIds, String query, String mode, int limit, double alpha, double threshold) {
+        List<String> ids = List.copyOf(versionIds);
+        return new Key(ids, generation(ids), normalize(query), mode, limit, alpha, threshold);
+    }
+
+    /**
+     * 查詢快取
+     *
+     * @param key 快取鍵
+     * @return 快取的結果，未命中或停用時回傳 null
+     */
+    public List<SearchResultItem> getIfPresent(Key key) {
+        if (!enabled) {
+            return null;
+        }
+        List<SearchResultItem> results = cache.getIfPresent(key);
+        (results != null ? hitCounter : missCounter).increment();
+        return results;
+    }
+
+    /**
+     * 寫入快取
+     * <p>
+     * 取得鍵之後版本已失效時不寫入。
+     * </p>
+     *
+     * @param key     快取鍵
+     * @param results 搜尋結果
+     */
+    public void put(Key key, List<SearchResultItem> results) {
+        if (!enabled || generation(key.versionIds()) != key.generation()) {
+            return;
+        }
+        cache.put(key, List.copyOf(results));
+    }
+
+    /**
+     * 是否啟用相似查詢索引（停用時呼叫端不需取得查詢向量）
+     */
+    public boolean isSimilarEnabled() {
+        return similarIndex != null;
+    }
+
+    /**
+     * 查詢相似查詢索引
+     * <p>
+     * 回傳的結果標記 {@code matchedQuery} 為被沿用結果的原查詢。
+     * </p>
+     *
+     * @param key         新查詢的快取鍵
+     * @param queryVector 新查詢的向量
+     * @return 沿用的搜尋結果，未命中或停用時回傳 null
+     */
+    public List<SearchResultItem> findSimilar(Key key, float[] queryVector) {
+        if (similarIndex == null || queryVector == null) {
+            return null;
+        }
+        SimilarQueryIndex.Match match = similarIndex.find(key, queryVector);
+        if (match == null) {
+            similarMissCounter.increment();
+            return null;
+        }
+        similarHitCounter.increment();
+        log.debug("Reusing results of similar query '{}' (similarity {}) for '{}'",
+                match.query(), match.similarity(), key.query());
+        return match.results().stream()
+                .map(item -> item.withMatchedQuery(match.query()))
+                .toList();
+    }
+
+    /**
+     * 寫入快取並加入相似查詢索引
+     *
+     * @param key         快取鍵
+     * @param results     搜尋結果
+     * @param queryVector 查詢向量（null 時只寫入第一層）
+     */
+    public void put(Key key, List<SearchResultItem> results, float[] queryVector) {
+        if (!enabled || generation(key.versionIds()) != key.generation()) {
+            return;
+        }
+        List<SearchResultItem> copy = List.copyOf(results);
+        cache.put(key, copy);
+        if (similarIndex != null && queryVector != null) {
+            similarIndex.add(key, queryVector, copy);
+        }
+    }
+
+    /**
+     * 查詢快取，未命中時執行搜尋並寫入
+     *
+     * @param key    快取鍵
+     * @param loader 未命中時的搜尋
+     * @return 搜尋結果
+     */
+    public List<SearchResultItem> get(Key key, Supplier<List<SearchResultItem>> loader) {
+        List<SearchResultItem> cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<SearchResultItem> results = loader.get();
+        put(key, results);
+        return results;
+    }
+
+    /**
+     * 使版本的所有快取結果失效
+     *
+     * @param versionId 版本 ID
+     */
+    public void invalidateVersion(String versionId) {
+        if (versionId == null) {
+            return;
+        }
+        generation(versionId).incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.versionIds().contains(versionId));
+        if (similarIndex != null) {
+            similarIndex.invalidate(versionId);
+        }
+        log.debug("Invalidated search result cache for version {}", versionId);
+    }
+
+    /**
+     * 使所有快取結果失效
+     */
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        cache.invalidateAll();
+        if (similarIndex != null) {
+            similarIndex.clear();
+        }
+    }
+
+    /**
+     * 目前快取筆數（估計值）
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private AtomicLong generation(String versionId) {
+        return generations.computeIfAbsent(versionId, id -> new AtomicLong());
+    }
+
+    /**
+     * 版本集合的世代總和（任一版本失效都會使總和增加）
+     */
+    private long generation(List<String> versionIds) {
+        long sum = 0;
+        for (String versionId : versionIds) {
+            sum += generation(versionId).get();
+        }
+        return sum;
+    }
+
+    /**
+     * 估計快取項目佔用的位元組數（字串以每字元 2 位元組計）
+     */
+    private static int weigh(Key key, List<SearchResultItem> results) {
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * key.query().length();
+        for (SearchResultItem item : results) {
+            bytes += ITEM_OVERHEAD_BYTES + 2L * (length(item.documentId()) + length(item.chunkId())
+                    + length(item.title()) + length(item.path()) + length(item.content()));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * 正規化查詢文字（NFKC、去除首尾空白並合併連續空白）
+     */
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(normalized.strip()).replaceAll(" ");
+    }
+}
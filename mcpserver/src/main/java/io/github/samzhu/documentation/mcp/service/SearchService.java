@@ -2,21 +2,33 @@ package io.github.samzhu.documentation.mcp.service;
 
 import io.github.samzhu.documentation.mcp.config.SearchProperties;
 import io.github.samzhu.documentation.mcp.domain.model.Library;
-import io.github.samzhu.documentation.mcp.repository.DocumentRepository;
-import io.github.samzhu.documentation.mcp.repository.LibraryRepository;
-import io.github.samzhu.documentation.mcp.repository.LibraryVersionRepository;
+import io.github.samzhu.documentation.mcp.domain.model.LibraryVersion;
+import io.github.samzhu.documentation.mcp.infrastructure.embedding.QueryEmbeddingCache;
+import io.github.samzhu.documentation.mcp.infrastructure.keyword.LuceneChunkIndex;
+import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore;
+import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.EmbeddingSnapshotIndex;
+import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.LuceneVectorIndex;
+import io.github.samzhu.documentation.mcp.infrastructure.vectorstore.ScoredChunk;
+import io.github.samzhu.documentation.mcp.repository.ChunkSearchHit;
+import io.github.samzhu.documentation.mcp.repository.ChunkSearchRepository;
 import io.github.samzhu.documentation.mcp.service.dto.SearchResultItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static io.github.samzhu.documentation.mcp.infrastructure.vectorstore.DocumentChunkVectorStore.*;
 
@@ -24,9 +36,14 @@ import static io.github.samzhu.documentation.mcp.infrastructure.vectorstore.Docu
  * 搜尋服務
  * <p>
  * 提供全文檢索、語意搜尋和混合搜尋功能。
- * 全文檢索使用 PostgreSQL 的 tsvector/tsquery。
- * 語意搜尋使用 pgvector 的向量相似度計算。
+ * 全文檢索使用 PostgreSQL 的 tsvector/tsquery，以區塊為單位搜尋；
+ * platform.search.keyword.engine=lucene 時改用每個版本的本機 Lucene 索引（BM25）。
+ * 語意搜尋使用 pgvector 的向量相似度計算；啟用程序內向量索引時，已常駐的版本於本程序完成近鄰搜尋，
+ * PostgreSQL 只依區塊 ID 讀取結果；啟用嵌入快照時，選定函式庫的版本以記憶體映射的向量矩陣精確搜尋（優先於 HNSW）。
  * 混合搜尋使用 RRF（Reciprocal Rank Fusion）演算法融合兩種搜尋結果。
+ * 跨函式庫搜尋以單一查詢涵蓋所有最新版本（{@code version_id = ANY(?)}），只嵌入一次查詢並在全域排名上融合。
+ * 各版本集合的搜尋結果經由 {@link SearchResultCache} 快取，Backend 同步完成後失效；
+ * 語意與混合搜尋未完全命中時，再以查詢向量尋找相似的已快取查詢。
  * </p>
  */
 @Service
@@ -38,108 +55,206 @@ public class SearchService {
     /** RRF 常數 K，防止排名第一的結果權重過大 */
     private static final int RRF_K = 60;
 
-    private final DocumentRepository documentRepository;
-    private final LibraryRepository libraryRepository;
-    private final LibraryVersionRepository versionRepository;
-    private final VectorStore vectorStore;
-    private final SearchProperties searchProperties;
+    private static final String MODE_FULLTEXT = "fulltext";
+    private static final String MODE_SEMANTIC = "semantic";
+    private static final String MODE_HYBRID = "hybrid";
 
-    public SearchService(DocumentRepository documentRepository,
-                         LibraryRepository libraryRepository,
-                         LibraryVersionRepository versionRepository,
-                         VectorStore vectorStore,
-                         SearchProperties searchProperties) {
-        this.documentRepository = documentRepository;
-        this.libraryRepository = libraryRepository;
-        this.versionRepository = versionRepository;
+    private final ChunkSearchRepository chunkSearchRepository;
+    private final CatalogCache catalogCache;
+    private final DocumentChunkVectorStore vectorStore;
+    private final SearchProperties searchProperties;
+    private final ExecutorService searchExecutor;
+    private final SearchResultCache resultCache;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+
+    /** Lucene 區塊關鍵字索引（未啟用時為 null，使用 PostgreSQL 全文檢索） */
+    private final LuceneChunkIndex keywordIndex;
+
+    /** 程序內常駐 HNSW 索引（未啟用時為 null，語意搜尋使用 pgvector） */
+    private final LuceneVectorIndex vectorIndex;
+
+    /** 版本嵌入快照索引（未啟用時為 null） */
+    private final EmbeddingSnapshotIndex snapshotIndex;
+
+    public SearchService(ChunkSearchRepository chunkSearchRepository,
+                         CatalogCache catalogCache,
+                         DocumentChunkVectorStore vectorStore,
+                         SearchProperties searchProperties,
+                         ExecutorService virtualThreadExecutor,
+                         SearchResultCache resultCache,
+                         QueryEmbeddingCache queryEmbeddingCache,
+                         ObjectProvider<LuceneChunkIndex> keywordIndex,
+                         ObjectProvider<LuceneVectorIndex> vectorIndex,
+                         ObjectProvider<EmbeddingSnapshotIndex> snapshotIndex) {
+        this.chunkSearchRepository = chunkSearchRepository;
+        this.catalogCache = catalogCache;
         this.vectorStore = vectorStore;
         this.searchProperties = searchProperties;
+        this.searchExecutor = virtualThreadExecutor;
+        this.resultCache = resultCache;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.keywordIndex = keywordIndex.getIfAvailable();
+        this.vectorIndex = vectorIndex.getIfAvailable();
+        this.snapshotIndex = snapshotIndex.getIfAvailable();
     }
 
     /**
-     * 全文檢索
+     * 全文檢索（區塊層級，回傳與語意搜尋相同的區塊 ID）
      *
-     * @param versionId 版本 ID
-     * @param query     搜尋關鍵字
-     * @param limit     結果數量上限
+     * @param versionIds 版本 ID 列表
+     * @param query      搜尋關鍵字
+     * @param limit      結果數量上限
      * @return 搜尋結果列表
      */
-    public List<SearchResultItem> fullTextSearch(String versionId, String query, int limit) {
+    public List<SearchResultItem> fullTextSearch(List<String> versionIds, String query, int limit) {
         if (query == null || query.isBlank()) {
             return List.of();
         }
 
-        var documents = documentRepository.fullTextSearch(versionId, query, limit);
-        return documents.stream()
-                .map(doc -> SearchResultItem.fromDocument(
-                        doc.getId(), doc.getTitle(), doc.getPath(),
-                        truncateContent(doc.getContent(), 500),
-                        1.0  // 全文檢索不回傳分數，使用預設值
-                ))
+        return resultCache.get(resultCache.key(versionIds, query, MODE_FULLTEXT, limit, 0, 0),
+                () -> keywordSearch(versionIds, query, limit));
+    }
+
+    /**
+     * 區塊全文搜尋（不經快取）
+     */
+    private List<SearchResultItem> keywordSearch(List<String> versionIds, String query, int limit) {
+        List<ChunkSearchHit> hits = keywordIndex != null
+                ? keywordIndex.search(versionIds, query, limit)
+                : chunkSearchRepository.fullTextSearch(versionIds, query, limit);
+        return hits.stream()
+                .map(SearchService::toSearchResultItem)
                 .toList();
     }
 
     /**
      * 語意搜尋
+     * <p>
+     * 不在呼叫端開啟交易：等待查詢嵌入（含批次時間窗）時不佔用連線，
+     * HNSW 查詢參數由 VectorStore 於查詢的短交易內設定。
+     * </p>
      *
-     * @param versionId 版本 ID
-     * @param query     自然語言查詢
-     * @param limit     結果數量上限
-     * @param threshold 相似度閾值
+     * @param versionIds 版本 ID 列表
+     * @param query      自然語言查詢
+     * @param limit      結果數量上限
+     * @param threshold  相似度閾值
      * @return 搜尋結果列表
      */
-    public List<SearchResultItem> semanticSearch(String versionId, String query,
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<SearchResultItem> semanticSearch(List<String> versionIds, String query,
                                                   int limit, double threshold) {
         if (query == null || query.isBlank()) {
             return List.of();
         }
 
-        // 使用 VectorStore 執行語意搜尋，透過 filterExpression 限制搜尋範圍
+        SearchResultCache.Key cacheKey = resultCache.key(versionIds, query, MODE_SEMANTIC, limit, 0, threshold);
+        List<SearchResultItem> cached = resultCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        float[] queryVector = similarityVector(query);
+        List<SearchResultItem> similar = resultCache.findSimilar(cacheKey, queryVector);
+        if (similar != null) {
+            return similar;
+        }
+
+        List<SearchResultItem> results = vectorSearch(versionIds, query, limit, threshold);
+        resultCache.put(cacheKey, results, queryVector);
+        return results;
+    }
+
+    /**
+     * 向量相似度搜尋（不經快取）
+     */
+    private List<SearchResultItem> vectorSearch(List<String> versionIds, String query, int limit, double threshold) {
+        List<SearchResultItem> inProcess = inProcessSearch(versionIds, query, limit, threshold);
+        if (inProcess != null) {
+            return inProcess;
+        }
+
+        // 使用 VectorStore 執行語意搜尋，透過 filterExpression 限制搜尋範圍；結果以單一 JOIN 取得標題與路徑
         SearchRequest request = SearchRequest.builder()
                 .query(query)
                 .topK(limit)
                 .similarityThreshold(threshold)
-                .filterExpression(METADATA_VERSION_ID + " == '" + versionId + "'")
+                .filterExpression(versionFilter(versionIds))
                 .build();
 
-        List<org.springframework.ai.document.Document> results = vectorStore.similaritySearch(request);
-
-        if (results.isEmpty()) {
-            return List.of();
-        }
-
-        // 從結果中取得 document IDs 並批次查詢文件資訊
-        List<String> documentIds = results.stream()
-                .map(doc -> {
-                    Object docIdObj = doc.getMetadata().get(METADATA_DOCUMENT_ID);
-                    return docIdObj != null ? docIdObj.toString() : null;
-                })
-                .filter(Objects::nonNull)
-                .distinct()
+        return vectorStore.similaritySearchHits(request).stream()
+                .map(SearchService::toSearchResultItem)
                 .toList();
+    }
 
-        Map<String, io.github.samzhu.documentation.mcp.domain.model.Document> documentMap =
-                StreamSupport.stream(documentRepository.findAllById(documentIds).spliterator(), false)
-                        .collect(Collectors.toMap(
-                                io.github.samzhu.documentation.mcp.domain.model.Document::getId,
-                                Function.identity()));
+    /**
+     * 程序內近鄰搜尋：依序嘗試嵌入快照（精確）與常駐 HNSW 索引，PostgreSQL 只讀取命中區塊的結果投影
+     *
+     * @return 搜尋結果；皆無法回應（未啟用、版本未選定或未常駐）時回傳 null，改用 pgvector
+     */
+    private List<SearchResultItem> inProcessSearch(List<String> versionIds, String query, int limit,
+                                                   double threshold) {
+        if (snapshotIndex == null && vectorIndex == null) {
+            return null;
+        }
+        float[] queryVector = queryEmbeddingCache.embed(query);
+        if (snapshotIndex != null) {
+            List<ScoredChunk> nearest = snapshotIndex.search(versionIds, queryVector, limit, threshold);
+            if (nearest != null) {
+                List<SearchResultItem> results = findHits(versionIds, nearest);
+                if (results != null) {
+                    return results;
+                }
+                // 快照仍含資料庫已刪除的區塊，重新比對指紋後改用常駐索引或 pgvector
+                versionIds.forEach(snapshotIndex::refresh);
+            }
+        }
+        if (vectorIndex != null) {
+            List<ScoredChunk> nearest = vectorIndex.search(versionIds, queryVector, limit, threshold);
+            if (nearest != null) {
+                List<SearchResultItem> results = findHits(versionIds, nearest);
+                if (results != null) {
+                    return results;
+                }
+                // 索引仍含資料庫已刪除的區塊（同步通知尚未送達或已漏接），重新比對後改用 pgvector
+                versionIds.forEach(vectorIndex::refresh);
+            }
+        }
+        return null;
+    }
 
-        // 轉換為搜尋結果
-        return results.stream()
-                .map(doc -> toSearchResultItem(doc, documentMap))
-                .filter(Objects::nonNull)
+    /**
+     * 依程序內近鄰結果讀取結果投影
+     *
+     * @return 搜尋結果；資料庫缺少部分區塊（索引尚未反映重新同步或刪除）時回傳 null
+     */
+    private List<SearchResultItem> findHits(List<String> versionIds, List<ScoredChunk> nearest) {
+        List<ChunkSearchHit> hits = vectorStore.findHits(versionIds, nearest);
+        if (hits.size() < nearest.size()) {
+            log.debug("程序內向量索引有 {} 個區塊已不存在於資料庫，改用其他路徑",
+                    nearest.size() - hits.size());
+            return null;
+        }
+        return hits.stream()
+                .map(SearchService::toSearchResultItem)
                 .toList();
     }
 
+
     /**
      * 混合搜尋（使用 RRF 演算法融合全文搜尋與語意搜尋結果）
+     * <p>
+     * 兩種搜尋於各自的虛擬執行緒上並行執行，逾時者不納入融合；有檢索器逾時的不完整結果不寫入快取。
+     * 查詢嵌入在語意檢索器內與關鍵字搜尋同時進行，相似查詢查找等到向量取得後才進行。
+     * 不在呼叫端開啟交易：檢索器於其他執行緒取得各自的連線，避免呼叫端閒置佔用一條連線。
+     * </p>
      *
-     * @param versionId 版本 ID
-     * @param query     搜尋查詢
-     * @param limit     結果數量上限
+     * @param versionIds 版本 ID 列表
+     * @param query      搜尋查詢
+     * @param limit      結果數量上限
      * @return 融合後的搜尋結果列表（依 RRF 分數排序）
      */
-    public List<SearchResultItem> hybridSearch(String versionId, String query, int limit) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<SearchResultItem> hybridSearch(List<String> versionIds, String query, int limit) {
         if (query == null || query.isBlank()) {
             return List.of();
         }
@@ -147,17 +262,84 @@ public class SearchService {
         double alpha = searchProperties.hybrid().alpha();
         double minSimilarity = searchProperties.hybrid().minSimilarity();
 
-        log.debug("執行混合搜尋: query='{}', versionId={}, alpha={}", query, versionId, alpha);
+        log.debug("執行混合搜尋: query='{}', versionIds={}, alpha={}", query, versionIds, alpha);
 
         // 取得更多結果以確保融合後有足夠的資料
         int fetchLimit = limit * 2;
 
-        List<SearchResultItem> keywordResults = fullTextSearch(versionId, query, fetchLimit);
-        List<SearchResultItem> semanticResults = semanticSearch(versionId, query, fetchLimit, minSimilarity);
+        SearchResultCache.Key cacheKey = resultCache.key(versionIds, query, MODE_HYBRID, limit, alpha, minSimilarity);
+        List<SearchResultItem> cached = resultCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        if (searchProperties.hybrid().sqlNative() && keywordIndex == null && vectorIndex == null
+                && snapshotIndex == null) {
+            // 單一 SQL 語句本來就需要查詢向量，先嵌入再查找相似查詢不會增加延遲
+            float[] queryVector = similarityVector(query);
+            List<SearchResultItem> similar = resultCache.findSimilar(cacheKey, queryVector);
+            if (similar != null) {
+                return similar;
+            }
+            // 單一 SQL 語句完成關鍵字排名、向量排名與 RRF 融合，查詢向量以參數傳入（任一排名於程序內計算時不適用）
+            List<SearchResultItem> fusedResults = vectorStore
+                    .hybridSearchHits(versionIds, query, fetchLimit, limit, alpha, RRF_K, minSimilarity).stream()
+                    .map(hit -> toSearchResultItem(hit).withScore(normalizeRRFScore(hit.score())))
+                    .toList();
+            resultCache.put(cacheKey, fusedResults, queryVector);
+            return fusedResults;
+        }
+
+        // 並行執行兩種搜尋：各自有獨立逾時，延遲為兩者較大值而非總和
+        // 查詢嵌入於語意檢索器內進行，與關鍵字搜尋重疊；嵌入完成後先交給呼叫端查找相似查詢
+        long startNanos = System.nanoTime();
+        CompletableFuture<float[]> queryVectorFuture = new CompletableFuture<>();
+        Future<List<SearchResultItem>> keywordFuture =
+                searchExecutor.submit(() -> keywordSearch(versionIds, query, fetchLimit));
+        Future<List<SearchResultItem>> semanticFuture = searchExecutor.submit(() -> {
+            queryVectorFuture.complete(similarityVector(query));
+            return vectorSearch(versionIds, query, fetchLimit, minSimilarity);
+        });
+        float[] queryVector;
+        List<SearchResultItem> keywordResults;
+        List<SearchResultItem> semanticResults;
+        try {
+            // 同版本集合、同參數且語意相近的查詢已有結果時直接沿用，取消進行中的 ANN 與全文檢索
+            queryVector = awaitQueryVector(queryVectorFuture, startNanos, searchProperties.hybrid().semanticTimeout());
+            List<SearchResultItem> similar = resultCache.findSimilar(cacheKey, queryVector);
+            if (similar != null) {
+                return similar;
+            }
+
+            keywordResults = awaitRetriever(keywordFuture, startNanos,
+                    searchProperties.hybrid().keywordTimeout(), "keyword");
+            semanticResults = awaitRetriever(semanticFuture, startNanos,
+                    searchProperties.hybrid().semanticTimeout(), "semantic");
+        } finally {
+            // 任一方失敗或沿用相似查詢結果時取消檢索器（已完成者不受影響）
+            keywordFuture.cancel(true);
+            semanticFuture.cancel(true);
+        }
 
         log.debug("關鍵字搜尋結果: {} 筆, 語意搜尋結果: {} 筆",
                 keywordResults.size(), semanticResults.size());
 
+        List<SearchResultItem> fusedResults = fuse(keywordResults, semanticResults, alpha, limit);
+
+        // 逾時的檢索器已被取消；完成者的 cancel 不生效
+        if (!keywordFuture.isCancelled() && !semanticFuture.isCancelled()) {
+            resultCache.put(cacheKey, fusedResults, queryVector);
+        }
+
+        return fusedResults;
+    }
+
+    /**
+     * 融合兩種搜尋結果（依 RRF 分數排序）
+     */
+    private List<SearchResultItem> fuse(List<SearchResultItem> keywordResults,
+                                        List<SearchResultItem> semanticResults,
+                                        double alpha, int limit) {
         // 如果任一搜尋無結果，直接返回另一種搜尋的結果
         if (keywordResults.isEmpty() && semanticResults.isEmpty()) {
             return List.of();
@@ -196,6 +378,9 @@ public class SearchService {
 
     /**
      * 搜尋文件（統一入口，支援跨 Library 搜尋）
+     * <p>
+     * 不在此開啟交易，混合搜尋的兩個檢索器各自取得連線（見 {@link #hybridSearch}）。
+     * </p>
      *
      * @param libraryName 函式庫名稱（null 表示搜尋所有函式庫的最新版本）
      * @param version     版本號（null 表示最新版本）
@@ -204,6 +389,7 @@ public class SearchService {
      * @param limit       結果數量上限
      * @return 搜尋結果列表
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<SearchResultItem> search(String libraryName, String version,
                                           String query, String mode, int limit) {
         if (query == null || query.isBlank()) {
@@ -230,49 +416,58 @@ public class SearchService {
      */
     private List<SearchResultItem> searchInLibrary(String libraryName, String version,
                                                     String query, String mode, int limit) {
-        Library library = libraryRepository.findByName(libraryName)
+        Library library = catalogCache.snapshot().findLibraryByName(libraryName)
                 .orElseThrow(() -> new IllegalArgumentException("找不到函式庫: " + libraryName));
 
         String versionId = resolveVersionId(library.getId(), version);
 
-        return switch (mode) {
-            case "fulltext" -> fullTextSearch(versionId, query, limit);
-            case "semantic" -> semanticSearch(versionId, query, limit,
-                    searchProperties.hybrid().minSimilarity());
-            default -> hybridSearch(versionId, query, limit);
-        };
+        return searchVersions(List.of(versionId), query, mode, limit);
     }
 
     /**
      * 搜尋所有函式庫的最新版本
+     * <p>
+     * 以單一查詢涵蓋所有最新版本：查詢只嵌入一次，ANN 與全文檢索各執行一次，
+     * RRF 在全域排名上計算，分數在函式庫之間可比較（逐一搜尋各函式庫再依分數合併時，
+     * 每個函式庫的第一名都有相同的 RRF 分數）。
+     * </p>
      */
     private List<SearchResultItem> searchAcrossLibraries(String query, String mode, int limit) {
-        List<Library> libraries = libraryRepository.findAll();
-        List<SearchResultItem> allResults = new ArrayList<>();
-
-        for (Library library : libraries) {
-            try {
-                var latestVersion = versionRepository.findLatestByLibraryId(library.getId());
-                if (latestVersion.isEmpty()) continue;
-
-                String versionId = latestVersion.get().getId();
-                List<SearchResultItem> results = switch (mode) {
-                    case "fulltext" -> fullTextSearch(versionId, query, limit);
-                    case "semantic" -> semanticSearch(versionId, query, limit,
-                            searchProperties.hybrid().minSimilarity());
-                    default -> hybridSearch(versionId, query, limit);
-                };
-                allResults.addAll(results);
-            } catch (Exception e) {
-                log.warn("搜尋函式庫 {} 時發生錯誤: {}", library.getName(), e.getMessage());
-            }
+        CatalogSnapshot catalog = catalogCache.snapshot();
+        List<String> versionIds = catalog.libraries().stream()
+                .map(library -> catalog.findLatestVersion(library.getId()))
+                .flatMap(Optional::stream)
+                .map(LibraryVersion::getId)
+                .toList();
+        if (versionIds.isEmpty()) {
+            return List.of();
         }
 
-        // 依分數排序並限制結果數量
-        return allResults.stream()
-                .sorted(Comparator.comparingDouble(SearchResultItem::score).reversed())
-                .limit(limit)
-                .toList();
+        return searchVersions(versionIds, query, mode, limit);
+    }
+
+    /**
+     * 依搜尋模式搜尋版本集合
+     */
+    private List<SearchResultItem> searchVersions(List<String> versionIds, String query, String mode, int limit) {
+        return switch (mode) {
+            case MODE_FULLTEXT -> fullTextSearch(versionIds, query, limit);
+            case MODE_SEMANTIC -> semanticSearch(versionIds, query, limit,
+                    searchProperties.hybrid().minSimilarity());
+            default -> hybridSearch(versionIds, query, limit);
+        };
+    }
+
+    /**
+     * 建立版本範圍的過濾表達式（單一版本使用等值比較）
+     */
+    private static String versionFilter(List<String> versionIds) {
+        if (versionIds.size() == 1) {
+            return METADATA_VERSION_ID + " == '" + versionIds.getFirst() + "'";
+        }
+        return versionIds.stream()
+                .map(id -> "'" + id + "'")
+                .collect(Collectors.joining(", ", METADATA_VERSION_ID + " in [", "]"));
     }
 
     /**
@@ -280,12 +475,12 @@ public class SearchService {
      */
     private String resolveVersionId(String libraryId, String version) {
         if (version != null && !version.isBlank()) {
-            return versionRepository.findByLibraryIdAndVersion(libraryId, version)
+            return catalogCache.snapshot().findVersion(libraryId, version)
                     .map(v -> v.getId())
                     .orElseThrow(() -> new IllegalArgumentException(
                             "找不到版本: libraryId=%s, version=%s".formatted(libraryId, version)));
         } else {
-            return versionRepository.findLatestByLibraryId(libraryId)
+            return catalogCache.snapshot().findLatestVersion(libraryId)
                     .map(v -> v.getId())
                     .orElseThrow(() -> new IllegalArgumentException(
                             "找不到最新版本: libraryId=%s".formatted(libraryId)));
@@ -293,29 +488,81 @@ public class SearchService {
     }
 
     /**
-     * 將 Spring AI Document 轉換為 SearchResultItem
+     * 取得用於相似查詢查找的查詢向量
+     * <p>
+     * 經由查詢向量快取取得，語意檢索器隨後嵌入同一查詢時直接命中。
+     * 未啟用相似查詢或嵌入失敗時回傳 null，搜尋照常進行（混合搜尋可退化為關鍵字搜尋）。
+     * </p>
      */
-    private SearchResultItem toSearchResultItem(
-            org.springframework.ai.document.Document doc,
-            Map<String, io.github.samzhu.documentation.mcp.domain.model.Document> documentMap) {
-
-        Map<String, Object> metadata = doc.getMetadata();
-        String documentId = getMetadataString(metadata, METADATA_DOCUMENT_ID);
-        if (documentId == null) return null;
-
-        var dbDoc = documentMap.get(documentId);
-        if (dbDoc == null) return null;
+    private float[] similarityVector(String query) {
+        if (!resultCache.isSimilarEnabled()) {
+            return null;
+        }
+        try {
+            return queryEmbeddingCache.embed(query);
+        } catch (RuntimeException e) {
+            log.warn("取得查詢向量失敗，略過相似查詢快取: {}", e.getMessage());
+            return null;
+        }
+    }
 
-        String chunkId = doc.getId();
-        int chunkIndex = getMetadataInt(metadata, METADATA_CHUNK_INDEX, 0);
-        double score = doc.getScore() != null ? doc.getScore() : 0.0;
+    /**
+     * 等待語意檢索器取得的查詢向量（用於相似查詢查找）
+     * <p>
+     * 未啟用相似查詢時不等待；超過語意檢索器的逾時仍未取得時回傳 null，搜尋照常進行。
+     * </p>
+     */
+    private float[] awaitQueryVector(CompletableFuture<float[]> future, long startNanos, Duration timeout) {
+        if (!resultCache.isSimilarEnabled()) {
+            return null;
+        }
+        try {
+            long remainingNanos = timeout.toNanos() - (System.nanoTime() - startNanos);
+            return future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hybrid search interrupted", e);
+        }
+    }
 
+    /**
+     * 將區塊搜尋結果投影轉換為 SearchResultItem
+     */
+    private static SearchResultItem toSearchResultItem(ChunkSearchHit hit) {
         return SearchResultItem.fromChunk(
-                dbDoc.getId(), chunkId, dbDoc.getTitle(), dbDoc.getPath(),
-                doc.getText(), score, chunkIndex
+                hit.documentId(), hit.chunkId(), hit.title(), hit.path(),
+                hit.content(), hit.score(), hit.chunkIndex()
         );
     }
 
+    /**
+     * 等待單一檢索器的結果
+     * <p>
+     * 逾時時中斷該檢索器（虛擬執行緒上的 JDBC / HTTP 阻塞 I/O 可被中斷）並回傳空結果，
+     * 混合搜尋退化為另一種搜尋；其他失敗則向上拋出。
+     * </p>
+     */
+    private List<SearchResultItem> awaitRetriever(Future<List<SearchResultItem>> future, long startNanos,
+                                                  Duration timeout, String name) {
+        try {
+            long remainingNanos = timeout.toNanos() - (System.nanoTime() - startNanos);
+            return future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("{} 搜尋逾時（{} ms），略過其結果", name, timeout.toMillis());
+            return List.of();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hybrid search interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException(name + " retriever failed", e.getCause());
+        }
+    }
+
     /**
      * 計算 RRF 分數
      */
@@ -341,6 +588,7 @@ public class SearchService {
 
     /**
      * 取得搜尋結果的唯一識別鍵
+     * 全文與語意搜尋皆回傳區塊，以 chunkId 為鍵使同一段落得以融合
      */
     private String getResultKey(SearchResultItem item) {
         if (item.chunkId() != null) {
@@ -356,27 +604,4 @@ public class SearchService {
         double maxPossibleScore = 2.0 / (RRF_K + 1);
         return Math.min(1.0, rrfScore / maxPossibleScore);
     }
-
-    /**
-     * 截斷內容
-     */
-    private String truncateContent(String content, int maxLength) {
-        if (content == null) return "";
-        if (content.length() <= maxLength) return content;
-        return content.substring(0, maxLength) + "...";
-    }
-
-    private String getMetadataString(Map<String, Object> metadata, String key) {
-        if (metadata == null || !metadata.containsKey(key)) return null;
-        Object value = metadata.get(key);
-        return value != null ? value.toString() : null;
-    }
-
-    private int getMetadataInt(Map<String, Object> metadata, String key, int defaultValue) {
-        if (metadata == null || !metadata.containsKey(key)) return defaultValue;
-        Object value = metadata.get(key);
-        if (value instanceof Number n) return n.intValue();
-        try { return Integer.parseInt(value.toString()); }
-        catch (NumberFormatException e) { return defaultValue; }
-    }
 }
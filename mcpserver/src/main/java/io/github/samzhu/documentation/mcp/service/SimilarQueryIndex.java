@@ -0,0 +1,151 @@
+package io.github.samzhu.documentation.mcp.service;
+
+import io.github.samzhu.documentation.mcp.service.dto.SearchResultItem;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 相似查詢索引（搜尋結果快取的第二層）
+ * <p>
+ * 每個版本集合保留最近的查詢向量（單位化）與其搜尋結果，新查詢以暴力法計算餘弦相似度，
+ * 超過閾值且搜尋參數相同時沿用既有結果。每個版本集合的容量很小（預設 256 筆），
+ * 一次查找約為容量 × 維度次乘加，遠低於一次 ANN 與全文檢索。
+ * </p>
+ */
+final class SimilarQueryIndex {
+
+    private final double threshold;
+    private final int capacity;
+    private final long ttlNanos;
+    private final Map<List<String>, Deque<Entry>> entriesByVersion = new ConcurrentHashMap<>();
+
+    /**
+     * 相似查詢命中
+     *
+     * @param query      被沿用結果的原查詢（正規化後）
+     * @param similarity 餘弦相似度
+     * @param results    原查詢的搜尋結果
+     */
+    record Match(String query, double similarity, List<SearchResultItem> results) {
+    }
+
+    private record Entry(SearchResultCache.Key key, float[] unitVector, List<SearchResultItem> results,
+                         long writtenAtNanos) {
+    }
+
+    /**
+     * @param threshold 沿用結果的最低餘弦相似度
+     * @param capacity  每個版本集合保留的查詢數
+     * @param ttl       項目存活時間（自寫入起算）
+     */
+    SimilarQueryIndex(double threshold, int capacity, Duration ttl) {
+        this.threshold = threshold;
+        this.capacity = capacity;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * 尋找參數相同且最相似的查詢
+     *
+     * @param key         新查詢的快取鍵
+     * @param queryVector 新查詢的向量
+     * @return 相似度最高且超過閾值的項目，沒有時回傳 null
+     */
+    Match find(SearchResultCache.Key key, float[] queryVector) {
+        Deque<Entry> entries = entriesByVersion.get(key.versionIds());
+        if (entries == null) {
+            return null;
+        }
+        float[] unitVector = normalize(queryVector);
+        long now = System.nanoTime();
+        Entry best = null;
+        double bestSimilarity = threshold;
+        synchronized (entries) {
+            for (Iterator<Entry> it = entries.iterator(); it.hasNext(); ) {
+                Entry entry = it.next();
+                if (now - entry.writtenAtNanos() > ttlNanos) {
+                    it.remove();
+                    continue;
+                }
+                if (!sameParameters(entry.key(), key) || entry.unitVector().length != unitVector.length) {
+                    continue;
+                }
+                double similarity = dot(entry.unitVector(), unitVector);
+                if (similarity >= bestSimilarity) {
+                    best = entry;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+        return best != null ? new Match(best.key().query(), bestSimilarity, best.results()) : null;
+    }
+
+    /**
+     * 加入查詢（超過容量時移除最舊的項目）
+     *
+     * @param key         查詢的快取鍵
+     * @param queryVector 查詢向量
+     * @param results     搜尋結果（不可變）
+     */
+    void add(SearchResultCache.Key key, float[] queryVector, List<SearchResultItem> results) {
+        Entry entry = new Entry(key, normalize(queryVector), results, System.nanoTime());
+        Deque<Entry> entries = entriesByVersion.computeIfAbsent(key.versionIds(), ids -> new ArrayDeque<>());
+        synchronized (entries) {
+            while (entries.size() >= capacity) {
+                entries.removeFirst();
+            }
+            entries.addLast(entry);
+        }
+    }
+
+    /**
+     * 移除包含該版本的所有項目
+     */
+    void invalidate(String versionId) {
+        entriesByVersion.keySet().removeIf(versionIds -> versionIds.contains(versionId));
+    }
+
+    /**
+     * 移除所有項目
+     */
+    void clear() {
+        entriesByVersion.clear();
+    }
+
+    /**
+     * 除查詢文字外的快取鍵欄位（含世代）皆相同
+     */
+    private static boolean sameParameters(SearchResultCache.Key a, SearchResultCache.Key b) {
+        return a.generation() == b.generation()
+                && a.limit() == b.limit()
+                && a.mode().equals(b.mode())
+                && Double.compare(a.alpha(), b.alpha()) == 0
+                && Double.compare(a.threshold(), b.threshold()) == 0;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] unit = new float[vector.length];
+        if (norm == 0) {
+            return unit;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
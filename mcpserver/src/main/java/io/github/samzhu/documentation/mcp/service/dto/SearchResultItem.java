@@ -1,18 +1,21 @@
 package io.github.samzhu.documentation.mcp.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * 搜尋結果項目
  * <p>
  * 用於表示單一搜尋結果的資訊。
  * </p>
  *
- * @param documentId 文件 ID（TSID 格式）
- * @param chunkId    區塊 ID（語意搜尋時使用，TSID 格式）
- * @param title      文件標題
- * @param path       文件路徑
- * @param content    匹配的內容片段
- * @param score      相關性分數
- * @param chunkIndex 區塊索引（語意搜尋時使用）
+ * @param documentId   文件 ID（TSID 格式）
+ * @param chunkId      區塊 ID（語意搜尋時使用，TSID 格式）
+ * @param title        文件標題
+ * @param path         文件路徑
+ * @param content      匹配的內容片段
+ * @param score        相關性分數
+ * @param chunkIndex   區塊索引（語意搜尋時使用）
+ * @param matchedQuery 結果沿用自相似查詢時為該查詢文字，否則為 null（不輸出）
  */
 public record SearchResultItem(
         String documentId,
@@ -21,14 +24,15 @@ public record SearchResultItem(
         String path,
         String content,
         double score,
-        Integer chunkIndex
+        Integer chunkIndex,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String matchedQuery
 ) {
     /**
      * 從文件搜尋結果建立
      */
     public static SearchResultItem fromDocument(String documentId, String title,
                                                  String path, String content, double score) {
-        return new SearchResultItem(documentId, null, title, path, content, score, null);
+        return new SearchResultItem(documentId, null, title, path, content, score, null, null);
     }
 
     /**
@@ -37,13 +41,20 @@ public record SearchResultItem(
     public static SearchResultItem fromChunk(String documentId, String chunkId, String title,
                                               String path, String content, double score,
                                               int chunkIndex) {
-        return new SearchResultItem(documentId, chunkId, title, path, content, score, chunkIndex);
+        return new SearchResultItem(documentId, chunkId, title, path, content, score, chunkIndex, null);
     }
 
     /**
      * 複製此搜尋結果並更新分數
      */
     public SearchResultItem withScore(double newScore) {
-        return new SearchResultItem(documentId, chunkId, title, path, content, newScore, chunkIndex);
+        return new SearchResultItem(documentId, chunkId, title, path, content, newScore, chunkIndex, matchedQuery);
+    }
+
+    /**
+     * 複製此搜尋結果並標記沿用自相似查詢
+     */
+    public SearchResultItem withMatchedQuery(String query) {
+        return new SearchResultItem(documentId, chunkId, title, path, content, score, chunkIndex, query);
     }
 }
@@ -0,0 +1,228 @@
+package io.github.samzhu.documentation.mcp.infrastructure.embedding;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * QueryEmbeddingBatcher 單元測試
+ * <p>
+ * 測試時間窗內的查詢合併、批次失敗改為逐筆嵌入、執行器拒絕與 Error 時不阻塞呼叫端、等待逾時與關閉。
+ * </p>
+ */
+@DisplayName("QueryEmbeddingBatcher 單元測試")
+class QueryEmbeddingBatcherTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(200);
+    private static final Duration TEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private ExecutorService executor;
+    private ExecutorService callers;
+    private QueryEmbeddingBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        callers = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        callers.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private QueryEmbeddingBatcher newBatcher(Function<List<String>, List<float[]>> embedder, Duration timeout,
+                                             ExecutorService batchExecutor) {
+        batcher = new QueryEmbeddingBatcher(embedder, WINDOW, 100, timeout, batchExecutor, new SimpleMeterRegistry());
+        return batcher;
+    }
+
+    /**
+     * 每個查詢文字的向量為其長度
+     */
+    private static List<float[]> lengths(List<String> texts) {
+        return texts.stream().map(text -> new float[]{text.length()}).toList();
+    }
+
+    @Test
+    @DisplayName("應合併為單一批次 - 當多個查詢於時間窗內到達")
+    void shouldCoalesceQueriesWithinWindow() throws Exception {
+        // Given
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        newBatcher(texts -> {
+            batches.add(texts);
+            return lengths(texts);
+        }, TEST_TIMEOUT, executor);
+
+        // When
+        Future<float[]> a = callers.submit(() -> batcher.embed("a"));
+        Future<float[]> bb = callers.submit(() -> batcher.embed("bb"));
+        Future<float[]> ccc = callers.submit(() -> batcher.embed("ccc"));
+
+        // Then
+        assertThat(a.get(5, TimeUnit.SECONDS)).containsExactly(1f);
+        assertThat(bb.get(5, TimeUnit.SECONDS)).containsExactly(2f);
+        assertThat(ccc.get(5, TimeUnit.SECONDS)).containsExactly(3f);
+        assertThat(batches).hasSize(1);
+        assertThat(batches.getFirst()).containsExactlyInAnyOrder("a", "bb", "ccc");
+    }
+
+    @Test
+    @DisplayName("應逐筆嵌入 - 當批次因單一查詢失敗時")
+    void shouldFallBackToSingleItems_whenBatchFails() throws Exception {
+        // Given - 含有 "bad" 的請求一律失敗
+        newBatcher(texts -> {
+            if (texts.contains("bad")) {
+                throw new IllegalArgumentException("invalid input");
+            }
+            return lengths(texts);
+        }, TEST_TIMEOUT, executor);
+
+        // When
+        Future<float[]> good = callers.submit(() -> batcher.embed("good"));
+        Future<float[]> bad = callers.submit(() -> batcher.embed("bad"));
+
+        // Then - 正常的查詢仍取得向量，只有問題查詢失敗
+        assertThat(good.get(5, TimeUnit.SECONDS)).containsExactly(4f);
+        assertThatThrownBy(() -> bad.get(5, TimeUnit.SECONDS))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("應結束呼叫端的等待 - 當嵌入函式拋出 Error 時")
+    void shouldFailCallers_whenEmbedderThrowsError() {
+        // Given
+        newBatcher(texts -> {
+            throw new StackOverflowError("boom");
+        }, TEST_TIMEOUT, executor);
+
+        // When / Then
+        assertTimeoutPreemptively(TEST_TIMEOUT, () ->
+                assertThatThrownBy(() -> batcher.embed("query"))
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasRootCauseInstanceOf(StackOverflowError.class));
+    }
+
+    @Test
+    @DisplayName("分派執行緒應持續運作 - 當執行器拒絕批次時")
+    void shouldKeepDispatching_whenExecutorRejects() {
+        // Given - 第一次送出被拒絕
+        RejectOnceExecutor rejecting = new RejectOnceExecutor(executor);
+        newBatcher(QueryEmbeddingBatcherTest::lengths, TEST_TIMEOUT, rejecting);
+
+        // When / Then
+        assertTimeoutPreemptively(TEST_TIMEOUT, () -> {
+            assertThatThrownBy(() -> batcher.embed("first"))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(batcher.embed("second")).containsExactly(6f);
+        });
+    }
+
+    @Test
+    @DisplayName("應拋出 IllegalStateException - 當等待超過逾時")
+    void shouldTimeOut_whenEmbeddingIsSlow() {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        newBatcher(texts -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return lengths(texts);
+        }, Duration.ofMillis(300), executor);
+
+        // When / Then
+        try {
+            assertThatThrownBy(() -> batcher.embed("slow"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Timed out");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("應拒絕新查詢 - 當合併器已關閉")
+    void shouldReject_whenClosed() {
+        // Given
+        newBatcher(QueryEmbeddingBatcherTest::lengths, TEST_TIMEOUT, executor);
+
+        // When
+        batcher.close();
+
+        // Then
+        assertThatThrownBy(() -> batcher.embed("query"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("closed");
+    }
+
+    /**
+     * 第一次 execute 拋出 RejectedExecutionException，之後委派給實際執行器
+     */
+    private static final class RejectOnceExecutor extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final AtomicBoolean rejected = new AtomicBoolean();
+
+        RejectOnceExecutor(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (rejected.compareAndSet(false, true)) {
+                throw new RejectedExecutionException("rejected for test");
+            }
+            delegate.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
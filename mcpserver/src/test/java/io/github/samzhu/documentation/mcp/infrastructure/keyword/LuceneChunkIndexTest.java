@@ -0,0 +1,317 @@
+package io.github.samzhu.documentation.mcp.infrastructure.keyword;
+
+import io.github.samzhu.documentation.mcp.repository.ChunkSearchHit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * LuceneChunkIndex 單元測試
+ * <p>
+ * 以模擬的 JdbcTemplate 提供區塊資料，測試索引建立、指紋未變時沿用、指紋變更時重建並替換、
+ * 跨版本搜尋同時載入、載入逾時與關閉。
+ * </p>
+ */
+@DisplayName("LuceneChunkIndex 單元測試")
+class LuceneChunkIndexTest {
+
+    private static final String V1 = "0HZXEQ5Y8JY5Z";
+    private static final String V2 = "0HZXEQ5Y8JY60";
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path rootDir;
+
+    private final Map<String, List<Chunk>> chunksByVersion = new ConcurrentHashMap<>();
+    private final AtomicInteger pageQueries = new AtomicInteger();
+    private JdbcTemplate jdbcTemplate;
+    private ExecutorService executor;
+    private LuceneChunkIndex index;
+
+    /**
+     * 模擬的區塊資料列
+     */
+    private record Chunk(String id, String documentId, int chunkIndex, String title, String path, String content) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        givenFingerprintQuery(null);
+        givenChunkPageQuery();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (index != null) {
+            index.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private LuceneChunkIndex newIndex(Duration loadTimeout) {
+        index = new LuceneChunkIndex(jdbcTemplate, rootDir, executor, loadTimeout);
+        return index;
+    }
+
+    @Test
+    @DisplayName("應由 PostgreSQL 建立索引並以 BM25 回傳命中區塊與摘要")
+    void shouldBuildIndexAndSearch() throws Exception {
+        // Given
+        chunksByVersion.put(V1, List.of(
+                chunk("c1", "Configuration", "Spring Boot externalized configuration with YAML files."),
+                chunk("c2", "Logging", "Configure the logging levels of your application.")));
+
+        // When
+        List<ChunkSearchHit> hits = newIndex(LOAD_TIMEOUT).search(List.of(V1), "yaml configuration", 10);
+
+        // Then
+        assertThat(hits).extracting(ChunkSearchHit::chunkId).first().isEqualTo("c1");
+        assertThat(hits.getFirst().documentId()).isEqualTo("doc-c1");
+        assertThat(hits.getFirst().content()).contains("**YAML**");
+        assertThat(indexDirs(V1)).containsExactly("2-c2");
+    }
+
+    @Test
+    @DisplayName("應回傳空結果 - 當查詢只有停用詞或未指定版本")
+    void shouldReturnEmpty_whenQueryHasNoTerms() {
+        // Given
+        chunksByVersion.put(V1, List.of(chunk("c1", "Title", "content")));
+        newIndex(LOAD_TIMEOUT);
+
+        // When / Then
+        assertThat(index.search(List.of(V1), "the", 10)).isEmpty();
+        assertThat(index.search(List.of(), "content", 10)).isEmpty();
+        assertThat(pageQueries).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("應沿用已開啟的索引 - 當區塊指紋未改變")
+    void shouldReuseIndex_whenFingerprintUnchanged() throws Exception {
+        // Given
+        chunksByVersion.put(V1, List.of(chunk("c1", "Title", "reactive streams")));
+        newIndex(LOAD_TIMEOUT).search(List.of(V1), "reactive", 10);
+
+        // When
+        index.refresh(V1).get(5, TimeUnit.SECONDS);
+        index.search(List.of(V1), "reactive", 10);
+
+        // Then - 只在第一次載入時讀取區塊
+        assertThat(pageQueries).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("應沿用磁碟上的索引 - 當重新啟動且指紋相同")
+    void shouldReuseIndexOnDisk_afterRestart() {
+        // Given
+        chunksByVersion.put(V1, List.of(chunk("c1", "Title", "reactive streams")));
+        newIndex(LOAD_TIMEOUT).search(List.of(V1), "reactive", 10);
+        index.close();
+
+        // When
+        List<ChunkSearchHit> hits = newIndex(LOAD_TIMEOUT).search(List.of(V1), "reactive", 10);
+
+        // Then
+        assertThat(hits).extracting(ChunkSearchHit::chunkId).containsExactly("c1");
+        assertThat(pageQueries).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("應重建並替換索引 - 當重新同步後區塊指紋改變")
+    void shouldRebuildAndSwap_whenFingerprintChanges() throws Exception {
+        // Given
+        chunksByVersion.put(V1, List.of(chunk("c1", "Title", "reactive streams")));
+        newIndex(LOAD_TIMEOUT);
+        assertThat(index.search(List.of(V1), "reactive", 10)).hasSize(1);
+
+        // When - 重新同步以新的區塊 ID 取代舊區塊
+        chunksByVersion.put(V1, List.of(
+                chunk("c7", "Title", "virtual threads"),
+                chunk("c8", "Title", "structured concurrency")));
+        index.refresh(V1).get(5, TimeUnit.SECONDS);
+
+        // Then - 搜尋改用新索引，舊指紋目錄已刪除
+        assertThat(index.search(List.of(V1), "reactive", 10)).isEmpty();
+        assertThat(index.search(List.of(V1), "virtual threads", 10))
+                .extracting(ChunkSearchHit::chunkId).containsExactly("c7");
+        assertThat(indexDirs(V1)).containsExactly("2-c8");
+    }
+
+    @Test
+    @DisplayName("應於搜尋後釋放 reader - 多次搜尋與替換交錯後仍可搜尋並正常關閉")
+    void shouldReleaseReaders_acrossSearchesAndSwaps() throws Exception {
+        // Given
+        chunksByVersion.put(V1, List.of(chunk("c1", "Title", "reactive streams")));
+        newIndex(LOAD_TIMEOUT);
+
+        // When - 多次搜尋與替換交錯
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 5; i++) {
+                assertThat(index.search(List.of(V1), "reactive", 10)).hasSize(1);
+            }
+            List<Chunk> chunks = new ArrayList<>(chunksByVersion.get(V1));
+            chunks.add(chunk("d" + round, "Title", "filler " + round));
+            chunksByVersion.put(V1, chunks);
+            index.refresh(V1).get(5, TimeUnit.SECONDS);
+        }
+
+        // Then
+        assertThat(index.search(List.of(V1), "reactive", 10)).hasSize(1);
+        index.close();
+        assertThatThrownBy(() -> index.search(List.of(V1), "reactive", 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("closed");
+    }
+
+    @Test
+    @DisplayName("應同時載入所有版本並合併排名 - 當跨版本搜尋")
+    void shouldLoadVersionsConcurrently_whenSearchingAcrossVersions() {
+        // Given - 兩個版本的指紋查詢必須同時進行才能通過屏障（逐一載入會逾時）
+        chunksByVersion.put(V1, List.of(chunk("a1", "Title", "reactive streams")));
+        chunksByVersion.put(V2, List.of(chunk("b1", "Title", "reactive programming")));
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        givenFingerprintQuery(() -> barrier.await(5, TimeUnit.SECONDS));
+
+        // When
+        List<ChunkSearchHit> hits = newIndex(LOAD_TIMEOUT).search(List.of(V1, V2), "reactive", 10);
+
+        // Then
+        assertThat(hits).extracting(ChunkSearchHit::chunkId).containsExactlyInAnyOrder("a1", "b1");
+    }
+
+    @Test
+    @DisplayName("應拋出 IllegalStateException 並於背景完成載入 - 當等待超過載入逾時")
+    void shouldTimeOut_andFinishLoadInBackground() throws Exception {
+        // Given
+        chunksByVersion.put(V1, List.of(chunk("c1", "Title", "reactive streams")));
+        CountDownLatch release = new CountDownLatch(1);
+        givenFingerprintQuery(() -> release.await(5, TimeUnit.SECONDS));
+        newIndex(Duration.ofMillis(100));
+
+        // When / Then
+        assertThatThrownBy(() -> index.search(List.of(V1), "reactive", 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Timed out");
+
+        release.countDown();
+        index.refresh(V1).get(5, TimeUnit.SECONDS);
+        assertThat(index.search(List.of(V1), "reactive", 10)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("應拒絕不合法的版本 ID - 避免路徑穿越")
+    void shouldRejectInvalidVersionId() {
+        // When / Then
+        assertThatThrownBy(() -> newIndex(LOAD_TIMEOUT).search(List.of("../escape"), "reactive", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ========== 測試輔助 ==========
+
+    private static Chunk chunk(String id, String title, String content) {
+        return new Chunk(id, "doc-" + id, 0, title, "/docs/" + id + ".md", content);
+    }
+
+    /**
+     * 目前版本目錄下的索引目錄名稱
+     */
+    private List<String> indexDirs(String versionId) throws Exception {
+        try (Stream<Path> children = Files.list(rootDir.resolve(versionId))) {
+            return children.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    /**
+     * 指紋查詢：以實際的 RowMapper 由模擬的 count / max(id) 計算指紋
+     *
+     * @param beforeQuery 回傳前執行的動作（模擬慢查詢或同步點），可為 null
+     */
+    @SuppressWarnings("unchecked")
+    private void givenFingerprintQuery(BlockingAction beforeQuery) {
+        doAnswer(invocation -> {
+            if (beforeQuery != null) {
+                beforeQuery.run();
+            }
+            String versionId = invocation.getArgument(2);
+            List<Chunk> chunks = chunksByVersion.getOrDefault(versionId, List.of());
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("chunk_count")).thenReturn((long) chunks.size());
+            when(rs.getString("max_id")).thenReturn(chunks.stream()
+                    .map(Chunk::id).max(Comparator.naturalOrder()).orElse(null));
+            return ((RowMapper<String>) invocation.getArgument(1)).mapRow(rs, 0);
+        }).when(jdbcTemplate).queryForObject(anyString(), any(RowMapper.class), any(Object[].class));
+    }
+
+    /**
+     * 區塊分頁查詢：依 (versionId, lastId, pageSize) 回傳 ID 大於 lastId 的區塊
+     */
+    @SuppressWarnings("unchecked")
+    private void givenChunkPageQuery() {
+        doAnswer(invocation -> {
+            pageQueries.incrementAndGet();
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            String versionId = invocation.getArgument(2);
+            String lastId = invocation.getArgument(3);
+            int pageSize = invocation.getArgument(4);
+            List<Chunk> page = chunksByVersion.getOrDefault(versionId, List.of()).stream()
+                    .filter(chunk -> chunk.id().compareTo(lastId) > 0)
+                    .sorted(Comparator.comparing(Chunk::id))
+                    .limit(pageSize)
+                    .toList();
+            List<Object> rows = new ArrayList<>(page.size());
+            for (int i = 0; i < page.size(); i++) {
+                rows.add(mapper.mapRow(resultSet(page.get(i)), i));
+            }
+            return rows;
+        }).when(jdbcTemplate).query(anyString(), any(RowMapper.class), any(Object[].class));
+    }
+
+    private static ResultSet resultSet(Chunk chunk) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("id")).thenReturn(chunk.id());
+        when(rs.getString("document_id")).thenReturn(chunk.documentId());
+        when(rs.getInt("chunk_index")).thenReturn(chunk.chunkIndex());
+        when(rs.getString("title")).thenReturn(chunk.title());
+        when(rs.getString("path")).thenReturn(chunk.path());
+        when(rs.getString("content")).thenReturn(chunk.content());
+        return rs;
+    }
+
+    /**
+     * 可拋出例外的同步動作
+     */
+    @FunctionalInterface
+    private interface BlockingAction {
+        void run() throws Exception;
+    }
+}
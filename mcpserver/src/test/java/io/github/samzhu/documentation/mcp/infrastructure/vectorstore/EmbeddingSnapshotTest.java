@@ -0,0 +1,162 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * EmbeddingSnapshot 單元測試
+ * <p>
+ * 測試快照檔寫入與映射、精確掃描的門檻、跨快照 topK 收集與檔案格式檢查。
+ * </p>
+ */
+@DisplayName("EmbeddingSnapshot 單元測試")
+class EmbeddingSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 寫入快照檔並映射（向量先正規化）
+     */
+    private EmbeddingSnapshot write(String name, List<String> chunkIds, List<float[]> vectors) throws IOException {
+        Path file = Files.createFile(tempDir.resolve(name + EmbeddingSnapshot.FILE_SUFFIX));
+        try (EmbeddingSnapshot.Writer writer = new EmbeddingSnapshot.Writer(file)) {
+            for (int i = 0; i < chunkIds.size(); i++) {
+                writer.add(chunkIds.get(i), VectorScorer.normalize(vectors.get(i)));
+            }
+            writer.finish();
+        }
+        return EmbeddingSnapshot.open(file, name);
+    }
+
+    private static List<String> chunkIds(List<ScoredChunk> results) {
+        return results.stream().map(ScoredChunk::chunkId).toList();
+    }
+
+    @Test
+    @DisplayName("應讀回維度、區塊數與區塊 ID - 當映射寫入的快照")
+    void shouldRoundTripHeaderAndChunkIds() throws IOException {
+        // When - 區塊 ID 長度不同，短的補 0
+        EmbeddingSnapshot snapshot = write("fp-1", List.of("0ABC", "0ABCDEF12", "é"),
+                List.of(new float[]{1f, 0f, 0f}, new float[]{0f, 1f, 0f}, new float[]{0f, 0f, 1f}));
+
+        // Then
+        assertThat(snapshot.fingerprint()).isEqualTo("fp-1");
+        assertThat(snapshot.dimensions()).isEqualTo(3);
+        assertThat(snapshot.count()).isEqualTo(3);
+        assertThat(snapshot.chunkId(0)).isEqualTo("0ABC");
+        assertThat(snapshot.chunkId(1)).isEqualTo("0ABCDEF12");
+        assertThat(snapshot.chunkId(2)).isEqualTo("é");
+    }
+
+    @Test
+    @DisplayName("應依餘弦相似度排序並排除低於門檻的區塊 - 當掃描快照")
+    void shouldScanWithThresholdAndOrderBySimilarity() throws IOException {
+        // Given
+        EmbeddingSnapshot snapshot = write("fp", List.of("same", "near", "orthogonal", "opposite"),
+                List.of(new float[]{2f, 0f}, new float[]{1f, 1f}, new float[]{0f, 1f}, new float[]{-1f, 0f}));
+        EmbeddingSnapshot.TopK collector = new EmbeddingSnapshot.TopK(10);
+
+        // When
+        snapshot.scan(VectorScorer.normalize(new float[]{1f, 0f}), 0.5, collector);
+
+        // Then
+        List<ScoredChunk> results = collector.results();
+        assertThat(chunkIds(results)).containsExactly("same", "near");
+        assertThat(results.get(0).similarity()).isCloseTo(1.0, within(1e-5));
+        assertThat(results.get(1).similarity()).isCloseTo(Math.sqrt(0.5), within(1e-5));
+    }
+
+    @Test
+    @DisplayName("應只保留相似度最高的 k 筆 - 當多個快照共用收集器")
+    void shouldKeepTopKAcrossSnapshots() throws IOException {
+        // Given
+        EmbeddingSnapshot first = write("a", List.of("a-0.1", "a-0.9"),
+                List.of(new float[]{0.1f, 1f}, new float[]{0.9f, 0.1f}));
+        EmbeddingSnapshot second = write("b", List.of("b-0.5", "b-1.0"),
+                List.of(new float[]{0.5f, 0.5f}, new float[]{1f, 0f}));
+        EmbeddingSnapshot.TopK collector = new EmbeddingSnapshot.TopK(2);
+        float[] query = VectorScorer.normalize(new float[]{1f, 0f});
+
+        // When
+        first.scan(query, 0, collector);
+        second.scan(query, 0, collector);
+
+        // Then - 各快照的區塊 ID 由其所屬快照解碼
+        assertThat(chunkIds(collector.results())).containsExactly("b-1.0", "a-0.9");
+    }
+
+    @Test
+    @DisplayName("應回傳空結果 - 當收集器未收到任何區塊")
+    void shouldReturnEmpty_whenNothingOffered() {
+        assertThat(new EmbeddingSnapshot.TopK(5).results()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("應可映射空快照 - 當版本沒有已嵌入的區塊")
+    void shouldOpenEmptySnapshot() throws IOException {
+        // When
+        EmbeddingSnapshot snapshot = write("empty", List.of(), List.of());
+        EmbeddingSnapshot.TopK collector = new EmbeddingSnapshot.TopK(5);
+        snapshot.scan(new float[]{1f}, 0, collector);
+
+        // Then
+        assertThat(snapshot.count()).isZero();
+        assertThat(collector.results()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("應拋出 IllegalStateException - 當加入維度不同的向量")
+    void shouldRejectMismatchedDimensions() throws IOException {
+        // Given
+        Path file = Files.createFile(tempDir.resolve("mixed" + EmbeddingSnapshot.FILE_SUFFIX));
+        try (EmbeddingSnapshot.Writer writer = new EmbeddingSnapshot.Writer(file)) {
+            writer.add("a", new float[]{1f, 0f});
+
+            // When / Then
+            assertThatThrownBy(() -> writer.add("b", new float[]{1f, 0f, 0f}))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("3 dimensions, expected 2");
+        }
+    }
+
+    @Test
+    @DisplayName("應拋出 IOException - 當檔案被截斷或格式不符")
+    void shouldRejectTruncatedOrForeignFiles() throws IOException {
+        // Given
+        EmbeddingSnapshot snapshot = write("valid", List.of("a", "b"),
+                List.of(new float[]{1f, 0f}, new float[]{0f, 1f}));
+        Path valid = tempDir.resolve("valid" + EmbeddingSnapshot.FILE_SUFFIX);
+        byte[] bytes = Files.readAllBytes(valid);
+        assertThat(snapshot.count()).isEqualTo(2);
+
+        Path truncated = tempDir.resolve("truncated" + EmbeddingSnapshot.FILE_SUFFIX);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        Path header = tempDir.resolve("header" + EmbeddingSnapshot.FILE_SUFFIX);
+        Files.write(header, new byte[10]);
+        Path foreign = tempDir.resolve("foreign" + EmbeddingSnapshot.FILE_SUFFIX);
+        Files.write(foreign, new byte[bytes.length]);
+
+        // When / Then
+        assertThatThrownBy(() -> EmbeddingSnapshot.open(truncated, "x"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("size mismatch");
+        assertThatThrownBy(() -> EmbeddingSnapshot.open(header, "x"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("truncated");
+        assertThatThrownBy(() -> EmbeddingSnapshot.open(foreign, "x"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Unsupported");
+    }
+}
@@ -0,0 +1,363 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+import io.github.samzhu.documentation.mcp.service.CatalogCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * LuceneVectorIndex 單元測試
+ * <p>
+ * 以模擬的 JdbcTemplate 提供已嵌入的區塊向量，測試 DOT_PRODUCT 分數換算為餘弦相似度、閾值截斷、
+ * 增量更新（只讀取新增區塊、刪除已移除區塊）、大量替換時整份重建、搜尋與替換並行時的參考計數，
+ * 以及跨版本查詢不觸發載入。
+ * </p>
+ */
+@DisplayName("LuceneVectorIndex 單元測試")
+class LuceneVectorIndexTest {
+
+    private static final String V1 = "0HZXEQ5Y8JY5Z";
+    private static final String V2 = "0HZXEQ5Y8JY60";
+    private static final long LARGE_BUDGET = 1L << 30;
+    private static final float[] QUERY = {2f, 0f};
+
+    @TempDir
+    Path rootDir;
+
+    /** 版本 → (區塊 ID → 向量)，依插入順序 */
+    private final Map<String, Map<String, float[]>> vectorsByVersion = new ConcurrentHashMap<>();
+    private final AtomicInteger pageQueries = new AtomicInteger();
+    private final List<List<String>> idQueries = new CopyOnWriteArrayList<>();
+    private final AtomicInteger fingerprintQueries = new AtomicInteger();
+    /** 指紋查詢於此等待（模擬進行中的更新） */
+    private volatile CountDownLatch fingerprintGate = new CountDownLatch(0);
+    private JdbcTemplate jdbcTemplate;
+    private ExecutorService executor;
+    private LuceneVectorIndex index;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        givenDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (index != null) {
+            index.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private LuceneVectorIndex newIndex(long memoryBudgetBytes) {
+        index = new LuceneVectorIndex(jdbcTemplate, mock(CatalogCache.class), rootDir, memoryBudgetBytes,
+                List.of(), 40, executor);
+        return index;
+    }
+
+    @Test
+    @DisplayName("應將 DOT_PRODUCT 分數換算為餘弦相似度（2 * score - 1）並依相似度排序")
+    void shouldMapScoreToCosineSimilarity() throws Exception {
+        // Given
+        givenVersion(V1, Map.of(
+                "a", new float[]{1f, 0f},
+                "b", new float[]{0f, 1f},
+                "c", new float[]{-1f, 0f},
+                "d", new float[]{0.6f, 0.8f}));
+        newIndex(LARGE_BUDGET);
+
+        // When
+        List<ScoredChunk> results = awaitResident(V1, -1.0);
+
+        // Then
+        assertThat(results).extracting(ScoredChunk::chunkId).containsExactly("a", "d", "b", "c");
+        assertThat(results.get(0).similarity()).isCloseTo(1.0, within(1e-5));
+        assertThat(results.get(1).similarity()).isCloseTo(0.6, within(1e-5));
+        assertThat(results.get(2).similarity()).isCloseTo(0.0, within(1e-5));
+        assertThat(results.get(3).similarity()).isCloseTo(-1.0, within(1e-5));
+    }
+
+    @Test
+    @DisplayName("應捨棄低於閾值的區塊")
+    void shouldCutOffBelowThreshold() throws Exception {
+        // Given
+        givenVersion(V1, Map.of(
+                "a", new float[]{1f, 0f},
+                "b", new float[]{0f, 1f},
+                "d", new float[]{0.6f, 0.8f}));
+        newIndex(LARGE_BUDGET);
+        awaitResident(V1, -1.0);
+
+        // When
+        List<ScoredChunk> results = index.search(List.of(V1), QUERY, 10, 0.5);
+
+        // Then
+        assertThat(results).extracting(ScoredChunk::chunkId).containsExactly("a", "d");
+    }
+
+    @Test
+    @DisplayName("應只讀取新增區塊並刪除已移除區塊 - 當少量區塊變更")
+    void shouldApplyIncrementalDiff() throws Exception {
+        // Given
+        givenVersion(V1, Map.of(
+                "a", new float[]{1f, 0f},
+                "b", new float[]{0f, 1f},
+                "c", new float[]{-1f, 0f},
+                "d", new float[]{0.6f, 0.8f}));
+        newIndex(LARGE_BUDGET);
+        awaitResident(V1, -1.0);
+
+        // When - 移除 b、新增 e（1/4 移除，低於整份重建的比例）
+        givenVersion(V1, Map.of(
+                "a", new float[]{1f, 0f},
+                "c", new float[]{-1f, 0f},
+                "d", new float[]{0.6f, 0.8f},
+                "e", new float[]{0.8f, -0.6f}));
+        index.refresh(V1).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(pageQueries).hasValue(1);
+        assertThat(idQueries).containsExactly(List.of("e"));
+        assertThat(index.search(List.of(V1), QUERY, 10, -1.0))
+                .extracting(ScoredChunk::chunkId).containsExactly("a", "e", "d", "c");
+    }
+
+    @Test
+    @DisplayName("應整份重建 - 當大部分區塊被替換（重新同步）")
+    void shouldRebuild_whenMostChunksReplaced() throws Exception {
+        // Given
+        givenVersion(V1, Map.of(
+                "a", new float[]{1f, 0f},
+                "b", new float[]{0f, 1f},
+                "c", new float[]{-1f, 0f}));
+        newIndex(LARGE_BUDGET);
+        awaitResident(V1, -1.0);
+
+        // When
+        givenVersion(V1, Map.of(
+                "x", new float[]{0f, -1f},
+                "y", new float[]{1f, 0f}));
+        index.refresh(V1).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(pageQueries).hasValue(2);
+        assertThat(idQueries).isEmpty();
+        assertThat(index.search(List.of(V1), QUERY, 10, -1.0))
+                .extracting(ScoredChunk::chunkId).containsExactly("y", "x");
+    }
+
+    @Test
+    @DisplayName("搜尋應不受並行替換影響 - 被替換的 reader 於進行中的搜尋結束後才關閉")
+    void shouldKeepSearchingWhileSwapping() throws Exception {
+        // Given
+        givenVersion(V1, Map.of("a", new float[]{1f, 0f}, "b", new float[]{0f, 1f}));
+        newIndex(LARGE_BUDGET);
+        awaitResident(V1, -1.0);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Integer>> searchers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            searchers.add(executor.submit(() -> {
+                int searches = 0;
+                while (running.get()) {
+                    List<ScoredChunk> results = index.search(List.of(V1), QUERY, 10, -1.0);
+                    assertThat(results).isNotNull().isNotEmpty();
+                    searches++;
+                }
+                return searches;
+            }));
+        }
+
+        // When - 反覆增量更新並替換 reader
+        for (int round = 0; round < 10; round++) {
+            Map<String, float[]> vectors = new LinkedHashMap<>(vectorsByVersion.get(V1));
+            vectors.put("r" + round, new float[]{0.5f, 0.5f});
+            givenVersion(V1, vectors);
+            index.refresh(V1).get(5, TimeUnit.SECONDS);
+        }
+        running.set(false);
+
+        // Then - 沒有搜尋讀到已關閉的 reader
+        for (Future<Integer> searcher : searchers) {
+            assertThat(searcher.get(5, TimeUnit.SECONDS)).isPositive();
+        }
+        assertThat(index.search(List.of(V1), QUERY, 20, -1.0)).hasSize(12);
+    }
+
+    @Test
+    @DisplayName("應合併排隊中的更新 - 當更新進行中收到多次通知")
+    void shouldCoalesceQueuedRefreshes() throws Exception {
+        // Given - 版本已常駐，下一次更新停在指紋查詢
+        givenVersion(V1, Map.of("a", new float[]{1f, 0f}, "b", new float[]{0f, 1f}));
+        newIndex(LARGE_BUDGET);
+        awaitResident(V1, -1.0);
+        int queriesBefore = fingerprintQueries.get();
+        CountDownLatch gate = new CountDownLatch(1);
+        fingerprintGate = gate;
+        index.refresh(V1);
+        while (fingerprintQueries.get() == queriesBefore) {
+            Thread.sleep(10);
+        }
+
+        // When - 補齊嵌入逐批通知
+        givenVersion(V1, Map.of("a", new float[]{1f, 0f}, "b", new float[]{0f, 1f}, "c", new float[]{0.6f, 0.8f}));
+        List<CompletableFuture<?>> followUps = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followUps.add(index.refresh(V1));
+        }
+        gate.countDown();
+        followUps.getLast().get(5, TimeUnit.SECONDS);
+
+        // Then - 進行中的更新之後只再更新一次
+        assertThat(followUps).allSatisfy(future -> assertThat(future).isSameAs(followUps.getFirst()));
+        assertThat(fingerprintQueries).hasValue(queriesBefore + 2);
+        assertThat(index.search(List.of(V1), QUERY, 10, -1.0))
+                .extracting(ScoredChunk::chunkId).containsExactly("a", "c", "b");
+    }
+
+    @Test
+    @DisplayName("跨版本查詢不應觸發載入 - 只在所有版本皆已常駐時於程序內搜尋")
+    void shouldNotLoad_fromMultiVersionQuery() throws Exception {
+        // Given
+        givenVersion(V1, Map.of("a", new float[]{1f, 0f}));
+        givenVersion(V2, Map.of("b", new float[]{0f, 1f}));
+        newIndex(LARGE_BUDGET);
+
+        // When / Then - 未常駐時回傳 null 且不載入
+        assertThat(index.search(List.of(V1, V2), QUERY, 10, -1.0)).isNull();
+        verify(jdbcTemplate, after(200).never()).queryForObject(anyString(), any(RowMapper.class), any(Object[].class));
+
+        // When / Then - 兩個版本由單一版本查詢載入後，跨版本查詢於程序內合併排名
+        awaitResident(V1, -1.0);
+        awaitResident(V2, -1.0);
+        assertThat(index.search(List.of(V1, V2), QUERY, 10, -1.0))
+                .extracting(ScoredChunk::chunkId).containsExactly("a", "b");
+    }
+
+    // ========== 測試輔助 ==========
+
+    private void givenVersion(String versionId, Map<String, float[]> vectors) {
+        vectorsByVersion.put(versionId, new LinkedHashMap<>(vectors));
+    }
+
+    /**
+     * 以單一版本查詢觸發載入，等待版本常駐後回傳搜尋結果
+     */
+    private List<ScoredChunk> awaitResident(String versionId, double threshold) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            List<ScoredChunk> results = index.search(List.of(versionId), QUERY, 10, threshold);
+            if (results != null) {
+                return results;
+            }
+            assertThat(System.nanoTime()).as("version %s loaded in time", versionId).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 模擬資料庫：指紋（以實際的 RowMapper 計算）、已嵌入區塊 ID、分頁讀取與依 ID 讀取向量
+     */
+    @SuppressWarnings("unchecked")
+    private void givenDatabase() {
+        doAnswer(invocation -> {
+            fingerprintQueries.incrementAndGet();
+            assertThat(fingerprintGate.await(5, TimeUnit.SECONDS)).isTrue();
+            Map<String, float[]> vectors = vectors(invocation.getArgument(2));
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("chunk_count")).thenReturn((long) vectors.size());
+            when(rs.getString("max_id")).thenReturn(vectors.keySet().stream()
+                    .max(Comparator.naturalOrder()).orElse(null));
+            return ((RowMapper<String>) invocation.getArgument(1)).mapRow(rs, 0);
+        }).when(jdbcTemplate).queryForObject(anyString(), any(RowMapper.class), any(Object[].class));
+
+        doAnswer(invocation -> List.copyOf(vectors(invocation.getArgument(2)).keySet()))
+                .when(jdbcTemplate).queryForList(anyString(), eq(String.class), any(Object[].class));
+
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            Map<String, float[]> vectors = vectors(invocation.getArgument(2));
+            List<String> ids;
+            if (sql.contains("ANY(?)")) {
+                ids = List.of((String[]) invocation.getArgument(3));
+                idQueries.add(ids);
+            } else {
+                pageQueries.incrementAndGet();
+                String lastId = invocation.getArgument(3);
+                int pageSize = invocation.getArgument(4);
+                ids = vectors.keySet().stream()
+                        .filter(id -> id.compareTo(lastId) > 0)
+                        .sorted()
+                        .limit(pageSize)
+                        .toList();
+            }
+            List<Object> rows = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                if (vectors.containsKey(id)) {
+                    rows.add(mapper.mapRow(resultSet(id, vectors.get(id)), rows.size()));
+                }
+            }
+            return rows;
+        }).when(jdbcTemplate).query(anyString(), any(RowMapper.class), any(Object[].class));
+    }
+
+    private Map<String, float[]> vectors(String versionId) {
+        return vectorsByVersion.getOrDefault(versionId, Map.of());
+    }
+
+    private static ResultSet resultSet(String id, float[] vector) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("id")).thenReturn(id);
+        when(rs.getBytes("embedding")).thenReturn(encode(vector));
+        return rs;
+    }
+
+    /**
+     * 編碼為 vector_send 的二進位格式（int16 維度、int16 保留、big-endian float4）
+     */
+    private static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Short.BYTES + vector.length * Float.BYTES);
+        buffer.putShort((short) vector.length).putShort((short) 0);
+        for (float value : vector) {
+            buffer.putFloat(value);
+        }
+        return buffer.array();
+    }
+}
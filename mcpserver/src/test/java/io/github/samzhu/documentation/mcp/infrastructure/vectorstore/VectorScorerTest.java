@@ -0,0 +1,120 @@
+package io.github.samzhu.documentation.mcp.infrastructure.vectorstore;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * VectorScorer 單元測試
+ * <p>
+ * 測試正規化、Vector API（SIMD）與純量迴圈的內積一致性（含非 lane 數倍數的維度與未對齊位移）。
+ * </p>
+ */
+@DisplayName("VectorScorer 單元測試")
+class VectorScorerTest {
+
+    private static final Random RANDOM = new Random(42);
+
+    /**
+     * 將向量以快照格式（little-endian float32）寫入記憶體區段的指定位移
+     */
+    private static MemorySegment segmentOf(float[] vector, long offset, Arena arena) {
+        MemorySegment segment = arena.allocate(offset + (long) vector.length * Float.BYTES);
+        for (int i = 0; i < vector.length; i++) {
+            segment.set(VectorScorer.FLOAT_LE, offset + (long) i * Float.BYTES, vector[i]);
+        }
+        return segment;
+    }
+
+    private static float[] randomUnitVector(int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) RANDOM.nextGaussian();
+        }
+        return VectorScorer.normalize(vector);
+    }
+
+    @Test
+    @DisplayName("應產生單位向量 - 當正規化非零向量")
+    void shouldNormalizeToUnitLength() {
+        // When
+        float[] unit = VectorScorer.normalize(new float[]{3f, 4f});
+
+        // Then
+        assertThat(unit).containsExactly(0.6f, 0.8f);
+    }
+
+    @Test
+    @DisplayName("應回傳 null - 當正規化零向量或 null")
+    void shouldReturnNull_whenZeroOrNullVector() {
+        assertThat(VectorScorer.normalize(new float[]{0f, 0f, 0f})).isNull();
+        assertThat(VectorScorer.normalize(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("純量迴圈應計算內積 - 當向量位於區段中的位移")
+    void shouldComputeScalarDotAtOffset() {
+        // Given
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = segmentOf(new float[]{1f, 2f, 3f}, 12, arena);
+
+            // When
+            float dot = VectorScorer.scalarDot(new float[]{4f, 5f, 6f}, segment, 12);
+
+            // Then
+            assertThat(dot).isEqualTo(32f);
+        }
+    }
+
+    @Test
+    @DisplayName("測試 JVM 應載入 Vector API - 確保 SIMD 路徑被測試涵蓋")
+    void shouldLoadVectorApiModuleInTests() {
+        assertThat(VectorScorer.SIMD).isTrue();
+    }
+
+    @Test
+    @DisplayName("SIMD 與純量迴圈結果應一致 - 當維度不是 lane 數倍數且位移未對齊")
+    void shouldMatchScalarDot_forVariousDimensionsAndOffsets() {
+        int[] dimensionsToTest = {1, 3, 7, 8, 15, 16, 17, 33, 768, 1536, 3072};
+        long[] offsets = {0, 4, 6, 64};
+        try (Arena arena = Arena.ofConfined()) {
+            for (int dimensions : dimensionsToTest) {
+                for (long offset : offsets) {
+                    // Given
+                    float[] query = randomUnitVector(dimensions);
+                    MemorySegment segment = segmentOf(randomUnitVector(dimensions), offset, arena);
+
+                    // When
+                    float simd = SimdVectorScorer.dot(query, segment, offset);
+                    float scalar = VectorScorer.scalarDot(query, segment, offset);
+
+                    // Then - 加總順序不同，只允許浮點捨入誤差
+                    assertThat(simd)
+                            .as("dimensions=%d, offset=%d", dimensions, offset)
+                            .isCloseTo(scalar, within(1e-5f));
+                    assertThat(VectorScorer.dot(query, segment, offset)).isCloseTo(scalar, within(1e-5f));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("單位向量與自身的內積應為 1 - 兩種路徑皆同")
+    void shouldReturnOne_forSameUnitVector() {
+        // Given
+        float[] vector = randomUnitVector(1536);
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = segmentOf(vector, 0, arena);
+
+            // When / Then
+            assertThat(SimdVectorScorer.dot(vector, segment, 0)).isCloseTo(1f, within(1e-5f));
+            assertThat(VectorScorer.scalarDot(vector, segment, 0)).isCloseTo(1f, within(1e-5f));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.samzhu.documentation.mcp.service;
+
+import io.github.samzhu.documentation.mcp.service.dto.SearchResultItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SimilarQueryIndex 單元測試
+ * <p>
+ * 測試相似度閾值、搜尋參數比對、版本集合隔離、容量淘汰、存活時間與版本失效。
+ * </p>
+ */
+@DisplayName("SimilarQueryIndex 單元測試")
+class SimilarQueryIndexTest {
+
+    private static final List<String> VERSIONS = List.of("v1");
+    private static final List<SearchResultItem> RESULTS =
+            List.of(SearchResultItem.fromChunk("doc-1", "chunk-1", "Title", "/path", "content", 0.9, 0));
+
+    private SimilarQueryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SimilarQueryIndex(0.95, 4, Duration.ofMinutes(5));
+    }
+
+    private static SearchResultCache.Key key(List<String> versionIds, String query, int limit) {
+        return new SearchResultCache.Key(versionIds, 0, query, "semantic", limit, 0, 0.5);
+    }
+
+    @Test
+    @DisplayName("應沿用結果 - 當查詢向量方向相近（與長度無關）")
+    void shouldMatch_whenCosineSimilarityAboveThreshold() {
+        // Given
+        index.add(key(VERSIONS, "spring boot config", 10), new float[]{1f, 0f, 0f}, RESULTS);
+
+        // When - 同方向但長度不同，加上微小偏移
+        SimilarQueryIndex.Match match = index.find(key(VERSIONS, "configure spring boot", 10),
+                new float[]{3f, 0.1f, 0f});
+
+        // Then
+        assertThat(match).isNotNull();
+        assertThat(match.query()).isEqualTo("spring boot config");
+        assertThat(match.similarity()).isGreaterThan(0.99);
+        assertThat(match.results()).isSameAs(RESULTS);
+    }
+
+    @Test
+    @DisplayName("不應沿用結果 - 當相似度低於閾值")
+    void shouldNotMatch_whenBelowThreshold() {
+        // Given
+        index.add(key(VERSIONS, "a", 10), new float[]{1f, 0f}, RESULTS);
+
+        // When / Then - 夾角約 45 度，餘弦相似度約 0.71
+        assertThat(index.find(key(VERSIONS, "b", 10), new float[]{1f, 1f})).isNull();
+    }
+
+    @Test
+    @DisplayName("應回傳最相似的項目 - 當多個查詢超過閾值")
+    void shouldReturnBestMatch() {
+        // Given
+        index.add(key(VERSIONS, "near", 10), new float[]{1f, 0.2f}, RESULTS);
+        index.add(key(VERSIONS, "nearest", 10), new float[]{1f, 0.01f}, List.of());
+
+        // When
+        SimilarQueryIndex.Match match = index.find(key(VERSIONS, "q", 10), new float[]{1f, 0f});
+
+        // Then
+        assertThat(match.query()).isEqualTo("nearest");
+    }
+
+    @Test
+    @DisplayName("不應沿用結果 - 當搜尋參數或版本集合不同")
+    void shouldNotMatch_whenParametersOrVersionsDiffer() {
+        // Given
+        index.add(key(VERSIONS, "a", 10), new float[]{1f, 0f}, RESULTS);
+
+        // When / Then
+        assertThat(index.find(key(VERSIONS, "b", 20), new float[]{1f, 0f})).isNull();
+        assertThat(index.find(key(List.of("v2"), "b", 10), new float[]{1f, 0f})).isNull();
+        assertThat(index.find(new SearchResultCache.Key(VERSIONS, 1, "b", "semantic", 10, 0, 0.5),
+                new float[]{1f, 0f})).isNull();
+        assertThat(index.find(key(VERSIONS, "b", 10), new float[]{1f, 0f, 0f})).isNull();
+    }
+
+    @Test
+    @DisplayName("應移除最舊的項目 - 當超過每個版本集合的容量")
+    void shouldEvictOldest_whenCapacityExceeded() {
+        // Given - 容量 4，加入 5 個互相正交的查詢
+        for (int i = 0; i < 5; i++) {
+            float[] vector = new float[5];
+            vector[i] = 1f;
+            index.add(key(VERSIONS, "q" + i, 10), vector, RESULTS);
+        }
+
+        // When / Then
+        assertThat(index.find(key(VERSIONS, "x", 10), new float[]{1f, 0f, 0f, 0f, 0f})).isNull();
+        assertThat(index.find(key(VERSIONS, "x", 10), new float[]{0f, 0f, 0f, 0f, 1f}).query()).isEqualTo("q4");
+    }
+
+    @Test
+    @DisplayName("不應沿用結果 - 當項目超過存活時間")
+    void shouldNotMatch_whenExpired() throws InterruptedException {
+        // Given
+        SimilarQueryIndex shortLived = new SimilarQueryIndex(0.95, 4, Duration.ofMillis(20));
+        shortLived.add(key(VERSIONS, "a", 10), new float[]{1f, 0f}, RESULTS);
+
+        // When
+        Thread.sleep(50);
+
+        // Then
+        assertThat(shortLived.find(key(VERSIONS, "a", 10), new float[]{1f, 0f})).isNull();
+    }
+
+    @Test
+    @DisplayName("應移除包含該版本的版本集合 - 當版本失效")
+    void shouldInvalidateVersionSetsContainingVersion() {
+        // Given
+        List<String> crossLibrary = List.of("v1", "v2");
+        index.add(key(crossLibrary, "a", 10), new float[]{1f, 0f}, RESULTS);
+        index.add(key(List.of("v2"), "a", 10), new float[]{1f, 0f}, RESULTS);
+
+        // When
+        index.invalidate("v1");
+
+        // Then
+        assertThat(index.find(key(crossLibrary, "a", 10), new float[]{1f, 0f})).isNull();
+        assertThat(index.find(key(List.of("v2"), "a", 10), new float[]{1f, 0f})).isNotNull();
+    }
+
+    @Test
+    @DisplayName("零向量不應命中 - 避免除以零")
+    void shouldNotMatchZeroVector() {
+        // Given
+        index.add(key(VERSIONS, "a", 10), new float[]{1f, 0f}, RESULTS);
+
+        // When / Then
+        assertThat(index.find(key(VERSIONS, "b", 10), new float[]{0f, 0f})).isNull();
+    }
+}